@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.director;
+
+/**
+ * Gives the benchmarks a {@link PlannerSession} that is used with a
+ * {@link Projector} directly, without a {@link SimplePlanner}.
+ */
+public final class PlannerSessionAccess {
+
+	private PlannerSessionAccess() {
+	}
+
+	public static PlannerSession createSession() {
+		return new PlannerSession(null);
+	}
+}
@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.director;
+
+import java.util.Set;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+
+/**
+ * Gives the benchmarks access to the package-private state of the
+ * {@link Slicer}, which the director sources are compiled together with.
+ */
+public final class SlicerAccess {
+
+	private SlicerAccess() {
+	}
+
+	public static Set<IInstallableUnit> getNonGreedyIUs(Slicer slicer) {
+		return slicer.getNonGreedyIUs();
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.artifact.repository.Activator;
+import org.eclipse.equinox.internal.p2.artifact.repository.simple.SimpleArtifactRepository;
+import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
+import org.eclipse.equinox.p2.core.ProvisionException;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.repository.IRepository;
+import org.eclipse.equinox.p2.repository.artifact.*;
+import org.openjdk.jmh.annotations.*;
+import org.osgi.framework.BundleException;
+
+/**
+ * Reading artifacts from a local {@link SimpleArtifactRepository} through
+ * {@link SimpleArtifactRepository#getArtifacts(IArtifactRequest[], IProgressMonitor)},
+ * either one after another, which is what p2 does for local repositories, or
+ * through the download jobs that are used for remote repositories.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArtifactRepositoryBenchmark {
+
+	@Param({"200"})
+	public int artifacts;
+
+	@Param({"16384", "1048576"})
+	public int artifactSize;
+
+	@Param({"false", "true"})
+	public boolean threaded;
+
+	private EmbeddedFramework framework;
+	private Path directory;
+	private SimpleArtifactRepository repository;
+	private IArtifactKey[] keys;
+
+	/**
+	 * Reads an artifact and discards its content.
+	 */
+	private static final class ReadRequest implements IArtifactRequest {
+		private final IArtifactKey key;
+		private IStatus result;
+
+		ReadRequest(IArtifactKey key) {
+			this.key = key;
+		}
+
+		@Override
+		public IArtifactKey getArtifactKey() {
+			return key;
+		}
+
+		@Override
+		public void perform(IArtifactRepository sourceRepository, IProgressMonitor monitor) {
+			IArtifactDescriptor descriptor = sourceRepository.getArtifactDescriptors(key)[0];
+			result = sourceRepository.getArtifact(descriptor, OutputStream.nullOutputStream(), monitor);
+		}
+
+		@Override
+		public IStatus getResult() {
+			return result;
+		}
+	}
+
+	@Setup
+	public void setUp() throws IOException, ProvisionException, BundleException {
+		// local repositories are locked through the location service of the framework
+		framework = EmbeddedFramework.start(new Activator());
+		// there is no transport without an agent, so the download jobs must not look for mirrors
+		System.setProperty(SimpleArtifactRepository.PROPERTY_ECLIPSE_P2_MIRRORS, Boolean.FALSE.toString());
+		// the checksum verifiers are contributed through the extension registry, which is not available here
+		System.setProperty(SimpleArtifactRepository.PROPERTY_ECLIPSE_P2_CHECKSUMS_DISABLE, Boolean.TRUE.toString());
+		directory = Files.createTempDirectory("p2-artifact-benchmark");
+		Map<String, String> properties = new HashMap<>();
+		properties.put(IRepository.PROP_COMPRESSED, Boolean.FALSE.toString());
+		properties.put(SimpleArtifactRepository.PROP_FORCE_THREADING, Boolean.toString(threaded));
+		repository = new SimpleArtifactRepository(null, "benchmark", directory.toUri(), properties);
+
+		byte[] content = new byte[artifactSize];
+		new Random(42).nextBytes(content);
+		keys = new IArtifactKey[artifacts];
+		for (int i = 0; i < artifacts; i++) {
+			keys[i] = new ArtifactKey(SyntheticRepository.NAMESPACE_OSGI_BUNDLE, SyntheticRepository.bundleId(i), Version.createOSGi(1, 0, 0));
+			try (OutputStream output = repository.getOutputStream(repository.createArtifactDescriptor(keys[i]))) {
+				output.write(content);
+			}
+		}
+		IStatus status = getArtifacts();
+		if (!status.isOK()) {
+			throw new IllegalStateException(status.toString());
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException, BundleException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+		framework.close();
+	}
+
+	@Benchmark
+	public IStatus getArtifacts() {
+		IArtifactRequest[] requests = new IArtifactRequest[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			requests[i] = new ReadRequest(keys[i]);
+		}
+		return repository.getArtifacts(requests, new NullProgressMonitor());
+	}
+}
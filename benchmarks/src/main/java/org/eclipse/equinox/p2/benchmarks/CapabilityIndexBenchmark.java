@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionFactory;
+import org.eclipse.equinox.internal.p2.metadata.index.CapabilityIndex;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.IRequirement;
+import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Building the capability index of a repository and looking up the candidates
+ * of requirements in it, as the slicer and the projector do for every
+ * requirement they process.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CapabilityIndexBenchmark {
+
+	@Param({"1000", "10000"})
+	public int bundles;
+
+	private List<IInstallableUnit> units;
+	private IMatchExpression<IInstallableUnit>[] matches;
+	private CapabilityIndex index;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		SyntheticRepository repository = SyntheticRepository.create(bundles, 42);
+		units = repository.getUnits();
+		index = new CapabilityIndex(units.iterator());
+		// a fixed sample keeps the time per operation comparable between sizes
+		List<IRequirement> requirements = repository.getRequirements();
+		matches = new IMatchExpression[Math.min(1000, requirements.size())];
+		for (int i = 0; i < matches.length; i++) {
+			matches[i] = requirements.get(i * requirements.size() / matches.length).getMatches();
+		}
+	}
+
+	@Benchmark
+	public CapabilityIndex build() {
+		return new CapabilityIndex(units.iterator());
+	}
+
+	/**
+	 * Looks up and filters the candidates of a thousand requirements.
+	 */
+	@Benchmark
+	public int candidates() {
+		int count = 0;
+		for (IMatchExpression<IInstallableUnit> match : matches) {
+			for (Iterator<IInstallableUnit> candidates = index.getCandidates(match.createContext(), ExpressionFactory.THIS, match); candidates.hasNext();) {
+				if (match.isMatch(candidates.next())) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.launch.Framework;
+import org.osgi.framework.launch.FrameworkFactory;
+
+/**
+ * An Equinox framework for the parts of p2 that need the services of a
+ * framework, such as the location service used to lock local artifact
+ * repositories.
+ * <p>
+ * The p2 classes are not installed as bundles, they are loaded from the class
+ * path. The activators that the measured code relies on are started with the
+ * context of the system bundle instead.
+ * </p>
+ */
+final class EmbeddedFramework implements AutoCloseable {
+	private final Framework framework;
+	private final Path storage;
+	private final List<BundleActivator> activators = new ArrayList<>();
+
+	private EmbeddedFramework(Framework framework, Path storage) {
+		this.framework = framework;
+		this.storage = storage;
+	}
+
+	static EmbeddedFramework start(BundleActivator... activators) throws IOException, BundleException {
+		Path storage = Files.createTempDirectory("p2-benchmark-framework");
+		Map<String, String> configuration = new HashMap<>();
+		configuration.put("org.osgi.framework.storage", storage.toString());
+		configuration.put("org.osgi.framework.storage.clean", "onFirstInit");
+		configuration.put("osgi.instance.area", storage.resolve("instance").toUri().toString());
+		configuration.put("osgi.configuration.area", storage.resolve("configuration").toUri().toString());
+		FrameworkFactory factory = ServiceLoader.load(FrameworkFactory.class).iterator().next();
+		EmbeddedFramework result = new EmbeddedFramework(factory.newFramework(configuration), storage);
+		result.framework.start();
+		for (BundleActivator activator : activators) {
+			try {
+				activator.start(result.framework.getBundleContext());
+			} catch (Exception e) {
+				result.close();
+				throw new BundleException("Failed to start " + activator.getClass().getName(), e);
+			}
+			result.activators.add(activator);
+		}
+		return result;
+	}
+
+	BundleContext getBundleContext() {
+		return framework.getBundleContext();
+	}
+
+	@Override
+	public void close() throws BundleException, IOException {
+		for (ListIterator<BundleActivator> iterator = activators.listIterator(activators.size()); iterator.hasPrevious();) {
+			try {
+				iterator.previous().stop(framework.getBundleContext());
+			} catch (Exception e) {
+				// the framework is stopped anyway
+			}
+		}
+		framework.stop();
+		try {
+			framework.waitForStop(10_000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		try (Stream<Path> files = Files.walk(storage)) {
+			files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+}
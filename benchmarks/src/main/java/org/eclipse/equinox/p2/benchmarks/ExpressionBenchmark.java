@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.internal.p2.metadata.expression.LDAPFilter;
+import org.eclipse.equinox.internal.p2.metadata.expression.MemberProvider;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitDescription;
+import org.eclipse.equinox.p2.metadata.expression.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the tree walking evaluation of filters and requirement matches with
+ * their compiled form.
+ * <p>
+ * The interpreted variants evaluate the expressions the way they were
+ * evaluated before they were compiled: through an evaluation context and, for
+ * filters, through a case insensitive copy of the properties.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpressionBenchmark {
+
+	/**
+	 * Filters as they are found on the units of an Eclipse SDK repository.
+	 */
+	@Param({"(osgi.os=win32)", //
+			"(&(osgi.os=linux)(osgi.ws=gtk)(osgi.arch=x86_64))", //
+			"(&(osgi.os=macosx)(osgi.ws=cocoa)(|(osgi.arch=x86_64)(osgi.arch=aarch64)))", //
+			"(org.eclipse.update.install.features=true)", //
+			"(&(!(osgi.os=macosx))(osgi.nl=de*))"})
+	public String filter;
+
+	private Map<String, String> properties;
+	private IInstallableUnit selectionContext;
+	private LDAPFilter ldapFilter;
+	private IMatchExpression<Object> interpretedFilter;
+	private IMatchExpression<IInstallableUnit> unitFilter;
+	private IMatchExpression<IInstallableUnit> requirement;
+	private IInstallableUnit[] candidates;
+
+	@Setup
+	public void setUp() {
+		Map<String, String> environment = new HashMap<>();
+		environment.put("osgi.os", "linux");
+		environment.put("osgi.ws", "gtk");
+		environment.put("osgi.arch", "x86_64");
+		environment.put("osgi.nl", "de_DE");
+		environment.put("org.eclipse.update.install.features", "true");
+		selectionContext = InstallableUnit.contextIU(environment);
+		properties = selectionContext.getProperties();
+
+		ldapFilter = (LDAPFilter) ExpressionUtil.parseLDAP(filter);
+		interpretedFilter = ExpressionUtil.getFactory().matchExpression(ldapFilter.operand);
+		unitFilter = InstallableUnit.parseFilter(filter);
+
+		requirement = MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "org.eclipse.core.runtime",
+				new VersionRange("[3.20.0,4.0.0)"), null, false, false).getMatches();
+		candidates = new IInstallableUnit[64];
+		for (int i = 0; i < candidates.length; i++) {
+			InstallableUnitDescription description = new InstallableUnitDescription();
+			description.setId(i % 8 == 0 ? "org.eclipse.core.runtime" : "org.eclipse.bundle" + i);
+			description.setVersion(Version.createOSGi(3, 18 + i % 8, i));
+			description.addProvidedCapabilities(List.of(
+					MetadataFactory.createProvidedCapability(IInstallableUnit.NAMESPACE_IU_ID, description.getId(), description.getVersion()),
+					MetadataFactory.createProvidedCapability("java.package", "org.eclipse.package" + i, Version.emptyVersion)));
+			candidates[i] = MetadataFactory.createInstallableUnit(description);
+		}
+	}
+
+	@Benchmark
+	public boolean filterInterpreted() {
+		return interpretedFilter.isMatch(interpretedFilter.createContext(), MemberProvider.create(properties, true));
+	}
+
+	@Benchmark
+	public boolean filterCompiled() {
+		return ldapFilter.match(properties);
+	}
+
+	/**
+	 * Matches a unit filter against the selection context, as the slicer and the
+	 * projector do.
+	 */
+	@Benchmark
+	public boolean unitFilter() {
+		return unitFilter.isMatch(selectionContext);
+	}
+
+	@Benchmark
+	public int requirementInterpreted() {
+		IEvaluationContext context = requirement.createContext();
+		int matches = 0;
+		for (IInstallableUnit candidate : candidates) {
+			if (requirement.isMatch(context, candidate)) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	@Benchmark
+	public int requirementCompiled() {
+		int matches = 0;
+		for (IInstallableUnit candidate : candidates) {
+			if (requirement.isMatch(candidate)) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+}
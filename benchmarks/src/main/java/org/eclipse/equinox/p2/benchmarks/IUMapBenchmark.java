@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.equinox.internal.p2.metadata.IUMap;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.MetadataFactory;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitDescription;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Filling the map that holds the units of a metadata repository or profile,
+ * looking units up by id and by id and version, and changing a clone of the
+ * map like a local metadata repository does while it is queried. With
+ * <code>-prof gc</code> the allocation of {@link #add()} approximates the heap
+ * that the filled map retains.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IUMapBenchmark {
+
+	@Param({"1000", "10000", "100000"})
+	public int bundles;
+
+	private IInstallableUnit[] units;
+	private IUMap map;
+	private String[] ids;
+	private Version[] versions;
+	private IInstallableUnit extraUnit;
+
+	@Setup
+	public void setUp() {
+		List<IInstallableUnit> created = SyntheticRepository.create(bundles, 42).getUnits();
+		units = created.toArray(new IInstallableUnit[created.size()]);
+		map = new IUMap();
+		map.addAll(units);
+		InstallableUnitDescription extra = new InstallableUnitDescription();
+		extra.setId("extra.unit");
+		extra.setVersion(Version.create("1.0.0"));
+		extraUnit = MetadataFactory.createInstallableUnit(extra);
+		ids = new String[units.length];
+		versions = new Version[units.length];
+		for (int i = 0; i < units.length; i++) {
+			ids[i] = units[i].getId();
+			versions[i] = units[i].getVersion();
+		}
+	}
+
+	@Benchmark
+	public IUMap add() {
+		IUMap result = new IUMap();
+		for (IInstallableUnit unit : units) {
+			result.add(unit);
+		}
+		return result;
+	}
+
+	@Benchmark
+	public IUMap cloneAndAdd() {
+		IUMap result = map.clone();
+		result.add(extraUnit);
+		return result;
+	}
+
+	@Benchmark
+	public void getById(Blackhole blackhole) {
+		for (String id : ids) {
+			blackhole.consume(map.getUnits(id));
+		}
+	}
+
+	@Benchmark
+	public void getByIdAndVersion(Blackhole blackhole) {
+		for (int i = 0; i < ids.length; i++) {
+			blackhole.consume(map.get(ids[i], versions[i]));
+		}
+	}
+
+	@Benchmark
+	public int iterate() {
+		int count = 0;
+		for (var iterator = map.iterator(); iterator.hasNext(); iterator.next()) {
+			count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.equinox.internal.p2.core.ProvisioningAgent;
+import org.eclipse.equinox.internal.p2.metadata.repository.LocalMetadataRepository;
+import org.eclipse.equinox.internal.p2.metadata.repository.MetadataRepositoryIO;
+import org.eclipse.equinox.internal.p2.metadata.repository.io.BinaryMetadataContent;
+import org.eclipse.equinox.p2.core.ProvisionException;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.repository.IRepository;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
+import org.openjdk.jmh.annotations.*;
+import org.osgi.framework.BundleException;
+
+/**
+ * Loading the content of a local metadata repository, from its
+ * <code>content.xml</code> through the {@link MetadataRepositoryIO} parser and
+ * from its binary form.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetadataParserBenchmark {
+
+	@Param({"1000", "5000"})
+	public int bundles;
+
+	private EmbeddedFramework framework;
+	private ProvisioningAgent agent;
+	private Path directory;
+	private File contentXml;
+	private File contentBinary;
+
+	@Setup
+	public void setUp() throws IOException, BundleException {
+		// a loaded repository looks up the event bus of its agent to announce its references
+		framework = EmbeddedFramework.start();
+		agent = new ProvisioningAgent();
+		agent.setBundleContext(framework.getBundleContext());
+		directory = Files.createTempDirectory("p2-metadata-benchmark");
+		LocalMetadataRepository repository = new LocalMetadataRepository(agent, directory.toUri(), "benchmark",
+				Map.of(IRepository.PROP_COMPRESSED, Boolean.FALSE.toString(), LocalMetadataRepository.PROP_BINARY, Boolean.TRUE.toString()));
+		repository.addInstallableUnits(SyntheticRepository.create(bundles, 42).getUnits());
+		contentXml = directory.resolve("content.xml").toFile();
+		contentBinary = directory.resolve(BinaryMetadataContent.CONTENT_FILENAME).toFile();
+		if (!contentXml.isFile() || !contentBinary.isFile()) {
+			throw new IllegalStateException("Repository was not written to " + directory);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException, BundleException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+		agent.stop();
+		framework.close();
+	}
+
+	@Benchmark
+	public IMetadataRepository parseXml() throws IOException, ProvisionException {
+		try (InputStream input = new FileInputStream(contentXml)) {
+			return new MetadataRepositoryIO(agent).read(contentXml.toURI().toURL(), input, new NullProgressMonitor());
+		}
+	}
+
+	@Benchmark
+	public IInstallableUnit[] readBinary() throws IOException {
+		return BinaryMetadataContent.open(contentBinary).getAllUnits();
+	}
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.equinox.internal.p2.director.*;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitDescription;
+import org.eclipse.equinox.p2.query.IQueryable;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The steps of the planner for installing all features of a synthetic
+ * repository into an empty profile: computing the slice, encoding the slice
+ * for the SAT solver and solving it, once with a new solver and once again with
+ * the solver of a {@link PlannerSession} that already holds the slice.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlannerBenchmark {
+
+	@Param({"500", "2000"})
+	public int bundles;
+
+	private Map<String, String> selectionContext;
+	private IQueryable<IInstallableUnit> available;
+	private IInstallableUnit root;
+	private IQueryable<IInstallableUnit> slice;
+	private Set<IInstallableUnit> nonGreedyIUs;
+	private IQueryable<IInstallableUnit> installed;
+	private PlannerSession session;
+
+	@Setup
+	public void setUp() {
+		SyntheticRepository repository = SyntheticRepository.create(bundles, 42);
+		selectionContext = SyntheticRepository.selectionContext();
+		available = new QueryableArray(repository.getUnits());
+
+		// the unit that the planner creates to represent the profile
+		List<IRequirement> roots = new ArrayList<>();
+		for (IInstallableUnit feature : repository.getFeatures()) {
+			roots.add(MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, feature.getId(), new VersionRange(feature.getVersion(), true, feature.getVersion(), true), null, false, false));
+		}
+		InstallableUnitDescription description = new InstallableUnitDescription();
+		description.setId("benchmark.profile");
+		description.setVersion(Version.createOSGi(0, 0, 0, "benchmark"));
+		description.setRequirements(roots.toArray(new IRequirement[roots.size()]));
+		root = MetadataFactory.createInstallableUnit(description);
+
+		Slicer slicer = new Slicer(available, selectionContext, false);
+		slice = slicer.slice(List.of(root), new NullProgressMonitor());
+		if (slice == null) {
+			throw new IllegalStateException(slicer.getStatus().toString());
+		}
+		nonGreedyIUs = SlicerAccess.getNonGreedyIUs(slicer);
+		installed = new QueryableArray(List.of());
+		IStatus status = solve(null);
+		if (!status.isOK()) {
+			throw new IllegalStateException(status.toString());
+		}
+		session = PlannerSessionAccess.createSession();
+		status = solve(session);
+		if (!status.isOK()) {
+			throw new IllegalStateException(status.toString());
+		}
+	}
+
+	@Benchmark
+	public IQueryable<IInstallableUnit> slice() {
+		return new Slicer(available, selectionContext, false).slice(List.of(root), new NullProgressMonitor());
+	}
+
+	@Benchmark
+	public Projector encode() {
+		return encode(null);
+	}
+
+	/**
+	 * Encodes and solves the slice, the solver can not be measured without
+	 * encoding the problem first.
+	 */
+	@Benchmark
+	public IStatus encodeAndSolve() {
+		return solve(null);
+	}
+
+	/**
+	 * Solves the same request again with the solver of a session, which only
+	 * adds the root and the optimization function of the request.
+	 */
+	@Benchmark
+	public IStatus solveInSession() {
+		return solve(session);
+	}
+
+	private Projector encode(PlannerSession plannerSession) {
+		Projector projector = new Projector(slice, selectionContext, nonGreedyIUs, false);
+		projector.encode(root, new IInstallableUnit[0], installed, List.of(), plannerSession, new NullProgressMonitor());
+		return projector;
+	}
+
+	private IStatus solve(PlannerSession plannerSession) {
+		Projector projector = encode(plannerSession);
+		try {
+			IStatus status = projector.invokeSolver(new NullProgressMonitor());
+			if (status.isOK() && projector.extractSolution().isEmpty()) {
+				throw new IllegalStateException("Empty solution");
+			}
+			return status;
+		} finally {
+			projector.close();
+		}
+	}
+}
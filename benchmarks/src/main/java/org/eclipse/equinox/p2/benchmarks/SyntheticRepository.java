@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.util.*;
+import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitDescription;
+
+/**
+ * Creates repositories that resemble an Eclipse release train repository:
+ * bundles that require other bundles and packages, some of them optionally or
+ * only on some platforms, a second version of every fourth bundle and feature
+ * groups that include the bundles.
+ * <p>
+ * The content only depends on the number of bundles and the seed, so every
+ * fork of a benchmark measures the same repository.
+ * </p>
+ */
+final class SyntheticRepository {
+	static final String NAMESPACE_OSGI_BUNDLE = "osgi.bundle";
+	static final String NAMESPACE_JAVA_PACKAGE = "java.package";
+
+	static final String[] FILTERS = {"(osgi.os=linux)", "(osgi.os=win32)", "(&(osgi.os=macosx)(osgi.ws=cocoa))"};
+
+	private static final VersionRange RANGE = new VersionRange("[1.0.0,2.0.0)");
+	private static final int BUNDLES_PER_FEATURE = 50;
+	private static final int REQUIREMENTS_PER_BUNDLE = 6;
+
+	private final List<IInstallableUnit> units = new ArrayList<>();
+	private final List<IInstallableUnit> features = new ArrayList<>();
+	private final List<IRequirement> requirements = new ArrayList<>();
+
+	private SyntheticRepository() {
+	}
+
+	/**
+	 * Creates a repository with the given number of bundles.
+	 */
+	static SyntheticRepository create(int bundles, long seed) {
+		SyntheticRepository repository = new SyntheticRepository();
+		Random random = new Random(seed);
+		for (int i = 0; i < bundles; i++) {
+			List<IRequirement> bundleRequirements = new ArrayList<>();
+			// only require bundles that come earlier to keep the graph acyclic
+			for (int r = 0; i > 0 && r < REQUIREMENTS_PER_BUNDLE; r++) {
+				int target = random.nextInt(i);
+				boolean optional = random.nextInt(10) == 0;
+				String filter = random.nextInt(10) == 0 ? FILTERS[random.nextInt(FILTERS.length)] : null;
+				IRequirement requirement = random.nextBoolean()
+						? MetadataFactory.createRequirement(NAMESPACE_OSGI_BUNDLE, bundleId(target), RANGE, filter, optional, false, true)
+						: MetadataFactory.createRequirement(NAMESPACE_JAVA_PACKAGE, packageName(target, random.nextInt(2)), RANGE, filter, optional, false, true);
+				bundleRequirements.add(requirement);
+				repository.requirements.add(requirement);
+			}
+			repository.units.add(createBundle(i, Version.createOSGi(1, 0, 0), bundleRequirements));
+			if (i % 4 == 0) {
+				repository.units.add(createBundle(i, Version.createOSGi(1, 1, 0), bundleRequirements));
+			}
+		}
+		for (int first = 0; first < bundles; first += BUNDLES_PER_FEATURE) {
+			InstallableUnitDescription feature = new InstallableUnitDescription();
+			feature.setId("org.example.feature" + (first / BUNDLES_PER_FEATURE) + ".feature.group");
+			feature.setVersion(Version.createOSGi(1, 0, 0));
+			feature.setProperty(InstallableUnitDescription.PROP_TYPE_GROUP, Boolean.TRUE.toString());
+			feature.addProvidedCapabilities(List.of(MetadataFactory.createProvidedCapability(IInstallableUnit.NAMESPACE_IU_ID, feature.getId(), feature.getVersion())));
+			List<IRequirement> included = new ArrayList<>();
+			for (int i = first; i < Math.min(bundles, first + BUNDLES_PER_FEATURE); i++) {
+				included.add(MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, bundleId(i), RANGE, null, false, false));
+			}
+			feature.setRequirements(included.toArray(new IRequirement[included.size()]));
+			IInstallableUnit unit = MetadataFactory.createInstallableUnit(feature);
+			repository.units.add(unit);
+			repository.features.add(unit);
+		}
+		return repository;
+	}
+
+	private static IInstallableUnit createBundle(int index, Version version, List<IRequirement> requirements) {
+		InstallableUnitDescription description = new InstallableUnitDescription();
+		description.setId(bundleId(index));
+		description.setVersion(version);
+		description.setSingleton(true);
+		description.setProperty(IInstallableUnit.PROP_NAME, "Bundle " + index);
+		description.addProvidedCapabilities(List.of(
+				MetadataFactory.createProvidedCapability(IInstallableUnit.NAMESPACE_IU_ID, description.getId(), version),
+				MetadataFactory.createProvidedCapability(NAMESPACE_OSGI_BUNDLE, description.getId(), version),
+				MetadataFactory.createProvidedCapability(NAMESPACE_JAVA_PACKAGE, packageName(index, 0), version),
+				MetadataFactory.createProvidedCapability(NAMESPACE_JAVA_PACKAGE, packageName(index, 1), version)));
+		description.setRequirements(requirements.toArray(new IRequirement[requirements.size()]));
+		description.setArtifacts(new IArtifactKey[] {new ArtifactKey(NAMESPACE_OSGI_BUNDLE, description.getId(), version)});
+		return MetadataFactory.createInstallableUnit(description);
+	}
+
+	static String bundleId(int index) {
+		return "org.example.bundle" + index;
+	}
+
+	static String packageName(int index, int part) {
+		return "org.example.bundle" + index + (part == 0 ? ".api" : ".internal");
+	}
+
+	/**
+	 * Returns the selection context that the filters of the repository are
+	 * evaluated against.
+	 */
+	static Map<String, String> selectionContext() {
+		Map<String, String> context = new HashMap<>();
+		context.put("osgi.os", "linux");
+		context.put("osgi.ws", "gtk");
+		context.put("osgi.arch", "x86_64");
+		return context;
+	}
+
+	/**
+	 * Returns all units, bundles and features.
+	 */
+	List<IInstallableUnit> getUnits() {
+		return units;
+	}
+
+	/**
+	 * Returns the feature groups, each of which includes a range of bundles.
+	 */
+	List<IInstallableUnit> getFeatures() {
+		return features;
+	}
+
+	/**
+	 * Returns the requirements of all bundles.
+	 */
+	List<IRequirement> getRequirements() {
+		return requirements;
+	}
+}
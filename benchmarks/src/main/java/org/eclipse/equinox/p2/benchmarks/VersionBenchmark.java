@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.VersionRange;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Parsing of versions and version ranges, which happens for every unit and
+ * requirement that is read from a repository, and the range checks done while
+ * matching requirements.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VersionBenchmark {
+
+	@Param({"1.0.0", "3.20.100.v20250512-1530", "raw:1.2.3.'abc'", "format(n[.n=0;[.n=0;]][d?S=M;]):1.2-SNAPSHOT"})
+	public String version;
+
+	@Param({"[3.20.0,4.0.0)", "0.0.0", "[1.2.3.v2025,1.2.3.v2025]"})
+	public String range;
+
+	private Version parsedVersion;
+	private VersionRange parsedRange;
+	private VersionRange otherRange;
+
+	@Setup
+	public void setUp() {
+		parsedVersion = Version.parseVersion(version);
+		parsedRange = new VersionRange(range);
+		otherRange = new VersionRange("[1.0.0,3.30.0)");
+	}
+
+	@Benchmark
+	public Version parseVersion() {
+		return Version.parseVersion(version);
+	}
+
+	@Benchmark
+	public VersionRange parseRange() {
+		return new VersionRange(range);
+	}
+
+	@Benchmark
+	public boolean isIncluded() {
+		return parsedRange.isIncluded(parsedVersion);
+	}
+
+	@Benchmark
+	public VersionRange intersect() {
+		return parsedRange.intersect(otherRange);
+	}
+
+	@Benchmark
+	public int compare() {
+		return parsedVersion.compareTo(parsedRange.getMinimum());
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2023 IBM Corporation and others.
+ * Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -576,9 +576,15 @@ public class EquinoxFwConfigFileParser {
 
 	private void saveProperties(File outputFile, Properties configProps) throws IOException {
 		String header = "This configuration file was written by: " + this.getClass().getName(); //$NON-NLS-1$
-		try (FileOutputStream out = new FileOutputStream(outputFile)) {
-			configProps.store(out, header);
+		File tempFile = Utils.createTempSibling(outputFile);
+		try {
+			try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+				configProps.store(out, header);
+			}
+			Utils.replaceFile(tempFile, outputFile);
 			Log.info(NLS.bind(Messages.log_propertiesSaved, outputFile));
+		} finally {
+			tempFile.delete();
 		}
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2017 IBM Corporation and others.
+ * Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -134,6 +134,10 @@ public class EquinoxManipulatorImpl implements Manipulator {
 
 	EquinoxFwAdminImpl fwAdmin = null;
 
+	// the state computed at the beginning of save(), shared with the configurator
+	// manipulator so that it is not computed again for the same bundles
+	private BundlesState savingBundlesState;
+
 	EquinoxManipulatorImpl(BundleContext context, EquinoxFwAdminImpl fwAdmin, PlatformAdmin admin, StartLevel slService,
 			boolean runtime) {
 		this.context = context;
@@ -160,6 +164,9 @@ public class EquinoxManipulatorImpl implements Manipulator {
 
 	@Override
 	public BundlesState getBundlesState() throws FrameworkAdminRuntimeException {
+		if (savingBundlesState != null) {
+			return savingBundlesState;
+		}
 		if (context == null) {
 			return new SimpleBundlesState(fwAdmin, this, EquinoxConstants.FW_SYMBOLIC_NAME);
 		}
@@ -431,12 +438,24 @@ public class EquinoxManipulatorImpl implements Manipulator {
 		Log.debug(this, "save()", "BEGIN"); //$NON-NLS-1$//$NON-NLS-2$
 		SimpleBundlesState.checkAvailability(fwAdmin);
 
+		BundlesState bundlesState = null;
 		try {
-			updateAccordingToExpectedState(this.getBundlesState());
+			bundlesState = this.getBundlesState();
+			updateAccordingToExpectedState(bundlesState);
 		} catch (IllegalStateException e) {
 			// ignore.
 		}
 
+		savingBundlesState = bundlesState;
+		try {
+			saveConfiguration(backup);
+		} finally {
+			savingBundlesState = null;
+		}
+	}
+
+	private void saveConfiguration(boolean backup) throws IOException {
+
 		boolean stateIsEmpty = configData.getBundles().length == 0;
 
 		File launcherConfigFile = getLauncherConfigLocation(launcherData);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2008, 2013 IBM Corporation and others.
+ *  Copyright (c) 2008, 2026 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -26,9 +26,11 @@ import org.junit.runners.Suite;
 	Bug196525.class,
 	Bug258370.class,
 	CleanupTest.class,
+	ConfigDataTest.class,
 	FrameworkExtensionTest.class,
 	LauncherConfigLocationTest.class,
 	LauncherDataTest.class,
+	ManipulatorSaveTest.class,
 	ManipulatorTests.class,
 	NoConfigurationValueInEclipseIni.class,
 	NoRenamingLauncherIni.class,
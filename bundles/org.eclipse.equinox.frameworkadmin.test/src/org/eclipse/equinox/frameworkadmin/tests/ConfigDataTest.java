@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.frameworkadmin.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import org.eclipse.equinox.frameworkadmin.BundleInfo;
+import org.eclipse.equinox.internal.provisional.frameworkadmin.ConfigData;
+import org.junit.Test;
+
+/**
+ * Checks that the lookup of a bundle by symbolic name and version stays in sync
+ * with the bundles of the configuration.
+ */
+public class ConfigDataTest {
+
+	private static BundleInfo bundle(String symbolicName, String version, String location) {
+		return new BundleInfo(symbolicName, version, URI.create(location), 4, false);
+	}
+
+	private static ConfigData createConfigData() {
+		return new ConfigData("Equinox", "3.3", "org.eclipse.osgi", "3.3");
+	}
+
+	@Test
+	public void testAddBundle() {
+		ConfigData configData = createConfigData();
+		BundleInfo a = bundle("a", "1.0.0", "file:/plugins/a_1.0.0.jar");
+		BundleInfo b = bundle("b", "1.0.0", "file:/plugins/b_1.0.0.jar");
+		configData.addBundle(a);
+		configData.addBundle(b);
+
+		assertSame(a, configData.getBundle("a", "1.0.0"));
+		assertSame(b, configData.getBundle("b", "1.0.0"));
+		assertNull(configData.getBundle("a", "2.0.0"));
+		assertNull(configData.getBundle("c", "1.0.0"));
+	}
+
+	@Test
+	public void testAddEqualBundle() {
+		ConfigData configData = createConfigData();
+		BundleInfo a = bundle("a", "1.0.0", "file:/plugins/a_1.0.0.jar");
+		configData.addBundle(a);
+		configData.addBundle(bundle("a", "1.0.0", "file:/plugins/a_1.0.0.jar"));
+
+		assertEquals(1, configData.getBundles().length);
+		assertSame(a, configData.getBundle("a", "1.0.0"));
+
+		assertTrue(configData.removeBundle(a));
+		assertNull(configData.getBundle("a", "1.0.0"));
+	}
+
+	@Test
+	public void testRemoveBundle() {
+		ConfigData configData = createConfigData();
+		configData.addBundle(bundle("a", "1.0.0", "file:/plugins/a_1.0.0.jar"));
+		BundleInfo b = bundle("b", "1.0.0", "file:/plugins/b_1.0.0.jar");
+		configData.addBundle(b);
+
+		// an equal bundle that is not the one that was added
+		assertTrue(configData.removeBundle(bundle("a", "1.0.0", "file:/plugins/a_1.0.0.jar")));
+		assertNull(configData.getBundle("a", "1.0.0"));
+		assertSame(b, configData.getBundle("b", "1.0.0"));
+		assertFalse(configData.removeBundle(bundle("a", "1.0.0", "file:/plugins/a_1.0.0.jar")));
+	}
+
+	@Test
+	public void testRemoveBundleWithoutLocation() {
+		ConfigData configData = createConfigData();
+		BundleInfo first = bundle("a", "1.0.0", "file:/first/a_1.0.0.jar");
+		BundleInfo second = bundle("a", "1.0.0", "file:/second/a_1.0.0.jar");
+		configData.addBundle(first);
+		configData.addBundle(second);
+		assertSame(first, configData.getBundle("a", "1.0.0"));
+
+		// without a location the bundle is equal to both, only one of them is removed
+		assertTrue(configData.removeBundle(new BundleInfo("a", "1.0.0", null, 4, false)));
+		BundleInfo[] bundles = configData.getBundles();
+		assertEquals(1, bundles.length);
+		assertSame(bundles[0], configData.getBundle("a", "1.0.0"));
+
+		assertTrue(configData.removeBundle(new BundleInfo("a", "1.0.0", null, 4, false)));
+		assertEquals(0, configData.getBundles().length);
+		assertNull(configData.getBundle("a", "1.0.0"));
+	}
+
+	@Test
+	public void testSetBundles() {
+		ConfigData configData = createConfigData();
+		configData.addBundle(bundle("a", "1.0.0", "file:/plugins/a_1.0.0.jar"));
+		BundleInfo b = bundle("b", "1.0.0", "file:/plugins/b_1.0.0.jar");
+		BundleInfo c = bundle("c", "1.0.0", "file:/plugins/c_1.0.0.jar");
+
+		configData.setBundles(new BundleInfo[] {b, c});
+		assertNull(configData.getBundle("a", "1.0.0"));
+		assertSame(b, configData.getBundle("b", "1.0.0"));
+		assertSame(c, configData.getBundle("c", "1.0.0"));
+
+		configData.setBundles(null);
+		assertNull(configData.getBundle("b", "1.0.0"));
+		assertEquals(0, configData.getBundles().length);
+	}
+
+	@Test
+	public void testInitialize() {
+		ConfigData configData = createConfigData();
+		configData.addBundle(bundle("a", "1.0.0", "file:/plugins/a_1.0.0.jar"));
+
+		configData.initialize();
+		assertNull(configData.getBundle("a", "1.0.0"));
+	}
+}
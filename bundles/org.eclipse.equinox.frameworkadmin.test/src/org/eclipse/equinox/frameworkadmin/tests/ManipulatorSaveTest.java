@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.frameworkadmin.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Properties;
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.URIUtil;
+import org.eclipse.equinox.frameworkadmin.BundleInfo;
+import org.eclipse.equinox.internal.provisional.configuratormanipulator.ConfiguratorManipulator;
+import org.eclipse.equinox.internal.provisional.frameworkadmin.BundlesState;
+import org.eclipse.equinox.internal.provisional.frameworkadmin.Manipulator;
+import org.junit.Test;
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * Saves a configuration and checks how the files are written and how often the
+ * bundles state is computed.
+ */
+public class ManipulatorSaveTest extends FwkAdminAndSimpleConfiguratorTest {
+
+	@Test
+	public void testInterruptedSaveKeepsConfigIni() throws Exception {
+		Manipulator manipulator = createMinimalConfiguration(ManipulatorSaveTest.class.getName());
+		File configIni = getConfigIni();
+		String saved = Files.readString(configIni.toPath());
+
+		// Properties.store() fails on a value that is not a string while it writes
+		Properties properties = manipulator.getConfigData().getProperties();
+		properties.put("zzz.invalid", Integer.valueOf(1));
+		manipulator.getConfigData().setProperties(properties);
+		try {
+			manipulator.save(false);
+			fail("the invalid property should have failed the save");
+		} catch (ClassCastException e) {
+			// expected
+		}
+
+		assertEquals(saved, Files.readString(configIni.toPath()));
+		assertNoTempFiles(getConfigurationFolder());
+	}
+
+	@Test
+	public void testSaveLeavesNoTempFiles() throws Exception {
+		Manipulator manipulator = createMinimalConfiguration(ManipulatorSaveTest.class.getName());
+		manipulator.getConfigData().setProperty("test.property", "saved");
+		manipulator.save(false);
+
+		assertPropertyContains(getConfigIni(), "test.property", "saved");
+		assertContent(getBundleTxt(), "org.eclipse.equinox.simpleconfigurator");
+		assertNoTempFiles(getConfigurationFolder());
+		assertNoTempFiles(getBundleTxt().getParentFile());
+	}
+
+	@Test
+	public void testBundlesStateIsComputedOncePerSave() throws Exception {
+		RecordingConfiguratorManipulator configurator = new RecordingConfiguratorManipulator();
+		Dictionary<String, Object> properties = new Hashtable<>();
+		properties.put(ConfiguratorManipulator.SERVICE_PROP_KEY_CONFIGURATOR_BUNDLESYMBOLICNAME, "bundle_1");
+		ServiceRegistration<ConfiguratorManipulator> registration = Activator.getContext()
+				.registerService(ConfiguratorManipulator.class, configurator, properties);
+		try {
+			Manipulator manipulator = getNewManipulator(ManipulatorSaveTest.class.getName());
+			manipulator.getConfigData().addBundle(new BundleInfo("org.eclipse.osgi", "3.3.1",
+					URIUtil.toURI(FileLocator
+							.resolve(Activator.getContext().getBundle().getEntry("dataFile/org.eclipse.osgi.jar"))),
+					0, true));
+			manipulator.getConfigData().addBundle(new BundleInfo("bundle_1", "1.0.0",
+					URIUtil.toURI(FileLocator.resolve(Activator.getContext().getBundle().getEntry("dataFile/bundle_1"))),
+					1, true));
+			manipulator.save(false);
+
+			assertEquals(2, configurator.states.size());
+			assertNotNull(configurator.states.get(0));
+			// the configurator is handed the state that save() computed
+			assertSame(configurator.states.get(0), configurator.states.get(1));
+			// and it is not kept once the save is done
+			assertNotSame(configurator.states.get(0), manipulator.getBundlesState());
+		} finally {
+			registration.unregister();
+		}
+	}
+
+	private static void assertNoTempFiles(File folder) {
+		String[] names = folder.list((dir, name) -> name.endsWith(".tmp"));
+		assertNotNull(names);
+		assertTrue("temporary files were left behind: " + String.join(", ", names), names.length == 0);
+	}
+
+	/**
+	 * Asks for the bundles state twice while the configuration is saved.
+	 */
+	private static class RecordingConfiguratorManipulator implements ConfiguratorManipulator {
+		final List<BundlesState> states = new ArrayList<>();
+
+		@Override
+		public BundleInfo[] save(Manipulator manipulator, boolean backup) throws IOException {
+			states.add(manipulator.getBundlesState());
+			states.add(manipulator.getBundlesState());
+			return manipulator.getConfigData().getBundles();
+		}
+
+		@Override
+		public void updateBundles(Manipulator manipulator) throws IOException {
+			// nothing to update
+		}
+
+		@Override
+		public void cleanup(Manipulator manipulator) {
+			// nothing to clean up
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2005, 2010 IBM Corporation and others.
+ *  Copyright (c) 2005, 2026 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -14,10 +14,14 @@
 package org.eclipse.equinox.frameworkadmin.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.io.File;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import org.eclipse.equinox.internal.frameworkadmin.equinox.utils.FileUtils;
+import org.eclipse.equinox.internal.frameworkadmin.utils.Utils;
 import org.eclipse.equinox.internal.provisional.frameworkadmin.Manipulator;
 import org.eclipse.osgi.service.environment.Constants;
 import org.junit.Test;
@@ -70,4 +74,20 @@ public class UtilsTest extends AbstractFwkAdminTest {
 		URI res = FileUtils.getEclipseRealLocation(manipulator, "org.foo");
 		assertEquals(res, foo.toURI());
 	}
+
+	@Test
+	public void testReplaceFile() throws Exception {
+		File folder = Activator.getContext().getDataFile("replaceFile");
+		folder.mkdirs();
+		File target = new File(folder, "config.ini");
+		Files.writeString(target.toPath(), "old");
+
+		File temp = Utils.createTempSibling(target);
+		assertEquals(folder.getAbsoluteFile(), temp.getParentFile());
+		Files.writeString(temp.toPath(), "new");
+		Utils.replaceFile(temp, target);
+
+		assertEquals("new", Files.readString(target.toPath(), StandardCharsets.UTF_8));
+		assertFalse(temp.exists());
+	}
 }
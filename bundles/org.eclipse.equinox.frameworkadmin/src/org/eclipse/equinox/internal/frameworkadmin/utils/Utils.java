@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2019 IBM Corporation and others.
+ * Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,6 +15,7 @@ package org.eclipse.equinox.internal.frameworkadmin.utils;
 
 import java.io.*;
 import java.net.*;
+import java.nio.file.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.jar.JarFile;
@@ -177,6 +178,18 @@ public class Utils {
 		return parent.mkdirs();
 	}
 
+	/**
+	 * Create an empty temporary file next to the given file, to be written and
+	 * then moved over it with {@link #replaceFile(File, File)}.
+	 *
+	 * @param file
+	 *            the file that will be replaced
+	 * @return the temporary file
+	 */
+	public static File createTempSibling(File file) throws IOException {
+		return File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile()); //$NON-NLS-1$
+	}
+
 	public static BundleInfo[] getBundleInfosFromList(List<BundleInfo> list) {
 		if (list == null) {
 			return new BundleInfo[0];
@@ -393,6 +406,24 @@ public class Utils {
 		return st;
 	}
 
+	/**
+	 * Replace the target file with the source file, atomically if the file system
+	 * supports it, so that readers see either the old or the new content.
+	 *
+	 * @param source
+	 *            the new content, usually from {@link #createTempSibling(File)}
+	 * @param target
+	 *            the file to replace
+	 */
+	public static void replaceFile(File source, File target) throws IOException {
+		try {
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
 	/**
 	 * Sort by increasing order of startlevels.
 	 *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2007, 2019 IBM Corporation and others.
+ *  Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -33,6 +33,8 @@ public class ConfigData {
 	private int initialBundleStartLevel = BundleInfo.NO_LEVEL;
 	// List of BundleInfo
 	private final LinkedHashSet<BundleInfo> bundlesList = new LinkedHashSet<>();
+	// symbolic name and version -> BundleInfo, in the order of bundlesList
+	private final Map<String, List<BundleInfo>> bundlesIndex = new HashMap<>();
 
 	private final Properties properties = new Properties();
 
@@ -45,7 +47,27 @@ public class ConfigData {
 	}
 
 	public void addBundle(BundleInfo bundleInfo) {
-		bundlesList.add(bundleInfo);
+		if (bundlesList.add(bundleInfo)) {
+			bundlesIndex.computeIfAbsent(indexKey(bundleInfo.getSymbolicName(), bundleInfo.getVersion()),
+					key -> new ArrayList<>(1)).add(bundleInfo);
+		}
+	}
+
+	/**
+	 * Returns the first bundle with the given symbolic name and version, without
+	 * copying the bundles like {@link #getBundles()}.
+	 *
+	 * @param symbolicName the symbolic name of the bundle
+	 * @param version the version of the bundle
+	 * @return the bundle, or <code>null</code> if there is none
+	 */
+	public BundleInfo getBundle(String symbolicName, String version) {
+		List<BundleInfo> bundles = bundlesIndex.get(indexKey(symbolicName, version));
+		return bundles == null ? null : bundles.get(0);
+	}
+
+	private static String indexKey(String symbolicName, String version) {
+		return symbolicName + '_' + version;
 	}
 
 	public int getBeginingFwStartLevel() {
@@ -95,7 +117,7 @@ public class ConfigData {
 		beginningFwStartLevel = BundleInfo.NO_LEVEL;
 		initialBundleStartLevel = BundleInfo.NO_LEVEL;
 		bundlesList.clear();
-		properties.clear();
+		bundlesIndex.clear();
 		properties.clear();
 	}
 
@@ -103,7 +125,20 @@ public class ConfigData {
 		if (bundleInfo == null) {
 			throw new IllegalArgumentException("Bundle info can't be null:" + bundleInfo); //$NON-NLS-1$
 		}
-		return bundlesList.remove(bundleInfo);
+		if (!bundlesList.remove(bundleInfo)) {
+			return false;
+		}
+		// the removed bundle is equal, but not necessarily identical, to bundleInfo,
+		// and without a location bundleInfo is equal to all bundles at any location
+		String key = indexKey(bundleInfo.getSymbolicName(), bundleInfo.getVersion());
+		List<BundleInfo> bundles = bundlesIndex.get(key);
+		if (bundles != null) {
+			bundles.removeIf(bundle -> !bundlesList.contains(bundle));
+			if (bundles.isEmpty()) {
+				bundlesIndex.remove(key);
+			}
+		}
+		return true;
 	}
 
 	public void setBeginningFwStartLevel(int startLevel) {
@@ -112,9 +147,10 @@ public class ConfigData {
 
 	public void setBundles(BundleInfo[] bundleInfos) {
 		bundlesList.clear();
+		bundlesIndex.clear();
 		if (bundleInfos != null) {
 			for (BundleInfo bundleInfo : bundleInfos) {
-				bundlesList.add(bundleInfo);
+				addBundle(bundleInfo);
 			}
 		}
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2017 IBM Corporation and others.
+ * Copyright (c) 2008, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,12 +17,15 @@ package org.eclipse.equinox.internal.p2.artifact.repository;
 import java.io.*;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.internal.p2.persistence.CompositeRepositoryIO;
 import org.eclipse.equinox.internal.p2.persistence.CompositeRepositoryState;
+import org.eclipse.equinox.internal.p2.repository.helpers.CompositeChildLoader;
 import org.eclipse.equinox.internal.p2.repository.helpers.RepositoryHelper;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.core.ProvisionException;
@@ -45,6 +48,15 @@ public class CompositeArtifactRepository extends AbstractArtifactRepository impl
 
 	static final public boolean ATOMIC_LOADING_DEFAULT = Boolean.parseBoolean(Activator.getContext().getProperty("eclipse.p2.atomic.composite.loading.default")); //$NON-NLS-1$
 
+	/**
+	 * Repository property that limits the number of children that artifacts are
+	 * downloaded from at the same time. With one, the default, the children are
+	 * asked one after another.
+	 */
+	static final public String PROP_DOWNLOAD_PARALLELISM = "p2.composite.download.parallelism"; //$NON-NLS-1$
+
+	static final public int DOWNLOAD_PARALLELISM_DEFAULT = parseParallelism(Activator.getContext().getProperty("eclipse.p2.composite.download.parallelism.default"), 1); //$NON-NLS-1$
+
 	// keep a list of the child URIs. they can be absolute or relative. they may or may not point
 	// to a valid reachable repo
 	private final List<URI> childrenURIs = new ArrayList<>();
@@ -53,6 +65,8 @@ public class CompositeArtifactRepository extends AbstractArtifactRepository impl
 	private final IArtifactRepositoryManager manager;
 	private boolean disableSave;
 
+	private static final long CANCEL_POLL_MILLIS = 500;
+
 	/**
 	 * Create a Composite repository in memory.
 	 * @return the repository or null if unable to create one
@@ -75,6 +89,11 @@ public class CompositeArtifactRepository extends AbstractArtifactRepository impl
 		SubMonitor sub = SubMonitor.convert(monitor, 100 * state.getChildren().length);
 		List<URI> repositoriesToBeRemovedOnFailure = new ArrayList<>();
 		boolean failOnChildFailure = shouldFailOnChildFailure(state);
+		int parallelism = CompositeChildLoader.getLoadingParallelism(state.getProperties());
+		if (parallelism > 1) {
+			addChildren(state.getChildren(), parallelism, sub, failOnChildFailure);
+			return;
+		}
 		for (URI child : state.getChildren()) {
 			addChild(child, false, sub.newChild(100), failOnChildFailure, repositoriesToBeRemovedOnFailure);
 		}
@@ -171,6 +190,47 @@ public class CompositeArtifactRepository extends AbstractArtifactRepository impl
 		}
 	}
 
+	/*
+	 * Loads the given children concurrently. All children are loaded even if one of them fails. The
+	 * loaded children and the failures are processed in the order of the children so that the
+	 * content of the composite and the reported status do not depend on the order in which the
+	 * loads complete.
+	 */
+	private void addChildren(URI[] children, int parallelism, IProgressMonitor monitor, boolean propagateException) throws ProvisionException {
+		List<URI> locations = new ArrayList<>(children.length);
+		List<Boolean> previouslyLoaded = new ArrayList<>(children.length);
+		for (URI childURI : children) {
+			URI absolute = URIUtil.makeAbsolute(childURI, getLocation());
+			if (childrenURIs.contains(childURI) || childrenURIs.contains(absolute) || locations.contains(absolute)) {
+				continue;
+			}
+			childrenURIs.add(childURI);
+			locations.add(absolute);
+			previouslyLoaded.add(getManager().contains(absolute));
+		}
+		List<CompositeChildLoader.Result<IArtifactRepository>> results = CompositeChildLoader.loadAll(locations, parallelism, this::load, monitor);
+
+		List<URI> repositoriesToBeRemovedOnFailure = new ArrayList<>();
+		MultiStatus failures = new MultiStatus(Activator.ID, ProvisionException.REPOSITORY_FAILED_READ, NLS.bind(Messages.io_failedRead, getLocation()), null);
+		for (int i = 0; i < results.size(); i++) {
+			CompositeChildLoader.Result<IArtifactRepository> result = results.get(i);
+			if (result.getFailure() != null) {
+				//repository failed to load. fall through
+				LogHelper.log(result.getFailure());
+				failures.add(result.getFailure().getStatus());
+				continue;
+			}
+			if (!previouslyLoaded.get(i)) {
+				repositoriesToBeRemovedOnFailure.add(result.getLocation());
+			}
+			loadedRepos.add(new ChildInfo(result.getRepository()));
+		}
+		if (propagateException && !failures.isOK()) {
+			removeFromRepoManager(repositoriesToBeRemovedOnFailure);
+			throw new ProvisionException(failures);
+		}
+	}
+
 	//	public boolean addChild(URI childURI, String comparatorID) {
 	//		try {
 	//			IArtifactRepository repo = load(childURI);
@@ -340,6 +400,10 @@ public class CompositeArtifactRepository extends AbstractArtifactRepository impl
 
 	@Override
 	public IStatus getArtifacts(IArtifactRequest[] requests, IProgressMonitor monitor) {
+		int parallelism = parseParallelism(getProperty(PROP_DOWNLOAD_PARALLELISM), DOWNLOAD_PARALLELISM_DEFAULT);
+		if (parallelism > 1 && loadedRepos.size() > 1) {
+			return getArtifactsConcurrently(requests, parallelism, monitor);
+		}
 		SubMonitor subMonitor = SubMonitor.convert(monitor, requests.length);
 		MultiStatus multiStatus = new MultiStatus(Activator.ID, IStatus.OK, Messages.message_artifactsFromChildRepos, null);
 		for (ChildInfo childInfo : loadedRepos) {
@@ -363,6 +427,129 @@ public class CompositeArtifactRepository extends AbstractArtifactRepository impl
 		return multiStatus;
 	}
 
+	/*
+	 * Gives every request to the first child that contains it, as the sequential
+	 * download does, but downloads from these children at the same time. The
+	 * requests that a child could not fetch are then passed on to the children
+	 * after it, one child after another, so a failing child is still backed by
+	 * the children that follow it.
+	 */
+	private IStatus getArtifactsConcurrently(IArtifactRequest[] requests, int parallelism, IProgressMonitor monitor) {
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 2 * requests.length);
+		MultiStatus multiStatus = new MultiStatus(Activator.ID, IStatus.OK, Messages.message_artifactsFromChildRepos, null);
+		List<ChildInfo> children = new ArrayList<>(loadedRepos);
+		List<List<IArtifactRequest>> partitions = new ArrayList<>(children.size());
+		Map<IArtifactRequest, Integer> firstChild = new IdentityHashMap<>();
+		int used = 0;
+		for (int i = 0; i < children.size(); i++) {
+			partitions.add(new ArrayList<>());
+		}
+		for (IArtifactRequest request : requests) {
+			for (int i = 0; i < children.size(); i++) {
+				if (children.get(i).repo.contains(request.getArtifactKey())) {
+					if (partitions.get(i).isEmpty()) {
+						used++;
+					}
+					partitions.get(i).add(request);
+					firstChild.put(request, i);
+					break;
+				}
+			}
+		}
+		if (used == 0) {
+			return multiStatus;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, used), new DownloadThreadFactory());
+		try {
+			// the children only observe cancellation, progress is reported as they finish
+			IProgressMonitor childMonitor = new NullProgressMonitor() {
+				@Override
+				public boolean isCanceled() {
+					return super.isCanceled() || subMonitor.isCanceled();
+				}
+			};
+			Map<Future<IStatus>, Integer> downloads = new LinkedHashMap<>();
+			for (int i = 0; i < children.size(); i++) {
+				List<IArtifactRequest> partition = partitions.get(i);
+				if (!partition.isEmpty()) {
+					IArtifactRepository child = children.get(i).repo;
+					IArtifactRequest[] applicable = partition.toArray(new IArtifactRequest[partition.size()]);
+					downloads.put(executor.submit(() -> child.getArtifacts(applicable, childMonitor)), applicable.length);
+				}
+			}
+			for (Map.Entry<Future<IStatus>, Integer> download : downloads.entrySet()) {
+				IStatus dlStatus = await(download.getKey(), subMonitor);
+				multiStatus.add(dlStatus);
+				if (dlStatus.getSeverity() == IStatus.CANCEL) {
+					return multiStatus;
+				}
+				subMonitor.worked(download.getValue());
+			}
+		} finally {
+			// downloads that are still running end on their own when canceled
+			executor.shutdown();
+		}
+
+		requests = filterUnfetched(requests);
+		subMonitor.setWorkRemaining(requests.length);
+		for (int i = 1; i < children.size() && requests.length > 0; i++) {
+			IArtifactRepository current = children.get(i).repo;
+			List<IArtifactRequest> applicable = new ArrayList<>();
+			for (IArtifactRequest request : requests) {
+				Integer first = firstChild.get(request);
+				if (first != null && first < i && current.contains(request.getArtifactKey())) {
+					applicable.add(request);
+				}
+			}
+			if (applicable.isEmpty()) {
+				continue;
+			}
+			IStatus dlStatus = current.getArtifacts(applicable.toArray(new IArtifactRequest[applicable.size()]), subMonitor.newChild(requests.length));
+			multiStatus.add(dlStatus);
+			if (dlStatus.getSeverity() == IStatus.CANCEL) {
+				return multiStatus;
+			}
+			requests = filterUnfetched(requests);
+			subMonitor.setWorkRemaining(requests.length);
+
+			if (subMonitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+		}
+		return multiStatus;
+	}
+
+	private static IStatus await(Future<IStatus> future, IProgressMonitor monitor) {
+		while (true) {
+			if (monitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+			try {
+				return future.get(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check for cancellation again
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return Status.CANCEL_STATUS;
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				return new Status(IStatus.ERROR, Activator.ID, cause.getMessage(), cause);
+			}
+		}
+	}
+
+	private static int parseParallelism(String value, int defaultValue) {
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Math.max(1, Integer.parseInt(value.trim()));
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
 	@Override
 	public IStatus getArtifact(IArtifactDescriptor descriptor, OutputStream destination, IProgressMonitor monitor) {
 		return getRawOrNormalArtifact(descriptor, destination, monitor, false);
@@ -572,7 +759,8 @@ public class CompositeArtifactRepository extends AbstractArtifactRepository impl
 
 	private static class ChildInfo {
 		IArtifactRepository repo;
-		boolean good = true;
+		// children may be asked for artifacts from several threads
+		volatile boolean good = true;
 
 		ChildInfo(IArtifactRepository IArtifactRepository) {
 			this.repo = IArtifactRepository;
@@ -642,6 +830,17 @@ public class CompositeArtifactRepository extends AbstractArtifactRepository impl
 		return result;
 	}
 
+	private static class DownloadThreadFactory implements ThreadFactory {
+		private static final AtomicInteger COUNT = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "p2 composite artifact download " + COUNT.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
 	private void removeFromRepoManager(List<URI> currentLoadedRepositories) {
 		if (currentLoadedRepositories == null) {
 			return;
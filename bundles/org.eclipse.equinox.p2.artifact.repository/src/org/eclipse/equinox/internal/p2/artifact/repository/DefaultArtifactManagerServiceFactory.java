@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2025 Christoph Läubrich and others.
+ *  Copyright (c) 2025, 2026 Christoph Läubrich and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -36,6 +36,14 @@ public class DefaultArtifactManagerServiceFactory implements IAgentServiceFactor
 		return new DefaultArtifactManager(agent);
 	}
 
+	/**
+	 * Returns whether the given manager is the default one, that fetches every
+	 * artifact from the transport of the agent.
+	 */
+	public static boolean isDefault(ArtifactManager manager) {
+		return manager instanceof DefaultArtifactManager;
+	}
+
 	private static final class DefaultArtifactManager implements ArtifactManager {
 		private final IProvisioningAgent agent;
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2018 IBM Corporation and others.
+ * Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -78,6 +78,8 @@ public class Messages extends NLS {
 	public static String calculateChecksum_providerError;
 	public static String onlyInsecureDigestAlgorithmUsed;
 	public static String noDigestAlgorithmToVerifyDownload;
+	public static String SegmentedDownload_failed;
+	public static String SegmentedDownload_incomplete;
 
 	static {
 		// initialize resource bundles
@@ -0,0 +1,265 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.artifact.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.equinox.internal.p2.repository.Transport;
+
+/**
+ * Reads the beginning of the same artifact from several mirrors at the same
+ * time and measures how fast each mirror answers and transfers. It is used to
+ * pick the mirror for a large artifact before the whole artifact is
+ * downloaded.
+ * <p>
+ * The race is over as soon as one mirror delivered the race bytes, the other
+ * laps are stopped then. Laps run on a small pool of threads that is shared by
+ * all races.
+ * </p>
+ */
+public class MirrorRace {
+	/**
+	 * The time in milliseconds after which a race is over even if no mirror
+	 * delivered the race bytes.
+	 */
+	public static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+
+	private static final int MAX_LAPS = 8;
+	private static final long CANCEL_POLL_MILLIS = 100;
+	private static final AtomicInteger COUNT = new AtomicInteger();
+	private static final ExecutorService LAPS = createExecutor();
+
+	/**
+	 * The measurements of one mirror. The latency is the time until the first
+	 * byte arrived, the transfer time is the time for the remaining bytes. A lap
+	 * is complete if it read all bytes of the race or reached the end of the
+	 * artifact. A mirror that could not be read, or did not deliver the race
+	 * bytes in time, has a failure.
+	 */
+	public record Lap(long bytes, long latencyMillis, long transferMillis, boolean complete, Exception failure) {
+		public boolean isFailed() {
+			return failure != null;
+		}
+
+		public long getTotalMillis() {
+			return latencyMillis + transferMillis;
+		}
+	}
+
+	private MirrorRace() {
+		// static helper
+	}
+
+	private static ExecutorService createExecutor() {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_LAPS, MAX_LAPS, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, "p2 mirror race " + COUNT.incrementAndGet()); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Races the given locations with the {@link #DEFAULT_TIMEOUT_MILLIS default
+	 * timeout}.
+	 *
+	 * @see #run(Transport, URI[], int, long, IProgressMonitor)
+	 */
+	public static Lap[] run(Transport transport, URI[] locations, int raceBytes, IProgressMonitor monitor) {
+		return run(transport, locations, raceBytes, DEFAULT_TIMEOUT_MILLIS, monitor);
+	}
+
+	/**
+	 * Reads at most <code>raceBytes</code> from each of the given locations at
+	 * the same time, and returns the measurements in the order of the locations.
+	 * The race is over when the first lap is complete, when all laps are done, or
+	 * after the timeout; laps that are still running then are stopped. A lap that
+	 * is stopped because another one won is incomplete, a lap that is stopped by
+	 * the timeout has failed.
+	 */
+	public static Lap[] run(Transport transport, URI[] locations, int raceBytes, long timeoutMillis,
+			IProgressMonitor monitor) {
+		Runner[] runners = new Runner[locations.length];
+		CompletionService<Lap> completion = new ExecutorCompletionService<>(LAPS);
+		for (int i = 0; i < locations.length; i++) {
+			runners[i] = new Runner(transport, locations[i], raceBytes, monitor);
+			runners[i].future = completion.submit(runners[i]);
+		}
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		boolean timedOut = false;
+		boolean interrupted = false;
+		try {
+			for (int done = 0; done < runners.length;) {
+				if (monitor != null && monitor.isCanceled()) {
+					break;
+				}
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					timedOut = true;
+					break;
+				}
+				Future<Lap> finished;
+				try {
+					finished = completion.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(CANCEL_POLL_MILLIS)),
+							TimeUnit.NANOSECONDS);
+				} catch (InterruptedException e) {
+					interrupted = true;
+					break;
+				}
+				if (finished != null) {
+					done++;
+					if (getLap(finished).complete()) {
+						break;
+					}
+				}
+			}
+		} finally {
+			for (Runner runner : runners) {
+				runner.stop();
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		Lap[] laps = new Lap[runners.length];
+		for (int i = 0; i < runners.length; i++) {
+			laps[i] = runners[i].future.isDone() && !runners[i].future.isCancelled() ? getLap(runners[i].future)
+					: runners[i].getStoppedLap(timedOut);
+		}
+		return laps;
+	}
+
+	private static Lap getLap(Future<Lap> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException | ExecutionException | CancellationException e) {
+			// the lap catches its own failures
+			return new Lap(0, 0, 0, false, e instanceof ExecutionException ? (Exception) e.getCause() : e);
+		}
+	}
+
+	/**
+	 * Returns the index of the complete lap with the highest throughput, or -1 if
+	 * no lap is complete. A lap that was cut short says nothing about how fast
+	 * the mirror transfers.
+	 */
+	public static int getWinner(Lap[] laps) {
+		int winner = -1;
+		for (int i = 0; i < laps.length; i++) {
+			if (!laps[i].isFailed() && laps[i].complete() && (winner < 0 || isFaster(laps[i], laps[winner]))) {
+				winner = i;
+			}
+		}
+		return winner;
+	}
+
+	private static boolean isFaster(Lap lap, Lap other) {
+		// compares bytes per millisecond without dividing by a time of zero
+		return lap.bytes() * other.getTotalMillis() > other.bytes() * lap.getTotalMillis();
+	}
+
+	/**
+	 * Runs one lap. It has its own monitor, which is canceled when the race is
+	 * over or the monitor of the race is canceled, and it closes the stream when
+	 * it is stopped so that a stalled read does not block its thread.
+	 */
+	private static final class Runner extends NullProgressMonitor implements Callable<Lap> {
+		private final Transport transport;
+		private final URI location;
+		private final int raceBytes;
+		private final IProgressMonitor parent;
+		Future<Lap> future;
+		private volatile long start;
+		private volatile long firstByte;
+		private volatile long bytes;
+		private volatile InputStream input;
+
+		Runner(Transport transport, URI location, int raceBytes, IProgressMonitor parent) {
+			this.transport = transport;
+			this.location = location;
+			this.raceBytes = raceBytes;
+			this.parent = parent;
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return super.isCanceled() || (parent != null && parent.isCanceled());
+		}
+
+		@Override
+		public Lap call() {
+			start = System.nanoTime();
+			boolean complete = false;
+			try (InputStream stream = transport.stream(location, this)) {
+				input = stream;
+				byte[] buffer = new byte[8192];
+				while (bytes < raceBytes && !isCanceled()) {
+					int read = stream.read(buffer, 0, (int) Math.min(buffer.length, raceBytes - bytes));
+					if (read < 0) {
+						complete = true;
+						break;
+					}
+					if (bytes == 0) {
+						firstByte = System.nanoTime();
+					}
+					bytes += read;
+				}
+				complete |= bytes == raceBytes;
+			} catch (Exception e) {
+				return new Lap(bytes, 0, 0, false, e);
+			}
+			if (!complete) {
+				return getStoppedLap(false);
+			}
+			long end = System.nanoTime();
+			return new Lap(bytes, (firstByte - start) / 1000000, (end - firstByte) / 1000000, true, null);
+		}
+
+		void stop() {
+			setCanceled(true);
+			future.cancel(false);
+			InputStream stream = input;
+			if (stream != null) {
+				try {
+					stream.close();
+				} catch (IOException e) {
+					// the lap is over anyway
+				}
+			}
+		}
+
+		/**
+		 * Returns the measurements of a lap that did not complete.
+		 */
+		Lap getStoppedLap(boolean timedOut) {
+			long now = System.nanoTime();
+			long started = start;
+			if (started == 0) {
+				// the lap was still waiting for a thread
+				return new Lap(0, 0, 0, false, null);
+			}
+			long received = bytes;
+			long first = received == 0 ? now : firstByte;
+			return new Lap(received, (first - started) / 1000000, (now - first) / 1000000, false,
+					timedOut ? new TimeoutException(location.toString()) : null);
+		}
+	}
+}
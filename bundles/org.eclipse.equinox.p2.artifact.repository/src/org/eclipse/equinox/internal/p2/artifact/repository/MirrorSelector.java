@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2018 IBM Corporation and others.
+ * Copyright (c) 2008, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -20,6 +20,7 @@ import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.lang.Math.sqrt;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URI;
@@ -28,8 +29,12 @@ import java.util.*;
 import javax.xml.parsers.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.*;
+import org.eclipse.equinox.internal.p2.artifact.repository.MirrorRace.Lap;
 import org.eclipse.equinox.internal.p2.repository.*;
+import org.eclipse.equinox.p2.core.IAgentLocation;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.repository.IRepository;
+import org.osgi.framework.BundleContext;
 import org.w3c.dom.*;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -43,6 +48,14 @@ import org.xml.sax.SAXException;
  * sorted geographically with closer mirrors first. <br>
  * <br>
  * Always use {@link MirrorSelector.MirrorInfoComparator} for comparison.
+ * <br>
+ * <br>
+ * With the {@link #PROP_SELECTION} property set to {@link #SELECTION_ADAPTIVE},
+ * mirrors are instead chosen by the expected time to download from them, which
+ * is estimated from the latency and throughput of earlier transfers. The
+ * estimates are kept in the data area of the agent. Large artifacts can
+ * additionally be raced: the beginning of the artifact is read from two mirrors
+ * and the faster one is used for the whole artifact.
  */
 public class MirrorSelector {
 
@@ -54,6 +67,44 @@ public class MirrorSelector {
 
 	private static final double LOG2 = Math.log(2);
 
+	/**
+	 * The property that selects how mirrors are chosen. The default is the
+	 * ranking of {@link MirrorInfoComparator}.
+	 */
+	public static final String PROP_SELECTION = "eclipse.p2.mirrors.selection"; //$NON-NLS-1$
+
+	/**
+	 * Chooses mirrors by their measured latency and throughput.
+	 */
+	public static final String SELECTION_ADAPTIVE = "adaptive"; //$NON-NLS-1$
+
+	/**
+	 * The property with the size in bytes from which an artifact is raced between
+	 * two mirrors when the selection is adaptive. Artifacts are not raced when it
+	 * is not set.
+	 */
+	public static final String PROP_RACE_THRESHOLD = "eclipse.p2.mirrors.raceThreshold"; //$NON-NLS-1$
+
+	/**
+	 * The property with the number of bytes that are read from each mirror in a
+	 * race.
+	 */
+	public static final String PROP_RACE_BYTES = "eclipse.p2.mirrors.raceBytes"; //$NON-NLS-1$
+
+	private static final int DEFAULT_RACE_BYTES = 64 * 1024;
+
+	/**
+	 * The size that mirrors are compared for when the size of an artifact is not
+	 * known.
+	 */
+	private static final long REFERENCE_SIZE = 1024 * 1024;
+
+	/**
+	 * How often a mirror that has not been measured yet is chosen instead of the
+	 * best measured one.
+	 */
+	private static final double EXPLORATION_RATE = 0.1;
+
 	/**
 	 * Encapsulates information about a single mirror
 	 */
@@ -63,12 +114,18 @@ public class MirrorSelector {
 		private static final int ACCEPTABLE_FILE_NOT_FOUND_COUNT = 5; // Given an established connection, those are generally quick
 		private static final Timer resetFailure = new Timer(true);
 
+		private static final double ESTIMATE_WEIGHT = 0.3;
+
 		long bytesPerSecond;
 		int failureCount;
 		int fileNotFoundCount;
 		int totalFailureCount;
 		final int initialRank;
 		String locationString;
+		// the estimates of the adaptive selection
+		double throughputEstimate;
+		double latencyEstimate;
+		int samples;
 
 		public MirrorInfo(String location, int initialRank) {
 			this.initialRank = initialRank;
@@ -128,6 +185,53 @@ public class MirrorSelector {
 				fileNotFoundCount = 0;
 			}
 		}
+
+		/**
+		 * Records a transfer from this mirror. The latency and throughput estimates
+		 * are exponentially weighted moving averages, so recent transfers count
+		 * more than old ones.
+		 *
+		 * @param bytes the number of bytes transferred
+		 * @param latencyMillis the time until the transfer started
+		 * @param transferMillis the time the bytes took to arrive
+		 */
+		public synchronized void recordTransfer(long bytes, long latencyMillis, long transferMillis) {
+			if (bytes <= 0) {
+				return;
+			}
+			double throughput = bytes * 1000d / max(1, transferMillis);
+			if (samples == 0) {
+				throughputEstimate = throughput;
+				latencyEstimate = latencyMillis;
+			} else {
+				throughputEstimate += ESTIMATE_WEIGHT * (throughput - throughputEstimate);
+				latencyEstimate += ESTIMATE_WEIGHT * (latencyMillis - latencyEstimate);
+			}
+			samples++;
+		}
+
+		synchronized void restoreEstimates(double throughput, double latency, int count) {
+			if (throughput > 0 && latency >= 0 && count > 0) {
+				throughputEstimate = throughput;
+				latencyEstimate = latency;
+				samples = count;
+			}
+		}
+
+		/**
+		 * Returns the expected time in milliseconds to download the given number of
+		 * bytes from this mirror, or -1 if no transfer was recorded.
+		 */
+		public synchronized double getExpectedMillis(long bytes) {
+			if (samples == 0) {
+				return -1;
+			}
+			return latencyEstimate + bytes * 1000d / throughputEstimate;
+		}
+
+		synchronized boolean isMeasured() {
+			return samples > 0;
+		}
 	}
 
 	/**
@@ -143,6 +247,14 @@ public class MirrorSelector {
 
 	private final Transport transport;
 
+	private final boolean adaptive;
+
+	private final long raceThreshold;
+
+	private final int raceBytes;
+
+	private MirrorStatistics statistics;
+
 	/**
 	 * Constructs a mirror support class for the given repository. Mirrors are
 	 * not contacted and the mirrorsURL document is not parsed until a
@@ -164,6 +276,36 @@ public class MirrorSelector {
 		} catch (URISyntaxException e) {
 			log("Error initializing mirrors for: " + repository.getLocation(), e); //$NON-NLS-1$
 		}
+		IProvisioningAgent agent = repository.getProvisioningAgent();
+		this.adaptive = SELECTION_ADAPTIVE.equals(getProperty(agent, PROP_SELECTION));
+		this.raceThreshold = parseLong(getProperty(agent, PROP_RACE_THRESHOLD), 0);
+		this.raceBytes = (int) parseLong(getProperty(agent, PROP_RACE_BYTES), DEFAULT_RACE_BYTES);
+		if (adaptive && agent != null) {
+			IAgentLocation agentLocation = agent.getService(IAgentLocation.class);
+			URI dataArea = agentLocation == null ? null : agentLocation.getDataArea(Activator.ID);
+			if (dataArea != null && URIUtil.isFileURI(dataArea)) {
+				statistics = MirrorStatistics.get(new File(URIUtil.toFile(dataArea), MirrorStatistics.FILE_NAME));
+			}
+		}
+	}
+
+	private static String getProperty(IProvisioningAgent agent, String key) {
+		if (agent != null) {
+			return agent.getProperty(key);
+		}
+		BundleContext context = Activator.getContext();
+		return context != null ? context.getProperty(key) : System.getProperty(key);
+	}
+
+	private static long parseLong(String value, long defaultValue) {
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
 	}
 
 	/**
@@ -258,6 +400,20 @@ public class MirrorSelector {
 
 	}
 
+	/**
+	 * Returns the order of the adaptive selection for an artifact of the given
+	 * size: mirrors with fewer failures first, then the mirrors that are expected
+	 * to download the artifact fastest. Mirrors that have not been measured
+	 * follow the measured ones in their initial order.
+	 */
+	public static Comparator<MirrorInfo> getAdaptiveComparator(long bytes) {
+		return Comparator.<MirrorInfo> comparingInt(mirror -> min(mirror.failureCount, 2))
+				.thenComparingDouble(mirror -> {
+					double expected = mirror.getExpectedMillis(bytes);
+					return expected < 0 ? Double.MAX_VALUE : expected;
+				}).thenComparingInt(mirror -> mirror.initialRank);
+	}
+
 	/**
 	 * Parses the given mirror URL to obtain the list of mirrors. Returns the mirrors,
 	 * or null if mirrors could not be computed.
@@ -353,19 +509,116 @@ public class MirrorSelector {
 		if (relativeLocation == null || relativeLocation.isAbsolute()) {
 			return inputLocation;
 		}
-		MirrorInfo selectedMirror = selectMirror(monitor);
+		MirrorInfo selectedMirror = adaptive ? selectMirrorAdaptively(monitor) : selectMirror(monitor);
 		if (selectedMirror == null) {
 			return inputLocation;
 		}
 		if (Tracing.DEBUG_MIRRORS) {
 			Tracing.debug("Selected mirror for artifact " + inputLocation + ": " + selectedMirror); //$NON-NLS-1$ //$NON-NLS-2$
 		}
+		URI location = toMirrorLocation(selectedMirror, inputLocation, relativeLocation);
+		return location != null ? location : inputLocation;
+	}
+
+	/**
+	 * Returns the locations of the given artifact location on at most
+	 * <code>count</code> mirrors that have not failed, best mirrors first. The
+	 * segments of a large artifact are downloaded from these at the same time.
+	 *
+	 * @return the mirror locations, empty if there are no usable mirrors
+	 */
+	public synchronized URI[] getMirrorLocations(URI inputLocation, int count, IProgressMonitor monitor) {
+		Assert.isNotNull(inputLocation);
+		URI relativeLocation = baseURI == null ? null : baseURI.relativize(inputLocation);
+		if (relativeLocation == null || relativeLocation.isAbsolute()) {
+			return new URI[0];
+		}
+		initMirrors(monitor);
+		if (mirrors == null) {
+			return new URI[0];
+		}
+		Arrays.sort(mirrors, adaptive ? getAdaptiveComparator(REFERENCE_SIZE) : getComparator());
+		List<URI> locations = new ArrayList<>(count);
+		for (int i = 0; i < mirrors.length && locations.size() < count; i++) {
+			if (mirrors[i].failureCount == 0) {
+				URI location = toMirrorLocation(mirrors[i], inputLocation, relativeLocation);
+				if (location != null) {
+					locations.add(location);
+				}
+			}
+		}
+		return locations.toArray(new URI[locations.size()]);
+	}
+
+	/**
+	 * Returns an equivalent location for the given artifact location in the base
+	 * repository. When the selection is adaptive and the artifact is at least as
+	 * large as the race threshold, the beginning of the artifact is read from two
+	 * mirrors at the same time and the location on the faster one is returned.
+	 * Otherwise this is the same as {@link #getMirrorLocation(URI, IProgressMonitor)}.
+	 *
+	 * @param artifactSize the size of the artifact, or a negative value if it is not known
+	 */
+	public URI getMirrorLocation(URI inputLocation, long artifactSize, IProgressMonitor monitor) {
+		if (!adaptive || raceThreshold <= 0 || artifactSize < raceThreshold) {
+			return getMirrorLocation(inputLocation, monitor);
+		}
+		MirrorInfo[] contenders;
+		URI[] locations;
+		synchronized (this) {
+			contenders = selectContenders(monitor);
+			URI relativeLocation = baseURI == null ? null : baseURI.relativize(inputLocation);
+			if (contenders == null || relativeLocation == null || relativeLocation.isAbsolute()) {
+				return getMirrorLocation(inputLocation, monitor);
+			}
+			locations = new URI[contenders.length];
+			for (int i = 0; i < contenders.length; i++) {
+				locations[i] = toMirrorLocation(contenders[i], inputLocation, relativeLocation);
+				if (locations[i] == null) {
+					return getMirrorLocation(inputLocation, monitor);
+				}
+			}
+		}
+		// the race runs without the lock, so that other downloads can select mirrors
+		Lap[] laps = MirrorRace.run(transport, locations, raceBytes, monitor);
+		if (monitor != null && monitor.isCanceled()) {
+			return inputLocation;
+		}
+		synchronized (this) {
+			for (int i = 0; i < laps.length; i++) {
+				Lap lap = laps[i];
+				if (lap.isFailed()) {
+					if (lap.failure() instanceof FileNotFoundException) {
+						contenders[i].incrementFileNotFoundCount();
+					} else {
+						contenders[i].incrementFailureCount();
+					}
+				} else {
+					contenders[i].recordTransfer(lap.bytes(), lap.latencyMillis(), lap.transferMillis());
+					if (statistics != null) {
+						statistics.update(contenders[i]);
+					}
+				}
+			}
+		}
+		int winner = MirrorRace.getWinner(laps);
+		if (winner < 0) {
+			return getMirrorLocation(inputLocation, monitor);
+		}
+		if (Tracing.DEBUG_MIRRORS) {
+			Tracing.debug("Mirror race for artifact " + inputLocation + " won by " + contenders[winner] + " in " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ laps[winner].getTotalMillis() + "ms"); //$NON-NLS-1$
+		}
+		return locations[winner];
+	}
+
+	private URI toMirrorLocation(MirrorInfo mirror, URI inputLocation, URI relativeLocation) {
 		try {
-			return new URI(selectedMirror.locationString + relativeLocation.getPath());
+			return new URI(mirror.locationString + relativeLocation.getPath());
 		} catch (URISyntaxException e) {
-			log("Unable to make location " + inputLocation + " relative to mirror " + selectedMirror.locationString, e); //$NON-NLS-1$ //$NON-NLS-2$
+			log("Unable to make location " + inputLocation + " relative to mirror " + mirror.locationString, e); //$NON-NLS-1$ //$NON-NLS-2$
 		}
-		return inputLocation;
+		return null;
 	}
 
 	/**
@@ -380,6 +633,11 @@ public class MirrorSelector {
 		if (mirrorsURL != null) {
 			mirrors = computeMirrors(mirrorsURL, monitor);
 		}
+		if (mirrors != null && statistics != null) {
+			for (MirrorInfo mirror : mirrors) {
+				statistics.restore(mirror);
+			}
+		}
 	}
 
 	private MirrorInfoComparator getComparator() {
@@ -436,6 +694,33 @@ public class MirrorSelector {
 		}
 	}
 
+	/**
+	 * Reports the result of a mirror download that took the given time. When the
+	 * selection is adaptive, the time is split into the latency and the transfer
+	 * time of the download, and recorded for the mirror.
+	 */
+	public synchronized void reportResult(String toDownload, IStatus result, long elapsedMillis) {
+		reportResult(toDownload, result);
+		if (!adaptive || mirrors == null || !result.isOK() || !(result instanceof DownloadStatus)) {
+			return;
+		}
+		long size = ((DownloadStatus) result).getFileSize();
+		long rate = ((DownloadStatus) result).getTransferRate();
+		if (size <= 0 || rate <= 0) {
+			return;
+		}
+		for (MirrorInfo mirror : mirrors) {
+			if (toDownload.startsWith(mirror.locationString)) {
+				long transferMillis = size * 1000 / rate;
+				mirror.recordTransfer(size, max(0, elapsedMillis - transferMillis), transferMillis);
+				if (statistics != null) {
+					statistics.update(mirror);
+				}
+				return;
+			}
+		}
+	}
+
 	/**
 	 * Return whether or not all the mirrors for this selector have proven to be invalid
 	 * @return whether or not there is a valid mirror in this selector.
@@ -496,4 +781,59 @@ public class MirrorSelector {
 		return selected;
 	}
 
+	/**
+	 * Selects the mirror that is expected to be fastest. Now and then a mirror
+	 * that has not been measured yet is selected instead, so that it gets a
+	 * chance to prove itself. Returns null if a mirror could not be found.
+	 */
+	private MirrorInfo selectMirrorAdaptively(IProgressMonitor monitor) {
+		initMirrors(monitor);
+		if (mirrors == null || mirrors.length == 0) {
+			return null;
+		}
+		Arrays.sort(mirrors, getAdaptiveComparator(REFERENCE_SIZE));
+		MirrorInfo selected = mirrors[0];
+		if (selected.isMeasured() && random.nextDouble() < EXPLORATION_RATE) {
+			MirrorInfo unmeasured = getFirstUnmeasured();
+			if (unmeasured != null) {
+				selected = unmeasured;
+			}
+		}
+		//for now, don't tolerate mirrors with multiple failures
+		if (selected.failureCount > 1) {
+			return null;
+		}
+		return selected;
+	}
+
+	/**
+	 * Selects the two mirrors that race for an artifact: the best one, and a
+	 * mirror that has not been measured yet or else the second best. Returns null
+	 * if there are not two usable mirrors.
+	 */
+	private MirrorInfo[] selectContenders(IProgressMonitor monitor) {
+		initMirrors(monitor);
+		if (mirrors == null || mirrors.length < 2) {
+			return null;
+		}
+		Arrays.sort(mirrors, getAdaptiveComparator(raceThreshold));
+		MirrorInfo second = getFirstUnmeasured();
+		if (second == null || second == mirrors[0]) {
+			second = mirrors[1];
+		}
+		if (mirrors[0].failureCount > 1 || second.failureCount > 1) {
+			return null;
+		}
+		return new MirrorInfo[] {mirrors[0], second};
+	}
+
+	private MirrorInfo getFirstUnmeasured() {
+		for (MirrorInfo mirror : mirrors) {
+			if (!mirror.isMeasured() && mirror.failureCount == 0) {
+				return mirror;
+			}
+		}
+		return null;
+	}
+
 }
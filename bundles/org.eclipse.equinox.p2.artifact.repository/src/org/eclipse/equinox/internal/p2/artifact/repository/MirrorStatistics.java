@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.artifact.repository;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.equinox.internal.p2.artifact.repository.MirrorSelector.MirrorInfo;
+import org.eclipse.equinox.internal.p2.core.helpers.CollectionUtils;
+import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
+
+/**
+ * The throughput and latency estimates of mirrors, stored in the data area of
+ * the agent so that the adaptive mirror selection does not start from scratch
+ * in every session. Mirrors are shared by many repositories, so there is one
+ * instance per file, and it is kept by all selectors that use the file.
+ * <p>
+ * Changes are written at most every {@link #SAVE_INTERVAL} milliseconds, and
+ * when the bundle stops.
+ * </p>
+ */
+public class MirrorStatistics {
+	static final String FILE_NAME = "mirrorStatistics.properties"; //$NON-NLS-1$
+
+	private static final long SAVE_INTERVAL = 30000;
+
+	private static final String THROUGHPUT = ".throughput"; //$NON-NLS-1$
+	private static final String LATENCY = ".latency"; //$NON-NLS-1$
+	private static final String SAMPLES = ".samples"; //$NON-NLS-1$
+
+	private static final Map<File, MirrorStatistics> INSTANCES = new ConcurrentHashMap<>();
+
+	private final File file;
+	private Map<String, String> entries;
+	private boolean dirty;
+	private long lastSave;
+
+	MirrorStatistics(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Returns the statistics stored in the given file.
+	 */
+	public static MirrorStatistics get(File file) {
+		return INSTANCES.computeIfAbsent(file, MirrorStatistics::new);
+	}
+
+	/**
+	 * Writes all statistics that have changed.
+	 */
+	static void saveAll() {
+		for (MirrorStatistics statistics : INSTANCES.values()) {
+			statistics.save();
+		}
+	}
+
+	/**
+	 * Sets the estimates of the given mirror to the stored ones, if there are any.
+	 */
+	public synchronized void restore(MirrorInfo mirror) {
+		String location = mirror.locationString;
+		String throughput = getEntries().get(location + THROUGHPUT);
+		String latency = getEntries().get(location + LATENCY);
+		String samples = getEntries().get(location + SAMPLES);
+		if (throughput == null || latency == null || samples == null) {
+			return;
+		}
+		try {
+			mirror.restoreEstimates(Double.parseDouble(throughput), Double.parseDouble(latency),
+					Integer.parseInt(samples));
+		} catch (NumberFormatException e) {
+			// measure the mirror again
+		}
+	}
+
+	/**
+	 * Remembers the current estimates of the given mirror.
+	 */
+	public synchronized void update(MirrorInfo mirror) {
+		String location = mirror.locationString;
+		synchronized (mirror) {
+			if (mirror.samples == 0) {
+				return;
+			}
+			getEntries().put(location + THROUGHPUT, Double.toString(mirror.throughputEstimate));
+			getEntries().put(location + LATENCY, Double.toString(mirror.latencyEstimate));
+			getEntries().put(location + SAMPLES, Integer.toString(mirror.samples));
+		}
+		dirty = true;
+		if (System.currentTimeMillis() - lastSave > SAVE_INTERVAL) {
+			save();
+		}
+	}
+
+	/**
+	 * Writes the statistics if they have changed.
+	 */
+	public synchronized void save() {
+		if (!dirty) {
+			return;
+		}
+		dirty = false;
+		lastSave = System.currentTimeMillis();
+		File parent = file.getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		File temp = new File(parent, file.getName() + ".tmp"); //$NON-NLS-1$
+		try {
+			try (OutputStream output = new BufferedOutputStream(new FileOutputStream(temp))) {
+				CollectionUtils.storeProperties(entries, output, null);
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			temp.delete();
+			if (Tracing.DEBUG_MIRRORS) {
+				Tracing.debug("Could not save " + file + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+	}
+
+	private Map<String, String> getEntries() {
+		if (entries == null) {
+			entries = new HashMap<>();
+			if (file.isFile()) {
+				try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+					entries.putAll(CollectionUtils.loadProperties(input));
+				} catch (IOException e) {
+					// the mirrors are measured again
+					entries.clear();
+				}
+			}
+		}
+		return entries;
+	}
+}
@@ -0,0 +1,347 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.artifact.repository;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
+import org.eclipse.equinox.internal.p2.repository.DownloadStatus;
+import org.eclipse.equinox.internal.p2.repository.Transport;
+import org.eclipse.equinox.internal.provisional.p2.repository.IStateful;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Downloads a large artifact in segments that are fetched at the same time,
+ * each with a range request, and spread over the given locations. The segments
+ * are written into a part file at their offsets, and the file is copied to the
+ * destination once all segments have arrived, so the processing steps of the
+ * destination verify the reassembled artifact as usual.
+ * <p>
+ * A segment that fails on a mirror is fetched again from the first location.
+ * If the transport or the server cannot send ranges, nothing is written to the
+ * destination and the caller downloads the artifact in one stream instead.
+ * </p>
+ */
+public class SegmentedDownload {
+	/**
+	 * The property with the download size in bytes from which artifacts are
+	 * downloaded in segments. Artifacts are downloaded in one stream when it is
+	 * not set.
+	 */
+	public static final String PROP_THRESHOLD = "eclipse.p2.download.segmentThreshold"; //$NON-NLS-1$
+
+	/**
+	 * The property with the number of segments that are fetched at the same time.
+	 */
+	public static final String PROP_SEGMENTS = "eclipse.p2.download.segments"; //$NON-NLS-1$
+
+	public static final int DEFAULT_SEGMENTS = 4;
+
+	/**
+	 * Segments are not made smaller than this, the overhead of a request would
+	 * outweigh the gain.
+	 */
+	static final long MIN_SEGMENT_SIZE = 256 * 1024;
+
+	/** How often the caller checks its monitor and reports progress. */
+	private static final long CANCEL_POLL_MILLIS = 500;
+
+	/** How long the segments that are still running are waited for once they are canceled. */
+	private static final long CANCEL_WAIT_MILLIS = 10000;
+
+	/** Progress is reported in kilobytes, so that large artifacts fit an int. */
+	private static final int BYTES_PER_WORK = 1024;
+
+	private final Transport transport;
+	private final URI[] locations;
+	private final long size;
+	private final int segments;
+	private final AtomicLong received = new AtomicLong();
+	private long reported;
+
+	/**
+	 * @param transport the transport that sends the range requests
+	 * @param locations the locations of the artifact, the first one is used to
+	 *                  fetch a segment again that failed on another one
+	 * @param size      the size of the artifact in bytes
+	 * @param segments  the number of segments that are fetched at the same time
+	 */
+	public SegmentedDownload(Transport transport, URI[] locations, long size, int segments) {
+		Assert.isLegal(locations.length > 0);
+		this.transport = transport;
+		this.locations = locations;
+		this.size = size;
+		this.segments = (int) Math.max(1, Math.min(segments, size / MIN_SEGMENT_SIZE));
+	}
+
+	/**
+	 * Returns whether the artifact is large enough to be split into more than one
+	 * segment.
+	 */
+	public boolean isSegmented() {
+		return segments > 1;
+	}
+
+	/**
+	 * Downloads the artifact into the given destination, with the part file in the
+	 * temporary directory.
+	 *
+	 * @see #run(OutputStream, File, IProgressMonitor)
+	 */
+	public IStatus run(OutputStream destination, IProgressMonitor monitor) {
+		return run(destination, null, monitor);
+	}
+
+	/**
+	 * Downloads the artifact into the given destination. If the destination is an
+	 * instance of {@link IStateful} the resulting status is also set on it. The
+	 * bytes that arrived in all segments are reported as progress on the given
+	 * monitor.
+	 *
+	 * @param directory the directory of the part file, that is the directory of
+	 *                  the file the destination writes to, or <code>null</code> to
+	 *                  use the temporary directory
+	 * @return the status of the download, that is a {@link DownloadStatus} on
+	 *         success, or <code>null</code> if the artifact cannot be downloaded
+	 *         in segments and nothing was written to the destination
+	 * @throws OperationCanceledException if the download was canceled
+	 */
+	public IStatus run(OutputStream destination, File directory, IProgressMonitor monitor) {
+		if (!isSegmented()) {
+			return null;
+		}
+		SubMonitor progress = SubMonitor.convert(monitor, (int) (size / BYTES_PER_WORK) + 1);
+		long start = System.currentTimeMillis();
+		File file = null;
+		CancelForwarder segmentMonitor = new CancelForwarder(progress);
+		ExecutorService executor = Executors.newFixedThreadPool(segments, new SegmentThreadFactory());
+		try {
+			file = File.createTempFile("p2segments", ".part", directory != null && directory.isDirectory() ? directory : null); //$NON-NLS-1$ //$NON-NLS-2$
+			try (RandomAccessFile parts = new RandomAccessFile(file, "rw")) { //$NON-NLS-1$
+				try {
+					parts.setLength(size);
+					FileChannel channel = parts.getChannel();
+					long segmentSize = (size + segments - 1) / segments;
+					List<Future<IStatus>> results = new ArrayList<>(segments);
+					for (int i = 0; i < segments; i++) {
+						long offset = i * segmentSize;
+						long length = Math.min(segmentSize, size - offset);
+						URI location = locations[i % locations.length];
+						results.add(executor.submit(() -> fetch(channel, location, offset, length, segmentMonitor)));
+					}
+					IStatus failure = null;
+					for (Future<IStatus> result : results) {
+						IStatus status = await(result, progress);
+						if (status == null || status.getCode() == DownloadStatus.CODE_RANGE_NOT_SUPPORTED) {
+							// fall back to one stream
+							return null;
+						}
+						if (!status.isOK() && failure == null) {
+							failure = status;
+						}
+					}
+					if (failure != null) {
+						return setStatus(destination, failure);
+					}
+				} finally {
+					// the segments share the channel, and interrupting one of them would close it
+					// for all, so they are stopped through their monitor and the channel is kept
+					// open until they are done
+					segmentMonitor.setCanceled(true);
+					executor.shutdown();
+					awaitSegments(executor);
+				}
+			}
+			Files.copy(file.toPath(), destination);
+			progress.done();
+		} catch (IOException e) {
+			return setStatus(destination, new Status(IStatus.ERROR, Activator.ID,
+					NLS.bind(Messages.SegmentedDownload_failed, locations[0]), e));
+		} finally {
+			// in case the part file could not be created
+			segmentMonitor.setCanceled(true);
+			executor.shutdown();
+			if (file != null) {
+				file.delete();
+			}
+		}
+		DownloadStatus status = new DownloadStatus(IStatus.OK, Activator.ID, Status.OK_STATUS.getMessage());
+		status.setFileSize(size);
+		status.setTransferRate(size * 1000 / Math.max(1, System.currentTimeMillis() - start));
+		if (Tracing.DEBUG_MIRRORS) {
+			Tracing.debug("Downloaded " + locations[0] + " in " + segments + " segments from " + locations.length //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ " locations at " + status.getTransferRate() + " bytes/s"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return setStatus(destination, status);
+	}
+
+	/**
+	 * Fetches one segment, from the first location again if it fails on another
+	 * one.
+	 */
+	private IStatus fetch(FileChannel channel, URI location, long offset, long length, IProgressMonitor monitor) {
+		IStatus status = fetchRange(channel, location, offset, length, monitor);
+		if (status != null && !status.isOK() && status.getSeverity() != IStatus.CANCEL
+				&& status.getCode() != DownloadStatus.CODE_RANGE_NOT_SUPPORTED && location != locations[0]) {
+			if (Tracing.DEBUG_MIRRORS) {
+				Tracing.debug("Segment at " + offset + " failed on " + location + ", fetching it from " + locations[0]); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+			status = fetchRange(channel, locations[0], offset, length, monitor);
+		}
+		return status;
+	}
+
+	private IStatus fetchRange(FileChannel channel, URI location, long offset, long length, IProgressMonitor monitor) {
+		SegmentOutputStream segment = new SegmentOutputStream(channel, offset, length);
+		IStatus status;
+		try {
+			status = transport.downloadRange(location, segment, offset, length, size, monitor);
+		} catch (OperationCanceledException e) {
+			return Status.CANCEL_STATUS;
+		}
+		if (status == null || !status.isOK()) {
+			// the segment is fetched again from the start, or not at all
+			received.addAndGet(-segment.written);
+		}
+		if (status != null && status.isOK() && segment.written != length) {
+			return new Status(IStatus.ERROR, Activator.ID,
+					NLS.bind(Messages.SegmentedDownload_incomplete, new Object[] {location, offset, length}));
+		}
+		return status;
+	}
+
+	private IStatus await(Future<IStatus> result, SubMonitor progress) {
+		while (true) {
+			reportProgress(progress);
+			if (progress.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			try {
+				IStatus status = result.get(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+				if (status != null && status.getSeverity() == IStatus.CANCEL) {
+					throw new OperationCanceledException();
+				}
+				return status;
+			} catch (TimeoutException e) {
+				// check the monitor again
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				return new Status(IStatus.ERROR, Activator.ID, e.getCause().getMessage(), e.getCause());
+			}
+		}
+	}
+
+	private static void awaitSegments(ExecutorService executor) {
+		try {
+			if (!executor.awaitTermination(CANCEL_WAIT_MILLIS, TimeUnit.MILLISECONDS) && Tracing.DEBUG_MIRRORS) {
+				Tracing.debug("Segments still running after they were canceled"); //$NON-NLS-1$
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Reports the bytes that arrived since the last call. Only the caller reports
+	 * progress, the monitor is not used by the threads of the segments.
+	 */
+	private void reportProgress(SubMonitor progress) {
+		long work = received.get() / BYTES_PER_WORK;
+		if (work > reported) {
+			progress.worked((int) (work - reported));
+			reported = work;
+		}
+	}
+
+	private static IStatus setStatus(OutputStream destination, IStatus status) {
+		if (destination instanceof IStateful stateful) {
+			stateful.setStatus(status);
+		}
+		return status;
+	}
+
+	/**
+	 * Writes the bytes of a segment at its offset in the file. A server that sends
+	 * more bytes than asked for fails the segment.
+	 */
+	private class SegmentOutputStream extends OutputStream {
+		private final FileChannel channel;
+		private final long offset;
+		private final long length;
+		long written;
+
+		SegmentOutputStream(FileChannel channel, long offset, long length) {
+			this.channel = channel;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] {(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (written + len > length) {
+				throw new IOException("Received more than the " + length + " bytes of the segment at " + offset); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+			while (buffer.hasRemaining()) {
+				int count = channel.write(buffer, offset + written);
+				written += count;
+				received.addAndGet(count);
+			}
+		}
+	}
+
+	/**
+	 * The monitor of the segments, it only forwards the cancellation of the
+	 * caller, progress is reported on the whole download.
+	 */
+	private static class CancelForwarder extends NullProgressMonitor {
+		private final IProgressMonitor monitor;
+
+		CancelForwarder(IProgressMonitor monitor) {
+			this.monitor = monitor;
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return super.isCanceled() || monitor.isCanceled();
+		}
+	}
+
+	private static class SegmentThreadFactory implements ThreadFactory {
+		private static final AtomicInteger COUNT = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "p2 segmented download " + COUNT.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2018 IBM Corporation and others.
+ * Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -25,6 +25,7 @@ import java.net.URISyntaxException;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
@@ -86,6 +87,19 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	 */
 	public static final String PROP_FORCE_THREADING = "eclipse.p2.force.threading"; //$NON-NLS-1$
 
+	/**
+	 * The key for a boolean property that performs the requests of a threaded
+	 * download on virtual threads instead of download jobs. It has no effect on
+	 * Java runtimes without virtual threads.
+	 */
+	public static final String PROP_VIRTUAL_THREADS = "eclipse.p2.download.virtualThreads"; //$NON-NLS-1$
+
+	/**
+	 * The key for an integer property that limits the number of concurrent
+	 * downloads from one host when downloading on virtual threads.
+	 */
+	public static final String PROP_MAX_DOWNLOADS_PER_HOST = "eclipse.p2.download.maxPerHost"; //$NON-NLS-1$
+
 	/**
 	 * Location of the repository lock
 	 */
@@ -281,11 +295,15 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 
 	private static final int DEFAULT_MAX_THREADS = 4;
 
+	private static final int DEFAULT_MAX_DOWNLOADS_PER_HOST = 64;
+
 	protected String[][] mappingRules = DEFAULT_MAPPING_RULES;
 
 	private MirrorSelector mirrors;
 
-	private boolean disableSave = false;
+	private volatile boolean disableSave = false;
+
+	private final ReentrantLock batchLock = new ReentrantLock();
 
 	static void delete(File toDelete) {
 		if (toDelete.isDirectory()) {
@@ -672,7 +690,7 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		if (baseLocation == null) {
 			return new Status(IStatus.ERROR, Activator.ID, NLS.bind(Messages.no_location, descriptor));
 		}
-		URI mirrorLocation = getMirror(baseLocation, subMon.split(1));
+		URI mirrorLocation = getMirror(baseLocation, getDownloadSize(descriptor), subMon.split(1));
 		IStatus status = downloadArtifact(descriptor, mirrorLocation, destination, subMon.split(1));
 		IStatus result = reportStatus(descriptor, destination, status);
 		// if the original download went reasonably but the reportStatus found some issues
@@ -752,13 +770,29 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		monitor = IProgressMonitor.nullSafe(monitor);
 		//Bug 340352: transport has performance overhead of 100ms and more, bypass it for local copies
 		IStatus result = Status.OK_STATUS;
+		boolean segmented = false;
+		long start = System.currentTimeMillis();
 		if (SimpleArtifactRepositoryFactory.PROTOCOL_FILE.equals(mirrorLocation.getScheme())) {
 			result = copyFileToStream(new File(mirrorLocation), destination, monitor);
 		} else {
-			result = getArtifactManger().getArtifact(mirrorLocation, destination, descriptor, monitor);
+			ArtifactManager manager = getArtifactManger();
+			// a replaced manager, that may cache artifacts, sees every request
+			result = DefaultArtifactManagerServiceFactory.isDefault(manager)
+					? downloadSegmented(descriptor, mirrorLocation, destination, monitor)
+					: null;
+			if (result == null) {
+				result = manager.getArtifact(mirrorLocation, destination, descriptor, monitor);
+			} else {
+				segmented = true;
+			}
 		}
 		if (mirrors != null) {
-			mirrors.reportResult(mirrorLocation.toString(), result);
+			if (!segmented) {
+				mirrors.reportResult(mirrorLocation.toString(), result, System.currentTimeMillis() - start);
+			} else if (!result.isOK()) {
+				// the segments came from several mirrors, their rate says nothing about this one
+				mirrors.reportResult(mirrorLocation.toString(), result);
+			}
 		}
 		if (result.isOK() || result.getSeverity() == IStatus.CANCEL) {
 			return result;
@@ -779,17 +813,88 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	/**
 	 * Returns an equivalent mirror location for the given artifact location.
 	 * @param baseLocation The location of the artifact in this repository
+	 * @param artifactSize The download size of the artifact, or -1 if it is not known
 	 * @return the Location of the artifact in this repository, or an equivalent mirror
 	 */
-	private synchronized URI getMirror(URI baseLocation, IProgressMonitor monitor) {
+	private URI getMirror(URI baseLocation, long artifactSize, IProgressMonitor monitor) {
 		monitor = IProgressMonitor.nullSafe(monitor);
-		if (!isMirrorsEnabled(getProvisioningAgent()) || (!isForceThreading() && isLocal())) {
-			return baseLocation;
+		MirrorSelector selector;
+		synchronized (this) {
+			if (!isMirrorsEnabled(getProvisioningAgent()) || (!isForceThreading() && isLocal())) {
+				return baseLocation;
+			}
+			if (mirrors == null) {
+				mirrors = new MirrorSelector(this, getTransport());
+			}
+			selector = mirrors;
+		}
+		// not under the lock of the repository, mirrors may be raced for large artifacts
+		return selector.getMirrorLocation(baseLocation, artifactSize, monitor);
+	}
+
+	/**
+	 * Downloads an artifact that is larger than the segment threshold in segments
+	 * that are fetched at the same time from the given location and from other
+	 * mirrors.
+	 *
+	 * @return the status of the download, or <code>null</code> if the artifact is
+	 *         not downloaded in segments and nothing was written
+	 */
+	private IStatus downloadSegmented(IArtifactDescriptor descriptor, URI mirrorLocation, OutputStream destination,
+			IProgressMonitor monitor) {
+		IProvisioningAgent agent = getProvisioningAgent();
+		long threshold;
+		try {
+			threshold = Long.parseLong(agent.getProperty(SegmentedDownload.PROP_THRESHOLD, "0")); //$NON-NLS-1$
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		long size = getDownloadSize(descriptor);
+		Transport transport = getTransport();
+		if (threshold <= 0 || size < threshold || transport == null) {
+			return null;
 		}
-		if (mirrors == null) {
-			mirrors = new MirrorSelector(this, getTransport());
+		int segments = Math.max(1, agent.getIntProperty(SegmentedDownload.PROP_SEGMENTS, SegmentedDownload.DEFAULT_SEGMENTS));
+		List<URI> locations = new ArrayList<>(segments);
+		locations.add(mirrorLocation);
+		URI baseLocation = getLocation(descriptor);
+		if (mirrors != null && baseLocation != null) {
+			for (URI location : mirrors.getMirrorLocations(baseLocation, segments, monitor)) {
+				if (locations.size() < segments && !location.equals(mirrorLocation)) {
+					locations.add(location);
+				}
+			}
+		}
+		return new SegmentedDownload(transport, locations.toArray(new URI[locations.size()]), size, segments)
+				.run(destination, getDestinationDirectory(destination), monitor);
+	}
+
+	/**
+	 * Returns the directory of the file that the given chain of processing steps
+	 * ends in, or <code>null</code> if it does not end in a file of an artifact
+	 * repository.
+	 */
+	private static File getDestinationDirectory(OutputStream destination) {
+		OutputStream current = destination;
+		while (current instanceof ProcessingStep step) {
+			current = step.getDestination();
+		}
+		if (current instanceof ArtifactOutputStream artifactStream && artifactStream.file != null) {
+			return artifactStream.file.getParentFile();
+		}
+		return null;
+	}
+
+	private static long getDownloadSize(IArtifactDescriptor descriptor) {
+		String size = descriptor.getProperty(IArtifactDescriptor.DOWNLOAD_SIZE);
+		if (size == null) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(size);
+		} catch (NumberFormatException e) {
+			return -1;
 		}
-		return mirrors.getMirrorLocation(baseLocation, monitor);
 	}
 
 	/**
@@ -948,7 +1053,8 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 				NLS.bind(Messages.message_problemReadingArtifact, getLocation()), null);
 		LinkedList<IArtifactRequest> requestsPending = new LinkedList<>(Arrays.asList(requests));
 
-		int numberOfJobs = Math.min(requests.length, getMaximumThreads());
+		boolean virtualThreads = isVirtualThreads();
+		int numberOfJobs = Math.min(requests.length, virtualThreads ? getMaximumDownloadsPerHost() : getMaximumThreads());
 		if (numberOfJobs <= 1 || (!isForceThreading() && isLocal())) {
 			SubMonitor subMonitor = SubMonitor.convert(monitor, requests.length);
 			try {
@@ -968,7 +1074,6 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 			// initialize the various jobs needed to process the get artifact requests
 			monitor.beginTask(NLS.bind(Messages.sar_downloading, Integer.toString(requests.length)), requests.length);
 			try {
-				DownloadJob jobs[] = new DownloadJob[numberOfJobs];
 				List<IStatus> jobStatus = new CopyOnWriteArrayList<>();
 				Consumer<IStatus> resultConsumer = result -> {
 					synchronized (monitor) {
@@ -984,16 +1089,23 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 						monitor.subTask(jobMsg);
 					}
 				};
-				for (int i = 0; i < numberOfJobs; i++) {
-					jobs[i] = new DownloadJob(Messages.sar_downloadJobName + i, this, requestsPending, resultConsumer,
-							messageConsumer);
-					jobs[i].schedule();
-				}
-				// wait for all the jobs to complete
-				try {
-					Job.getJobManager().join(DownloadJob.FAMILY, null);
-				} catch (InterruptedException e) {
-					// ignore
+				if (virtualThreads) {
+					// the limit applies to all requests to the host, not to this batch
+					new VirtualThreadDownloader(this, getMaximumDownloadsPerHost()).run(requestsPending, monitor,
+							resultConsumer, messageConsumer);
+				} else {
+					DownloadJob jobs[] = new DownloadJob[numberOfJobs];
+					for (int i = 0; i < numberOfJobs; i++) {
+						jobs[i] = new DownloadJob(Messages.sar_downloadJobName + i, this, requestsPending, resultConsumer,
+								messageConsumer);
+						jobs[i].schedule();
+					}
+					// wait for all the jobs to complete
+					try {
+						Job.getJobManager().join(DownloadJob.FAMILY, null);
+					} catch (InterruptedException e) {
+						// ignore
+					}
 				}
 				jobStatus.forEach(overallStatus::add);
 			} finally {
@@ -1107,6 +1219,40 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		return maxThreads;
 	}
 
+	/**
+	 * Returns the maximum number of concurrent downloads from the host of this
+	 * repository when downloading on virtual threads. Unless it is configured, a
+	 * transport that bounds the downloads it has in flight sets the default. The
+	 * maximum number of threads that the repository specifies still applies.
+	 */
+	private int getMaximumDownloadsPerHost() {
+		int maxDownloads = DEFAULT_MAX_DOWNLOADS_PER_HOST;
+		String agentMaxDownloads = getAgentPropertyWithFallback(getProvisioningAgent(), PROP_MAX_DOWNLOADS_PER_HOST);
+		try {
+			if (agentMaxDownloads != null) {
+				maxDownloads = Math.max(1, Integer.parseInt(agentMaxDownloads));
+			}
+		} catch (NumberFormatException nfe) {
+			// default number of downloads
+		}
+		if (agentMaxDownloads == null && getProvisioningAgent() != null && !isLocal()) {
+			Transport transport = getTransport();
+			int window = transport == null ? 0 : transport.getMaxConcurrentDownloads(getLocation());
+			if (window > 0) {
+				maxDownloads = window;
+			}
+		}
+		try {
+			String maxThreadString = getProperties().get(PROP_MAX_THREADS);
+			if (maxThreadString != null) {
+				maxDownloads = Math.min(maxDownloads, Math.max(1, Integer.parseInt(maxThreadString)));
+			}
+		} catch (NumberFormatException nfe) {
+			// ignore repoMaxThreads
+		}
+		return maxDownloads;
+	}
+
 	@Override
 	public OutputStream getOutputStream(IArtifactDescriptor descriptor) throws ProvisionException {
 		if (!holdsLock() && URIUtil.isFileURI(getLocation())) {
@@ -1265,6 +1411,17 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		return TRUE.equals(getProperties().get(PROP_FORCE_THREADING));
 	}
 
+	private boolean isVirtualThreads() {
+		if (!VirtualThreadDownloader.isAvailable()) {
+			return false;
+		}
+		String property = getAgentPropertyWithFallback(getProvisioningAgent(), PROP_VIRTUAL_THREADS);
+		if (property != null) {
+			return TRUE.equals(property);
+		}
+		return TRUE.equals(getProperties().get(PROP_VIRTUAL_THREADS));
+	}
+
 	private boolean isLocal() {
 		return "file".equalsIgnoreCase(getLocation().getScheme()); //$NON-NLS-1$
 	}
@@ -1590,40 +1747,53 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		monitor = IProgressMonitor.nullSafe(monitor);
 		IStatus result = null;
 
+		// Batches exclude each other, but the runnable does not hold the monitor of
+		// this repository so that it can hand the work to other threads, for example
+		// to mirror artifacts in parallel. The index is saved once at the end of the
+		// outermost batch.
+		batchLock.lock();
 		boolean lockAcquired = false;
+		boolean disableSaveState;
 		synchronized (this) {
-			boolean disableSaveState = disableSave;
-			try {
+			disableSaveState = disableSave;
+		}
+		try {
+			synchronized (this) {
 				if (canLock()) {
 					lockAcquired = lockAndLoad(false, monitor);
 					if (!lockAcquired) {
 						return new Status(IStatus.ERROR, Activator.ID, "Could not lock artifact repository for writing", null); //$NON-NLS-1$
 					}
 				}
-
 				disableSave = true;
-				runnable.run(monitor);
-			} catch (OperationCanceledException oce) {
-				return new Status(IStatus.CANCEL, Activator.ID, oce.getMessage(), oce);
-			} catch (Throwable e) {
-				result = new Status(IStatus.ERROR, Activator.ID, e.getMessage(), e);
-			} finally {
-				disableSave = disableSaveState;
-				try {
-					if (!disableSaveState) {
-						save();
-					}
-				} catch (Exception e) {
-					if (result != null) {
-						result = new MultiStatus(Activator.ID, IStatus.ERROR, new IStatus[] {result}, e.getMessage(), e);
-					} else {
-						result = new Status(IStatus.ERROR, Activator.ID, e.getMessage(), e);
-					}
-				} finally {
-					if (lockAcquired) {
-						unlock();
+			}
+			runnable.run(monitor);
+		} catch (OperationCanceledException oce) {
+			return new Status(IStatus.CANCEL, Activator.ID, oce.getMessage(), oce);
+		} catch (Throwable e) {
+			result = new Status(IStatus.ERROR, Activator.ID, e.getMessage(), e);
+		} finally {
+			try {
+				synchronized (this) {
+					disableSave = disableSaveState;
+					try {
+						if (!disableSaveState) {
+							save();
+						}
+					} catch (Exception e) {
+						if (result != null) {
+							result = new MultiStatus(Activator.ID, IStatus.ERROR, new IStatus[] {result}, e.getMessage(), e);
+						} else {
+							result = new Status(IStatus.ERROR, Activator.ID, e.getMessage(), e);
+						}
+					} finally {
+						if (lockAcquired) {
+							unlock();
+						}
 					}
 				}
+			} finally {
+				batchLock.unlock();
 			}
 		}
 		if (result == null) {
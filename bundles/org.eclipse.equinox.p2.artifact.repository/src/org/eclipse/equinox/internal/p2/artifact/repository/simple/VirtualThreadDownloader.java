@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.artifact.repository.simple;
+
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.artifact.repository.Activator;
+import org.eclipse.equinox.internal.p2.artifact.repository.Messages;
+import org.eclipse.equinox.p2.repository.artifact.IArtifactRequest;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Performs the artifact requests of a repository on virtual threads, one
+ * thread per request. Instead of a fixed number of {@link DownloadJob}s, a
+ * semaphore per origin limits how many requests download at the same time, so
+ * hundreds of small artifacts can be in flight without as many platform
+ * threads.
+ * <p>
+ * Virtual threads need Java 21. They are looked up reflectively, and
+ * {@link #isAvailable()} answers <code>false</code> on older runtimes,
+ * including Java 19 and 20 where they are a preview feature that fails unless
+ * it is enabled.
+ * </p>
+ */
+final class VirtualThreadDownloader {
+	private static final long CANCEL_POLL_MILLIS = 100;
+
+	private static final Method NEW_EXECUTOR = findExecutorFactory();
+
+	/**
+	 * The permits per origin, that is scheme, host and port. They are shared
+	 * between repositories and agents, so that several repositories on one
+	 * origin do not multiply the limit. The shared limit is the highest one that
+	 * was asked for, the lower limits of other repositories are kept by the
+	 * permits of their own downloads.
+	 */
+	private static final Map<String, HostPermits> PERMITS = new ConcurrentHashMap<>();
+
+	private final SimpleArtifactRepository repository;
+	private final HostPermits permits;
+	private final Semaphore ownPermits;
+
+	VirtualThreadDownloader(SimpleArtifactRepository repository, int maxPerHost) {
+		this.repository = repository;
+		this.permits = PERMITS.computeIfAbsent(getOrigin(repository.getLocation()), key -> new HostPermits());
+		permits.raiseTo(maxPerHost);
+		this.ownPermits = new Semaphore(maxPerHost);
+	}
+
+	private static String getOrigin(URI location) {
+		String scheme = location.getScheme();
+		return (scheme == null ? "" : scheme.toLowerCase(Locale.ROOT)) + "://" //$NON-NLS-1$ //$NON-NLS-2$
+				+ (location.getHost() == null ? "" : location.getHost().toLowerCase(Locale.ROOT)) + ':' + location.getPort(); //$NON-NLS-1$
+	}
+
+	private static Method findExecutorFactory() {
+		if (Runtime.version().feature() < 21) {
+			// a preview API before Java 21, it throws UnsupportedOperationException
+			return null;
+		}
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor"); //$NON-NLS-1$
+		} catch (NoSuchMethodException e) {
+			// the runtime has no virtual threads
+			return null;
+		}
+	}
+
+	/**
+	 * Returns whether the Java runtime supports virtual threads.
+	 */
+	static boolean isAvailable() {
+		return NEW_EXECUTOR != null;
+	}
+
+	/**
+	 * Performs the given requests and waits until all of them are done. The
+	 * result of every performed request is passed to the result consumer,
+	 * requests that have not started when the monitor is canceled are skipped.
+	 *
+	 * @param requests the requests to perform
+	 * @param monitor the monitor that is checked for cancellation, it is not
+	 * reported to
+	 * @param resultConsumer receives the result of every performed request,
+	 * from any thread
+	 * @param messageConsumer receives the sub task messages of the requests,
+	 * from any thread
+	 */
+	void run(List<IArtifactRequest> requests, IProgressMonitor monitor, Consumer<IStatus> resultConsumer,
+			Consumer<String> messageConsumer) {
+		ExecutorService executor;
+		try {
+			executor = (ExecutorService) NEW_EXECUTOR.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+		try {
+			for (IArtifactRequest request : requests) {
+				executor.execute(() -> perform(request, monitor, resultConsumer, messageConsumer));
+			}
+		} finally {
+			executor.shutdown();
+		}
+		try {
+			while (!executor.awaitTermination(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				// the requests check the monitor themselves
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void perform(IArtifactRequest request, IProgressMonitor monitor, Consumer<IStatus> resultConsumer,
+			Consumer<String> messageConsumer) {
+		if (!acquire(ownPermits, monitor)) {
+			return;
+		}
+		try {
+			if (!acquire(permits, monitor)) {
+				return;
+			}
+			try {
+				download(request, monitor, resultConsumer, messageConsumer);
+			} finally {
+				permits.release();
+			}
+		} finally {
+			ownPermits.release();
+		}
+	}
+
+	/**
+	 * Waits for a permit, returns <code>false</code> if the monitor was canceled
+	 * before one was available.
+	 */
+	private static boolean acquire(Semaphore semaphore, IProgressMonitor monitor) {
+		try {
+			while (!semaphore.tryAcquire(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				if (monitor.isCanceled()) {
+					return false;
+				}
+			}
+			return true;
+		} catch (InterruptedException e) {
+			return false;
+		}
+	}
+
+	private void download(IArtifactRequest request, IProgressMonitor monitor, Consumer<IStatus> resultConsumer,
+			Consumer<String> messageConsumer) {
+		if (monitor.isCanceled()) {
+			return;
+		}
+		IStatus status;
+		try {
+			status = repository.getArtifact(request, new RequestMonitor(monitor, messageConsumer));
+		} catch (OperationCanceledException e) {
+			return;
+		} catch (RuntimeException e) {
+			status = new Status(IStatus.ERROR, Activator.ID,
+					NLS.bind(Messages.sar_reportStatus, request.getArtifactKey().toExternalForm()), e);
+		}
+		resultConsumer.accept(status);
+	}
+
+	/**
+	 * The permits of one origin. The limit can only be raised, so that a
+	 * repository that asks for fewer downloads does not hold back the others.
+	 */
+	private static final class HostPermits extends Semaphore {
+		private static final long serialVersionUID = 1L;
+		private int limit;
+
+		HostPermits() {
+			super(0);
+		}
+
+		synchronized void raiseTo(int max) {
+			if (max > limit) {
+				release(max - limit);
+				limit = max;
+			}
+		}
+	}
+
+	/**
+	 * The monitor of a single request. It forwards sub tasks as messages and is
+	 * canceled together with the monitor of all requests.
+	 */
+	private static final class RequestMonitor extends NullProgressMonitor {
+		private final IProgressMonitor parent;
+		private final Consumer<String> messageConsumer;
+
+		RequestMonitor(IProgressMonitor parent, Consumer<String> messageConsumer) {
+			this.parent = parent;
+			this.messageConsumer = messageConsumer;
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return super.isCanceled() || parent.isCanceled();
+		}
+
+		@Override
+		public void subTask(String name) {
+			if (messageConsumer != null && name != null && !name.isBlank()) {
+				messageConsumer.accept(name);
+			}
+		}
+	}
+}
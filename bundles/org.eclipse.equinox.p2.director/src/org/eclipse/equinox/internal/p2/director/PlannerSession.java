@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.director;
+
+import java.util.*;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.equinox.p2.engine.IProvisioningPlan;
+import org.eclipse.equinox.p2.engine.ProvisioningContext;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.planner.IProfileChangeRequest;
+
+/**
+ * Keeps the solver of a {@link SimplePlanner} alive between successive requests,
+ * for example repeated update checks or "what-if" installs against the same
+ * profile and repositories.
+ * <p>
+ * The session keeps one solver that holds the constraints of the IUs of the last
+ * slice. When a request leads to the same slice with the same selection context,
+ * only the root requirements and the optimization function of the request are
+ * added. They are guarded by a selector variable that is passed to the solver as
+ * an assumption and retired by the next request, so the solver keeps what it
+ * learned about the slice. After {@value #MAX_REQUESTS_PER_SOLVER} requests the
+ * slice is encoded into a new solver, so that the retired constraints do not pile
+ * up.
+ * </p>
+ * <p>
+ * Requests of one session are computed one after the other.
+ * </p>
+ */
+public class PlannerSession {
+	public static final int MAX_REQUESTS_PER_SOLVER = 64;
+
+	private final SimplePlanner planner;
+	private Projector.Encoding encoding;
+	private int hits;
+	private int misses;
+
+	PlannerSession(SimplePlanner planner) {
+		this.planner = planner;
+	}
+
+	/**
+	 * Computes the plan for the given request like
+	 * {@link SimplePlanner#getProvisioningPlan(IProfileChangeRequest, ProvisioningContext, IProgressMonitor)}
+	 * while reusing the solver of previous requests of this session.
+	 */
+	public synchronized IProvisioningPlan getProvisioningPlan(IProfileChangeRequest request, ProvisioningContext context, IProgressMonitor monitor) {
+		return planner.getProvisioningPlan(request, context, this, monitor);
+	}
+
+	/**
+	 * Returns the number of requests that reused the solver of a previous request.
+	 */
+	public synchronized int getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of requests that had to encode their slice.
+	 */
+	public synchronized int getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * Forgets the solver.
+	 */
+	public synchronized void clear() {
+		encoding = null;
+	}
+
+	synchronized Projector.Encoding getEncoding(List<IInstallableUnit> ius, Map<String, String> context, Set<IInstallableUnit> nonGreedyIUs, boolean considerMetaRequirements) {
+		if (encoding != null && encoding.getRequestCount() < MAX_REQUESTS_PER_SOLVER && encoding.isEncodingOf(ius, context, nonGreedyIUs, considerMetaRequirements)) {
+			hits++;
+			return encoding;
+		}
+		misses++;
+		return null;
+	}
+
+	synchronized void setEncoding(Projector.Encoding encoding) {
+		this.encoding = encoding;
+	}
+}
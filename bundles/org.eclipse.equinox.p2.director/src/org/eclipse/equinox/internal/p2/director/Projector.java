@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2022 IBM Corporation and others.
+ * Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  * This
  * program and the accompanying materials are made available under the terms of
@@ -21,6 +21,7 @@
  ******************************************************************************/
 package org.eclipse.equinox.internal.p2.director;
 
+import java.math.BigInteger;
 import java.util.*;
 import java.util.Map.Entry;
 import org.eclipse.core.runtime.*;
@@ -33,6 +34,8 @@ import org.eclipse.equinox.p2.metadata.*;
 import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
 import org.eclipse.equinox.p2.query.*;
 import org.eclipse.osgi.util.NLS;
+import org.sat4j.core.Vec;
+import org.sat4j.core.VecInt;
 import org.sat4j.minisat.restarts.LubyRestarts;
 import org.sat4j.pb.*;
 import org.sat4j.pb.core.PBSolverResolution;
@@ -66,6 +69,7 @@ public class Projector {
 	private final Map<String, Map<Version, IInstallableUnit>> slice; //The IUs that have been considered to be part of the problem
 
 	private final IInstallableUnit selectionContext;
+	private final Map<String, String> selectionContextProperties;
 
 	DependencyHelper<Object, Explanation> dependencyHelper;
 	private Collection<IInstallableUnit> solution;
@@ -88,6 +92,173 @@ public class Projector {
 	private boolean emptyBecauseFiltered;
 	private boolean userDefinedFunction;
 
+	//The planner session whose solver is used, and the encoding of the slice in that solver
+	private PlannerSession session;
+	private Encoding sessionEncoding;
+	//Guards the constraints of the request in the solver of a planner session
+	private AbstractVariable selector;
+	private SessionObjective sessionObjective;
+	private IPBSolver solver;
+	//The best solution found on the solver of a planner session
+	private Set<Object> sessionSolution;
+
+	/**
+	 * The encoding of all the IUs of a slice except the entry point in the solver of a
+	 * {@link PlannerSession}, together with the state the projector derived from the slice
+	 * while encoding it.
+	 * <p>
+	 * The constraints of the slice are added to the solver once. Everything a request adds
+	 * on top of them is guarded by a selector variable of the request, which is passed to
+	 * the solver as an assumption. The next request retires the selector by setting it to
+	 * false, which satisfies all the constraints of the previous request for good.
+	 * </p>
+	 */
+	static final class Encoding {
+		private final List<IInstallableUnit> ius;
+		private final Map<String, String> context;
+		private final Set<IInstallableUnit> nonGreedyIUs;
+		private final boolean considerMetaRequirements;
+		private final DependencyHelper<Object, Explanation> dependencyHelper;
+		private final IPBSolver solver;
+		private final Map<String, Map<Version, IInstallableUnit>> slice;
+		private final List<AbstractVariable> abstractVariables;
+		private final List<AbstractVariable> optionalAbstractRequirements;
+		private final Map<IInstallableUnit, AbstractVariable> nonGreedyVariables;
+		private final Map<AbstractVariable, List<Object>> nonGreedyProvider;
+		private final Map<IInstallableUnitFragment, Set<IInstallableUnit>> fragments;
+		private final IStatus[] warnings;
+		private AbstractVariable lastSelector;
+		private int requests;
+
+		Encoding(Projector projector, List<IInstallableUnit> ius, IPBSolver solver) {
+			this.ius = ius;
+			this.context = projector.selectionContextProperties;
+			this.nonGreedyIUs = projector.nonGreedyIUs;
+			this.considerMetaRequirements = projector.considerMetaRequirements;
+			this.dependencyHelper = projector.dependencyHelper;
+			this.solver = solver;
+			this.slice = copySlice(projector.slice);
+			this.abstractVariables = new ArrayList<>(projector.abstractVariables);
+			this.optionalAbstractRequirements = new ArrayList<>(projector.allOptionalAbstractRequirements);
+			this.nonGreedyVariables = new HashMap<>(projector.nonGreedyVariables);
+			this.nonGreedyProvider = copyProviders(projector.nonGreedyProvider);
+			this.fragments = copyFragments(projector.fragments);
+			this.warnings = projector.result.getChildren();
+		}
+
+		/**
+		 * Returns whether this encoding was created for the same IUs, compared by identity and
+		 * in the same order, and for the same parameters.
+		 */
+		boolean isEncodingOf(List<IInstallableUnit> otherIUs, Map<String, String> otherContext, Set<IInstallableUnit> otherNonGreedyIUs, boolean otherConsiderMetaRequirements) {
+			if (considerMetaRequirements != otherConsiderMetaRequirements || ius.size() != otherIUs.size() || !context.equals(otherContext) || !nonGreedyIUs.equals(otherNonGreedyIUs)) {
+				return false;
+			}
+			for (int i = 0; i < ius.size(); i++) {
+				if (ius.get(i) != otherIUs.get(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Returns the number of requests that have been encoded in the solver.
+		 */
+		int getRequestCount() {
+			return requests;
+		}
+
+		/**
+		 * Returns a new selector for the constraints of the next request and retires the
+		 * selector of the previous one.
+		 */
+		AbstractVariable nextSelector() throws ContradictionException {
+			if (lastSelector != null) {
+				dependencyHelper.setFalse(lastSelector, Explanation.OPTIONAL_REQUIREMENT);
+			}
+			requests++;
+			lastSelector = new AbstractVariable();
+			return lastSelector;
+		}
+
+		void restore(Projector projector) {
+			projector.dependencyHelper = dependencyHelper;
+			projector.slice.putAll(copySlice(slice));
+			projector.abstractVariables.addAll(abstractVariables);
+			projector.allOptionalAbstractRequirements.addAll(optionalAbstractRequirements);
+			projector.nonGreedyVariables.putAll(nonGreedyVariables);
+			projector.nonGreedyProvider.putAll(copyProviders(nonGreedyProvider));
+			projector.fragments.putAll(copyFragments(fragments));
+			for (IStatus warning : warnings) {
+				projector.result.add(warning);
+			}
+		}
+
+		private static Map<String, Map<Version, IInstallableUnit>> copySlice(Map<String, Map<Version, IInstallableUnit>> original) {
+			Map<String, Map<Version, IInstallableUnit>> copy = new HashMap<>(original.size());
+			for (Entry<String, Map<Version, IInstallableUnit>> entry : original.entrySet()) {
+				copy.put(entry.getKey(), new HashMap<>(entry.getValue()));
+			}
+			return copy;
+		}
+
+		private static Map<AbstractVariable, List<Object>> copyProviders(Map<AbstractVariable, List<Object>> original) {
+			Map<AbstractVariable, List<Object>> copy = new HashMap<>(original.size());
+			for (Entry<AbstractVariable, List<Object>> entry : original.entrySet()) {
+				copy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+			}
+			return copy;
+		}
+
+		private static Map<IInstallableUnitFragment, Set<IInstallableUnit>> copyFragments(Map<IInstallableUnitFragment, Set<IInstallableUnit>> original) {
+			Map<IInstallableUnitFragment, Set<IInstallableUnit>> copy = new HashMap<>(original.size());
+			for (Entry<IInstallableUnitFragment, Set<IInstallableUnit>> entry : original.entrySet()) {
+				copy.put(entry.getKey(), new HashSet<>(entry.getValue()));
+			}
+			return copy;
+		}
+	}
+
+	/**
+	 * The optimization function of a request in the solver of a planner session, with the
+	 * negative weights turned into positive weights of the negated literals.
+	 */
+	private static final class SessionObjective {
+		final Object[] things;
+		final boolean[] negated;
+		final IVecInt literals;
+		final IVec<BigInteger> coefficients;
+		final BigInteger total;
+		final int selectorVariable;
+
+		SessionObjective(List<Object> things, List<Boolean> negated, IVecInt literals, IVec<BigInteger> coefficients, int selectorVariable) {
+			this.things = things.toArray();
+			this.negated = new boolean[things.size()];
+			for (int i = 0; i < this.negated.length; i++) {
+				this.negated[i] = negated.get(i);
+			}
+			this.literals = literals;
+			this.coefficients = coefficients;
+			BigInteger sum = BigInteger.ZERO;
+			for (int i = 0; i < coefficients.size(); i++) {
+				sum = sum.add(coefficients.get(i));
+			}
+			this.total = sum;
+			this.selectorVariable = selectorVariable;
+		}
+
+		BigInteger valueOf(Set<Object> solution) {
+			BigInteger value = BigInteger.ZERO;
+			for (int i = 0; i < things.length; i++) {
+				if (solution.contains(things[i]) != negated[i]) {
+					value = value.add(coefficients.get(i));
+				}
+			}
+			return value;
+		}
+	}
+
 	static class AbstractVariable {
 		//		private String name;
 
@@ -172,6 +343,7 @@ public class Projector {
 		picker = q;
 		slice = new HashMap<>();
 		selectionContext = InstallableUnit.contextIU(context);
+		selectionContextProperties = context;
 		abstractVariables = new ArrayList<>();
 		allOptionalAbstractRequirements = new ArrayList<>();
 		result = new MultiStatus(DirectorActivator.PI_DIRECTOR, IStatus.OK, Messages.Planner_Problems_resolving_plan, null);
@@ -180,8 +352,16 @@ public class Projector {
 		this.considerMetaRequirements = considerMetaRequirements;
 	}
 
-	@SuppressWarnings("unchecked")
 	public void encode(IInstallableUnit entryPointIU, IInstallableUnit[] alreadyExistingRoots, IQueryable<IInstallableUnit> installedIUs, Collection<IInstallableUnit> newRoots, IProgressMonitor monitor) {
+		encode(entryPointIU, alreadyExistingRoots, installedIUs, newRoots, null, monitor);
+	}
+
+	/**
+	 * Encodes the problem. When a session is given, the IUs of the slice are encoded in the
+	 * solver of the session if it does not hold them already, and only the constraints of the
+	 * request are added, guarded by a selector variable.
+	 */
+	public void encode(IInstallableUnit entryPointIU, IInstallableUnit[] alreadyExistingRoots, IQueryable<IInstallableUnit> installedIUs, Collection<IInstallableUnit> newRoots, PlannerSession session, IProgressMonitor monitor) {
 		alreadyInstalledIUs = Arrays.asList(alreadyExistingRoots);
 		lastState = installedIUs;
 		this.entryPoint = entryPointIU;
@@ -191,67 +371,47 @@ public class Projector {
 				start = System.currentTimeMillis();
 				Tracing.debug("Start projection: " + start); //$NON-NLS-1$
 			}
-			IPBSolver solver;
-			if (DEBUG_ENCODING) {
-				solver = new UserFriendlyPBStringSolver<>();
-			} else {
-				if (userDefinedFunction) {
-					PBSolverResolution mysolver = SolverFactory.newCompetPBResLongWLMixedConstraintsObjectiveExpSimp();
-					mysolver.setSimplifier(mysolver.SIMPLE_SIMPLIFICATION);
-					mysolver.setRestartStrategy(new LubyRestarts(512));
-					solver = mysolver;
-				} else {
-					solver = SolverFactory.newEclipseP2();
-				}
-			}
-			int timeout = DEFAULT_SOLVER_TIMEOUT;
-			String timeoutString = null;
-			try {
-				// allow the user to specify a longer timeout.
-				// only set the value if it is a positive integer larger than the default.
-				// see https://bugs.eclipse.org/336967
-				timeoutString = DirectorActivator.context.map(ctx -> ctx.getProperty(PROP_PROJECTOR_TIMEOUT))
-						.orElse(null);
-				if (timeoutString != null) {
-					timeout = Math.max(timeout, Integer.parseInt(timeoutString));
-				}
-			} catch (Exception e) {
-				// intentionally catch all errors (npe, number format, etc)
-				// print out to syserr and fall through
-				System.err.println("Ignoring user-specified 'eclipse.p2.projector.timeout' value of: " + timeoutString); //$NON-NLS-1$
-				e.printStackTrace();
-			}
-			if (userDefinedFunction) {
-				solver.setTimeoutOnConflicts(timeout / 4);
-			} else {
-				solver.setTimeoutOnConflicts(timeout);
-			}
-
 			IQueryResult<IInstallableUnit> queryResult = picker.query(QueryUtil.createIUAnyQuery(), null);
-			if (DEBUG_ENCODING) {
-				dependencyHelper = new LexicoHelper<>(solver, false);
-				((UserFriendlyPBStringSolver<Object>) solver).setMapping(dependencyHelper.getMappingToDomain());
-			} else {
-				if (userDefinedFunction) {
-					dependencyHelper = new SteppedTimeoutLexicoHelper<>(solver);
-				} else {
-					dependencyHelper = new DependencyHelper<>(solver);
-				}
-			}
 			List<IInstallableUnit> iusToOrder = new ArrayList<>(queryResult.toSet());
 			iusToOrder.sort(null);
-			for (IInstallableUnit iu : iusToOrder) {
-				if (monitor.isCanceled()) {
-					result.merge(Status.CANCEL_STATUS);
-					throw new OperationCanceledException();
+			iusToOrder.removeIf(iu -> iu == entryPointIU);
+			boolean inSession = session != null && !userDefinedFunction && !DEBUG_ENCODING;
+			Encoding encoding = inSession ? session.getEncoding(iusToOrder, selectionContextProperties, nonGreedyIUs, considerMetaRequirements) : null;
+			if (encoding != null) {
+				encoding.restore(this);
+				solver = encoding.solver;
+				if (DEBUG) {
+					Tracing.debug("Reused solver of " + iusToOrder.size() + " IUs from planner session"); //$NON-NLS-1$ //$NON-NLS-2$
 				}
-				if (iu != entryPointIU) {
+			} else {
+				createSolver(inSession);
+				for (IInstallableUnit iu : iusToOrder) {
+					if (monitor.isCanceled()) {
+						result.merge(Status.CANCEL_STATUS);
+						throw new OperationCanceledException();
+					}
 					processIU(iu, false);
 				}
+				if (inSession) {
+					// the singleton constraints only depend on the slice, the entry point is the only IU with its id
+					createConstraintsForSingleton();
+					encoding = new Encoding(this, iusToOrder, solver);
+					session.setEncoding(encoding);
+				}
+			}
+			if (inSession) {
+				this.session = session;
+				sessionEncoding = encoding;
+				selector = encoding.nextSelector();
+				// also maps the selector to a variable of the solver
+				dependencyHelper.implication(selector).implies(entryPointIU).named(Explanation.OPTIONAL_REQUIREMENT);
+				assumptions.add(selector);
 			}
 			createMustHave(entryPointIU, alreadyExistingRoots);
 
-			createConstraintsForSingleton();
+			if (!inSession) {
+				createConstraintsForSingleton();
+			}
 
 			createConstraintsForNonGreedy();
 
@@ -270,12 +430,65 @@ public class Projector {
 		}
 	}
 
+	/**
+	 * Creates the solver and the dependency helper. The solver of a planner session does not
+	 * optimize by itself, see {@link #solveInSession()}.
+	 */
+	@SuppressWarnings("unchecked")
+	private void createSolver(boolean inSession) {
+		if (DEBUG_ENCODING) {
+			solver = new UserFriendlyPBStringSolver<>();
+		} else {
+			if (userDefinedFunction || inSession) {
+				PBSolverResolution mysolver = SolverFactory.newCompetPBResLongWLMixedConstraintsObjectiveExpSimp();
+				mysolver.setSimplifier(mysolver.SIMPLE_SIMPLIFICATION);
+				mysolver.setRestartStrategy(new LubyRestarts(512));
+				solver = mysolver;
+			} else {
+				solver = SolverFactory.newEclipseP2();
+			}
+		}
+		int timeout = DEFAULT_SOLVER_TIMEOUT;
+		String timeoutString = null;
+		try {
+			// allow the user to specify a longer timeout.
+			// only set the value if it is a positive integer larger than the default.
+			// see https://bugs.eclipse.org/336967
+			timeoutString = DirectorActivator.context.map(ctx -> ctx.getProperty(PROP_PROJECTOR_TIMEOUT))
+					.orElse(null);
+			if (timeoutString != null) {
+				timeout = Math.max(timeout, Integer.parseInt(timeoutString));
+			}
+		} catch (Exception e) {
+			// intentionally catch all errors (npe, number format, etc)
+			// print out to syserr and fall through
+			System.err.println("Ignoring user-specified 'eclipse.p2.projector.timeout' value of: " + timeoutString); //$NON-NLS-1$
+			e.printStackTrace();
+		}
+		if (userDefinedFunction) {
+			solver.setTimeoutOnConflicts(timeout / 4);
+		} else {
+			solver.setTimeoutOnConflicts(timeout);
+		}
+
+		if (DEBUG_ENCODING) {
+			dependencyHelper = new LexicoHelper<>(solver, false);
+			((UserFriendlyPBStringSolver<Object>) solver).setMapping(dependencyHelper.getMappingToDomain());
+		} else {
+			if (userDefinedFunction) {
+				dependencyHelper = new SteppedTimeoutLexicoHelper<>(solver);
+			} else {
+				dependencyHelper = new DependencyHelper<>(solver);
+			}
+		}
+	}
+
 	private void createConstraintsForNonGreedy() throws ContradictionException {
 		for (IInstallableUnit iu : nonGreedyIUs) {
 			AbstractVariable var = getNonGreedyVariable(iu);
 			List<Object> providers = nonGreedyProvider.get(var);
 			if (providers == null || providers.size() == 0) {
-				dependencyHelper.setFalse(var, new Explanation.MissingGreedyIU(iu));
+				setFalse(var, new Explanation.MissingGreedyIU(iu));
 			} else {
 				createImplication(var, providers, Explanation.OPTIONAL_REQUIREMENT);//FIXME
 			}
@@ -283,7 +496,7 @@ public class Projector {
 
 	}
 
-	private void createOptimizationFunction(IInstallableUnit entryPointIU, Collection<IInstallableUnit> newRoots) {
+	private void createOptimizationFunction(IInstallableUnit entryPointIU, Collection<IInstallableUnit> newRoots) throws ContradictionException {
 		if (!userDefinedFunction) {
 			createStandardOptimizationFunction(entryPointIU, newRoots);
 		} else {
@@ -292,7 +505,7 @@ public class Projector {
 	}
 
 	//Create an optimization function favoring the highest version of each IU
-	private void createStandardOptimizationFunction(IInstallableUnit entryPointIU, Collection<IInstallableUnit> newRoots) {
+	private void createStandardOptimizationFunction(IInstallableUnit entryPointIU, Collection<IInstallableUnit> newRoots) throws ContradictionException {
 		List<WeightedObject<? extends Object>> weights = new OptimizationFunction(lastState, abstractVariables, allOptionalAbstractRequirements, picker, selectionContext, slice).createOptimizationFunction(entryPointIU, newRoots);
 		createObjectiveFunction(weights);
 	}
@@ -302,7 +515,7 @@ public class Projector {
 		createObjectiveFunction(weights);
 	}
 
-	private void createObjectiveFunction(List<WeightedObject<? extends Object>> weightedObjects) {
+	private void createObjectiveFunction(List<WeightedObject<? extends Object>> weightedObjects) throws ContradictionException {
 		if (weightedObjects == null) {
 			return;
 		}
@@ -320,7 +533,44 @@ public class Projector {
 		}
 		@SuppressWarnings("unchecked")
 		WeightedObject<Object>[] array = (WeightedObject<Object>[]) weightedObjects.toArray(new WeightedObject<?>[weightedObjects.size()]);
-		dependencyHelper.setObjectiveFunction(array);
+		if (selector != null) {
+			createSessionObjective(array);
+		} else {
+			dependencyHelper.setObjectiveFunction(array);
+		}
+	}
+
+	/**
+	 * Keeps the objective function of the request for {@link #solveInSession()} instead of
+	 * setting it on the solver. Things that are not in any constraint yet get the value they
+	 * have in every optimal solution.
+	 */
+	private void createSessionObjective(WeightedObject<Object>[] weightedObjects) throws ContradictionException {
+		Map<Object, Integer> variables = new HashMap<>();
+		for (Entry<Integer, Object> entry : dependencyHelper.getMappingToDomain().entrySet()) {
+			variables.put(entry.getValue(), entry.getKey());
+		}
+		List<Object> things = new ArrayList<>(weightedObjects.length);
+		List<Boolean> negated = new ArrayList<>(weightedObjects.length);
+		IVecInt literals = new VecInt(weightedObjects.length + 1);
+		IVec<BigInteger> coefficients = new Vec<>(weightedObjects.length + 1);
+		for (WeightedObject<Object> weightedObject : weightedObjects) {
+			BigInteger weight = weightedObject.getWeight();
+			Integer variable = variables.get(weightedObject.thing);
+			if (variable == null) {
+				if (weight.signum() < 0) {
+					dependencyHelper.implication(selector).implies(weightedObject.thing).named(Explanation.OPTIONAL_REQUIREMENT);
+				} else if (weight.signum() > 0) {
+					dependencyHelper.implication(selector).impliesNot(weightedObject.thing).named(Explanation.OPTIONAL_REQUIREMENT);
+				}
+				continue;
+			}
+			things.add(weightedObject.thing);
+			negated.add(weight.signum() < 0);
+			literals.push(weight.signum() < 0 ? -variable : variable);
+			coefficients.push(weight.abs());
+		}
+		sessionObjective = new SessionObjective(things, negated, literals, coefficients, variables.get(selector));
 	}
 
 	private void createMustHave(IInstallableUnit iu, IInstallableUnit[] alreadyExistingRoots) throws ContradictionException {
@@ -336,7 +586,15 @@ public class Projector {
 		if (DEBUG) {
 			Tracing.debug(iu + "=0"); //$NON-NLS-1$
 		}
-		dependencyHelper.setFalse(iu, new Explanation.MissingIU(iu, req, iu == this.entryPoint));
+		setFalse(iu, new Explanation.MissingIU(iu, req, iu == this.entryPoint));
+	}
+
+	private void setFalse(Object thing, Explanation name) throws ContradictionException {
+		if (selector == null) {
+			dependencyHelper.setFalse(thing, name);
+		} else {
+			dependencyHelper.implication(selector).impliesNot(thing).named(name);
+		}
 	}
 
 	// Check whether the requirement is applicable
@@ -398,7 +656,7 @@ public class Projector {
 		if (req.getMin() > 0) {
 			if (matches.isEmpty()) {
 				if (iu == entryPoint && emptyBecauseFiltered) {
-					dependencyHelper.setFalse(iu, new NotInstallableRoot(req));
+					setFalse(iu, new NotInstallableRoot(req));
 				} else {
 					missingRequirement(iu, req);
 				}
@@ -885,7 +1143,7 @@ public class Projector {
 			Tracing.debug(name + ": " + left + "->" + right); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 		for (Object r : right) {
-			dependencyHelper.implication(left).impliesNot(r).named(name);
+			dependencyHelper.implication(guard(left)).impliesNot(r).named(name);
 		}
 	}
 
@@ -893,14 +1151,25 @@ public class Projector {
 		if (DEBUG) {
 			Tracing.debug(name + ": " + left + "->" + right); //$NON-NLS-1$ //$NON-NLS-2$
 		}
-		dependencyHelper.implication(left).implies(right.toArray()).named(name);
+		dependencyHelper.implication(guard(left)).implies(right.toArray()).named(name);
 	}
 
 	private void createImplication(Object[] left, List<?> right, Explanation name) throws ContradictionException {
 		if (DEBUG) {
 			Tracing.debug(name + ": " + Arrays.asList(left) + "->" + right); //$NON-NLS-1$ //$NON-NLS-2$
 		}
-		dependencyHelper.implication(left).implies(right.toArray()).named(name);
+		dependencyHelper.implication(guard(left)).implies(right.toArray()).named(name);
+	}
+
+	//Adds the selector of the request to the left side of an implication in the solver of a planner session
+	private Object[] guard(Object... left) {
+		if (selector == null) {
+			return left;
+		}
+		Object[] guarded = new Object[left.length + 1];
+		guarded[0] = selector;
+		System.arraycopy(left, 0, guarded, 1, left.length);
+		return guarded;
 	}
 
 	//Return IUPatches that are applicable for the given iu
@@ -958,6 +1227,7 @@ public class Projector {
 			}
 			Tracing.debug("At most 1 of " + b); //$NON-NLS-1$
 		}
+		// only encoded with the slice, never guarded by the selector of a request
 		dependencyHelper.atMost(1, (Object[]) ius).named(new Explanation.Singleton(ius));
 	}
 
@@ -995,7 +1265,7 @@ public class Projector {
 			if (monitor.isCanceled()) {
 				return Status.CANCEL_STATUS;
 			}
-			if (dependencyHelper.hasASolution(assumptions)) {
+			if (sessionEncoding != null ? solveInSession() : dependencyHelper.hasASolution(assumptions)) {
 				if (DEBUG) {
 					Tracing.debug("Satisfiable !"); //$NON-NLS-1$
 				}
@@ -1024,9 +1294,59 @@ public class Projector {
 		return result;
 	}
 
+	/**
+	 * Finds an optimal solution with the solver of a planner session. The solver is not left
+	 * to optimize by itself, since it would keep the bound of the best solution as a
+	 * constraint. Instead every better solution is searched with a bound on the objective
+	 * function that is guarded by the selector of the request, so the bounds no longer hold
+	 * once the selector is retired.
+	 */
+	private boolean solveInSession() throws TimeoutException {
+		if (!dependencyHelper.hasASolution(assumptions)) {
+			return false;
+		}
+		sessionSolution = currentSolution();
+		if (sessionObjective == null) {
+			return true;
+		}
+		BigInteger value = sessionObjective.valueOf(sessionSolution);
+		try {
+			while (value.signum() > 0) {
+				// selector -> objective <= value - 1, written as objective + m * selector <= total
+				// with m = total - (value - 1), which always holds when the selector is false
+				IVecInt literals = new VecInt(sessionObjective.literals.size() + 1);
+				sessionObjective.literals.copyTo(literals);
+				literals.push(sessionObjective.selectorVariable);
+				IVec<BigInteger> coefficients = new Vec<>(sessionObjective.coefficients.size() + 1);
+				sessionObjective.coefficients.copyTo(coefficients);
+				coefficients.push(sessionObjective.total.subtract(value).add(BigInteger.ONE));
+				solver.addPseudoBoolean(literals, coefficients, false, sessionObjective.total);
+				if (!dependencyHelper.hasASolution(assumptions)) {
+					break;
+				}
+				sessionSolution = currentSolution();
+				value = sessionObjective.valueOf(sessionSolution);
+			}
+		} catch (TimeoutException | ContradictionException e) {
+			// keep the best solution found so far
+			if (DEBUG) {
+				Tracing.debug("Optimization stopped: " + e); //$NON-NLS-1$
+			}
+		}
+		return true;
+	}
+
+	private Set<Object> currentSolution() {
+		Set<Object> current = new LinkedHashSet<>();
+		for (Iterator<Object> iter = dependencyHelper.getSolution().iterator(); iter.hasNext();) {
+			current.add(iter.next());
+		}
+		return current;
+	}
+
 	private void backToIU() {
 		solution = new ArrayList<>();
-		IVec<Object> sat4jSolution = dependencyHelper.getSolution();
+		Iterable<Object> sat4jSolution = sessionSolution != null ? sessionSolution : dependencyHelper.getSolution()::iterator;
 		for (Iterator<Object> iter = sat4jSolution.iterator(); iter.hasNext();) {
 			Object var = iter.next();
 			if (var instanceof IInstallableUnit iu) {
@@ -1066,6 +1386,10 @@ public class Projector {
 				while (job.getExplanationResult() == null && job.getState() != Job.NONE) {
 					if (monitor.isCanceled()) {
 						job.cancel();
+						if (session != null) {
+							// the job may still use the solver of the session
+							session.clear();
+						}
 						throw new OperationCanceledException();
 					}
 					pm.worked(1);
@@ -1087,13 +1411,13 @@ public class Projector {
 	public Map<IInstallableUnitFragment, List<IInstallableUnit>> getFragmentAssociation() {
 		Map<IInstallableUnitFragment, List<IInstallableUnit>> resolvedFragments = new HashMap<>(fragments.size());
 		for (Entry<IInstallableUnitFragment, Set<IInstallableUnit>> fragment : fragments.entrySet()) {
-			if (!dependencyHelper.getBooleanValueFor(fragment.getKey())) {
+			if (!isTrue(fragment.getKey())) {
 				continue;
 			}
 			Set<IInstallableUnit> potentialHosts = fragment.getValue();
 			List<IInstallableUnit> resolvedHost = new ArrayList<>(potentialHosts.size());
 			for (IInstallableUnit host : potentialHosts) {
-				if (dependencyHelper.getBooleanValueFor(host)) {
+				if (isTrue(host)) {
 					resolvedHost.add(host);
 				}
 			}
@@ -1104,6 +1428,10 @@ public class Projector {
 		return resolvedFragments;
 	}
 
+	private boolean isTrue(Object thing) {
+		return sessionSolution != null ? sessionSolution.contains(thing) : dependencyHelper.getBooleanValueFor(thing);
+	}
+
 	private void rememberHostMatches(IInstallableUnitFragment fragment, List<IInstallableUnit> matches) {
 		Set<IInstallableUnit> existingMatches = fragments.get(fragment);
 		if (existingMatches == null) {
@@ -1120,7 +1448,10 @@ public class Projector {
 
 	public void close() {
 		if (dependencyHelper != null) {
-			dependencyHelper.reset();
+			// the solver of a planner session is kept for the next request
+			if (sessionEncoding == null) {
+				dependencyHelper.reset();
+			}
 			dependencyHelper = null;
 		}
 	}
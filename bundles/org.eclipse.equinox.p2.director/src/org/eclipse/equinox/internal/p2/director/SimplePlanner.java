@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2017 IBM Corporation and others.
+ * Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  * This
  * program and the accompanying materials are made available under the terms of
@@ -60,6 +60,7 @@ public class SimplePlanner implements IPlanner {
 	private final IProvisioningAgent agent;
 	private final IProfileRegistry profileRegistry;
 	private final IEngine engine;
+	private SliceCache sliceCache = SliceCache.createConfigured();
 
 	private IProvisioningPlan generateProvisioningPlan(Collection<IInstallableUnit> fromState,
 			Collection<IInstallableUnit> toState, ProfileChangeRequest changeRequest, IProvisioningPlan installerPlan,
@@ -324,7 +325,7 @@ public class SimplePlanner implements IPlanner {
 	}
 
 	private Collection<IInstallableUnit> gatherAvailableInstallableUnits(List<IInstallableUnit> additionalSource,
-			ProvisioningContext context, IProgressMonitor monitor) {
+			ProvisioningContext context, IQueryable<IInstallableUnit> metadata, IProgressMonitor monitor) {
 		Map<String, IInstallableUnit> resultsMap = new HashMap<>();
 		if (additionalSource != null) {
 			for (IInstallableUnit element : additionalSource) {
@@ -332,18 +333,14 @@ public class SimplePlanner implements IPlanner {
 				resultsMap.put(key, element);
 			}
 		}
-		if (context == null) {
-			context = new ProvisioningContext(agent);
-		} else {
+		if (context != null) {
 			for (IInstallableUnit iu : context.getExtraInstallableUnits()) {
 				String key = iu.getId() + '_' + iu.getVersion().toString();
 				resultsMap.put(key, iu);
 			}
 		}
-		SubMonitor sub = SubMonitor.convert(monitor, 1000);
-		IQueryable<IInstallableUnit> queryable = context.getMetadata(sub.newChild(500));
-		IQueryResult<IInstallableUnit> matches = queryable.query(QueryUtil.createIUQuery(null, VersionRange.emptyRange),
-				sub.newChild(500));
+		IQueryResult<IInstallableUnit> matches = metadata.query(QueryUtil.createIUQuery(null, VersionRange.emptyRange),
+				monitor);
 		for (IInstallableUnit iu : matches) {
 			String key = iu.getId() + "_" + iu.getVersion().toString(); //$NON-NLS-1$
 			IInstallableUnit currentIU = resultsMap.get(key);
@@ -351,7 +348,6 @@ public class SimplePlanner implements IPlanner {
 				resultsMap.put(key, iu);
 			}
 		}
-		sub.done();
 		return resultsMap.values();
 	}
 
@@ -369,6 +365,22 @@ public class SimplePlanner implements IPlanner {
 		Assert.isNotNull(profileRegistry);
 	}
 
+	/**
+	 * Returns the cache of slices used by this planner, or <code>null</code> if
+	 * slices are not cached.
+	 */
+	public SliceCache getSliceCache() {
+		return sliceCache;
+	}
+
+	/**
+	 * Sets the cache of slices used by this planner. <code>null</code> disables
+	 * the caching of slices.
+	 */
+	public void setSliceCache(SliceCache sliceCache) {
+		this.sliceCache = sliceCache;
+	}
+
 	private boolean satisfyMetaRequirements(Map<String, String> props) {
 		return props == null || props.get(CONSIDER_METAREQUIREMENTS) == null
 				|| Boolean.parseBoolean(props.get(CONSIDER_METAREQUIREMENTS));
@@ -392,6 +404,11 @@ public class SimplePlanner implements IPlanner {
 	 */
 	private Object getSolutionFor(ProfileChangeRequest profileChangeRequest, ProvisioningContext context,
 			IProgressMonitor monitor) {
+		return getSolutionFor(profileChangeRequest, context, null, monitor);
+	}
+
+	private Object getSolutionFor(ProfileChangeRequest profileChangeRequest, ProvisioningContext context,
+			PlannerSession session, IProgressMonitor monitor) {
 		SubMonitor sub = SubMonitor.convert(monitor, ExpandWork);
 		sub.setTaskName(Messages.Director_Task_Resolving_Dependencies);
 		try {
@@ -404,28 +421,59 @@ public class SimplePlanner implements IPlanner {
 
 			List<IInstallableUnit> extraIUs = new ArrayList<>(profileChangeRequest.getAdditions());
 			extraIUs.addAll(profileChangeRequest.getRemovals());
-			if (context == null || context.getProperty(INCLUDE_PROFILE_IUS) == null
-					|| context.getProperty(INCLUDE_PROFILE_IUS).equalsIgnoreCase(Boolean.TRUE.toString())) {
-				profile.available(QueryUtil.createIUAnyQuery(), null).forEach(extraIUs::add);
+			boolean includeProfileIUs = context == null || context.getProperty(INCLUDE_PROFILE_IUS) == null
+					|| context.getProperty(INCLUDE_PROFILE_IUS).equalsIgnoreCase(Boolean.TRUE.toString());
+
+			SubMonitor gather = SubMonitor.convert(sub.newChild(ExpandWork / 4), 1000);
+			IQueryable<IInstallableUnit> metadata = (context == null ? new ProvisioningContext(agent) : context)
+					.getMetadata(gather.newChild(500));
+			IInstallableUnit root = (IInstallableUnit) updatedPlan[0];
+			boolean considerMetaRequirements = satisfyMetaRequirements(profileChangeRequest.getProfileProperties());
+			IQueryable<IInstallableUnit> slice;
+			Set<IInstallableUnit> nonGreedyIUs;
+			SliceCache.Key sliceKey = null;
+			if (sliceCache != null) {
+				// the key only depends on the sources of the available units, so a
+				// cached slice spares the walk over all of them
+				List<IInstallableUnit> keyIUs = extraIUs;
+				if (context != null && !context.getExtraInstallableUnits().isEmpty()) {
+					keyIUs = new ArrayList<>(extraIUs);
+					keyIUs.addAll(context.getExtraInstallableUnits());
+				}
+				sliceKey = SliceCache.createKey(root, newSelectionContext, considerMetaRequirements, metadata,
+						includeProfileIUs ? profile : null, keyIUs);
 			}
-
-			Collection<IInstallableUnit> availableIUs = gatherAvailableInstallableUnits(extraIUs, context,
-					sub.newChild(ExpandWork / 4));
-			Slicer slicer = new Slicer(new QueryableArray(availableIUs), newSelectionContext,
-					satisfyMetaRequirements(profileChangeRequest.getProfileProperties()));
-			IQueryable<IInstallableUnit> slice = slicer.slice(List.of((IInstallableUnit) updatedPlan[0]),
-					sub.newChild(ExpandWork / 4));
-			if (slice == null) {
-				IProvisioningPlan plan = engine.createPlan(profile, context);
-				plan.setStatus(slicer.getStatus());
-				return plan;
+			SliceCache.Slice cachedSlice = sliceKey == null ? null : sliceCache.get(sliceKey);
+			if (cachedSlice != null) {
+				slice = cachedSlice.withRoot(root);
+				nonGreedyIUs = cachedSlice.nonGreedyIUs;
+				gather.done();
+				sub.worked(ExpandWork / 4);
+			} else {
+				if (includeProfileIUs) {
+					profile.available(QueryUtil.createIUAnyQuery(), null).forEach(extraIUs::add);
+				}
+				Collection<IInstallableUnit> availableIUs = gatherAvailableInstallableUnits(extraIUs, context, metadata,
+						gather.newChild(500));
+				gather.done();
+				Slicer slicer = new Slicer(new QueryableArray(availableIUs), newSelectionContext,
+						considerMetaRequirements);
+				slice = slicer.slice(List.of(root), sub.newChild(ExpandWork / 4));
+				if (slice == null) {
+					IProvisioningPlan plan = engine.createPlan(profile, context);
+					plan.setStatus(slicer.getStatus());
+					return plan;
+				}
+				nonGreedyIUs = slicer.getNonGreedyIUs();
+				if (sliceKey != null) {
+					sliceCache.put(sliceKey, root, slice, nonGreedyIUs);
+				}
 			}
 			slice = new CompoundQueryable<>(List.of(slice, new QueryableArray(profileChangeRequest.getAdditions())));
-			Projector projector = new Projector(slice, newSelectionContext, slicer.getNonGreedyIUs(),
-					satisfyMetaRequirements(profileChangeRequest.getProfileProperties()));
+			Projector projector = new Projector(slice, newSelectionContext, nonGreedyIUs, considerMetaRequirements);
 			projector.setUserDefined(profileChangeRequest.getPropertiesToAdd().containsKey("_internal_user_defined_")); //$NON-NLS-1$
-			projector.encode((IInstallableUnit) updatedPlan[0], (IInstallableUnit[]) updatedPlan[1], profile,
-					profileChangeRequest.getAdditions(), sub.newChild(ExpandWork / 4));
+			projector.encode(root, (IInstallableUnit[]) updatedPlan[1], profile,
+					profileChangeRequest.getAdditions(), session, sub.newChild(ExpandWork / 4));
 
 			IStatus s = projector.invokeSolver(sub.newChild(ExpandWork / 4));
 			switch (s.getSeverity()) {
@@ -485,12 +533,25 @@ public class SimplePlanner implements IPlanner {
 	@Override
 	public IProvisioningPlan getProvisioningPlan(IProfileChangeRequest request, ProvisioningContext context,
 			IProgressMonitor monitor) {
+		return getProvisioningPlan(request, context, null, monitor);
+	}
+
+	/**
+	 * Creates a session that keeps the encoded problem between successive calls of
+	 * {@link PlannerSession#getProvisioningPlan(IProfileChangeRequest, ProvisioningContext, IProgressMonitor)}.
+	 */
+	public PlannerSession createSession() {
+		return new PlannerSession(this);
+	}
+
+	IProvisioningPlan getProvisioningPlan(IProfileChangeRequest request, ProvisioningContext context,
+			PlannerSession session, IProgressMonitor monitor) {
 		ProfileChangeRequest pcr = (ProfileChangeRequest) request;
 		SubMonitor sub = SubMonitor.convert(monitor, ExpandWork);
 		sub.setTaskName(Messages.Director_Task_Resolving_Dependencies);
 		try {
 			// Get the solution for the initial request
-			Object resolutionResult = getSolutionFor(pcr, context, sub.newChild(ExpandWork / 2));
+			Object resolutionResult = getSolutionFor(pcr, context, session, sub.newChild(ExpandWork / 2));
 			// a return value of a plan indicates failure when resolving so return.
 			if (resolutionResult instanceof IProvisioningPlan plan) {
 				return plan;
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.director;
+
+import java.util.*;
+import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
+import org.eclipse.equinox.internal.p2.metadata.index.ContentStamp;
+import org.eclipse.equinox.internal.p2.metadata.index.IContentStampProvider;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.IRequirement;
+import org.eclipse.equinox.p2.query.IQueryable;
+import org.eclipse.equinox.p2.query.QueryUtil;
+
+/**
+ * Remembers the slices computed by the {@link SimplePlanner} so that repeated
+ * install, update and remediation computations against the same metadata do not
+ * have to compute the transitive closure of their roots again.
+ * <p>
+ * A slice is keyed by the requirements of the root it was computed for, the
+ * selection context, whether meta requirements were considered and the content
+ * stamps of the metadata and of the profile it was computed from, see
+ * {@link IContentStampProvider}. Reloading or modifying a repository, or a
+ * change of the installed units, leads to a new stamp, and slices are not cached
+ * at all if one of the sources cannot provide a stamp. The least recently used
+ * slices are evicted once the estimated size of all slices exceeds the
+ * configured limit.
+ * </p>
+ */
+public class SliceCache {
+	/**
+	 * The name of a framework property specifying the size, in kilobytes, of the
+	 * slice cache of the planner. The cache is disabled if the property is not set.
+	 */
+	public static final String PROP_SLICE_CACHE_SIZE = "eclipse.p2.planner.sliceCacheSize"; //$NON-NLS-1$
+
+	// estimated cost of an array, of a reference in an array and of an entry in a
+	// hash set, map or list
+	private static final int ARRAY_HEADER_SIZE = 16;
+	private static final int REFERENCE_SIZE = 8;
+	private static final int SET_ENTRY_SIZE = 48;
+	private static final int ENTRY_OVERHEAD = 256;
+
+	/**
+	 * The extra units are the units of the request and of the provisioning
+	 * context, compared by identity through their stamps.
+	 */
+	record Key(Set<IRequirement> roots, Map<String, String> selectionContext, boolean considerMetaRequirements, Object metadataStamp, Object profileStamp, List<Object> extraUnits) {
+		long size() {
+			return ENTRY_OVERHEAD + (long) (roots.size() + selectionContext.size() + extraUnits.size()) * SET_ENTRY_SIZE;
+		}
+	}
+
+	/**
+	 * A slice without the root it was computed for.
+	 */
+	static final class Slice {
+		final IInstallableUnit[] ius;
+		final Set<IInstallableUnit> nonGreedyIUs;
+		final long size;
+
+		Slice(IInstallableUnit[] ius, Set<IInstallableUnit> nonGreedyIUs) {
+			this.ius = ius;
+			this.nonGreedyIUs = nonGreedyIUs;
+			this.size = ENTRY_OVERHEAD + ARRAY_HEADER_SIZE + (long) ius.length * REFERENCE_SIZE + (long) nonGreedyIUs.size() * SET_ENTRY_SIZE;
+		}
+
+		IQueryable<IInstallableUnit> withRoot(IInstallableUnit root) {
+			List<IInstallableUnit> result = new ArrayList<>(ius.length + 1);
+			result.add(root);
+			Collections.addAll(result, ius);
+			return new QueryableArray(result);
+		}
+	}
+
+	private final long maxSize;
+	private final LinkedHashMap<Key, Slice> slices = new LinkedHashMap<>(16, 0.75f, true);
+	private long size;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Creates a cache that holds slices up to the given estimated size in bytes.
+	 */
+	public SliceCache(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the cache configured through {@link #PROP_SLICE_CACHE_SIZE} or
+	 * <code>null</code> if no cache is configured.
+	 */
+	static SliceCache createConfigured() {
+		String value = DirectorActivator.context.map(ctx -> ctx.getProperty(PROP_SLICE_CACHE_SIZE)).orElse(null);
+		if (value == null) {
+			return null;
+		}
+		try {
+			long kilobytes = Long.parseLong(value.trim());
+			return kilobytes > 0 ? new SliceCache(kilobytes * 1024) : null;
+		} catch (NumberFormatException e) {
+			System.err.println("Ignoring user-specified '" + PROP_SLICE_CACHE_SIZE + "' value of: " + value); //$NON-NLS-1$ //$NON-NLS-2$
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the key of the slice of the given root, or <code>null</code> if the
+	 * metadata or the profile cannot tell whether their content changed. The
+	 * available units are not visited.
+	 *
+	 * @param profile the profile whose units are available, or <code>null</code>
+	 *                if they are not
+	 * @param extraIUs the units that are available in addition to the metadata
+	 *                 and the profile, in the order they take precedence
+	 */
+	static Key createKey(IInstallableUnit root, Map<String, String> selectionContext, boolean considerMetaRequirements, IQueryable<IInstallableUnit> metadata, IQueryable<IInstallableUnit> profile, List<IInstallableUnit> extraIUs) {
+		Object metadataStamp = getContentStamp(metadata);
+		if (metadataStamp == null) {
+			return null;
+		}
+		Object profileStamp = null;
+		if (profile != null) {
+			profileStamp = getContentStamp(profile);
+			if (profileStamp == null) {
+				return null;
+			}
+		}
+		List<Object> extraUnits = new ArrayList<>(extraIUs.size());
+		for (IInstallableUnit iu : extraIUs) {
+			extraUnits.add(ContentStamp.of(iu, 0));
+		}
+		return new Key(new HashSet<>(root.getRequirements()), new HashMap<>(selectionContext), considerMetaRequirements, metadataStamp, profileStamp, extraUnits);
+	}
+
+	private static Object getContentStamp(IQueryable<IInstallableUnit> queryable) {
+		return queryable instanceof IContentStampProvider provider ? provider.getContentStamp() : null;
+	}
+
+	synchronized Slice get(Key key) {
+		Slice slice = slices.get(key);
+		if (slice == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		if (Tracing.DEBUG_PLANNER_OPERANDS) {
+			Tracing.debug("Slice cache " + (slice == null ? "miss" : "hit") + ", " + hits + " hits, " + misses + " misses"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+		}
+		return slice;
+	}
+
+	synchronized Slice put(Key key, IInstallableUnit root, IQueryable<IInstallableUnit> computed, Set<IInstallableUnit> nonGreedyIUs) {
+		List<IInstallableUnit> ius = new ArrayList<>();
+		for (IInstallableUnit iu : computed.query(QueryUtil.ALL_UNITS, null)) {
+			if (iu != root) {
+				ius.add(iu);
+			}
+		}
+		Slice slice = new Slice(ius.toArray(new IInstallableUnit[ius.size()]), new HashSet<>(nonGreedyIUs));
+		if (key.size() + slice.size > maxSize) {
+			return slice;
+		}
+		Slice previous = slices.put(key, slice);
+		if (previous != null) {
+			size -= previous.size;
+		} else {
+			size += key.size();
+		}
+		size += slice.size;
+		for (Iterator<Map.Entry<Key, Slice>> iterator = slices.entrySet().iterator(); size > maxSize && iterator.hasNext();) {
+			Map.Entry<Key, Slice> entry = iterator.next();
+			size -= entry.getKey().size() + entry.getValue().size;
+			iterator.remove();
+			evictions++;
+		}
+		return slice;
+	}
+
+	/**
+	 * Returns the number of slices that were found in the cache.
+	 */
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of slices that had to be computed.
+	 */
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of slices that were evicted to stay within the size limit.
+	 */
+	public synchronized long getEvictionCount() {
+		return evictions;
+	}
+
+	/**
+	 * Returns the estimated size in bytes of the cached slices.
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	/**
+	 * Removes all slices from the cache.
+	 */
+	public synchronized void clear() {
+		slices.clear();
+		size = 0;
+	}
+}
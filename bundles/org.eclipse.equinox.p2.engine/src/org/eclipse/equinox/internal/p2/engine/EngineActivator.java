@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2007, 2017 IBM Corporation and others.
+ *  Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -52,6 +52,20 @@ public class EngineActivator implements BundleActivator {
 	 */
 	public static final String PROFILE_FORMAT_UNCOMPRESSED = "uncompressed"; //$NON-NLS-1$
 
+	/**
+	 * Value for the PROP_PROFILE_FORMAT system property specifying that a profile
+	 * change is stored as a gzipped delta against the previous state of the
+	 * profile. A full state is written every PROP_PROFILE_CHECKPOINT_INTERVAL
+	 * changes. p2 releases without delta support do not see these states.
+	 */
+	public static final String PROFILE_FORMAT_DELTA = "delta"; //$NON-NLS-1$
+
+	/**
+	 * System property specifying how many profile deltas may follow a full state
+	 * of the profile before the next full state is written.
+	 */
+	public static final String PROP_PROFILE_CHECKPOINT_INTERVAL = "eclipse.p2.profileCheckpointInterval"; //$NON-NLS-1$
+
 	/**
 	 * System property specifying how the engine should handle unsigned artifacts.
 	 * If this property is undefined, the default value is assumed to be "prompt".
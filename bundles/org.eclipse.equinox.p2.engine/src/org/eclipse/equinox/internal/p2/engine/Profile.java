@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2025 IBM Corporation and others.
+ * Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  * This
  * program and the accompanying materials are made available under the terms of
@@ -33,7 +33,7 @@ import org.eclipse.equinox.p2.metadata.index.IIndex;
 import org.eclipse.equinox.p2.query.IQuery;
 import org.eclipse.equinox.p2.query.IQueryResult;
 
-public class Profile extends IndexProvider<IInstallableUnit> implements IProfile {
+public class Profile extends IndexProvider<IInstallableUnit> implements IProfile, IContentStampProvider {
 
 	/**
 	 * An index that limits the candidates to those units that has profile properties
@@ -41,7 +41,8 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 	class ProfilePropertyIndex implements IIndex<IInstallableUnit> {
 		@Override
 		public Iterator<IInstallableUnit> getCandidates(IEvaluationContext ctx, IExpression variable, IExpression booleanExpr) {
-			return iuProperties.keySet().iterator();
+			// units keep their properties until clearOrphanedInstallableUnitProperties is called
+			return iuProperties.keySet().stream().filter(ius::contains).iterator();
 		}
 	}
 
@@ -69,8 +70,24 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 	 */
 	private final OrderedProperties storage = new OrderedProperties();
 
-	private final IUMap ius = new IUMap();
-	final Map<IInstallableUnit, OrderedProperties> iuProperties = new HashMap<>();
+	private IUMap ius = new IUMap();
+	/**
+	 * Whether {@link #ius} is shared with a snapshot and has to be copied
+	 * before it is changed.
+	 */
+	private boolean iusShared = false;
+	Map<IInstallableUnit, OrderedProperties> iuProperties = new HashMap<>();
+	/**
+	 * Whether {@link #iuProperties} is shared with a snapshot and has to be
+	 * copied before it is changed.
+	 */
+	private boolean iuPropertiesShared = false;
+	/**
+	 * The unit properties that this profile may change in place, or
+	 * <code>null</code> if it owns all of them because they were never shared
+	 * with a snapshot.
+	 */
+	private Set<OrderedProperties> ownIUProperties;
 	private boolean changed = false;
 
 	private long timestamp;
@@ -208,6 +225,11 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 		return ius.iterator();
 	}
 
+	@Override
+	public Object getContentStamp() {
+		return ius.getContentStamp();
+	}
+
 	@Override
 	public boolean contains(IInstallableUnit element) {
 		return ius.contains(element);
@@ -252,12 +274,7 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 
 	public String setInstallableUnitProperty(IInstallableUnit iu, String key, String value) {
 		//		String iuKey = createIUKey(iu);
-		OrderedProperties properties = iuProperties.get(iu);
-		if (properties == null) {
-			properties = new OrderedProperties();
-			iuProperties.put(iu, properties);
-		}
-
+		OrderedProperties properties = getWritableInstallableUnitProperties(iu, iuProperties.get(iu));
 		changed = true;
 		return (String) properties.setProperty(key, value);
 	}
@@ -269,6 +286,7 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 			return null;
 		}
 
+		properties = getWritableInstallableUnitProperties(iu, properties);
 		String oldValue = properties.remove(key);
 		if (properties.isEmpty()) {
 			iuProperties.remove(iu);
@@ -278,6 +296,34 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 		return oldValue;
 	}
 
+	/**
+	 * Returns the properties of the given unit in a form that may be changed,
+	 * copying them and the map that holds them if they are shared with a
+	 * snapshot.
+	 */
+	private OrderedProperties getWritableInstallableUnitProperties(IInstallableUnit iu, OrderedProperties properties) {
+		unshareInstallableUnitProperties();
+		if (properties == null) {
+			properties = new OrderedProperties();
+		} else if (ownIUProperties == null || ownIUProperties.contains(properties)) {
+			return properties;
+		} else {
+			properties = new OrderedProperties(properties);
+		}
+		if (ownIUProperties != null) {
+			ownIUProperties.add(properties);
+		}
+		iuProperties.put(iu, properties);
+		return properties;
+	}
+
+	private void unshareInstallableUnitProperties() {
+		if (iuPropertiesShared) {
+			iuProperties = new HashMap<>(iuProperties);
+			iuPropertiesShared = false;
+		}
+	}
+
 	//	private static String createIUKey(IInstallableUnit iu) {
 	//		return iu.getId() + "_" + iu.getVersion().toString(); //$NON-NLS-1$
 	//	}
@@ -317,16 +363,35 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 			return;
 		}
 
+		unshareInstallableUnits();
 		ius.add(iu);
 		changed = true;
 	}
 
 	public void removeInstallableUnit(IInstallableUnit iu) {
 		iu = iu.unresolved();
-		ius.remove(iu);
+		if (ius.contains(iu)) {
+			unshareInstallableUnits();
+			ius.remove(iu);
+		}
 		changed = true;
 	}
 
+	private void unshareInstallableUnits() {
+		if (iusShared) {
+			replaceInstallableUnits(ius.clone());
+		}
+	}
+
+	private void replaceInstallableUnits(IUMap units) {
+		synchronized (this) {
+			// the id index refers to the replaced map
+			idIndex = null;
+		}
+		ius = units;
+		iusShared = false;
+	}
+
 	@Override
 	public Map<String, String> getInstallableUnitProperties(IInstallableUnit iu) {
 		OrderedProperties properties = iuProperties.get(iu);
@@ -351,11 +416,43 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 	}
 
 	public void clearInstallableUnits() {
-		ius.clear();
-		iuProperties.clear();
+		if (iusShared) {
+			replaceInstallableUnits(new IUMap());
+		} else {
+			ius.clear();
+		}
+		iuProperties = new HashMap<>();
+		iuPropertiesShared = false;
+		ownIUProperties = null;
 		changed = true;
 	}
 
+	/**
+	 * Replaces the installable units of this profile and their properties with
+	 * those of the given profile. The two profiles share them until one of them
+	 * is changed.
+	 */
+	void setInstallableUnits(Profile profile) {
+		synchronized (this) {
+			// the indexes refer to the replaced units
+			idIndex = null;
+			capabilityIndex = null;
+		}
+		shareInstallableUnits(profile, this);
+		changed = true;
+	}
+
+	private static void shareInstallableUnits(Profile source, Profile target) {
+		target.ius = source.ius;
+		source.iusShared = true;
+		target.iusShared = true;
+		target.iuProperties = source.iuProperties;
+		source.iuPropertiesShared = true;
+		target.iuPropertiesShared = true;
+		source.ownIUProperties = Collections.newSetFromMap(new IdentityHashMap<>());
+		target.ownIUProperties = Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+
 	public Profile snapshot() {
 		Profile parentSnapshot = null;
 		if (parentProfile != null) {
@@ -374,14 +471,8 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 			}
 		}
 
-		for (Iterator<IInstallableUnit> iter = ius.iterator(); iter.hasNext();) {
-			IInstallableUnit iu = iter.next();
-			snapshot.addInstallableUnit(iu);
-			Map<String, String> properties = getInstallableUnitProperties(iu);
-			if (properties != null) {
-				snapshot.addInstallableUnitProperties(iu, properties);
-			}
-		}
+		// the units and their properties are only copied when one of the profiles changes them
+		shareInstallableUnits(this, snapshot);
 		snapshot.setChanged(false);
 		return snapshot;
 	}
@@ -393,7 +484,10 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 	}
 
 	public void clearInstallableUnitProperties(IInstallableUnit iu) {
-		iuProperties.remove(iu);
+		if (iuProperties.containsKey(iu)) {
+			unshareInstallableUnitProperties();
+			iuProperties.remove(iu);
+		}
 		changed = true;
 	}
 
@@ -407,6 +501,10 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 			}
 		}
 
+		if (toRemove.isEmpty()) {
+			return;
+		}
+		unshareInstallableUnitProperties();
 		for (IInstallableUnit iu : toRemove) {
 			iuProperties.remove(iu);
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2007, 2022 IBM Corporation and others.
+ *  Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -14,8 +14,7 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.p2.engine;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
 import javax.xml.parsers.SAXParserFactory;
 import org.eclipse.equinox.internal.p2.metadata.repository.io.MetadataParser;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
@@ -45,6 +44,13 @@ public abstract class ProfileParser extends MetadataParser implements ProfileXML
 		private PropertiesHandler propertiesHandler;
 		private InstallableUnitsHandler unitsHandler;
 		private IUsPropertiesHandler iusPropertiesHandler;
+		/*
+		 * The state after applying deltas with applyDelta. They are null as long as
+		 * the state is the one read by this handler.
+		 */
+		private Map<String, String> deltaProperties;
+		private Map<String, IInstallableUnit> deltaUnits;
+		private Map<String, Map<String, String>> deltaIUsProperties;
 
 		public ProfileHandler() {
 			// default
@@ -107,6 +113,9 @@ public abstract class ProfileParser extends MetadataParser implements ProfileXML
 		}
 
 		public Map<String, String> getProperties() {
+			if (deltaProperties != null) {
+				return deltaProperties;
+			}
 			if (propertiesHandler == null) {
 				return null;
 			}
@@ -114,6 +123,9 @@ public abstract class ProfileParser extends MetadataParser implements ProfileXML
 		}
 
 		public IInstallableUnit[] getInstallableUnits() {
+			if (deltaUnits != null) {
+				return deltaUnits.values().toArray(new IInstallableUnit[deltaUnits.size()]);
+			}
 			if (unitsHandler == null) {
 				return null;
 			}
@@ -121,6 +133,9 @@ public abstract class ProfileParser extends MetadataParser implements ProfileXML
 		}
 
 		public Map<String, String> getIUProperties(IInstallableUnit iu) {
+			if (deltaIUsProperties != null) {
+				return deltaIUsProperties.get(getIdentity(iu));
+			}
 			if (iusPropertiesHandler == null) {
 				return null;
 			}
@@ -130,9 +145,204 @@ public abstract class ProfileParser extends MetadataParser implements ProfileXML
 				return null;
 			}
 
-			String iuIdentity = iu.getId() + "_" + iu.getVersion().toString(); //$NON-NLS-1$
-			return iusPropertiesMap.get(iuIdentity);
+			return iusPropertiesMap.get(getIdentity(iu));
+		}
+
+		/**
+		 * Changes the state of this handler to the state that results from applying
+		 * the given delta. The delta must have been written against the current
+		 * state of this handler.
+		 */
+		public void applyDelta(ProfileDeltaHandler delta) {
+			if (deltaUnits == null) {
+				Map<String, IInstallableUnit> units = new LinkedHashMap<>();
+				Map<String, Map<String, String>> iusProperties = new HashMap<>();
+				IInstallableUnit[] baseUnits = getInstallableUnits();
+				if (baseUnits != null) {
+					for (IInstallableUnit iu : baseUnits) {
+						units.put(getIdentity(iu), iu);
+						Map<String, String> iuProperties = getIUProperties(iu);
+						if (iuProperties != null && !iuProperties.isEmpty()) {
+							iusProperties.put(getIdentity(iu), iuProperties);
+						}
+					}
+				}
+				deltaUnits = units;
+				deltaIUsProperties = iusProperties;
+			}
+
+			timestamp = Long.toString(delta.getTimestamp());
+			deltaProperties = delta.getProperties();
+			for (String iuIdentity : delta.getRemovedUnits()) {
+				deltaUnits.remove(iuIdentity);
+				deltaIUsProperties.remove(iuIdentity);
+			}
+			for (IInstallableUnit iu : delta.getAddedUnits()) {
+				deltaUnits.put(getIdentity(iu), iu);
+			}
+			for (Map.Entry<String, Map<String, String>> entry : delta.getIUsProperties().entrySet()) {
+				if (entry.getValue().isEmpty()) {
+					deltaIUsProperties.remove(entry.getKey());
+				} else {
+					deltaIUsProperties.put(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Handler for the changes of a profile against an earlier state of the same
+	 * profile, as written by {@link ProfileWriter#writeProfileDelta}.
+	 */
+	protected class ProfileDeltaHandler extends RootHandler {
+
+		private final String[] required = new String[] {ID_ATTRIBUTE, TIMESTAMP_ATTRIBUTE, BASE_TIMESTAMP_ATTRIBUTE};
+
+		private String profileId;
+		private long timestamp;
+		private long baseTimestamp;
+		private PropertiesHandler propertiesHandler;
+		private InstallableUnitsHandler unitsHandler;
+		private RemovedUnitsHandler removedUnitsHandler;
+		private IUsPropertiesHandler iusPropertiesHandler;
+
+		@Override
+		protected void handleRootAttributes(Attributes attributes) {
+			String[] values = parseRequiredAttributes(attributes, required);
+			profileId = values[0];
+			timestamp = checkTimestamp(TIMESTAMP_ATTRIBUTE, values[1]);
+			baseTimestamp = checkTimestamp(BASE_TIMESTAMP_ATTRIBUTE, values[2]);
+		}
+
+		private long checkTimestamp(String attribute, String value) {
+			try {
+				return Long.parseLong(value);
+			} catch (NumberFormatException e) {
+				invalidAttributeValue(PROFILE_DELTA_ELEMENT, attribute, value, e);
+				return 0;
+			}
+		}
+
+		@Override
+		public void startElement(String name, Attributes attributes) {
+			if (PROPERTIES_ELEMENT.equals(name)) {
+				if (propertiesHandler == null) {
+					propertiesHandler = new PropertiesHandler(this, attributes);
+				} else {
+					duplicateElement(this, name, attributes);
+				}
+			} else if (INSTALLABLE_UNITS_ELEMENT.equals(name)) {
+				if (unitsHandler == null) {
+					unitsHandler = new InstallableUnitsHandler(this, attributes);
+				} else {
+					duplicateElement(this, name, attributes);
+				}
+			} else if (REMOVED_UNITS_ELEMENT.equals(name)) {
+				if (removedUnitsHandler == null) {
+					removedUnitsHandler = new RemovedUnitsHandler(this, attributes);
+				} else {
+					duplicateElement(this, name, attributes);
+				}
+			} else if (IUS_PROPERTIES_ELEMENT.equals(name)) {
+				if (iusPropertiesHandler == null) {
+					iusPropertiesHandler = new IUsPropertiesHandler(this, attributes);
+				} else {
+					duplicateElement(this, name, attributes);
+				}
+			} else {
+				invalidElement(name, attributes);
+			}
+		}
+
+		public String getProfileId() {
+			return profileId;
+		}
+
+		public long getTimestamp() {
+			return timestamp;
+		}
+
+		public long getBaseTimestamp() {
+			return baseTimestamp;
+		}
+
+		public Map<String, String> getProperties() {
+			if (propertiesHandler == null) {
+				return Collections.emptyMap();
+			}
+			return propertiesHandler.getProperties();
+		}
+
+		public IInstallableUnit[] getAddedUnits() {
+			if (unitsHandler == null) {
+				return new IInstallableUnit[0];
+			}
+			return unitsHandler.getUnits();
+		}
+
+		public List<String> getRemovedUnits() {
+			if (removedUnitsHandler == null) {
+				return Collections.emptyList();
+			}
+			return removedUnitsHandler.getUnits();
+		}
+
+		/**
+		 * Returns the new properties of the units whose properties changed, keyed by
+		 * unit identity. An empty map means that all properties were removed.
+		 */
+		public Map<String, Map<String, String>> getIUsProperties() {
+			if (iusPropertiesHandler == null) {
+				return Collections.emptyMap();
+			}
+			return iusPropertiesHandler.getIUsPropertiesMap();
+		}
+	}
+
+	protected class RemovedUnitsHandler extends AbstractHandler {
+
+		private final List<String> units;
+
+		public RemovedUnitsHandler(AbstractHandler parentHandler, Attributes attributes) {
+			super(parentHandler, REMOVED_UNITS_ELEMENT);
+			String sizeStr = parseOptionalAttribute(attributes, COLLECTION_SIZE_ATTRIBUTE);
+			int size = (sizeStr != null ? Integer.parseInt(sizeStr) : 4);
+			units = new ArrayList<>(size);
+		}
+
+		public List<String> getUnits() {
+			return units;
+		}
+
+		@Override
+		public void startElement(String name, Attributes attributes) {
+			if (name.equals(INSTALLABLE_UNIT_ELEMENT)) {
+				new RemovedUnitHandler(this, attributes, units);
+			} else {
+				invalidElement(name, attributes);
+			}
+		}
+	}
+
+	protected class RemovedUnitHandler extends AbstractHandler {
+
+		private final String[] required = new String[] {ID_ATTRIBUTE, VERSION_ATTRIBUTE};
+
+		public RemovedUnitHandler(AbstractHandler parentHandler, Attributes attributes, List<String> units) {
+			super(parentHandler, INSTALLABLE_UNIT_ELEMENT);
+			String values[] = parseRequiredAttributes(attributes, required);
+			Version version = checkVersion(INSTALLABLE_UNIT_ELEMENT, VERSION_ATTRIBUTE, values[1]);
+			units.add(values[0] + "_" + version.toString()); //$NON-NLS-1$
 		}
+
+		@Override
+		public void startElement(String name, Attributes attributes) {
+			invalidElement(name, attributes);
+		}
+	}
+
+	static String getIdentity(IInstallableUnit iu) {
+		return iu.getId() + "_" + iu.getVersion().toString(); //$NON-NLS-1$
 	}
 
 	protected class IUPropertiesHandler extends AbstractHandler {
@@ -155,8 +365,9 @@ public abstract class ProfileParser extends MetadataParser implements ProfileXML
 
 		@Override
 		protected void finished() {
-			if (isValidXML() && iuIdentity != null && propertiesHandler != null) {
-				iusPropertiesMap.put(iuIdentity, propertiesHandler.getProperties());
+			if (isValidXML() && iuIdentity != null) {
+				// profile deltas record units whose properties were all removed without properties
+				iusPropertiesMap.put(iuIdentity, propertiesHandler != null ? propertiesHandler.getProperties() : Collections.emptyMap());
 			}
 		}
 
@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.engine;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import org.eclipse.equinox.p2.engine.IProfile;
+import org.eclipse.equinox.p2.metadata.*;
+
+/**
+ * An index of the states of a profile, stored next to the states. It lists the
+ * timestamps of the states and, for the states that were written or read by
+ * the registry, the number of installable units and the root units, so that
+ * states can be listed and compared without reading them.
+ * <p>
+ * The index is only a cache. It is current as long as it was written after the
+ * last change to the profile directory, otherwise the states are listed again
+ * and the index is rewritten.
+ * Saving a state appends its entries, so the index is only rewritten when
+ * states are removed or listed again.
+ * </p>
+ */
+class ProfileStateIndex {
+	static final String INDEX_FILE = "states.index"; //$NON-NLS-1$
+
+	private static final String SIZE_SUFFIX = ".size"; //$NON-NLS-1$
+	private static final String ROOTS_SUFFIX = ".roots"; //$NON-NLS-1$
+	private static final String ROOTS_SEPARATOR = ","; //$NON-NLS-1$
+	private static final int UNKNOWN_SIZE = -1;
+
+	private record State(int size, String roots) {
+	}
+
+	private final File directory;
+	private final File file;
+	private final SortedMap<Long, State> states = new TreeMap<>();
+	private long lastModified;
+
+	private ProfileStateIndex(File directory) {
+		this.directory = directory;
+		this.file = new File(directory, INDEX_FILE);
+	}
+
+	/**
+	 * Reads the index in the given profile directory. An index that is missing
+	 * or cannot be read is empty and not current.
+	 */
+	static ProfileStateIndex read(File profileDirectory) {
+		ProfileStateIndex index = new ProfileStateIndex(profileDirectory);
+		if (!index.file.isFile()) {
+			return index;
+		}
+		Properties properties = new Properties();
+		try (InputStream input = new BufferedInputStream(new FileInputStream(index.file))) {
+			properties.load(input);
+		} catch (IOException | IllegalArgumentException e) {
+			// the states are listed again
+			return index;
+		}
+		for (String key : properties.stringPropertyNames()) {
+			if (!key.endsWith(SIZE_SUFFIX)) {
+				continue;
+			}
+			String timestamp = key.substring(0, key.length() - SIZE_SUFFIX.length());
+			try {
+				index.states.put(Long.valueOf(timestamp), new State(Integer.parseInt(properties.getProperty(key)), properties.getProperty(timestamp + ROOTS_SUFFIX)));
+			} catch (NumberFormatException e) {
+				// the states are listed again
+				index.states.clear();
+				return index;
+			}
+		}
+		index.lastModified = index.file.lastModified();
+		return index;
+	}
+
+	/**
+	 * Returns whether the index on disk has not been changed since it was read
+	 * or written, and no state was added or removed since then. A change within
+	 * the same tick of the file system clock cannot be told apart, so the index
+	 * has to be strictly newer than the directory.
+	 */
+	boolean isCurrent() {
+		return isUnchanged() && lastModified > directory.lastModified();
+	}
+
+	/**
+	 * Returns whether the index on disk has not been changed since it was read
+	 * or written.
+	 */
+	private boolean isUnchanged() {
+		return lastModified != 0 && file.lastModified() == lastModified;
+	}
+
+	long[] getTimestamps() {
+		long[] timestamps = new long[states.size()];
+		int i = 0;
+		for (Long timestamp : states.keySet()) {
+			timestamps[i++] = timestamp.longValue();
+		}
+		return timestamps;
+	}
+
+	/**
+	 * Returns the timestamp of the latest state, or 0 if there is no state.
+	 */
+	long getLatestTimestamp() {
+		return states.isEmpty() ? 0 : states.lastKey().longValue();
+	}
+
+	boolean contains(long timestamp) {
+		return states.containsKey(timestamp);
+	}
+
+	/**
+	 * Returns whether the number of units and the roots of the given state are
+	 * known.
+	 */
+	boolean isIndexed(long timestamp) {
+		State state = states.get(timestamp);
+		return state != null && state.size() != UNKNOWN_SIZE;
+	}
+
+	/**
+	 * Returns the number of units in the given state, or -1 if it is not known.
+	 */
+	int getSize(long timestamp) {
+		State state = states.get(timestamp);
+		return state == null ? UNKNOWN_SIZE : state.size();
+	}
+
+	/**
+	 * Returns the root units of the given state, or <code>null</code> if they
+	 * are not known.
+	 */
+	IVersionedId[] getRoots(long timestamp) {
+		if (!isIndexed(timestamp)) {
+			return null;
+		}
+		String roots = states.get(timestamp).roots();
+		if (roots == null || roots.isEmpty()) {
+			return new IVersionedId[0];
+		}
+		String[] specs = roots.split(ROOTS_SEPARATOR);
+		IVersionedId[] result = new IVersionedId[specs.length];
+		for (int i = 0; i < specs.length; i++) {
+			result[i] = VersionedId.parse(specs[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Records the number of units and the roots of the given state. The entries
+	 * are appended, so the index is not read or rewritten. If the state has just
+	 * been written, the index has to be current before it was written.
+	 */
+	void add(Profile state) throws IOException {
+		int size = 0;
+		StringBuilder roots = new StringBuilder();
+		for (Iterator<IInstallableUnit> units = state.everything(); units.hasNext();) {
+			IInstallableUnit iu = units.next();
+			size++;
+			if (Boolean.parseBoolean(state.getInstallableUnitProperty(iu, IProfile.PROP_PROFILE_ROOT_IU))) {
+				if (roots.length() > 0) {
+					roots.append(ROOTS_SEPARATOR);
+				}
+				roots.append(new VersionedId(iu.getId(), iu.getVersion()));
+			}
+		}
+		long timestamp = state.getTimestamp();
+		states.put(timestamp, new State(size, roots.toString()));
+		if (!isUnchanged()) {
+			// the states are listed again
+			return;
+		}
+		StringBuilder entries = new StringBuilder();
+		appendEntries(entries, timestamp, states.get(timestamp));
+		try (OutputStream output = new FileOutputStream(file, true)) {
+			output.write(entries.toString().getBytes(StandardCharsets.ISO_8859_1));
+		}
+		lastModified = file.lastModified();
+	}
+
+	/**
+	 * Replaces the states in the index with the given ones. What is known about
+	 * states that are still there is kept.
+	 */
+	void setTimestamps(long[] timestamps) throws IOException {
+		Map<Long, State> known = new HashMap<>(states);
+		states.clear();
+		for (long timestamp : timestamps) {
+			State state = known.get(timestamp);
+			states.put(timestamp, state == null ? new State(UNKNOWN_SIZE, null) : state);
+		}
+		write();
+	}
+
+	/**
+	 * Removes the given state, which has just been deleted.
+	 */
+	void remove(long timestamp) throws IOException {
+		if (states.remove(timestamp) != null && isUnchanged()) {
+			write();
+		}
+	}
+
+	private void write() throws IOException {
+		StringBuilder entries = new StringBuilder();
+		for (Map.Entry<Long, State> entry : states.entrySet()) {
+			appendEntries(entries, entry.getKey().longValue(), entry.getValue());
+		}
+		try (OutputStream output = new FileOutputStream(file)) {
+			output.write(entries.toString().getBytes(StandardCharsets.ISO_8859_1));
+		}
+		lastModified = file.lastModified();
+	}
+
+	private static void appendEntries(StringBuilder entries, long timestamp, State state) {
+		entries.append(timestamp).append(SIZE_SUFFIX).append('=').append(state.size()).append('\n');
+		if (state.roots() != null) {
+			entries.append(timestamp).append(ROOTS_SUFFIX).append('=').append(escape(state.roots())).append('\n');
+		}
+	}
+
+	private static String escape(String value) {
+		StringBuilder result = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\\' || c == ':' || c == '=' || c == '#' || c == '!' || (i == 0 && c == ' ')) {
+				result.append('\\').append(c);
+			} else if (c < 0x20 || c > 0x7e) {
+				result.append(String.format("\\u%04x", (int) c)); //$NON-NLS-1$
+			} else {
+				result.append(c);
+			}
+		}
+		return result.toString();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2007, 2020 IBM Corporation and others.
+ *  Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -31,7 +31,83 @@ public class ProfileWriter extends MetadataWriter implements ProfileXMLConstants
 		attribute(ID_ATTRIBUTE, profile.getProfileId());
 		attribute(TIMESTAMP_ATTRIBUTE, Long.toString(profile.getTimestamp()));
 		writeProperties(profile.getProperties());
-		ArrayList<IInstallableUnit> ius = new ArrayList<>(profile.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet());
+		List<IInstallableUnit> ius = sort(profile.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet());
+		writeInstallableUnits(ius.iterator(), ius.size());
+		writeInstallableUnitsProperties(ius.iterator(), ius.size(), profile);
+		end(PROFILE_ELEMENT);
+		flush();
+	}
+
+	/**
+	 * Writes the changes of the given profile against an earlier state of the
+	 * same profile. Only the added units, the ids and versions of the removed
+	 * units and the properties of units whose properties changed are written.
+	 */
+	public void writeProfileDelta(IProfile profile, IProfile base) {
+		start(PROFILE_DELTA_ELEMENT);
+		attribute(ID_ATTRIBUTE, profile.getProfileId());
+		attribute(TIMESTAMP_ATTRIBUTE, Long.toString(profile.getTimestamp()));
+		attribute(BASE_TIMESTAMP_ATTRIBUTE, Long.toString(base.getTimestamp()));
+		writeProperties(profile.getProperties());
+
+		Set<IInstallableUnit> ius = profile.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet();
+		Set<IInstallableUnit> baseIUs = base.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet();
+		List<IInstallableUnit> added = new ArrayList<>();
+		List<IInstallableUnit> changed = new ArrayList<>();
+		for (IInstallableUnit iu : sort(ius)) {
+			Map<String, String> properties = profile.getInstallableUnitProperties(iu);
+			if (!baseIUs.contains(iu)) {
+				added.add(iu);
+				if (!properties.isEmpty()) {
+					changed.add(iu);
+				}
+			} else if (!properties.equals(base.getInstallableUnitProperties(iu))) {
+				changed.add(iu);
+			}
+		}
+		List<IInstallableUnit> removed = new ArrayList<>();
+		for (IInstallableUnit iu : sort(baseIUs)) {
+			if (!ius.contains(iu)) {
+				removed.add(iu);
+			}
+		}
+
+		writeInstallableUnits(added.iterator(), added.size());
+		writeRemovedInstallableUnits(removed);
+		if (!changed.isEmpty()) {
+			start(IUS_PROPERTIES_ELEMENT);
+			attribute(COLLECTION_SIZE_ATTRIBUTE, changed.size());
+			for (IInstallableUnit iu : changed) {
+				// a unit without properties element has lost all its properties
+				start(IU_PROPERTIES_ELEMENT);
+				attribute(ID_ATTRIBUTE, iu.getId());
+				attribute(VERSION_ATTRIBUTE, iu.getVersion().toString());
+				writeProperties(profile.getInstallableUnitProperties(iu));
+				end(IU_PROPERTIES_ELEMENT);
+			}
+			end(IUS_PROPERTIES_ELEMENT);
+		}
+		end(PROFILE_DELTA_ELEMENT);
+		flush();
+	}
+
+	private void writeRemovedInstallableUnits(List<IInstallableUnit> removed) {
+		if (removed.isEmpty()) {
+			return;
+		}
+		start(REMOVED_UNITS_ELEMENT);
+		attribute(COLLECTION_SIZE_ATTRIBUTE, removed.size());
+		for (IInstallableUnit iu : removed) {
+			start(INSTALLABLE_UNIT_ELEMENT);
+			attribute(ID_ATTRIBUTE, iu.getId());
+			attribute(VERSION_ATTRIBUTE, iu.getVersion().toString());
+			end(INSTALLABLE_UNIT_ELEMENT);
+		}
+		end(REMOVED_UNITS_ELEMENT);
+	}
+
+	private static List<IInstallableUnit> sort(Collection<IInstallableUnit> units) {
+		List<IInstallableUnit> ius = new ArrayList<>(units);
 		ius.sort((iu1, iu2) -> {
 			int IdCompare = iu1.getId().compareTo(iu2.getId());
 			if (IdCompare != 0) {
@@ -40,10 +116,7 @@ public class ProfileWriter extends MetadataWriter implements ProfileXMLConstants
 
 			return iu1.getVersion().compareTo(iu2.getVersion());
 		});
-		writeInstallableUnits(ius.iterator(), ius.size());
-		writeInstallableUnitsProperties(ius.iterator(), ius.size(), profile);
-		end(PROFILE_ELEMENT);
-		flush();
+		return ius;
 	}
 
 	private void writeInstallableUnitsProperties(Iterator<IInstallableUnit> it, int size, IProfile profile) {
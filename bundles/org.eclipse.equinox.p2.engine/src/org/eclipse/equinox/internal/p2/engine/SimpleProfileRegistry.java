@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2022 IBM Corporation and others.
+ * Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  * This
  * program and the accompanying materials are made available under the terms of
@@ -20,6 +20,7 @@ package org.eclipse.equinox.internal.p2.engine;
 import java.io.*;
 import java.lang.ref.SoftReference;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.zip.GZIPInputStream;
@@ -34,7 +35,6 @@ import org.eclipse.equinox.p2.core.*;
 import org.eclipse.equinox.p2.core.spi.IAgentService;
 import org.eclipse.equinox.p2.engine.*;
 import org.eclipse.equinox.p2.metadata.*;
-import org.eclipse.equinox.p2.query.IQueryResult;
 import org.eclipse.equinox.p2.query.QueryUtil;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.eclipse.osgi.util.NLS;
@@ -47,9 +47,14 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 	private static final String SIMPLE_PROFILE_REGISTRY_INTERNAL = "_simpleProfileRegistry_internal_"; //$NON-NLS-1$
 	private static final String PROFILE_REGISTRY = "profile registry"; //$NON-NLS-1$
 	private static final String PROFILE_PROPERTIES_FILE = "state.properties"; //$NON-NLS-1$
+	// maps the timestamp of every delta of a profile to the timestamp of the state it is based on
+	private static final String DELTA_INDEX_FILE = "deltas.properties"; //$NON-NLS-1$
 
 	private static final String PROFILE_EXT = ".profile"; //$NON-NLS-1$
 	private static final String PROFILE_GZ_EXT = ".profile.gz"; //$NON-NLS-1$
+	private static final String PROFILE_DELTA_EXT = ".profile.delta.gz"; //$NON-NLS-1$
+	private static final int DEFAULT_CHECKPOINT_INTERVAL = 16;
+	private static final int PROFILE_STATE_CACHE_SIZE = 8;
 	public static final String DEFAULT_STORAGE_DIR = "profileRegistry"; //$NON-NLS-1$
 	private static final String DATA_EXT = ".data"; //$NON-NLS-1$
 
@@ -78,6 +83,23 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 	private IProvisioningEventBus eventBus;
 	// cache of last accessed profile state properties
 	private ProfileStateProperties lastAccessedProperties;
+	// number of deltas between the latest state of a profile and its last full state
+	private final Map<String, Integer> deltaDepths = new HashMap<>();
+	// the most recently read historical states, which never change once written
+	private final Map<ProfileStateKey, Profile> profileStates = new LinkedHashMap<>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ProfileStateKey, Profile> eldest) {
+			return size() > PROFILE_STATE_CACHE_SIZE;
+		}
+	};
+
+	// the indexes of the states of the profiles, see ProfileStateIndex
+	private final Map<String, ProfileStateIndex> stateIndexes = new HashMap<>();
+
+	private record ProfileStateKey(String id, long timestamp) {
+	}
 
 	public SimpleProfileRegistry(IProvisioningAgent agent, File registryDirectory) {
 		this(agent, registryDirectory, new SurrogateProfileHandler(agent), true);
@@ -226,12 +248,15 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 			return null;
 		}
 
-		File profileFile = new File(profileDirectory, Long.toString(timestamp) + PROFILE_GZ_EXT);
-		if (!profileFile.exists()) {
-			profileFile = new File(profileDirectory, Long.toString(timestamp) + PROFILE_EXT);
-			if (!profileFile.exists()) {
-				return null;
-			}
+		File profileFile = getProfileFile(profileDirectory, timestamp);
+		if (profileFile == null) {
+			return null;
+		}
+
+		ProfileStateKey key = new ProfileStateKey(id, timestamp);
+		Profile state = profileStates.get(key);
+		if (state != null) {
+			return state.snapshot();
 		}
 
 		Parser parser = new Parser(EngineActivator.ID);
@@ -240,7 +265,95 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		} catch (IOException e) {
 			LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_parsing_profile, profileFile), e));
 		}
-		return parser.getProfileMap().get(id);
+		state = parser.getProfileMap().get(id);
+		if (state == null) {
+			return null;
+		}
+		profileStates.put(key, state);
+		return state.snapshot();
+	}
+
+	/**
+	 * Returns the number of installable units in the given state of a profile,
+	 * or -1 if there is no such state. The number is taken from the index of the
+	 * profile states, so the state is only read if it is not indexed yet.
+	 */
+	public synchronized int getProfileStateSize(String id, long timestamp) {
+		ProfileStateIndex index = getIndexedState(id, timestamp);
+		return index == null ? -1 : index.getSize(timestamp);
+	}
+
+	/**
+	 * Returns the ids and versions of the root units in the given state of a
+	 * profile, or <code>null</code> if there is no such state. The roots are
+	 * taken from the index of the profile states, so the state is only read if
+	 * it is not indexed yet.
+	 */
+	public synchronized IVersionedId[] getProfileStateRoots(String id, long timestamp) {
+		ProfileStateIndex index = getIndexedState(id, timestamp);
+		return index == null ? null : index.getRoots(timestamp);
+	}
+
+	/**
+	 * Returns the state index of the given profile after making sure that it
+	 * knows the units of the given state, or <code>null</code> if there is no
+	 * such state.
+	 */
+	private ProfileStateIndex getIndexedState(String id, long timestamp) {
+		if (SELF.equals(id)) {
+			id = self;
+		}
+		if (id == null) {
+			return null;
+		}
+		File profileDirectory = getProfileFolder(id);
+		if (!profileDirectory.isDirectory()) {
+			return null;
+		}
+		ProfileStateIndex index = getStateIndex(id, profileDirectory);
+		if (!index.contains(timestamp)) {
+			return null;
+		}
+		if (!index.isIndexed(timestamp)) {
+			IProfile state = getProfile(id, timestamp);
+			if (state == null) {
+				return null;
+			}
+			try {
+				index.add((Profile) state);
+			} catch (IOException e) {
+				logStateIndexFailure(e);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the state index of the given profile. If the index is missing or
+	 * the states changed since it was written, the states are listed again.
+	 */
+	private ProfileStateIndex getStateIndex(String id, File profileDirectory) {
+		ProfileStateIndex index = stateIndexes.get(id);
+		if (index != null && index.isCurrent()) {
+			return index;
+		}
+		index = ProfileStateIndex.read(profileDirectory);
+		stateIndexes.put(id, index);
+		if (!index.isCurrent()) {
+			try {
+				index.setTimestamps(readProfileTimestamps(profileDirectory));
+			} catch (IOException e) {
+				// the states are listed again next time
+				logStateIndexFailure(e);
+			}
+		}
+		return index;
+	}
+
+	private static void logStateIndexFailure(IOException e) {
+		if (DebugHelper.DEBUG_PROFILE_REGISTRY) {
+			DebugHelper.debug(PROFILE_REGISTRY, "Failed to write the profile state index: " + e.getMessage()); //$NON-NLS-1$
+		}
 	}
 
 	@Override
@@ -257,8 +370,11 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		if (!profileDirectory.isDirectory()) {
 			return new long[0];
 		}
+		return getStateIndex(id, profileDirectory).getTimestamps();
+	}
 
-		File[] profileFiles = profileDirectory.listFiles((FileFilter) pathname -> (pathname.getName().endsWith(PROFILE_EXT) || pathname.getName().endsWith(PROFILE_GZ_EXT)) && pathname.isFile() && !pathname.getName().startsWith("._")); //$NON-NLS-1$
+	private static long[] readProfileTimestamps(File profileDirectory) {
+		File[] profileFiles = profileDirectory.listFiles((FileFilter) pathname -> isProfileFile(pathname) && pathname.isFile() && !pathname.getName().startsWith("._")); //$NON-NLS-1$
 
 		long[] timestamps = new long[profileFiles.length];
 		for (int i = 0; i < profileFiles.length; i++) {
@@ -429,20 +545,14 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		ProfileLock lock = profileLocks.get(id);
 		lock.checkLocked();
 
+		// the persisted state that a delta is written against
+		Profile base = isDeltaFormat() ? current.snapshot() : null;
 		current.clearLocalProperties();
-		current.clearInstallableUnits();
-
 		current.addProperties(profile.getLocalProperties());
-		IQueryResult<IInstallableUnit> queryResult = profile.query(QueryUtil.createIUAnyQuery(), null);
-		for (IInstallableUnit iu : queryResult) {
-			current.addInstallableUnit(iu);
-			Map<String, String> iuProperties = profile.getInstallableUnitProperties(iu);
-			if (iuProperties != null) {
-				current.addInstallableUnitProperties(iu, iuProperties);
-			}
-		}
-		saveProfile(current);
+		// the properties of removed units must not be taken over
 		profile.clearOrphanedInstallableUnitProperties();
+		current.setInstallableUnits(profile);
+		saveProfile(current, base);
 		profile.setTimestamp(current.getTimestamp());
 		broadcastChangeEvent(id, IProfileEvent.CHANGED);
 	}
@@ -542,14 +652,19 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 			return;
 		}
 
-		File profileFile = new File(profileDirectory, Long.toString(timestamp) + PROFILE_GZ_EXT);
-		if (!profileFile.exists()) {
-			profileFile = new File(profileDirectory, Long.toString(timestamp) + PROFILE_EXT);
-			if (!profileFile.exists()) {
-				return;
-			}
+		File profileFile = getProfileFile(profileDirectory, timestamp);
+		if (profileFile == null) {
+			return;
 		}
+		ProfileStateIndex index = getStateIndex(id, profileDirectory);
+		storeDependentDeltasInFull(id, profileDirectory, timestamp);
 		FileUtils.deleteAll(profileFile);
+		profileStates.remove(new ProfileStateKey(id, timestamp));
+		try {
+			index.remove(timestamp);
+		} catch (IOException e) {
+			logStateIndexFailure(e);
+		}
 		// Ignore the return value here. If there was a problem removing the profile state
 		// properties we don't want to fail the whole operation since the profile state itself
 		// was removed successfully
@@ -590,7 +705,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 			boolean locked = false;
 			if (lock.processHoldsLock() || (locked = lock.lock())) {
 				try {
-					File profileFile = findLatestProfileFile(profileDirectorie);
+					File profileFile = findLatestProfileFile(profileId, profileDirectorie);
 					if (profileFile != null) {
 						try {
 							parser.parse(profileFile);
@@ -608,13 +723,29 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 				parser.addProfilePlaceHolder(profileId);
 			}
 		}
+		deltaDepths.putAll(parser.getDeltaDepths());
 		return parser.getProfileMap();
 	}
 
+	/**
+	 * Returns the file holding the latest state of the given profile, as listed
+	 * in the index of its states.
+	 */
+	private File findLatestProfileFile(String id, File profileDirectory) {
+		long latestTimestamp;
+		try {
+			latestTimestamp = getStateIndex(id, profileDirectory).getLatestTimestamp();
+		} catch (IllegalStateException e) {
+			// a file that is not a state is in the way, skip it
+			return findLatestProfileFile(profileDirectory);
+		}
+		return latestTimestamp == 0 ? null : getProfileFile(profileDirectory, latestTimestamp);
+	}
+
 	private File findLatestProfileFile(File profileDirectory) {
 		File latest = null;
 		long latestTimestamp = 0;
-		File[] profileFiles = profileDirectory.listFiles((FileFilter) pathname -> (pathname.getName().endsWith(PROFILE_GZ_EXT) || pathname.getName().endsWith(PROFILE_EXT)) && !pathname.isDirectory());
+		File[] profileFiles = profileDirectory.listFiles((FileFilter) pathname -> isProfileFile(pathname) && !pathname.isDirectory());
 		// protect against NPE
 		if (profileFiles == null) {
 			return null;
@@ -635,8 +766,19 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 	}
 
 	private void saveProfile(Profile profile) {
+		saveProfile(profile, null);
+	}
+
+	/**
+	 * Writes a new state of the given profile. If the given base is not
+	 * <code>null</code>, it is the state the profile had before it was changed,
+	 * and the new state may be written as a delta against it.
+	 */
+	private void saveProfile(Profile profile, Profile base) {
 		File profileDirectory = getProfileFolder(profile.getProfileId());
 		profileDirectory.mkdir();
+		// the new state is appended to an index that lists all the states before
+		ProfileStateIndex index = getStateIndex(profile.getProfileId(), profileDirectory);
 
 		long previousTimestamp = profile.getTimestamp();
 		long currentTimestamp = currentTimeInMillis(lastTimeMillis);
@@ -644,7 +786,8 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 			currentTimestamp = currentTimeInMillis(previousTimestamp);
 		}
 		boolean shouldGzipFile = shouldGzipFile(profile);
-		File profileFile = new File(profileDirectory, Long.toString(currentTimestamp) + (shouldGzipFile ? PROFILE_GZ_EXT : PROFILE_EXT));
+		boolean writeDelta = shouldGzipFile && base != null && shouldWriteDelta(profile, base, profileDirectory);
+		File profileFile = new File(profileDirectory, Long.toString(currentTimestamp) + (writeDelta ? PROFILE_DELTA_EXT : shouldGzipFile ? PROFILE_GZ_EXT : PROFILE_EXT));
 
 		// Log a stack trace to see who is writing the profile.
 		if (DebugHelper.DEBUG_PROFILE_REGISTRY) {
@@ -657,11 +800,159 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 				? new GZIPOutputStream(new FileOutputStream(profileFile))
 				: new FileOutputStream(profileFile)) {
 			Writer writer = new Writer(os);
-			writer.writeProfile(profile);
+			if (writeDelta) {
+				writer.writeProfileDelta(profile, base);
+				indexDelta(profileDirectory, currentTimestamp, base.getTimestamp());
+				deltaDepths.merge(profile.getProfileId(), 1, Integer::sum);
+			} else {
+				writer.writeProfile(profile);
+				deltaDepths.put(profile.getProfileId(), 0);
+			}
 		} catch (IOException e) {
 			profile.setTimestamp(previousTimestamp);
 			profileFile.delete();
+			deltaDepths.remove(profile.getProfileId());
 			LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_persisting_profile, profile.getProfileId()), e));
+			return;
+		}
+		try {
+			index.add(profile);
+		} catch (IOException e) {
+			logStateIndexFailure(e);
+		}
+	}
+
+	private boolean isDeltaFormat() {
+		return EngineActivator.PROFILE_FORMAT_DELTA.equals(EngineActivator.getProperty(EngineActivator.PROP_PROFILE_FORMAT, agent));
+	}
+
+	/**
+	 * Returns whether the new state of the given profile should be written as a
+	 * delta against the given base rather than in full.
+	 */
+	private boolean shouldWriteDelta(Profile profile, Profile base, File profileDirectory) {
+		if (!isDeltaFormat()) {
+			return false;
+		}
+		Integer depth = deltaDepths.get(profile.getProfileId());
+		if (depth == null || depth.intValue() >= getCheckpointInterval()) {
+			return false;
+		}
+		// the delta can only be read back while the state it is based on exists
+		return getProfileFile(profileDirectory, base.getTimestamp()) != null;
+	}
+
+	private int getCheckpointInterval() {
+		String interval = EngineActivator.getProperty(EngineActivator.PROP_PROFILE_CHECKPOINT_INTERVAL, agent);
+		if (interval != null) {
+			try {
+				return Integer.parseInt(interval);
+			} catch (NumberFormatException e) {
+				// use the default
+			}
+		}
+		return DEFAULT_CHECKPOINT_INTERVAL;
+	}
+
+	/**
+	 * Writes the states that are stored as deltas against the given state in
+	 * full, so that the given state can be removed. The deltas based on the
+	 * state are looked up in the delta index, only deltas that are missing from
+	 * the index are read.
+	 */
+	private void storeDependentDeltasInFull(String id, File profileDirectory, long timestamp) throws ProvisionException {
+		File[] deltaFiles = profileDirectory.listFiles((FileFilter) pathname -> pathname.getName().endsWith(PROFILE_DELTA_EXT) && pathname.isFile());
+		if (deltaFiles == null || deltaFiles.length == 0) {
+			return;
+		}
+		try {
+			Map<Long, Long> index = readDeltaIndex(profileDirectory);
+			Map<Long, Long> bases = new TreeMap<>();
+			boolean changed = false;
+			for (File deltaFile : deltaFiles) {
+				String fileName = deltaFile.getName();
+				Long deltaTimestamp = Long.valueOf(fileName.substring(0, fileName.indexOf(PROFILE_EXT)));
+				if (deltaTimestamp.longValue() == timestamp) {
+					continue;
+				}
+				Long base = index.get(deltaTimestamp);
+				if (base == null) {
+					base = Long.valueOf(new Parser(EngineActivator.ID).parseDelta(deltaFile).getBaseTimestamp());
+					changed = true;
+				}
+				if (base.longValue() != timestamp) {
+					bases.put(deltaTimestamp, base);
+					continue;
+				}
+				Parser parser = new Parser(EngineActivator.ID);
+				parser.parse(deltaFile);
+				Profile profile = parser.getProfileMap().get(id);
+				File profileFile = new File(profileDirectory, Long.toString(profile.getTimestamp()) + PROFILE_GZ_EXT);
+				try (OutputStream os = new GZIPOutputStream(new FileOutputStream(profileFile))) {
+					new Writer(os).writeProfile(profile);
+				}
+				deltaFile.delete();
+				changed = true;
+				// the latest state may no longer be a delta
+				deltaDepths.remove(id);
+			}
+			// the removed state and states removed before are dropped from the index
+			if (changed || bases.size() != index.size()) {
+				writeDeltaIndex(profileDirectory, bases);
+			}
+		} catch (IOException | NumberFormatException e) {
+			throw new ProvisionException(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_persisting_profile, id), e));
+		}
+	}
+
+	/**
+	 * Adds a delta to the delta index of a profile. The entry is appended, so
+	 * saving a profile does not read the index.
+	 */
+	private static void indexDelta(File profileDirectory, long timestamp, long baseTimestamp) throws IOException {
+		try (OutputStream output = new FileOutputStream(new File(profileDirectory, DELTA_INDEX_FILE), true)) {
+			output.write((timestamp + "=" + baseTimestamp + "\n").getBytes(StandardCharsets.ISO_8859_1)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * Reads the delta index of a profile. Entries that cannot be read are
+	 * skipped, the deltas they stand for are read instead.
+	 */
+	private static Map<Long, Long> readDeltaIndex(File profileDirectory) {
+		Map<Long, Long> index = new HashMap<>();
+		File file = new File(profileDirectory, DELTA_INDEX_FILE);
+		if (!file.exists()) {
+			return index;
+		}
+		Properties properties = new Properties();
+		try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+			properties.load(input);
+		} catch (IOException | IllegalArgumentException e) {
+			return index;
+		}
+		for (String key : properties.stringPropertyNames()) {
+			try {
+				index.put(Long.valueOf(key), Long.valueOf(properties.getProperty(key)));
+			} catch (NumberFormatException e) {
+				// the delta is read instead
+			}
+		}
+		return index;
+	}
+
+	private static void writeDeltaIndex(File profileDirectory, Map<Long, Long> index) throws IOException {
+		File file = new File(profileDirectory, DELTA_INDEX_FILE);
+		if (index.isEmpty()) {
+			file.delete();
+			return;
+		}
+		StringBuilder entries = new StringBuilder();
+		for (Entry<Long, Long> entry : index.entrySet()) {
+			entries.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+		}
+		try (OutputStream output = new FileOutputStream(file)) {
+			output.write(entries.toString().getBytes(StandardCharsets.ISO_8859_1));
 		}
 	}
 
@@ -696,6 +987,28 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 	private void deleteProfile(String profileId) {
 		File profileDirectory = getProfileFolder(profileId);
 		FileUtils.deleteAll(profileDirectory);
+		deltaDepths.remove(profileId);
+		stateIndexes.remove(profileId);
+		profileStates.keySet().removeIf(key -> key.id().equals(profileId));
+	}
+
+	private static boolean isProfileFile(File file) {
+		String name = file.getName();
+		return name.endsWith(PROFILE_EXT) || name.endsWith(PROFILE_GZ_EXT) || name.endsWith(PROFILE_DELTA_EXT);
+	}
+
+	/**
+	 * Returns the file holding the given state of a profile, or <code>null</code>
+	 * if there is no such state.
+	 */
+	static File getProfileFile(File profileDirectory, long timestamp) {
+		for (String extension : new String[] {PROFILE_GZ_EXT, PROFILE_EXT, PROFILE_DELTA_EXT}) {
+			File profileFile = new File(profileDirectory, Long.toString(timestamp) + extension);
+			if (profileFile.exists()) {
+				return profileFile;
+			}
+		}
+		return null;
 	}
 
 	/**
@@ -761,6 +1074,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 	 */
 	class Parser extends ProfileParser {
 		private final Map<String, ProfileHandler> profileHandlers = new HashMap<>();
+		private final Map<String, Integer> deltaDepths = new HashMap<>();
 
 		public Map<String, ProfileHandler> getProfileHandlers() {
 			return Collections.unmodifiableMap(profileHandlers);
@@ -774,26 +1088,75 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 			profileHandlers.put(profileId, new ProfileHandler(profileId));
 		}
 
+		/**
+		 * Returns the number of deltas that were applied to read each profile.
+		 */
+		public Map<String, Integer> getDeltaDepths() {
+			return Collections.unmodifiableMap(deltaDepths);
+		}
+
 		public void parse(File file) throws IOException {
-			InputStream is;
-			if (file.getName().endsWith(PROFILE_GZ_EXT)) {
-				is = new BufferedInputStream(new GZIPInputStream(new FileInputStream(file)));
-			} else { // backward compatibility. SimpleProfileRegistry doesn't write non-gzipped profiles any more.
-				is = new BufferedInputStream(new FileInputStream(file));
+			if (!file.getName().endsWith(PROFILE_DELTA_EXT)) {
+				ProfileHandler profileHandler = new ProfileHandler();
+				parse(open(file), PROFILE_ELEMENT, profileHandler);
+				profileHandlers.put(profileHandler.getProfileId(), profileHandler);
+				deltaDepths.put(profileHandler.getProfileId(), 0);
+				return;
+			}
+
+			// read the deltas back to the last full state, then apply them in order
+			Deque<ProfileDeltaHandler> deltas = new ArrayDeque<>();
+			File profileFile = file;
+			while (profileFile.getName().endsWith(PROFILE_DELTA_EXT)) {
+				ProfileDeltaHandler delta = parseDelta(profileFile);
+				deltas.push(delta);
+				File baseFile = delta.getBaseTimestamp() < delta.getTimestamp() ? getProfileFile(profileFile.getParentFile(), delta.getBaseTimestamp()) : null;
+				if (baseFile == null) {
+					throw new IOException(NLS.bind(Messages.SimpleProfileRegistry_Missing_Delta_Base, delta.getBaseTimestamp(), profileFile));
+				}
+				profileFile = baseFile;
+			}
+			ProfileHandler profileHandler = new ProfileHandler();
+			parse(open(profileFile), PROFILE_ELEMENT, profileHandler);
+			int depth = deltas.size();
+			while (!deltas.isEmpty()) {
+				profileHandler.applyDelta(deltas.pop());
+			}
+			profileHandlers.put(profileHandler.getProfileId(), profileHandler);
+			deltaDepths.put(profileHandler.getProfileId(), depth);
+		}
+
+		/**
+		 * Reads a single profile delta without applying it.
+		 */
+		public ProfileDeltaHandler parseDelta(File file) throws IOException {
+			ProfileDeltaHandler delta = new ProfileDeltaHandler();
+			parse(open(file), PROFILE_DELTA_ELEMENT, delta);
+			return delta;
+		}
+
+		private InputStream open(File file) throws IOException {
+			if (file.getName().endsWith(PROFILE_GZ_EXT) || file.getName().endsWith(PROFILE_DELTA_EXT)) {
+				return new BufferedInputStream(new GZIPInputStream(new FileInputStream(file)));
 			}
-			parse(is);
+			// backward compatibility. SimpleProfileRegistry doesn't write non-gzipped profiles any more.
+			return new BufferedInputStream(new FileInputStream(file));
 		}
 
 		public synchronized void parse(InputStream stream) throws IOException {
+			ProfileHandler profileHandler = new ProfileHandler();
+			parse(stream, PROFILE_ELEMENT, profileHandler);
+			profileHandlers.put(profileHandler.getProfileId(), profileHandler);
+		}
+
+		private synchronized void parse(InputStream stream, String rootName, RootHandler rootHandler) throws IOException {
 			this.status = null;
 			try {
 				// TODO: currently not caching the parser since we make no assumptions
 				//		 or restrictions on concurrent parsing
 				XMLReader reader = getParser().getXMLReader();
-				ProfileHandler profileHandler = new ProfileHandler();
-				reader.setContentHandler(new ProfileDocHandler(PROFILE_ELEMENT, profileHandler));
+				reader.setContentHandler(new ProfileDocHandler(rootName, rootHandler));
 				reader.parse(new InputSource(stream));
-				profileHandlers.put(profileHandler.getProfileId(), profileHandler);
 			} catch (SAXException e) {
 				IOException ioException = new IOException(e.getMessage());
 				ioException.initCause(e);
@@ -992,7 +1355,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		if (!profileDirectory.isDirectory()) {
 			return false;
 		}
-		File[] profileFiles = profileDirectory.listFiles((FileFilter) pathname -> (pathname.getName().endsWith(PROFILE_GZ_EXT) || pathname.getName().endsWith(PROFILE_EXT)) && pathname.isFile());
+		File[] profileFiles = profileDirectory.listFiles((FileFilter) pathname -> isProfileFile(pathname) && pathname.isFile());
 		return profileFiles.length > 0;
 	}
 
@@ -1176,12 +1539,10 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 	 * Ensure a profile with the given identifier has a state with the specified timestamp. Return
 	 * a status object indicating success or failure.
 	 */
-	private IStatus validateState(String id, long timestamp) {
-		long[] states = listProfileTimestamps(id);
-		for (long ts : states) {
-			if (ts == timestamp) {
-				return Status.OK_STATUS;
-			}
+	private synchronized IStatus validateState(String id, long timestamp) {
+		File profileDirectory = getProfileFolder(id);
+		if (profileDirectory.isDirectory() && getStateIndex(id, profileDirectory).contains(timestamp)) {
+			return Status.OK_STATUS;
 		}
 		return new Status(IStatus.ERROR, EngineActivator.ID, (NLS.bind(Messages.SimpleProfileRegistry_state_not_found, timestamp, id)));
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2017 IBM Corporation and others.
+ * Copyright (c) 2008, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -20,6 +20,7 @@ import java.security.GeneralSecurityException;
 import java.security.cert.*;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.*;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -53,7 +54,7 @@ import org.osgi.util.tracker.ServiceTracker;
  * tampered content.
  */
 public class CertificateChecker {
-	private static final String DEBUG_PREFIX = "certificate checker"; //$NON-NLS-1$
+	static final String DEBUG_PREFIX = "certificate checker"; //$NON-NLS-1$
 
 	private static boolean VERIFY_CERTIFICATE_SIGNATURE_VALIDITY = Boolean.TRUE.toString()
 			.equalsIgnoreCase(System.getProperty("p2.verifyCertificateSignatureValidity", Boolean.TRUE.toString())); //$NON-NLS-1$
@@ -64,6 +65,13 @@ public class CertificateChecker {
 
 	public static final String TRUSTED_CERTIFICATES_PROPERTY = "trustedCertificates"; //$NON-NLS-1$
 
+	/**
+	 * The property with the maximum number of threads that verify the signed
+	 * content of the artifacts. It defaults to the number of available
+	 * processors, and 1 verifies the artifacts on the calling thread.
+	 */
+	public static final String PROP_VERIFICATION_THREADS = "eclipse.p2.certificateChecker.threads"; //$NON-NLS-1$
+
 	/***
 	 * Store the optional profile for PGP key handling
 	 */
@@ -80,7 +88,7 @@ public class CertificateChecker {
 	private final Supplier<PGPPublicKeyStore> trustedKeys = new Supplier<>() {
 		private PGPPublicKeyStore cache = null;
 
-		public PGPPublicKeyStore get() {
+		public synchronized PGPPublicKeyStore get() {
 			if (cache == null) {
 				cache = getPreferenceTrustedKeys();
 				getContributedTrustedKeys().keySet().forEach(cache::addKey);
@@ -94,7 +102,7 @@ public class CertificateChecker {
 	private final Supplier<Collection<? extends Certificate>> additionalTrustedCertificates = new Supplier<>() {
 		private Collection<? extends Certificate> cache = null;
 
-		public Collection<? extends Certificate> get() {
+		public synchronized Collection<? extends Certificate> get() {
 			if (cache == null) {
 				cache = getPreferenceTrustedCertificates();
 			}
@@ -160,73 +168,42 @@ public class CertificateChecker {
 		Set<SimpleArtifactRepository> repositories = new HashSet<>();
 		boolean isTrustedKeySetInitialized = false;
 		Map<IArtifactKey, File> artifactFiles = new LinkedHashMap<>();
-		for (Entry<IArtifactDescriptor, File> artifact : artifacts.entrySet()) {
-			IArtifactDescriptor artifactDescriptor = artifact.getKey();
-			IArtifactRepository repository = artifactDescriptor.getRepository();
-			if (repository instanceof SimpleArtifactRepository simpleArtifactRepository) {
-				repositories.add(simpleArtifactRepository);
+		List<Entry<IArtifactDescriptor, File>> artifactEntries = new ArrayList<>(artifacts.entrySet());
+		VerifiedSignatureCache signatureCache = createSignatureCache();
+		String trustFingerprint = signatureCache == null ? null : getTrustFingerprint();
+		ExecutorService executor = createVerificationExecutor(artifactEntries.size());
+		try {
+			List<Supplier<ArtifactVerification>> verifications = new ArrayList<>(artifactEntries.size());
+			for (Entry<IArtifactDescriptor, File> artifact : artifactEntries) {
+				Supplier<ArtifactVerification> verification = () -> verify(verifierFactory, artifact.getKey(),
+						artifact.getValue(), signatureCache, trustFingerprint);
+				verifications.add(executor == null ? verification : join(executor.submit(verification::get)));
 			}
-			IArtifactKey artifactKey = artifactDescriptor.getArtifactKey();
-			File artifactFile = artifact.getValue();
-			artifactFiles.put(artifactKey, artifactFile);
-			boolean artifactTrustedByCertificate = false;
-			try {
-				SignedContent content = verifierFactory.getSignedContent(artifactFile);
-				boolean signed = content.isSigned();
-				if (signed) {
-					SignerInfo[] signerInfo = content.getSignerInfos();
-
-					// Only record the untrusted elements if there are no trusted elements.
-					// Also check previously trusted certificates from the preferences.
-					if (Arrays.stream(signerInfo).noneMatch(SignerInfo::isTrusted)
-							&& Arrays.stream(signerInfo).map(SignerInfo::getCertificateChain).flatMap(Arrays::stream)
-									.noneMatch(cert -> additionalTrustedCertificates.get().contains(cert))) {
-						for (SignerInfo element : signerInfo) {
-							if (!element.isTrusted()) {
-								List<Certificate> certificateChain = Arrays.asList(element.getCertificateChain());
-								untrustedCertificates.computeIfAbsent(certificateChain, key -> new LinkedHashSet<>())
-										.add(artifactKey);
-							}
-						}
-					} else {
-						artifactTrustedByCertificate = true;
-					}
-
-					// Treat the artifact as untrusted if the signature is outside of the
-					// certificate's validity range.
-					if (VERIFY_CERTIFICATE_SIGNATURE_VALIDITY) {
-						List<SignerInfo> invalidSignatures = Arrays.stream(signerInfo).filter(info -> {
-							try {
-								content.checkValidity(info);
-								return false;
-							} catch (CertificateExpiredException | CertificateNotYetValidException e) {
-								return true;
-							}
-						}).collect(Collectors.toList());
-
-						// Only complain if all signatures are invalid and do so even if the certificate
-						// itself is trusted.
-						if (signerInfo.length == invalidSignatures.size()) {
-							artifactTrustedByCertificate = false;
-							for (SignerInfo info : invalidSignatures) {
-								List<Certificate> certificateChain = Arrays.asList(info.getCertificateChain());
-								untrustedCertificates.computeIfAbsent(certificateChain, key -> new LinkedHashSet<>())
-										.add(artifactKey);
-							}
-						}
-					}
-
+			// The verifications are combined in the order of the artifacts, so that the
+			// result is the same as if the artifacts were verified one after another.
+			for (int i = 0; i < artifactEntries.size(); i++) {
+				IArtifactDescriptor artifactDescriptor = artifactEntries.get(i).getKey();
+				IArtifactRepository repository = artifactDescriptor.getRepository();
+				if (repository instanceof SimpleArtifactRepository simpleArtifactRepository) {
+					repositories.add(simpleArtifactRepository);
+				}
+				IArtifactKey artifactKey = artifactDescriptor.getArtifactKey();
+				artifactFiles.put(artifactKey, artifactEntries.get(i).getValue());
+				ArtifactVerification verification = verifications.get(i).get();
+				if (verification.error() != null) {
+					return verification.error();
+				}
+				for (List<Certificate> certificateChain : verification.untrustedCertificateChains()) {
+					untrustedCertificates.computeIfAbsent(certificateChain, key -> new LinkedHashSet<>()).add(artifactKey);
 				}
 
 				// Also check for PGP signatures if the artifact is not trusted by a certificate
 				// because there might be trusted PGP keys too.
-				if (!signed || !artifactTrustedByCertificate) {
+				if (!verification.signed() || !verification.trustedByCertificate()) {
 					// The keys are in this destination artifact's properties if and only if the
 					// PGPSignatureVerifier verified the signatures against these keys.
-					List<PGPPublicKey> verifiedKeys = PGPPublicKeyStore
-							.readPublicKeys(
-									artifactDescriptor.getProperty(PGPSignatureVerifier.PGP_SIGNER_KEYS_PROPERTY_NAME))
-							.stream().map(keyService::addKey).collect(Collectors.toList());
+					List<PGPPublicKey> verifiedKeys = verification.signerKeys().stream().map(keyService::addKey)
+							.collect(Collectors.toList());
 					if (!verifiedKeys.isEmpty()) {
 						if (!isTrustedKeySetInitialized) {
 							isTrustedKeySetInitialized = true;
@@ -245,15 +222,17 @@ public class CertificateChecker {
 							untrustedCertificates.values().forEach(it -> it.remove(artifactKey));
 							untrustedCertificates.values().removeIf(Collection::isEmpty);
 						}
-					} else if (!signed) {
+					} else if (!verification.signed()) {
 						unsignedArtifacts.add(artifactKey);
 					}
 				}
-			} catch (GeneralSecurityException e) {
-				return new Status(IStatus.ERROR, EngineActivator.ID, Messages.CertificateChecker_SignedContentError, e);
-			} catch (IOException e) {
-				return new Status(IStatus.ERROR, EngineActivator.ID, Messages.CertificateChecker_SignedContentIOError,
-						e);
+			}
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+			if (signatureCache != null) {
+				signatureCache.save();
 			}
 		}
 
@@ -408,6 +387,227 @@ public class CertificateChecker {
 		return Status.OK_STATUS;
 	}
 
+	/**
+	 * The outcome of verifying the signed content and reading the PGP signer keys
+	 * of one artifact. It does not depend on the other artifacts, so artifacts are
+	 * verified concurrently.
+	 *
+	 * @param signed whether the artifact has signed content
+	 * @param trustedByCertificate whether a valid signature of the artifact has a
+	 * trusted certificate
+	 * @param untrustedCertificateChains the certificate chains to report for the
+	 * artifact, in the order of its signers
+	 * @param signerKeys the PGP keys that verified the artifact, not yet added to
+	 * the key service
+	 * @param error the status if the signed content could not be read
+	 */
+	private record ArtifactVerification(boolean signed, boolean trustedByCertificate,
+			List<List<Certificate>> untrustedCertificateChains, List<PGPPublicKey> signerKeys, IStatus error) {
+	}
+
+	private ArtifactVerification verify(SignedContentFactory verifierFactory, IArtifactDescriptor artifactDescriptor,
+			File artifactFile, VerifiedSignatureCache signatureCache, String trustFingerprint) {
+		// An artifact that was verified under the same trusted certificates is
+		// trusted without scanning it again.
+		String checksum = trustFingerprint == null ? null : VerifiedSignatureCache.getChecksum(artifactDescriptor);
+		if (checksum != null && signatureCache.isVerified(checksum, trustFingerprint, artifactFile)) {
+			return new ArtifactVerification(true, true, List.of(), List.of(), null);
+		}
+		boolean artifactTrustedByCertificate = false;
+		List<List<Certificate>> untrustedCertificateChains = new ArrayList<>();
+		try {
+			SignedContent content = verifierFactory.getSignedContent(artifactFile);
+			boolean signed = content.isSigned();
+			if (signed) {
+				SignerInfo[] signerInfo = content.getSignerInfos();
+
+				// Only record the untrusted elements if there are no trusted elements.
+				// Also check previously trusted certificates from the preferences.
+				if (Arrays.stream(signerInfo).noneMatch(SignerInfo::isTrusted)
+						&& Arrays.stream(signerInfo).map(SignerInfo::getCertificateChain).flatMap(Arrays::stream)
+								.noneMatch(cert -> additionalTrustedCertificates.get().contains(cert))) {
+					for (SignerInfo element : signerInfo) {
+						if (!element.isTrusted()) {
+							untrustedCertificateChains.add(Arrays.asList(element.getCertificateChain()));
+						}
+					}
+				} else {
+					artifactTrustedByCertificate = true;
+				}
+
+				// Treat the artifact as untrusted if the signature is outside of the
+				// certificate's validity range.
+				if (VERIFY_CERTIFICATE_SIGNATURE_VALIDITY) {
+					List<SignerInfo> invalidSignatures = Arrays.stream(signerInfo).filter(info -> {
+						try {
+							content.checkValidity(info);
+							return false;
+						} catch (CertificateExpiredException | CertificateNotYetValidException e) {
+							return true;
+						}
+					}).collect(Collectors.toList());
+
+					// Only complain if all signatures are invalid and do so even if the certificate
+					// itself is trusted.
+					if (signerInfo.length == invalidSignatures.size()) {
+						artifactTrustedByCertificate = false;
+						for (SignerInfo info : invalidSignatures) {
+							untrustedCertificateChains.add(Arrays.asList(info.getCertificateChain()));
+						}
+					}
+				}
+			}
+
+			if (signed && artifactTrustedByCertificate && checksum != null) {
+				signatureCache.putVerified(checksum, trustFingerprint, artifactFile,
+						getExpiration(content.getSignerInfos()));
+			}
+
+			List<PGPPublicKey> signerKeys = List.of();
+			if (!signed || !artifactTrustedByCertificate) {
+				signerKeys = new ArrayList<>(PGPPublicKeyStore.readPublicKeys(
+						artifactDescriptor.getProperty(PGPSignatureVerifier.PGP_SIGNER_KEYS_PROPERTY_NAME)));
+			}
+			return new ArtifactVerification(signed, artifactTrustedByCertificate, untrustedCertificateChains,
+					signerKeys, null);
+		} catch (GeneralSecurityException e) {
+			return new ArtifactVerification(false, false, List.of(), List.of(),
+					new Status(IStatus.ERROR, EngineActivator.ID, Messages.CertificateChecker_SignedContentError, e));
+		} catch (IOException e) {
+			return new ArtifactVerification(false, false, List.of(), List.of(),
+					new Status(IStatus.ERROR, EngineActivator.ID, Messages.CertificateChecker_SignedContentIOError, e));
+		}
+	}
+
+	/**
+	 * Returns the time at which the first of the signing certificates expires.
+	 */
+	private static long getExpiration(SignerInfo[] signerInfos) {
+		long expiration = Long.MAX_VALUE;
+		for (SignerInfo signerInfo : signerInfos) {
+			Certificate[] chain = signerInfo.getCertificateChain();
+			if (chain.length > 0 && chain[0] instanceof X509Certificate certificate) {
+				expiration = Math.min(expiration, certificate.getNotAfter().getTime());
+			}
+		}
+		return expiration;
+	}
+
+	/**
+	 * Returns the cache of verified artifacts in the agent's data area, or
+	 * <code>null</code> if it is disabled.
+	 *
+	 * @see VerifiedSignatureCache#PROP_MAX_ENTRIES
+	 */
+	private VerifiedSignatureCache createSignatureCache() {
+		IAgentLocation agentLocation = agent.getService(IAgentLocation.class);
+		if (agentLocation == null) {
+			return null;
+		}
+		int maxEntries = VerifiedSignatureCache.DEFAULT_MAX_ENTRIES;
+		String value = EngineActivator.getProperty(VerifiedSignatureCache.PROP_MAX_ENTRIES, agent);
+		if (value != null) {
+			try {
+				maxEntries = Integer.parseInt(value.trim());
+			} catch (NumberFormatException e) {
+				DebugHelper.debug(DEBUG_PREFIX, "Invalid size of the signature cache: " + value); //$NON-NLS-1$
+			}
+		}
+		if (maxEntries <= 0) {
+			return null;
+		}
+		File dataArea = URIUtil.toFile(agentLocation.getDataArea(EngineActivator.ID));
+		return dataArea == null ? null
+				: new VerifiedSignatureCache(new File(dataArea, VerifiedSignatureCache.FILE_NAME), maxEntries);
+	}
+
+	/**
+	 * Returns a fingerprint of all certificates that are trusted, either by a
+	 * trust engine or by the preferences of the profile, or <code>null</code> if
+	 * the trust engines cannot be read.
+	 */
+	private String getTrustFingerprint() {
+		ServiceTracker<TrustEngine, TrustEngine> trustEngineTracker = new ServiceTracker<>(EngineActivator.getContext(),
+				TrustEngine.class, null);
+		trustEngineTracker.open();
+		try {
+			List<Certificate> trustAnchors = new ArrayList<>(additionalTrustedCertificates.get());
+			Object[] trustEngines = trustEngineTracker.getServices();
+			if (trustEngines != null) {
+				for (Object engine : trustEngines) {
+					TrustEngine trustEngine = (TrustEngine) engine;
+					for (String alias : trustEngine.getAliases()) {
+						Certificate trustAnchor = trustEngine.getTrustAnchor(alias);
+						if (trustAnchor != null) {
+							trustAnchors.add(trustAnchor);
+						}
+					}
+				}
+			}
+			String fingerprint = VerifiedSignatureCache.getFingerprint(trustAnchors);
+			// artifacts that were trusted without checking the validity of their
+			// signatures must be checked again when the validity is checked
+			return VERIFY_CERTIFICATE_SIGNATURE_VALIDITY ? fingerprint : fingerprint + "-anytime"; //$NON-NLS-1$
+		} catch (IOException | GeneralSecurityException e) {
+			DebugHelper.debug(DEBUG_PREFIX, "Could not read the trusted certificates: " + e.getMessage()); //$NON-NLS-1$
+			return null;
+		} finally {
+			trustEngineTracker.close();
+		}
+	}
+
+	/**
+	 * Returns the executor that verifies the given number of artifacts
+	 * concurrently, or <code>null</code> if they are verified on the calling
+	 * thread.
+	 *
+	 * @see #PROP_VERIFICATION_THREADS
+	 */
+	private ExecutorService createVerificationExecutor(int artifactCount) {
+		int threads = Runtime.getRuntime().availableProcessors();
+		String value = EngineActivator.getProperty(PROP_VERIFICATION_THREADS, agent);
+		if (value != null) {
+			try {
+				threads = Integer.parseInt(value.trim());
+			} catch (NumberFormatException e) {
+				DebugHelper.debug(DEBUG_PREFIX, "Invalid number of verification threads: " + value); //$NON-NLS-1$
+			}
+		}
+		threads = Math.min(threads, artifactCount);
+		if (threads <= 1) {
+			return null;
+		}
+		return Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "p2 certificate checker"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Returns a supplier that waits for a verification and rethrows its runtime
+	 * exceptions on the waiting thread, as if the artifact had been verified on
+	 * that thread.
+	 */
+	private static Supplier<ArtifactVerification> join(Future<ArtifactVerification> future) {
+		return () -> {
+			try {
+				return future.get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException runtimeException) {
+					throw runtimeException;
+				}
+				if (e.getCause() instanceof Error error) {
+					throw error;
+				}
+				throw new IllegalStateException(e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			}
+		};
+	}
+
 	/**
 	 * This modifies the argument collection to remove the certificates that were
 	 * successfully saved. Often no certificates are saved because this tries to
@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.engine.phases;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.util.*;
+import java.util.Map.Entry;
+import org.eclipse.equinox.internal.p2.engine.DebugHelper;
+import org.eclipse.equinox.p2.repository.artifact.IArtifactDescriptor;
+
+/**
+ * Remembers which artifact files have been verified to be signed by a trusted
+ * certificate, so that an artifact that is shared between profiles, for example
+ * through a bundle pool, is not scanned again by every install or update.
+ * <p>
+ * An entry is keyed by the SHA-256 checksum of the artifact and by a
+ * fingerprint of the trusted certificates, so that any change of the trust
+ * store invalidates it. It also records the size and modification time of the
+ * file, so that a file that was changed after it was verified is scanned
+ * again, and the time at which the signing certificates expire. The least
+ * recently used entries are dropped when the cache is full.
+ * </p>
+ * <p>
+ * Only regular files are remembered. The size and modification time of a
+ * directory do not change with the files in it, so an artifact that is a
+ * directory is always verified completely.
+ * </p>
+ */
+public class VerifiedSignatureCache {
+	/**
+	 * The property with the maximum number of artifacts that are remembered. 0
+	 * disables the cache.
+	 */
+	public static final String PROP_MAX_ENTRIES = "eclipse.p2.signatureCache.maxEntries"; //$NON-NLS-1$
+
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	static final String FILE_NAME = "verifiedSignatures.txt"; //$NON-NLS-1$
+
+	private static final String HEADER = "# p2 verified signatures 1"; //$NON-NLS-1$
+	private static final String SHA_256 = ".sha-256"; //$NON-NLS-1$
+
+	private record Verification(long size, long lastModified, long expires) {
+	}
+
+	private final File file;
+	private final int maxEntries;
+	private LinkedHashMap<String, Verification> entries;
+	private boolean dirty;
+
+	/**
+	 * @param file the file that stores the cache
+	 * @param maxEntries the maximum number of remembered artifacts
+	 */
+	public VerifiedSignatureCache(File file, int maxEntries) {
+		this.file = file;
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Returns the SHA-256 checksum of the bytes of an artifact as they are stored
+	 * locally, or <code>null</code> if the descriptor does not have one.
+	 */
+	public static String getChecksum(IArtifactDescriptor descriptor) {
+		String checksum = descriptor.getProperty(IArtifactDescriptor.ARTIFACT_CHECKSUM + SHA_256);
+		if (checksum == null && descriptor.getProcessingSteps().length == 0) {
+			// without processing steps the downloaded bytes are the artifact
+			checksum = descriptor.getProperty(IArtifactDescriptor.DOWNLOAD_CHECKSUM + SHA_256);
+		}
+		return checksum;
+	}
+
+	/**
+	 * Returns a fingerprint of a set of trusted certificates that does not depend
+	 * on their order.
+	 */
+	public static String getFingerprint(Collection<? extends Certificate> trustedCertificates)
+			throws CertificateEncodingException {
+		List<byte[]> encoded = new ArrayList<>(trustedCertificates.size());
+		for (Certificate certificate : trustedCertificates) {
+			encoded.add(certificate.getEncoded());
+		}
+		encoded.sort(Arrays::compare);
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		for (byte[] bytes : encoded) {
+			digest.update(bytes);
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	/**
+	 * Returns whether the given file was verified to be signed by a trusted
+	 * certificate under the given trust fingerprint, and has not changed since.
+	 */
+	public synchronized boolean isVerified(String checksum, String trustFingerprint, File artifactFile) {
+		if (!artifactFile.isFile()) {
+			return false;
+		}
+		Verification verification = getEntries().get(key(checksum, trustFingerprint));
+		return verification != null && verification.size() == artifactFile.length()
+				&& verification.lastModified() == artifactFile.lastModified()
+				&& verification.expires() > System.currentTimeMillis();
+	}
+
+	/**
+	 * Remembers that the given file was verified to be signed by a trusted
+	 * certificate under the given trust fingerprint. Nothing is remembered for
+	 * a file that is not a regular file.
+	 *
+	 * @param expires the time at which a signing certificate expires
+	 */
+	public synchronized void putVerified(String checksum, String trustFingerprint, File artifactFile, long expires) {
+		if (!artifactFile.isFile()) {
+			return;
+		}
+		getEntries().put(key(checksum, trustFingerprint),
+				new Verification(artifactFile.length(), artifactFile.lastModified(), expires));
+		dirty = true;
+	}
+
+	/**
+	 * Writes the cache if it has changed.
+	 */
+	public synchronized void save() {
+		if (!dirty) {
+			return;
+		}
+		dirty = false;
+		File parent = file.getAbsoluteFile().getParentFile();
+		parent.mkdirs();
+		Path temp = null;
+		try {
+			// a unique name, so that concurrent saves do not write into the same file
+			temp = Files.createTempFile(parent.toPath(), file.getName(), ".tmp"); //$NON-NLS-1$
+			try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+				writer.write(HEADER);
+				writer.write('\n');
+				// least recently used first, so that the order survives reloading
+				for (Entry<String, Verification> entry : entries.entrySet()) {
+					Verification verification = entry.getValue();
+					writer.write(entry.getKey() + ' ' + verification.size() + ' ' + verification.lastModified() + ' '
+							+ verification.expires() + '\n');
+				}
+			}
+			try {
+				Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			if (temp != null) {
+				try {
+					Files.deleteIfExists(temp);
+				} catch (IOException deleteException) {
+					// the temporary file is left behind
+				}
+			}
+			DebugHelper.debug(CertificateChecker.DEBUG_PREFIX, "Could not save " + file + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	private LinkedHashMap<String, Verification> getEntries() {
+		if (entries == null) {
+			entries = new LinkedHashMap<>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Entry<String, Verification> eldest) {
+					return size() > maxEntries;
+				}
+			};
+			load();
+		}
+		return entries;
+	}
+
+	private void load() {
+		if (!file.exists()) {
+			return;
+		}
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			if (!HEADER.equals(reader.readLine())) {
+				return;
+			}
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				String[] fields = line.split(" "); //$NON-NLS-1$
+				if (fields.length != 4) {
+					continue;
+				}
+				try {
+					entries.put(fields[0], new Verification(Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+							Long.parseLong(fields[3])));
+				} catch (NumberFormatException e) {
+					// skip the damaged entry
+				}
+			}
+		} catch (IOException e) {
+			DebugHelper.debug(CertificateChecker.DEBUG_PREFIX, "Could not read " + file + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	private static String key(String checksum, String trustFingerprint) {
+		return checksum.toLowerCase(Locale.ROOT) + '/' + trustFingerprint;
+	}
+}
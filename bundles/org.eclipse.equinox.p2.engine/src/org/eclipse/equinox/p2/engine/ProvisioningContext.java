@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2008, 2023 IBM Corporation and others.
+ *  Copyright (c) 2008, 2026 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -21,6 +21,7 @@ import java.util.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.engine.DebugHelper;
 import org.eclipse.equinox.internal.p2.engine.DownloadManager;
+import org.eclipse.equinox.internal.p2.metadata.index.StampedCompoundQueryable;
 import org.eclipse.equinox.internal.p2.repository.Transport;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.core.ProvisionException;
@@ -299,7 +300,8 @@ public class ProvisioningContext {
 	 * @see #FOLLOW_REPOSITORY_REFERENCES
 	 */
 	public IQueryable<IInstallableUnit> getMetadata(IProgressMonitor monitor) {
-		return QueryUtil.compoundQueryable(getLoadedMetadataRepositories(monitor));
+		// the planner tells from the stamp of the repositories whether it can reuse a slice
+		return new StampedCompoundQueryable<>(getLoadedMetadataRepositories(monitor));
 	}
 
 	/**
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.util.Collection;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
+import org.eclipse.equinox.internal.p2.metadata.repository.io.BinaryMetadataContent;
+import org.eclipse.equinox.internal.p2.metadata.repository.io.BinaryMetadataWriter;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.core.ProvisionException;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.query.QueryUtil;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
+import org.eclipse.equinox.p2.repository.metadata.spi.AbstractMetadataRepository.RepositoryState;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Reads and writes the binary <code>content.p2bin</code> form of a
+ * {@link LocalMetadataRepository}. The binary form is only used for
+ * repositories in the local file system and only when it was written for the
+ * current XML content it sits next to, whose length and modification time are
+ * recorded in its header.
+ */
+public class BinaryMetadataRepositoryIO {
+
+	protected final IProvisioningAgent agent;
+
+	public BinaryMetadataRepositoryIO(IProvisioningAgent agent) {
+		this.agent = agent;
+	}
+
+	/**
+	 * Returns the binary file that sits next to the given content file, or
+	 * <code>null</code> if there is none or if it was written for other content.
+	 */
+	public static File getUpToDateBinaryFile(File contentFile) {
+		File binaryFile = new File(contentFile.getParentFile(), BinaryMetadataContent.CONTENT_FILENAME);
+		if (!binaryFile.isFile() || !BinaryMetadataContent.isUpToDate(binaryFile, contentFile)) {
+			return null;
+		}
+		return binaryFile;
+	}
+
+	/**
+	 * Loads the repository from the binary file next to the given content file.
+	 * Returns <code>null</code> if there is no up to date binary file or if it
+	 * can not be read, in which case the caller should read the content file.
+	 */
+	public IMetadataRepository readIfUpToDate(File contentFile) {
+		File binaryFile = getUpToDateBinaryFile(contentFile);
+		if (binaryFile == null) {
+			return null;
+		}
+		try {
+			return read(binaryFile);
+		} catch (IOException e) {
+			LogHelper.log(new Status(IStatus.WARNING, Constants.ID, NLS.bind(Messages.io_failedRead, binaryFile), e));
+			return null;
+		}
+	}
+
+	/**
+	 * Maps the given binary file and creates a repository whose units are
+	 * materialized on demand. Returns <code>null</code> if the persisted
+	 * repository type does not support lazy content.
+	 */
+	public IMetadataRepository read(File binaryFile) throws IOException {
+		long time = 0;
+		if (Tracing.DEBUG_METADATA_PARSING) {
+			Tracing.debug("Loading binary metadata repository " + binaryFile); //$NON-NLS-1$
+			time = -System.currentTimeMillis();
+		}
+		BinaryMetadataContent content = BinaryMetadataContent.open(binaryFile);
+		RepositoryState state = content.readRepositoryState();
+		Object repositoryObject;
+		try {
+			Class<?> clazz = Class.forName(state.Type);
+			Constructor<?> ctor = clazz.getConstructor(IProvisioningAgent.class);
+			repositoryObject = ctor.newInstance(agent);
+		} catch (Exception e) {
+			throw new IOException(NLS.bind(Messages.io_invalidBinaryFormat, binaryFile), e);
+		}
+		if (!(repositoryObject instanceof LocalMetadataRepository repository)) {
+			return null;
+		}
+		repository.initialize(state, content);
+		if (Tracing.DEBUG_METADATA_PARSING) {
+			time += System.currentTimeMillis();
+			Tracing.debug("Binary metadata repository with " + content.getUnitCount() + " units mapped in (ms): " + time); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return repository;
+	}
+
+	/**
+	 * Reads the units of the repository from the given XML content file, for a
+	 * repository whose binary content turned out to be broken.
+	 */
+	public Collection<IInstallableUnit> readUnits(File contentFile) throws ProvisionException {
+		try {
+			IMetadataRepository repository = SimpleMetadataRepositoryFactory.read(agent, contentFile, contentFile.toURI(), null);
+			return repository.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet();
+		} catch (IOException e) {
+			throw new ProvisionException(new Status(IStatus.ERROR, Constants.ID, ProvisionException.REPOSITORY_FAILED_READ, NLS.bind(Messages.io_failedRead, contentFile), e));
+		}
+	}
+
+	/**
+	 * Writes the binary form of the given repository to the target file, for the
+	 * given content file that was just written.
+	 */
+	public void write(LocalMetadataRepository repository, File contentFile, File target) throws IOException {
+		new BinaryMetadataWriter().write(repository, repository.getReferences(), repository.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet(), contentFile, target);
+	}
+}
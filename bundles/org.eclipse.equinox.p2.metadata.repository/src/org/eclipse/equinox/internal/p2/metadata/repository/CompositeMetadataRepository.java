@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2023 IBM Corporation and others.
+ * Copyright (c) 2008, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -21,8 +21,11 @@ import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.p2.metadata.index.ContentStamp;
+import org.eclipse.equinox.internal.p2.metadata.index.IContentStampProvider;
 import org.eclipse.equinox.internal.p2.persistence.CompositeRepositoryIO;
 import org.eclipse.equinox.internal.p2.persistence.CompositeRepositoryState;
+import org.eclipse.equinox.internal.p2.repository.helpers.CompositeChildLoader;
 import org.eclipse.equinox.internal.p2.repository.helpers.RepositoryHelper;
 import org.eclipse.equinox.p2.core.*;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
@@ -36,7 +39,7 @@ import org.eclipse.equinox.p2.repository.metadata.spi.AbstractMetadataRepository
 import org.eclipse.osgi.util.NLS;
 import org.osgi.framework.FrameworkUtil;
 
-public class CompositeMetadataRepository extends AbstractMetadataRepository implements ICompositeRepository<IInstallableUnit>, IIndexProvider<IInstallableUnit> {
+public class CompositeMetadataRepository extends AbstractMetadataRepository implements ICompositeRepository<IInstallableUnit>, IIndexProvider<IInstallableUnit>, IContentStampProvider {
 
 	static final public String REPOSITORY_TYPE = CompositeMetadataRepository.class.getName();
 	static final public String PI_REPOSITORY_TYPE = "compositeMetadataRepository"; //$NON-NLS-1$
@@ -89,6 +92,11 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 		SubMonitor sub = SubMonitor.convert(monitor, 100 * state.getChildren().length);
 		List<URI> repositoriesToBeRemovedOnFailure = new ArrayList<>();
 		boolean failOnChildFailure = shouldFailOnChildFailure(state);
+		int parallelism = CompositeChildLoader.getLoadingParallelism(state.getProperties());
+		if (parallelism > 1) {
+			addChildren(state.getChildren(), parallelism, sub, failOnChildFailure);
+			return;
+		}
 		for (URI child : state.getChildren()) {
 			addChild(child, false, sub.newChild(100), failOnChildFailure, repositoriesToBeRemovedOnFailure);
 		}
@@ -187,6 +195,55 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 		}
 	}
 
+	/*
+	 * Loads the given children concurrently. All children are loaded even if one of them fails. The
+	 * loaded children and the failures are processed in the order of the children so that the
+	 * content of the composite and the reported status do not depend on the order in which the
+	 * loads complete.
+	 */
+	private void addChildren(URI[] children, int parallelism, IProgressMonitor monitor, boolean propagateException) throws ProvisionException {
+		List<URI> locations = new ArrayList<>(children.length);
+		List<Boolean> previouslyLoaded = new ArrayList<>(children.length);
+		for (URI childURI : children) {
+			URI absolute = URIUtil.makeAbsolute(childURI, getLocation());
+			if (childrenURIs.contains(childURI) || childrenURIs.contains(absolute) || locations.contains(absolute)) {
+				continue;
+			}
+			// always add the URI to the list of child URIs (even if we can't load it later)
+			childrenURIs.add(childURI);
+			locations.add(absolute);
+			previouslyLoaded.add(getManager().contains(absolute));
+		}
+		List<CompositeChildLoader.Result<IMetadataRepository>> results = CompositeChildLoader.loadAll(locations, parallelism, (location, sub) -> getManager().loadRepository(location, sub), monitor);
+
+		List<URI> repositoriesToBeRemovedOnFailure = new ArrayList<>();
+		MultiStatus failures = new MultiStatus(Constants.ID, ProvisionException.REPOSITORY_FAILED_READ, NLS.bind(Messages.io_failedRead, getLocation()), null);
+		for (int i = 0; i < results.size(); i++) {
+			CompositeChildLoader.Result<IMetadataRepository> result = results.get(i);
+			if (result.getFailure() != null) {
+				//repository failed to load. fall through
+				LogHelper.log(result.getFailure());
+				failures.add(result.getFailure().getStatus());
+				continue;
+			}
+			URI absolute = result.getLocation();
+			if (!previouslyLoaded.get(i)) {
+				//set enabled to false so repositories do not polled twice
+				getManager().setEnabled(absolute, false);
+				//set repository to system to hide from users
+				getManager().setRepositoryProperty(absolute, IRepository.PROP_SYSTEM, String.valueOf(true));
+				repositoriesToBeRemovedOnFailure.add(absolute);
+			}
+			IMetadataRepository currentRepo = result.getRepository();
+			currentRepo.compress(iuPool); // Share IUs across this CompositeMetadataRepository
+			loadedRepos.add(currentRepo);
+		}
+		if (propagateException && !failures.isOK()) {
+			removeFromRepoManager(repositoriesToBeRemovedOnFailure);
+			throw new ProvisionException(failures);
+		}
+	}
+
 	@Override
 	public void addChild(URI childURI) {
 		try {
@@ -369,6 +426,12 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 		return Collections.EMPTY_LIST.iterator();
 	}
 
+	@Override
+	public Object getContentStamp() {
+		// adding or removing a child changes the combined stamp as well
+		return ContentStamp.of(loadedRepos);
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public Object getManagedProperty(Object client, String memberName, Object key) {
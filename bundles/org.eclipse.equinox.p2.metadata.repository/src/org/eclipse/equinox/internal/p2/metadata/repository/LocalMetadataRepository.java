@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2007, 2023 IBM Corporation and others.
+ *  Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -18,17 +18,23 @@ package org.eclipse.equinox.internal.p2.metadata.repository;
 import java.io.*;
 import java.net.URI;
 import java.util.*;
+import java.util.function.BiFunction;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.internal.p2.metadata.*;
 import org.eclipse.equinox.internal.p2.metadata.index.*;
+import org.eclipse.equinox.internal.p2.metadata.repository.io.BinaryMetadataContent;
+import org.eclipse.equinox.internal.p2.metadata.repository.io.PersistedCapabilityIndex;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
 import org.eclipse.equinox.internal.provisional.p2.repository.RepositoryEvent;
 import org.eclipse.equinox.p2.core.*;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.KeyWithLocale;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.expression.IEvaluationContext;
+import org.eclipse.equinox.p2.metadata.expression.IExpression;
 import org.eclipse.equinox.p2.metadata.index.IIndex;
 import org.eclipse.equinox.p2.metadata.index.IIndexProvider;
 import org.eclipse.equinox.p2.query.IQuery;
@@ -36,13 +42,14 @@ import org.eclipse.equinox.p2.query.IQueryResult;
 import org.eclipse.equinox.p2.repository.*;
 import org.eclipse.equinox.p2.repository.metadata.IMetadataRepositoryManager;
 import org.eclipse.equinox.p2.repository.metadata.spi.AbstractMetadataRepository;
+import org.eclipse.osgi.util.NLS;
 
 /**
  * A metadata repository that resides in the local file system.  If the repository
  * location is a directory, this implementation will traverse the directory structure
  * and combine any metadata repository files that are found.
  */
-public class LocalMetadataRepository extends AbstractMetadataRepository implements IIndexProvider<IInstallableUnit> {
+public class LocalMetadataRepository extends AbstractMetadataRepository implements IIndexProvider<IInstallableUnit>, IContentStampProvider {
 
 	private static final String CONTENT_FILENAME = "content"; //$NON-NLS-1$
 	private static final String REPOSITORY_TYPE = LocalMetadataRepository.class.getName();
@@ -50,6 +57,18 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 	private static final String JAR_EXTENSION = ".jar"; //$NON-NLS-1$
 	private static final String XML_EXTENSION = ".xml"; //$NON-NLS-1$
 
+	/**
+	 * Repository property that enables writing the binary <code>content.p2bin</code>
+	 * file alongside the XML content whenever the repository is saved.
+	 */
+	public static final String PROP_BINARY = "p2.binary"; //$NON-NLS-1$
+
+	/**
+	 * Repository property that enables persisting the capability index next to
+	 * the content so that it does not need to be rebuilt after the next load.
+	 */
+	public static final String PROP_PERSISTED_INDEX = "p2.persistedIndex"; //$NON-NLS-1$
+
 	protected IUMap units = new IUMap();
 	protected final Set<IRepositoryReference> repositories = new LinkedHashSet<>();
 	private IIndex<IInstallableUnit> idIndex;
@@ -57,6 +76,10 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 	private TranslationSupport translationSupport;
 	private boolean snapshotNeeded = false;
 	private boolean disableSave = false;
+	// units of a repository loaded from its binary form that have not all been materialized yet
+	private BinaryMetadataContent binaryContent;
+	// set when the units changed after the persisted capability index was written
+	private boolean persistedIndexStale = false;
 
 	private static File getActualLocation(URI location, String extension) {
 		File spec = URIUtil.toFile(location);
@@ -104,6 +127,7 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 		if (installableUnits == null || installableUnits.isEmpty()) {
 			return;
 		}
+		materializeBinaryContent();
 		if (snapshotNeeded) {
 			units = units.clone();
 			idIndex = null; // Backed by units
@@ -111,6 +135,7 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 		}
 		units.addAll(installableUnits);
 		capabilityIndex = null; // Generated, not backed by units
+		persistedIndexStale = true;
 		save();
 	}
 
@@ -140,6 +165,12 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 	@Override
 	public synchronized IIndex<IInstallableUnit> getIndex(String memberName) {
 		if (InstallableUnit.MEMBER_ID.equals(memberName)) {
+			if (binaryContent != null) {
+				if (idIndex == null) {
+					idIndex = new BinaryIdIndex(binaryContent);
+				}
+				return idIndex;
+			}
 			snapshotNeeded = true;
 			if (idIndex == null) {
 				idIndex = new IdIndex(units);
@@ -148,15 +179,49 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 		}
 
 		if (InstallableUnit.MEMBER_PROVIDED_CAPABILITIES.equals(memberName)) {
-			snapshotNeeded = true;
 			if (capabilityIndex == null) {
+				capabilityIndex = loadPersistedCapabilityIndex();
+			}
+			if (capabilityIndex == null) {
+				materializeBinaryContent();
 				capabilityIndex = new CapabilityIndex(units.iterator());
 			}
+			snapshotNeeded = true;
 			return capabilityIndex;
 		}
 		return null;
 	}
 
+	// caller should be synchronized
+	private IIndex<IInstallableUnit> loadPersistedCapabilityIndex() {
+		if (persistedIndexStale || !"true".equalsIgnoreCase(getProperty(PROP_PERSISTED_INDEX)) || getLocation() == null) { //$NON-NLS-1$
+			return null;
+		}
+		File contentFile = getContentFile();
+		File indexFile = new File(contentFile.getParentFile(), PersistedCapabilityIndex.INDEX_FILENAME);
+		BiFunction<String, Version, IInstallableUnit> resolver;
+		if (binaryContent != null) {
+			BinaryMetadataContent content = binaryContent;
+			resolver = (id, version) -> {
+				for (IInstallableUnit unit : getUnits(content, id)) {
+					if (unit.getVersion().equals(version)) {
+						return unit;
+					}
+				}
+				return null;
+			};
+		} else {
+			IUMap unitsSnapshot = units;
+			resolver = unitsSnapshot::get;
+		}
+		try {
+			return PersistedCapabilityIndex.open(indexFile, contentFile, resolver);
+		} catch (IOException e) {
+			LogHelper.log(new Status(IStatus.WARNING, Constants.ID, NLS.bind(Messages.io_failedRead, indexFile), e));
+			return null;
+		}
+	}
+
 	@Override
 	public synchronized Object getManagedProperty(Object client, String memberName, Object key) {
 		if (!(client instanceof IInstallableUnit iu)) {
@@ -187,6 +252,86 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 		publishRepositoryReferences();
 	}
 
+	/**
+	 * Initializes this repository from its binary form. The units remain in the
+	 * binary content until they are queried.
+	 */
+	public void initialize(RepositoryState state, BinaryMetadataContent content) {
+		synchronized (this) {
+			binaryContent = content;
+		}
+		initialize(state);
+	}
+
+	// caller should be synchronized
+	private void materializeBinaryContent() {
+		if (binaryContent == null) {
+			return;
+		}
+		try {
+			units.addAll(Arrays.asList(binaryContent.getAllUnits()));
+		} catch (IOException e) {
+			loadContentAfterBinaryFailure(e);
+			return;
+		}
+		binaryContent = null;
+		idIndex = null; // Backed by the binary content
+		if (capabilityIndex instanceof PersistedCapabilityIndex) {
+			capabilityIndex = null; // May resolve units through the binary content
+		}
+	}
+
+	/**
+	 * Replaces the binary content that could not be decoded with the units of the
+	 * XML content. The binary file is deleted, it is written again on the next
+	 * save.
+	 */
+	// caller should be synchronized
+	private void loadContentAfterBinaryFailure(IOException failure) {
+		File binaryFile = binaryContent.getFile();
+		LogHelper.log(new Status(IStatus.WARNING, Constants.ID, NLS.bind(Messages.io_failedRead, binaryFile), failure));
+		binaryContent = null;
+		idIndex = null; // Backed by the binary content
+		if (capabilityIndex instanceof PersistedCapabilityIndex) {
+			capabilityIndex = null; // May resolve units through the binary content
+		}
+		binaryFile.delete();
+		if (snapshotNeeded) {
+			units = units.clone();
+			snapshotNeeded = false;
+		}
+		try {
+			units.addAll(new BinaryMetadataRepositoryIO(getProvisioningAgent()).readUnits(getContentFile()));
+		} catch (ProvisionException e) {
+			LogHelper.log(e.getStatus());
+		}
+	}
+
+	/**
+	 * Returns the units with the given id from the given binary content, or from
+	 * the units of this repository if the content can not be decoded.
+	 */
+	Collection<IInstallableUnit> getUnits(BinaryMetadataContent content, String id) {
+		try {
+			return content.getUnits(id);
+		} catch (IOException e) {
+			synchronized (this) {
+				if (binaryContent == content) {
+					loadContentAfterBinaryFailure(e);
+				}
+				return units.getUnits(id);
+			}
+		}
+	}
+
+	private File getContentFile() {
+		File contentFile = getActualLocation(getLocation(), JAR_EXTENSION);
+		if (!contentFile.exists()) {
+			contentFile = getActualLocation(getLocation());
+		}
+		return contentFile;
+	}
+
 	/**
 	 * Broadcast discovery events for all repositories referenced by this repository.
 	 */
@@ -229,17 +374,36 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 
 	@Override
 	public boolean contains(IInstallableUnit element) {
+		BinaryMetadataContent content;
+		synchronized (this) {
+			content = binaryContent;
+		}
+		if (content != null) {
+			return getUnits(content, element.getId()).contains(element);
+		}
 		return units.contains(element);
 	}
 
 	@Override
 	public synchronized Iterator<IInstallableUnit> everything() {
+		materializeBinaryContent();
 		snapshotNeeded = true;
 		return units.iterator();
 	}
 
+	@Override
+	public synchronized Object getContentStamp() {
+		if (binaryContent != null) {
+			// the binary content never changes, the units are moved to the map before any change
+			return ContentStamp.of(binaryContent, 0);
+		}
+		return units.getContentStamp();
+	}
+
 	@Override
 	public synchronized void removeAll() {
+		binaryContent = null;
+		idIndex = null; // May be backed by the binary content
 		if (snapshotNeeded) {
 			units = new IUMap();
 			idIndex = null; // Backed by units
@@ -248,6 +412,7 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 			units.clear();
 		}
 		capabilityIndex = null; // Generated, not backed by units.
+		persistedIndexStale = true;
 		save();
 	}
 
@@ -256,6 +421,7 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 		boolean changed = false;
 		if (installableUnits != null && !installableUnits.isEmpty()) {
 			changed = true;
+			materializeBinaryContent();
 			if (snapshotNeeded) {
 				units = units.clone();
 				idIndex = null; // Backed by units
@@ -263,6 +429,7 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 			}
 			units.removeAll(installableUnits);
 			capabilityIndex = null; // Generated, not backed by units.
+			persistedIndexStale = true;
 		}
 		if (changed) {
 			save();
@@ -315,6 +482,46 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 		} catch (IOException e) {
 			LogHelper.log(new Status(IStatus.ERROR, Constants.ID, ProvisionException.REPOSITORY_FAILED_WRITE, "Error saving metadata repository: " + getLocation(), e)); //$NON-NLS-1$
 		}
+		saveBinary(compress ? jarFile : file);
+		savePersistedIndex(compress ? jarFile : file);
+	}
+
+	private void savePersistedIndex(File contentFile) {
+		File indexFile = new File(contentFile.getParentFile(), PersistedCapabilityIndex.INDEX_FILENAME);
+		if (!"true".equalsIgnoreCase(getProperty(PROP_PERSISTED_INDEX))) { //$NON-NLS-1$
+			if (indexFile.exists()) {
+				indexFile.delete();
+			}
+			return;
+		}
+		try {
+			materializeBinaryContent();
+			PersistedCapabilityIndex.write(units.iterator(), contentFile, indexFile);
+			persistedIndexStale = false;
+		} catch (IOException e) {
+			indexFile.delete();
+			LogHelper.log(new Status(IStatus.ERROR, Constants.ID, ProvisionException.REPOSITORY_FAILED_WRITE, "Error saving capability index: " + getLocation(), e)); //$NON-NLS-1$
+		}
+	}
+
+	private void saveBinary(File contentFile) {
+		File binaryFile = new File(contentFile.getParentFile(), BinaryMetadataContent.CONTENT_FILENAME);
+		// the file is replaced or deleted below, do not keep it mapped. Where the
+		// mapping outlives this, e.g. on Windows, replacing the file fails and the old
+		// one is ignored, since it was written for other content.
+		materializeBinaryContent();
+		if (!"true".equalsIgnoreCase(getProperty(PROP_BINARY))) { //$NON-NLS-1$
+			if (binaryFile.exists()) {
+				binaryFile.delete();
+			}
+			return;
+		}
+		try {
+			new BinaryMetadataRepositoryIO(getProvisioningAgent()).write(this, contentFile, binaryFile);
+		} catch (IOException e) {
+			binaryFile.delete();
+			LogHelper.log(new Status(IStatus.ERROR, Constants.ID, ProvisionException.REPOSITORY_FAILED_WRITE, "Error saving binary metadata repository: " + getLocation(), e)); //$NON-NLS-1$
+		}
 	}
 
 	@Override
@@ -379,7 +586,35 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 	}
 
 	@Override
-	public void compress(IPool<IInstallableUnit> iuPool) {
+	public synchronized void compress(IPool<IInstallableUnit> iuPool) {
+		materializeBinaryContent();
 		units.compress(iuPool);
 	}
+
+	/**
+	 * The id index of a repository whose units are still in its binary content.
+	 */
+	private final class BinaryIdIndex extends Index<IInstallableUnit> {
+		private final BinaryMetadataContent content;
+
+		BinaryIdIndex(BinaryMetadataContent content) {
+			this.content = content;
+		}
+
+		@Override
+		public Iterator<IInstallableUnit> getCandidates(IEvaluationContext ctx, IExpression variable, IExpression booleanExpr) {
+			Object queriedKeys = getQueriedIDs(ctx, variable, InstallableUnit.MEMBER_ID, booleanExpr, null);
+			if (queriedKeys == null) {
+				return null;
+			}
+			if (queriedKeys instanceof Collection<?>) {
+				HashSet<IInstallableUnit> collector = new HashSet<>();
+				for (Object key : (Collection<?>) queriedKeys) {
+					collector.addAll(getUnits(content, (String) key));
+				}
+				return collector.iterator();
+			}
+			return getUnits(content, (String) queriedKeys).iterator();
+		}
+	}
 }
@@ -33,6 +33,7 @@ public class Messages extends NLS {
 
 	public static String io_IncompatibleVersion;
 	public static String io_parseError;
+	public static String io_invalidBinaryFormat;
 
 	public static String no_provisioning_agent;
 
@@ -22,6 +22,7 @@ import java.util.jar.JarInputStream;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
 import org.eclipse.equinox.internal.p2.repository.CacheManager;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.core.ProvisionException;
 import org.eclipse.equinox.p2.repository.IRepositoryManager;
 import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
@@ -91,44 +92,21 @@ public class SimpleMetadataRepositoryFactory extends MetadataRepositoryFactory {
 		SubMonitor sub = SubMonitor.convert(monitor, 400);
 		try {
 			File localFile = getLocalFile(location, sub.newChild(300));
-			InputStream inStream = new BufferedInputStream(new FileInputStream(localFile));
-			JarInputStream jarStream = null;
-			try {
-				//if reading from a jar, obtain a stream on the entry with the actual contents
-				if (localFile.getAbsolutePath().endsWith(JAR_EXTENSION) || hasZipMagicHeader(inStream)) {
-					jarStream = new JarInputStream(inStream);
-					JarEntry jarEntry = jarStream.getNextJarEntry();
-					String entryName = URLMetadataRepository.CONTENT_FILENAME + URLMetadataRepository.XML_EXTENSION;
-					while (jarEntry != null && (!entryName.equals(jarEntry.getName()))) {
-						jarEntry = jarStream.getNextJarEntry();
-					}
-					//if there is a jar but the entry is missing or invalid, treat this as an invalid repository
-					if (jarEntry == null) {
-						throw new IOException(NLS.bind(Messages.repoMan_invalidLocation, location));
-					}
+			if (PROTOCOL_FILE.equals(location.getScheme())) {
+				// prefer the memory mapped binary content if it was written along with the file
+				IMetadataRepository result = new BinaryMetadataRepositoryIO(getAgent()).readIfUpToDate(localFile);
+				if (result != null) {
+					return initializeAfterLoad(result, location, flags);
 				}
-				//parse the repository descriptor file
-				sub.setWorkRemaining(100);
-				InputStream descriptorStream = jarStream != null ? jarStream : inStream;
-				IMetadataRepository result = new MetadataRepositoryIO(getAgent()).read(localFile.toURL(), descriptorStream, sub.newChild(100));
-				if (result != null && (flags & IRepositoryManager.REPOSITORY_HINT_MODIFIABLE) > 0 && !result.isModifiable()) {
-					return null;
-				}
-				if (result instanceof LocalMetadataRepository) {
-					((LocalMetadataRepository) result).initializeAfterLoad(location);
-				}
-				if (result instanceof URLMetadataRepository) {
-					((URLMetadataRepository) result).initializeAfterLoad(location);
-				}
-				if (Tracing.DEBUG_METADATA_PARSING) {
-					time += System.currentTimeMillis();
-					Tracing.debug(debugMsg + "time (ms): " + time); //$NON-NLS-1$
-				}
-				return result;
-			} finally {
-				safeClose(jarStream);
-				safeClose(inStream);
 			}
+			sub.setWorkRemaining(100);
+			IMetadataRepository result = read(getAgent(), localFile, location, sub.newChild(100));
+			result = initializeAfterLoad(result, location, flags);
+			if (Tracing.DEBUG_METADATA_PARSING) {
+				time += System.currentTimeMillis();
+				Tracing.debug(debugMsg + "time (ms): " + time); //$NON-NLS-1$
+			}
+			return result;
 		} catch (FileNotFoundException e) {
 			String msg = NLS.bind(Messages.io_failedRead, location);
 			throw new ProvisionException(new Status(IStatus.ERROR, Constants.ID, ProvisionException.REPOSITORY_NOT_FOUND, msg, e));
@@ -142,6 +120,36 @@ public class SimpleMetadataRepositoryFactory extends MetadataRepositoryFactory {
 		}
 	}
 
+	/**
+	 * Parses the XML content of a repository from the given file, that is either
+	 * the XML itself or a jar that contains it.
+	 */
+	static IMetadataRepository read(IProvisioningAgent agent, File localFile, URI location, IProgressMonitor monitor) throws IOException, ProvisionException {
+		InputStream inStream = new BufferedInputStream(new FileInputStream(localFile));
+		JarInputStream jarStream = null;
+		try {
+			//if reading from a jar, obtain a stream on the entry with the actual contents
+			if (localFile.getAbsolutePath().endsWith(JAR_EXTENSION) || hasZipMagicHeader(inStream)) {
+				jarStream = new JarInputStream(inStream);
+				JarEntry jarEntry = jarStream.getNextJarEntry();
+				String entryName = URLMetadataRepository.CONTENT_FILENAME + URLMetadataRepository.XML_EXTENSION;
+				while (jarEntry != null && (!entryName.equals(jarEntry.getName()))) {
+					jarEntry = jarStream.getNextJarEntry();
+				}
+				//if there is a jar but the entry is missing or invalid, treat this as an invalid repository
+				if (jarEntry == null) {
+					throw new IOException(NLS.bind(Messages.repoMan_invalidLocation, location));
+				}
+			}
+			//parse the repository descriptor file
+			InputStream descriptorStream = jarStream != null ? jarStream : inStream;
+			return new MetadataRepositoryIO(agent).read(localFile.toURL(), descriptorStream, monitor);
+		} finally {
+			safeClose(jarStream);
+			safeClose(inStream);
+		}
+	}
+
 	/**
 	 * Check if given stream is a jar ...
 	 *
@@ -161,6 +169,23 @@ public class SimpleMetadataRepositoryFactory extends MetadataRepositoryFactory {
 		return false;
 	}
 
+	/**
+	 * Returns the loaded repository once it knows its location, or
+	 * <code>null</code> if it is not modifiable but the flags ask for that.
+	 */
+	static IMetadataRepository initializeAfterLoad(IMetadataRepository result, URI location, int flags) {
+		if (result != null && (flags & IRepositoryManager.REPOSITORY_HINT_MODIFIABLE) > 0 && !result.isModifiable()) {
+			return null;
+		}
+		if (result instanceof LocalMetadataRepository) {
+			((LocalMetadataRepository) result).initializeAfterLoad(location);
+		}
+		if (result instanceof URLMetadataRepository) {
+			((URLMetadataRepository) result).initializeAfterLoad(location);
+		}
+		return result;
+	}
+
 	/**
 	 * Closes a stream, ignoring any secondary exceptions
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2023 IBM Corporation and others.
+ * Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -35,7 +35,7 @@ import org.eclipse.equinox.p2.repository.metadata.spi.AbstractMetadataRepository
 /**
  * A metadata repository backed by an arbitrary URL.
  */
-public class URLMetadataRepository extends AbstractMetadataRepository implements IIndexProvider<IInstallableUnit> {
+public class URLMetadataRepository extends AbstractMetadataRepository implements IIndexProvider<IInstallableUnit>, IContentStampProvider {
 
 	public static final String CONTENT_FILENAME = "content"; //$NON-NLS-1$
 	protected Collection<IRepositoryReference> references;
@@ -149,4 +149,9 @@ public class URLMetadataRepository extends AbstractMetadataRepository implements
 	public Iterator<IInstallableUnit> everything() {
 		return units.iterator();
 	}
+
+	@Override
+	public Object getContentStamp() {
+		return units.getContentStamp();
+	}
 }
@@ -20,7 +20,6 @@ import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
 import org.eclipse.equinox.internal.p2.repository.CacheManager;
 import org.eclipse.equinox.p2.core.ProvisionException;
-import org.eclipse.equinox.p2.repository.IRepositoryManager;
 import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
 import org.eclipse.equinox.p2.repository.metadata.spi.MetadataRepositoryFactory;
 import org.eclipse.osgi.util.NLS;
@@ -87,15 +86,7 @@ public class XZedSimpleMetadataRepositoryFactory extends MetadataRepositoryFacto
 				//parse the repository descriptor file
 				sub.setWorkRemaining(100);
 				IMetadataRepository result = new MetadataRepositoryIO(getAgent()).read(localFile.toURL(), descriptorStream, sub.newChild(100));
-				if (result != null && (flags & IRepositoryManager.REPOSITORY_HINT_MODIFIABLE) > 0 && !result.isModifiable()) {
-					return null;
-				}
-				if (result instanceof LocalMetadataRepository) {
-					((LocalMetadataRepository) result).initializeAfterLoad(location);
-				}
-				if (result instanceof URLMetadataRepository) {
-					((URLMetadataRepository) result).initializeAfterLoad(location);
-				}
+				result = SimpleMetadataRepositoryFactory.initializeAfterLoad(result, location, flags);
 				if (Tracing.DEBUG_METADATA_PARSING) {
 					time += System.currentTimeMillis();
 					Tracing.debug(debugMsg + "time (ms): " + time); //$NON-NLS-1$
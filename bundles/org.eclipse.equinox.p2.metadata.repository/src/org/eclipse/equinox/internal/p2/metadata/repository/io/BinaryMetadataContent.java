@@ -0,0 +1,629 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.repository.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import org.eclipse.equinox.internal.p2.core.helpers.OrderedProperties;
+import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
+import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.internal.p2.metadata.RequiredCapability;
+import org.eclipse.equinox.internal.p2.metadata.repository.Messages;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitDescription;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitFragmentDescription;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitPatchDescription;
+import org.eclipse.equinox.p2.metadata.expression.ExpressionUtil;
+import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
+import org.eclipse.equinox.p2.repository.IRepositoryReference;
+import org.eclipse.equinox.p2.repository.metadata.spi.AbstractMetadataRepository.RepositoryState;
+import org.eclipse.equinox.p2.repository.spi.RepositoryReference;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Read access to a metadata repository written by {@link BinaryMetadataWriter}.
+ * <p>
+ * The file is memory mapped and only the header is validated when it is
+ * opened. Installable units are decoded from their records on demand, either
+ * all at once or for a single id. A unit is only ever materialized once so that
+ * all callers observe the same instance.
+ * </p>
+ * <p>
+ * A record that can not be decoded invalidates the whole content, every
+ * following request for units fails with an {@link IOException} and the caller
+ * is expected to read the XML content instead.
+ * </p>
+ */
+public class BinaryMetadataContent {
+
+	public static final String CONTENT_FILENAME = "content.p2bin"; //$NON-NLS-1$
+
+	// "P2MB"
+	static final int MAGIC = 0x50324D42;
+	static final int FORMAT_VERSION = 3;
+	// the offsets and counts of the sections and the stamp of the content file
+	static final int HEADER_SIZE = 48;
+	static final int CONTENT_STAMP_POSITION = 32;
+	static final int INDEX_ENTRY_SIZE = 16;
+
+	// the kinds of unit records
+	static final byte UNIT = 0;
+	static final byte UNIT_FRAGMENT = 1;
+	static final byte UNIT_PATCH = 2;
+
+	// the kinds of match expressions
+	static final byte MATCH_RANGE = 0;
+	static final byte MATCH_PROPERTIES = 1;
+	static final byte MATCH_EXPRESSION = 2;
+
+	// the types of capability properties, a list is followed by the type of its elements
+	static final byte TYPE_STRING = 0;
+	static final byte TYPE_INTEGER = 1;
+	static final byte TYPE_LONG = 2;
+	static final byte TYPE_FLOAT = 3;
+	static final byte TYPE_DOUBLE = 4;
+	static final byte TYPE_BYTE = 5;
+	static final byte TYPE_SHORT = 6;
+	static final byte TYPE_CHARACTER = 7;
+	static final byte TYPE_BOOLEAN = 8;
+	static final byte TYPE_VERSION = 9;
+	static final byte TYPE_LIST = 10;
+
+	private final File file;
+	private final ByteBuffer buffer;
+	private final int stringCount;
+	private final int stringOffsetsPosition;
+	private final int repositoryPosition;
+	private final int unitCount;
+	private final int indexPosition;
+
+	private final MappedStringTable strings;
+	private final IInstallableUnit[] units;
+	private int materializedCount;
+	// the values parsed from strings, indexed like the strings
+	private Version[] versions;
+	private VersionRange[] ranges;
+	private IMatchExpression<IInstallableUnit>[] filters;
+	private IOException failure;
+
+	/**
+	 * Maps the given file and validates its header.
+	 *
+	 * @throws IOException if the file can not be read or is not a binary metadata file
+	 * of a supported format version
+	 */
+	public static BinaryMetadataContent open(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+				throw new IOException(NLS.bind(Messages.io_invalidBinaryFormat, file));
+			}
+			// the mapping stays valid after the channel is closed
+			return new BinaryMetadataContent(file, channel.map(MapMode.READ_ONLY, 0, size));
+		}
+	}
+
+	/**
+	 * Returns whether the given binary file was written for the current content
+	 * file, which has the length and modification time recorded in the header of
+	 * the binary file. Only the header of the binary file is read, a missing,
+	 * unreadable or outdated binary file is not up to date.
+	 */
+	public static boolean isUpToDate(File file, File contentFile) {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+				// read the complete header
+			}
+			return !header.hasRemaining() && header.getInt(0) == MAGIC && header.getInt(4) == FORMAT_VERSION
+					&& ContentFileStamp.read(header, CONTENT_STAMP_POSITION).equals(ContentFileStamp.of(contentFile));
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private BinaryMetadataContent(File file, ByteBuffer buffer) throws IOException {
+		this.file = file;
+		this.buffer = buffer;
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+			throw new IOException(NLS.bind(Messages.io_invalidBinaryFormat, file));
+		}
+		stringCount = buffer.getInt(8);
+		stringOffsetsPosition = buffer.getInt(12);
+		repositoryPosition = buffer.getInt(16);
+		unitCount = buffer.getInt(20);
+		indexPosition = buffer.getInt(24);
+		int limit = buffer.limit();
+		if (stringCount < 0 || unitCount < 0 || stringOffsetsPosition < HEADER_SIZE || repositoryPosition < HEADER_SIZE //
+				|| (long) stringOffsetsPosition + 4L * stringCount > limit //
+				|| (long) indexPosition + (long) INDEX_ENTRY_SIZE * unitCount != limit) {
+			throw new IOException(NLS.bind(Messages.io_invalidBinaryFormat, file));
+		}
+		strings = new MappedStringTable(buffer, stringOffsetsPosition, stringCount);
+		units = new IInstallableUnit[unitCount];
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public int getUnitCount() {
+		return unitCount;
+	}
+
+	/**
+	 * Reads the repository attributes. The returned state carries no units, they
+	 * are obtained through {@link #getAllUnits()} or {@link #getUnits(String)}.
+	 */
+	public RepositoryState readRepositoryState() throws IOException {
+		try {
+			int position = repositoryPosition;
+			RepositoryState state = new RepositoryState();
+			state.Name = getString(buffer.getInt(position));
+			state.Type = getString(buffer.getInt(position + 4));
+			state.Version = Version.create(getString(buffer.getInt(position + 8)));
+			state.Provider = getString(buffer.getInt(position + 12));
+			state.Description = getString(buffer.getInt(position + 16));
+			position += 20;
+			int propertyCount = buffer.getInt(position);
+			position += 4;
+			OrderedProperties properties = new OrderedProperties(propertyCount);
+			for (int i = 0; i < propertyCount; i++) {
+				properties.setProperty(getString(buffer.getInt(position)), getString(buffer.getInt(position + 4)));
+				position += 8;
+			}
+			state.Properties = properties;
+			int referenceCount = buffer.getInt(position);
+			position += 4;
+			IRepositoryReference[] references = new IRepositoryReference[referenceCount];
+			for (int i = 0; i < referenceCount; i++) {
+				URI location = new URI(getString(buffer.getInt(position)));
+				String nickname = getString(buffer.getInt(position + 4));
+				references[i] = new RepositoryReference(location, nickname, buffer.getInt(position + 8), buffer.getInt(position + 12));
+				position += 16;
+			}
+			state.Repositories = references;
+			state.Units = new IInstallableUnit[0];
+			return state;
+		} catch (IndexOutOfBoundsException | IllegalArgumentException | URISyntaxException e) {
+			throw new IOException(NLS.bind(Messages.io_invalidBinaryFormat, file), e);
+		}
+	}
+
+	/**
+	 * Returns all units of the repository, materializing the ones that have not
+	 * been requested before.
+	 *
+	 * @throws IOException if a unit can not be decoded
+	 */
+	public synchronized IInstallableUnit[] getAllUnits() throws IOException {
+		checkValid();
+		if (materializedCount < unitCount) {
+			materialize(0, unitCount);
+		}
+		return units.clone();
+	}
+
+	/**
+	 * Returns the units with the given id, materializing only those.
+	 *
+	 * @throws IOException if a unit can not be decoded
+	 */
+	public synchronized Collection<IInstallableUnit> getUnits(String id) throws IOException {
+		checkValid();
+		int first;
+		int end;
+		try {
+			first = findFirst(id);
+			if (first < 0) {
+				return Collections.emptyList();
+			}
+			end = first + 1;
+			while (end < unitCount && id.equals(getString(getIndexInt(end, 0)))) {
+				end++;
+			}
+		} catch (RuntimeException e) {
+			throw invalidate(e);
+		}
+		for (int i = first; i < end; i++) {
+			if (units[i] == null) {
+				materialize(first, end);
+				break;
+			}
+		}
+		return Arrays.asList(Arrays.copyOfRange(units, first, end));
+	}
+
+	/**
+	 * Returns the unit with the given id and version or <code>null</code>.
+	 *
+	 * @throws IOException if a unit can not be decoded
+	 */
+	public IInstallableUnit getUnit(String id, Version version) throws IOException {
+		for (IInstallableUnit unit : getUnits(id)) {
+			if (unit.getVersion().equals(version)) {
+				return unit;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @throws IOException if a unit can not be decoded
+	 */
+	public boolean contains(IInstallableUnit unit) throws IOException {
+		return getUnits(unit.getId()).contains(unit);
+	}
+
+	private int findFirst(String id) {
+		int low = 0;
+		int high = unitCount - 1;
+		int found = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = getString(getIndexInt(mid, 0)).compareTo(id);
+			if (cmp < 0) {
+				low = mid + 1;
+			} else {
+				if (cmp == 0) {
+					found = mid;
+				}
+				high = mid - 1;
+			}
+		}
+		return found;
+	}
+
+	private int getIndexInt(int entry, int field) {
+		return buffer.getInt(indexPosition + entry * INDEX_ENTRY_SIZE + field);
+	}
+
+	private String getString(int index) {
+		return strings.get(index);
+	}
+
+	// caller must be synchronized
+	private void checkValid() throws IOException {
+		if (failure != null) {
+			throw new IOException(failure.getMessage(), failure);
+		}
+	}
+
+	// caller must be synchronized
+	private IOException invalidate(Exception cause) {
+		failure = new IOException(NLS.bind(Messages.io_invalidBinaryFormat, file), cause);
+		return failure;
+	}
+
+	// caller must be synchronized
+	@SuppressWarnings("unchecked")
+	private void materialize(int from, int to) throws IOException {
+		if (versions == null) {
+			versions = new Version[stringCount];
+			ranges = new VersionRange[stringCount];
+			filters = new IMatchExpression[stringCount];
+		}
+		IInstallableUnit[] decoded = new IInstallableUnit[to - from];
+		try {
+			for (int i = from; i < to; i++) {
+				if (units[i] == null) {
+					int offset = getIndexInt(i, 8);
+					int length = getIndexInt(i, 12);
+					if (offset < HEADER_SIZE || length < 0 || (long) offset + length > stringOffsetsPosition) {
+						throw new IndexOutOfBoundsException(offset);
+					}
+					UnitReader reader = new UnitReader(offset);
+					decoded[i - from] = reader.readUnit();
+					if (reader.position != offset + length) {
+						throw new IllegalStateException(Integer.toString(reader.position));
+					}
+				}
+			}
+		} catch (RuntimeException e) {
+			// nothing of the broken range is kept
+			throw invalidate(e);
+		}
+		for (int i = from; i < to; i++) {
+			if (units[i] == null) {
+				units[i] = decoded[i - from];
+				materializedCount++;
+			}
+		}
+	}
+
+	/**
+	 * Decodes the record of one unit, see {@link BinaryMetadataWriter} for the
+	 * layout. Strings are read through the string table and the versions, ranges
+	 * and filters parsed from them are shared between the units.
+	 */
+	private final class UnitReader {
+		int position;
+
+		UnitReader(int position) {
+			this.position = position;
+		}
+
+		IInstallableUnit readUnit() {
+			byte kind = readByte();
+			InstallableUnitDescription unit;
+			switch (kind) {
+				case UNIT :
+					unit = new InstallableUnitDescription();
+					break;
+				case UNIT_FRAGMENT :
+					unit = new InstallableUnitFragmentDescription();
+					break;
+				case UNIT_PATCH :
+					unit = new InstallableUnitPatchDescription();
+					break;
+				default :
+					throw new IllegalStateException(Byte.toString(kind));
+			}
+			unit.setId(readString());
+			unit.setVersion(readVersion());
+			unit.setSingleton(readBoolean());
+			if (unit instanceof InstallableUnitFragmentDescription fragment) {
+				fragment.setHost(readRequirements());
+			}
+			if (unit instanceof InstallableUnitPatchDescription patch) {
+				IRequirement[][] scope = new IRequirement[readInt()][];
+				for (int i = 0; i < scope.length; i++) {
+					scope[i] = readRequirements();
+				}
+				patch.setApplicabilityScope(scope);
+				IRequirementChange[] changes = new IRequirementChange[readInt()];
+				for (int i = 0; i < changes.length; i++) {
+					changes[i] = MetadataFactory.createRequirementChange(readOptionalRequirement(), readOptionalRequirement());
+				}
+				patch.setRequirementChanges(changes);
+				patch.setLifeCycle(readOptionalRequirement());
+			}
+			if (readBoolean()) {
+				List<IMatchExpression<IInstallableUnit>> updated = new ArrayList<>(1);
+				for (int i = readInt(); i > 0; i--) {
+					updated.add(readMatch());
+				}
+				int severity = readInt();
+				String description = readString();
+				unit.setUpdateDescriptor(MetadataFactory.createUpdateDescriptor(updated, severity, description, readURI()));
+			}
+			for (int i = readInt(); i > 0; i--) {
+				unit.setProperty(readString(), readString());
+			}
+			unit.setMetaRequirements(readRequirements());
+			IProvidedCapability[] capabilities = new IProvidedCapability[readInt()];
+			for (int i = 0; i < capabilities.length; i++) {
+				capabilities[i] = readCapability();
+			}
+			unit.setCapabilities(capabilities);
+			unit.setRequirements(readRequirements());
+			unit.setFilter(readFilter());
+			IArtifactKey[] artifacts = new IArtifactKey[readInt()];
+			for (int i = 0; i < artifacts.length; i++) {
+				artifacts[i] = new ArtifactKey(readString(), readString(), readVersion());
+			}
+			unit.setArtifacts(artifacts);
+			String touchpointType = readString();
+			Version touchpointVersion = readVersion();
+			if (touchpointType != null) {
+				unit.setTouchpointType(MetadataFactory.createTouchpointType(touchpointType, touchpointVersion));
+			}
+			for (int i = readInt(); i > 0; i--) {
+				Map<String, ITouchpointInstruction> instructions = new LinkedHashMap<>();
+				for (int j = readInt(); j > 0; j--) {
+					String key = readString();
+					String importAttribute = readString();
+					instructions.put(key, MetadataFactory.createTouchpointInstruction(readString(), importAttribute));
+				}
+				unit.addTouchpointData(MetadataFactory.createTouchpointData(instructions));
+			}
+			ILicense[] licenses = new ILicense[readInt()];
+			for (int i = 0; i < licenses.length; i++) {
+				URI location = readURI();
+				licenses[i] = MetadataFactory.createLicense(location, readString());
+			}
+			unit.setLicenses(licenses);
+			if (readBoolean()) {
+				URI location = readURI();
+				unit.setCopyright(MetadataFactory.createCopyright(location, readString()));
+			}
+			return MetadataFactory.createInstallableUnit(unit);
+		}
+
+		private IProvidedCapability readCapability() {
+			String namespace = readString();
+			String name = readString();
+			Version version = readVersion();
+			int count = readInt();
+			Map<String, Object> properties = new HashMap<>(count + 2);
+			for (int i = 0; i < count; i++) {
+				String key = readString();
+				byte type = readByte();
+				if (type == TYPE_LIST) {
+					byte elementType = readByte();
+					List<Object> values = new ArrayList<>();
+					for (int j = readInt(); j > 0; j--) {
+						values.add(readValue(elementType));
+					}
+					properties.put(key, values);
+				} else {
+					properties.put(key, readValue(type));
+				}
+			}
+			properties.put(namespace, name);
+			properties.put(IProvidedCapability.PROPERTY_VERSION, version);
+			return MetadataFactory.createProvidedCapability(namespace, properties);
+		}
+
+		private Object readValue(byte type) {
+			if (type == TYPE_VERSION) {
+				return readVersion();
+			}
+			String value = readString();
+			switch (type) {
+				case TYPE_STRING :
+					return value;
+				case TYPE_INTEGER :
+					return Integer.valueOf(value);
+				case TYPE_LONG :
+					return Long.valueOf(value);
+				case TYPE_FLOAT :
+					return Float.valueOf(value);
+				case TYPE_DOUBLE :
+					return Double.valueOf(value);
+				case TYPE_BYTE :
+					return Byte.valueOf(value);
+				case TYPE_SHORT :
+					return Short.valueOf(value);
+				case TYPE_CHARACTER :
+					return Character.valueOf(value.charAt(0));
+				case TYPE_BOOLEAN :
+					return Boolean.valueOf(value);
+				default :
+					throw new IllegalStateException(Byte.toString(type));
+			}
+		}
+
+		private IRequirement[] readRequirements() {
+			IRequirement[] requirements = new IRequirement[readInt()];
+			for (int i = 0; i < requirements.length; i++) {
+				requirements[i] = readRequirement();
+			}
+			return requirements;
+		}
+
+		private IRequirement readOptionalRequirement() {
+			return readBoolean() ? readRequirement() : null;
+		}
+
+		private IRequirement readRequirement() {
+			byte kind = readByte();
+			IRequirement requirement;
+			if (kind == MATCH_RANGE) {
+				String namespace = readString();
+				String name = readString();
+				VersionRange range = readRange();
+				int min = readInt();
+				int max = readInt();
+				boolean greedy = readBoolean();
+				IMatchExpression<IInstallableUnit> filter = readFilter();
+				requirement = MetadataFactory.createRequirement(namespace, name, range, filter, min, max, greedy, readString());
+			} else if (kind == MATCH_PROPERTIES) {
+				String namespace = readString();
+				String match = readString();
+				int min = readInt();
+				int max = readInt();
+				boolean greedy = readBoolean();
+				IMatchExpression<IInstallableUnit> filter = readFilter();
+				requirement = MetadataFactory.createRequirement(namespace, ExpressionUtil.parseLDAP(match), filter, min, max, greedy, readString());
+			} else if (kind == MATCH_EXPRESSION) {
+				IMatchExpression<IInstallableUnit> match = MetadataParser.createMatchExpression(readString(), readString());
+				int min = readInt();
+				int max = readInt();
+				boolean greedy = readBoolean();
+				IMatchExpression<IInstallableUnit> filter = readFilter();
+				requirement = MetadataFactory.createRequirement(match, filter, min, max, greedy, readString());
+			} else {
+				throw new IllegalStateException(Byte.toString(kind));
+			}
+			return requirement;
+		}
+
+		private IMatchExpression<IInstallableUnit> readMatch() {
+			byte kind = readByte();
+			if (kind == MATCH_RANGE) {
+				String namespace = readString();
+				String name = readString();
+				return RequiredCapability.createMatchExpressionFromRange(namespace, name, readRange());
+			}
+			if (kind == MATCH_EXPRESSION) {
+				return MetadataParser.createMatchExpression(readString(), readString());
+			}
+			throw new IllegalStateException(Byte.toString(kind));
+		}
+
+		private byte readByte() {
+			return buffer.get(position++);
+		}
+
+		private boolean readBoolean() {
+			return readByte() != 0;
+		}
+
+		private int readInt() {
+			int value = buffer.getInt(position);
+			position += 4;
+			return value;
+		}
+
+		private String readString() {
+			return getString(readInt());
+		}
+
+		private URI readURI() {
+			String value = readString();
+			try {
+				return value == null ? null : new URI(value);
+			} catch (URISyntaxException e) {
+				throw new IllegalArgumentException(e);
+			}
+		}
+
+		private Version readVersion() {
+			int index = readInt();
+			if (index < 0) {
+				return null;
+			}
+			Version version = versions[index];
+			if (version == null) {
+				version = Version.create(getString(index));
+				versions[index] = version;
+			}
+			return version;
+		}
+
+		private VersionRange readRange() {
+			int index = readInt();
+			if (index < 0) {
+				return null;
+			}
+			VersionRange range = ranges[index];
+			if (range == null) {
+				range = VersionRange.create(getString(index));
+				ranges[index] = range;
+			}
+			return range;
+		}
+
+		private IMatchExpression<IInstallableUnit> readFilter() {
+			int index = readInt();
+			if (index < 0) {
+				return null;
+			}
+			IMatchExpression<IInstallableUnit> filter = filters[index];
+			if (filter == null) {
+				filter = InstallableUnit.parseFilter(getString(index));
+				filters[index] = filter;
+			}
+			return filter;
+		}
+	}
+}
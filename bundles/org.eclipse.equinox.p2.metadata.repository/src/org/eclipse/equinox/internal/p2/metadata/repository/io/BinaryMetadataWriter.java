@@ -0,0 +1,401 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.repository.io;
+
+import static org.eclipse.equinox.internal.p2.metadata.repository.io.BinaryMetadataContent.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import org.eclipse.equinox.internal.p2.metadata.RequiredCapability;
+import org.eclipse.equinox.internal.p2.metadata.RequiredPropertiesMatch;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.expression.*;
+import org.eclipse.equinox.p2.repository.IRepositoryReference;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
+
+/**
+ * Writes the binary form of a metadata repository that is read back by
+ * {@link BinaryMetadataContent}.
+ * <p>
+ * The file starts with a fixed size header, followed by the serialized units,
+ * the shared string table, the repository attributes and finally the unit
+ * index. The units are sorted by id and version so that all units of one id
+ * form a contiguous range both in the index and in the unit section.
+ * </p>
+ * <p>
+ * Each unit is a record of its kind, id, version, host requirements or patch
+ * details, update descriptor, properties, meta requirements, capabilities,
+ * requirements, filter, artifacts, touchpoint type and data, licenses and
+ * copyright, in this order. Collections are prefixed with their size and every
+ * string, including versions, ranges, filters and match expressions, is an
+ * index into the string table. A requirement starts with the kind of its match
+ * expression, followed by the operands of the expression, its cardinality,
+ * greediness, filter and description.
+ * </p>
+ */
+public class BinaryMetadataWriter {
+
+	private MappedStringTable.Builder strings;
+
+	/**
+	 * Writes the given repository to the target file. The file is first written
+	 * to a temporary sibling and then moved in place. The length and
+	 * modification time of the given content file are recorded, the binary file
+	 * is only used as long as the content file is unchanged.
+	 */
+	public void write(IMetadataRepository repository, Collection<IRepositoryReference> references, Collection<IInstallableUnit> units, File contentFile, File target) throws IOException {
+		ContentFileStamp contentStamp = ContentFileStamp.of(contentFile);
+		strings = new MappedStringTable.Builder();
+		List<IInstallableUnit> sorted = new ArrayList<>(units);
+		sorted.sort(Comparator.comparing(IInstallableUnit::getId).thenComparing(IInstallableUnit::getVersion));
+
+		File parent = target.getAbsoluteFile().getParentFile();
+		if (!parent.exists()) {
+			parent.mkdirs();
+		}
+		File tempFile = File.createTempFile(target.getName(), ".tmp", parent); //$NON-NLS-1$
+		try {
+			try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 65536));
+				output.write(new byte[HEADER_SIZE]);
+
+				// units
+				int[] unitIds = new int[sorted.size()];
+				int[] unitVersions = new int[sorted.size()];
+				int[] unitOffsets = new int[sorted.size()];
+				int[] unitLengths = new int[sorted.size()];
+				for (int i = 0; i < sorted.size(); i++) {
+					IInstallableUnit iu = sorted.get(i);
+					unitIds[i] = intern(iu.getId());
+					unitVersions[i] = intern(iu.getVersion().toString());
+					unitOffsets[i] = output.size();
+					writeUnit(output, iu);
+					unitLengths[i] = output.size() - unitOffsets[i];
+				}
+
+				// the repository attributes are interned before the string table is written
+				int name = intern(repository.getName());
+				int type = intern(repository.getType());
+				int version = intern(repository.getVersion());
+				int provider = intern(repository.getProvider());
+				int description = intern(repository.getDescription());
+				Map<String, String> properties = repository.getProperties();
+				int[] propertyStrings = new int[properties.size() * 2];
+				int p = 0;
+				for (Map.Entry<String, String> property : properties.entrySet()) {
+					propertyStrings[p++] = intern(property.getKey());
+					propertyStrings[p++] = intern(property.getValue());
+				}
+				int[] referenceStrings = new int[references.size() * 2];
+				p = 0;
+				for (IRepositoryReference reference : references) {
+					referenceStrings[p++] = intern(reference.getLocation().toString());
+					referenceStrings[p++] = intern(reference.getNickname());
+				}
+
+				int stringOffsetsPosition = strings.write(output);
+
+				// repository attributes
+				int repositoryPosition = output.size();
+				output.writeInt(name);
+				output.writeInt(type);
+				output.writeInt(version);
+				output.writeInt(provider);
+				output.writeInt(description);
+				output.writeInt(properties.size());
+				for (int index : propertyStrings) {
+					output.writeInt(index);
+				}
+				output.writeInt(references.size());
+				p = 0;
+				for (IRepositoryReference reference : references) {
+					output.writeInt(referenceStrings[p++]);
+					output.writeInt(referenceStrings[p++]);
+					output.writeInt(reference.getType());
+					output.writeInt(reference.getOptions());
+				}
+
+				// unit index
+				int indexPosition = output.size();
+				for (int i = 0; i < sorted.size(); i++) {
+					output.writeInt(unitIds[i]);
+					output.writeInt(unitVersions[i]);
+					output.writeInt(unitOffsets[i]);
+					output.writeInt(unitLengths[i]);
+				}
+				output.flush();
+				if (output.size() == Integer.MAX_VALUE) {
+					// DataOutputStream saturates its counter, offsets are no longer valid
+					throw new IOException("Binary metadata exceeds the maximum supported size: " + target); //$NON-NLS-1$
+				}
+
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(MAGIC);
+				header.putInt(FORMAT_VERSION);
+				header.putInt(strings.size());
+				header.putInt(stringOffsetsPosition);
+				header.putInt(repositoryPosition);
+				header.putInt(sorted.size());
+				header.putInt(indexPosition);
+				header.putInt(0);
+				contentStamp.write(header);
+				header.flip();
+				channel.position(0);
+				while (header.hasRemaining()) {
+					channel.write(header);
+				}
+			}
+			Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			tempFile.delete();
+			strings = null;
+		}
+	}
+
+	private void writeUnit(DataOutputStream output, IInstallableUnit resolvedIU) throws IOException {
+		IInstallableUnit iu = resolvedIU.unresolved();
+		if (iu instanceof IInstallableUnitPatch) {
+			output.writeByte(UNIT_PATCH);
+		} else if (iu instanceof IInstallableUnitFragment) {
+			output.writeByte(UNIT_FRAGMENT);
+		} else {
+			output.writeByte(UNIT);
+		}
+		writeString(output, iu.getId());
+		writeString(output, iu.getVersion().toString());
+		output.writeBoolean(iu.isSingleton());
+		if (iu instanceof IInstallableUnitPatch patch) {
+			IRequirement[][] scope = patch.getApplicabilityScope();
+			output.writeInt(scope.length);
+			for (IRequirement[] requirements : scope) {
+				writeRequirements(output, Arrays.asList(requirements));
+			}
+			List<IRequirementChange> changes = patch.getRequirementsChange();
+			output.writeInt(changes.size());
+			for (IRequirementChange change : changes) {
+				writeOptionalRequirement(output, change.applyOn());
+				writeOptionalRequirement(output, change.newValue());
+			}
+			writeOptionalRequirement(output, patch.getLifeCycle());
+		} else if (iu instanceof IInstallableUnitFragment fragment) {
+			writeRequirements(output, fragment.getHost());
+		}
+
+		IUpdateDescriptor descriptor = resolvedIU.getUpdateDescriptor();
+		output.writeBoolean(descriptor != null);
+		if (descriptor != null) {
+			Collection<IMatchExpression<IInstallableUnit>> updated = descriptor.getIUsBeingUpdated();
+			output.writeInt(updated.size());
+			for (IMatchExpression<IInstallableUnit> match : updated) {
+				if (RequiredCapability.isVersionRangeRequirement(match)) {
+					output.writeByte(MATCH_RANGE);
+					writeString(output, RequiredCapability.extractNamespace(match));
+					writeString(output, RequiredCapability.extractName(match));
+					writeString(output, RequiredCapability.extractRange(match).toString());
+				} else {
+					output.writeByte(MATCH_EXPRESSION);
+					writeMatchExpression(output, match);
+				}
+			}
+			output.writeInt(descriptor.getSeverity());
+			writeString(output, descriptor.getDescription());
+			writeString(output, descriptor.getLocation() == null ? null : descriptor.getLocation().toString());
+		}
+
+		Map<String, String> properties = iu.getProperties();
+		output.writeInt(properties.size());
+		for (Map.Entry<String, String> property : properties.entrySet()) {
+			writeString(output, property.getKey());
+			writeString(output, property.getValue());
+		}
+		writeRequirements(output, iu.getMetaRequirements());
+		Collection<IProvidedCapability> capabilities = iu.getProvidedCapabilities();
+		output.writeInt(capabilities.size());
+		for (IProvidedCapability capability : capabilities) {
+			writeCapability(output, capability);
+		}
+		writeRequirements(output, iu.getRequirements());
+		writeFilter(output, iu.getFilter());
+
+		Collection<IArtifactKey> artifacts = iu.getArtifacts();
+		output.writeInt(artifacts.size());
+		for (IArtifactKey artifact : artifacts) {
+			writeString(output, artifact.getClassifier());
+			writeString(output, artifact.getId());
+			writeString(output, artifact.getVersion().toString());
+		}
+		ITouchpointType touchpointType = iu.getTouchpointType();
+		if (touchpointType == ITouchpointType.NONE) {
+			writeString(output, null);
+			writeString(output, null);
+		} else {
+			writeString(output, touchpointType.getId());
+			writeString(output, touchpointType.getVersion().toString());
+		}
+		Collection<ITouchpointData> touchpointData = iu.getTouchpointData();
+		output.writeInt(touchpointData.size());
+		for (ITouchpointData data : touchpointData) {
+			Map<String, ITouchpointInstruction> instructions = data.getInstructions();
+			output.writeInt(instructions.size());
+			for (Map.Entry<String, ITouchpointInstruction> instruction : instructions.entrySet()) {
+				writeString(output, instruction.getKey());
+				writeString(output, instruction.getValue().getImportAttribute());
+				writeString(output, instruction.getValue().getBody());
+			}
+		}
+		List<ILicense> licenses = new ArrayList<>(iu.getLicenses());
+		licenses.removeIf(Objects::isNull);
+		output.writeInt(licenses.size());
+		for (ILicense license : licenses) {
+			writeString(output, license.getLocation() == null ? null : license.getLocation().toString());
+			writeString(output, license.getBody());
+		}
+		ICopyright copyright = iu.getCopyright();
+		output.writeBoolean(copyright != null);
+		if (copyright != null) {
+			writeString(output, copyright.getLocation() == null ? null : copyright.getLocation().toString());
+			writeString(output, copyright.getBody());
+		}
+	}
+
+	private void writeCapability(DataOutputStream output, IProvidedCapability capability) throws IOException {
+		writeString(output, capability.getNamespace());
+		writeString(output, capability.getName());
+		writeString(output, capability.getVersion().toString());
+		Map<String, Object> properties = new HashMap<>(capability.getProperties());
+		properties.remove(capability.getNamespace());
+		properties.remove(IProvidedCapability.PROPERTY_VERSION);
+		output.writeInt(properties.size());
+		for (Map.Entry<String, Object> property : properties.entrySet()) {
+			writeString(output, property.getKey());
+			if (property.getValue() instanceof Collection<?> values) {
+				output.writeByte(TYPE_LIST);
+				output.writeByte(values.isEmpty() ? TYPE_STRING : getType(values.iterator().next()));
+				output.writeInt(values.size());
+				for (Object value : values) {
+					writeString(output, String.valueOf(value));
+				}
+			} else {
+				output.writeByte(getType(property.getValue()));
+				writeString(output, String.valueOf(property.getValue()));
+			}
+		}
+	}
+
+	/**
+	 * Returns the type that a capability property is read back as, the string
+	 * form of any other value is kept.
+	 */
+	private static byte getType(Object value) {
+		if (value instanceof Integer) {
+			return TYPE_INTEGER;
+		}
+		if (value instanceof Long) {
+			return TYPE_LONG;
+		}
+		if (value instanceof Float) {
+			return TYPE_FLOAT;
+		}
+		if (value instanceof Double) {
+			return TYPE_DOUBLE;
+		}
+		if (value instanceof Byte) {
+			return TYPE_BYTE;
+		}
+		if (value instanceof Short) {
+			return TYPE_SHORT;
+		}
+		if (value instanceof Character) {
+			return TYPE_CHARACTER;
+		}
+		if (value instanceof Boolean) {
+			return TYPE_BOOLEAN;
+		}
+		if (value instanceof Version) {
+			return TYPE_VERSION;
+		}
+		return TYPE_STRING;
+	}
+
+	private void writeRequirements(DataOutputStream output, Collection<IRequirement> requirements) throws IOException {
+		output.writeInt(requirements.size());
+		for (IRequirement requirement : requirements) {
+			writeRequirement(output, requirement);
+		}
+	}
+
+	private void writeOptionalRequirement(DataOutputStream output, IRequirement requirement) throws IOException {
+		output.writeBoolean(requirement != null);
+		if (requirement != null) {
+			writeRequirement(output, requirement);
+		}
+	}
+
+	private void writeRequirement(DataOutputStream output, IRequirement requirement) throws IOException {
+		IMatchExpression<IInstallableUnit> match = requirement.getMatches();
+		if (RequiredCapability.isVersionRangeRequirement(match)) {
+			output.writeByte(MATCH_RANGE);
+			writeString(output, RequiredCapability.extractNamespace(match));
+			writeString(output, RequiredCapability.extractName(match));
+			writeString(output, RequiredCapability.extractRange(match).toString());
+		} else if (RequiredPropertiesMatch.isPropertiesMatchRequirement(match)) {
+			output.writeByte(MATCH_PROPERTIES);
+			writeString(output, RequiredPropertiesMatch.extractNamespace(match));
+			writeString(output, RequiredPropertiesMatch.extractPropertiesMatch(match).toString());
+		} else {
+			output.writeByte(MATCH_EXPRESSION);
+			writeMatchExpression(output, match);
+		}
+		output.writeInt(requirement.getMin());
+		output.writeInt(requirement.getMax());
+		output.writeBoolean(requirement.isGreedy());
+		writeFilter(output, requirement.getFilter());
+		writeString(output, requirement.getDescription());
+	}
+
+	/**
+	 * Writes the operand and the parameters of a match expression in the form
+	 * that {@link MetadataParser#createMatchExpression(String, String)} reads.
+	 */
+	private void writeMatchExpression(DataOutputStream output, IMatchExpression<IInstallableUnit> match) throws IOException {
+		writeString(output, ExpressionUtil.getOperand(match).toString());
+		Object[] params = match.getParameters();
+		if (params.length == 0) {
+			writeString(output, null);
+			return;
+		}
+		IExpressionFactory factory = ExpressionUtil.getFactory();
+		IExpression[] constants = new IExpression[params.length];
+		for (int i = 0; i < params.length; i++) {
+			constants[i] = factory.constant(params[i]);
+		}
+		writeString(output, factory.array(constants).toString());
+	}
+
+	private void writeFilter(DataOutputStream output, IMatchExpression<IInstallableUnit> filter) throws IOException {
+		writeString(output, filter == null ? null : filter.getParameters()[0].toString());
+	}
+
+	private void writeString(DataOutputStream output, String value) throws IOException {
+		output.writeInt(intern(value));
+	}
+
+	private int intern(String value) {
+		return strings.intern(value);
+	}
+}
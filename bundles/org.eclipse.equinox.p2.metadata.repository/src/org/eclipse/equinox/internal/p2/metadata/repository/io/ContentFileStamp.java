@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.repository.io;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * Identifies the state of the content file a binary file of a metadata
+ * repository was written for, by the length and modification time of the
+ * content file. A binary file is only used while the stamp it records is equal
+ * to the stamp of the current content file.
+ */
+record ContentFileStamp(long length, long lastModified) {
+
+	/**
+	 * The number of bytes a stamp occupies in a binary file.
+	 */
+	static final int SIZE = 16;
+
+	static ContentFileStamp of(File contentFile) {
+		return new ContentFileStamp(contentFile.length(), contentFile.lastModified());
+	}
+
+	static ContentFileStamp read(ByteBuffer buffer, int position) {
+		return new ContentFileStamp(buffer.getLong(position), buffer.getLong(position + 8));
+	}
+
+	void write(ByteBuffer buffer) {
+		buffer.putLong(length);
+		buffer.putLong(lastModified);
+	}
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.repository.io;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The string table shared by the binary files of a metadata repository. Each
+ * string is stored once as a length prefixed UTF-8 sequence, followed by a
+ * table with the offset of every string. Strings are referenced by their
+ * index, <code>-1</code> denotes <code>null</code>.
+ */
+final class MappedStringTable {
+
+	private final ByteBuffer buffer;
+	private final int offsetsPosition;
+	private final String[] strings;
+
+	MappedStringTable(ByteBuffer buffer, int offsetsPosition, int count) {
+		this.buffer = buffer;
+		this.offsetsPosition = offsetsPosition;
+		this.strings = new String[count];
+	}
+
+	/**
+	 * Returns whether the offset table and all strings lie within the buffer.
+	 */
+	boolean isValid() {
+		int limit = buffer.limit();
+		if (offsetsPosition < 0 || (long) offsetsPosition + 4L * strings.length > limit) {
+			return false;
+		}
+		for (int i = 0; i < strings.length; i++) {
+			int offset = buffer.getInt(offsetsPosition + i * 4);
+			if (offset < 0 || (long) offset + 4 > limit) {
+				return false;
+			}
+			int length = buffer.getInt(offset);
+			if (length < 0 || (long) offset + 4 + length > limit) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the string with the given index, decoding it on first access.
+	 */
+	String get(int index) {
+		if (index < 0) {
+			return null;
+		}
+		String result = strings[index];
+		if (result == null) {
+			int offset = buffer.getInt(offsetsPosition + index * 4);
+			byte[] bytes = new byte[buffer.getInt(offset)];
+			buffer.get(offset + 4, bytes);
+			result = new String(bytes, StandardCharsets.UTF_8).intern();
+			strings[index] = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Collects strings while a binary file is written.
+	 */
+	static final class Builder {
+		private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+		int intern(String value) {
+			if (value == null) {
+				return -1;
+			}
+			Integer index = strings.get(value);
+			if (index == null) {
+				index = strings.size();
+				strings.put(value, index);
+			}
+			return index;
+		}
+
+		int size() {
+			return strings.size();
+		}
+
+		/**
+		 * Writes the strings followed by their offsets and returns the position of
+		 * the offset table.
+		 */
+		int write(DataOutputStream output) throws IOException {
+			int[] offsets = new int[strings.size()];
+			int i = 0;
+			for (String string : strings.keySet()) {
+				byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				offsets[i++] = output.size();
+				output.writeInt(bytes.length);
+				output.write(bytes);
+			}
+			int offsetsPosition = output.size();
+			for (int offset : offsets) {
+				output.writeInt(offset);
+			}
+			return offsetsPosition;
+		}
+	}
+}
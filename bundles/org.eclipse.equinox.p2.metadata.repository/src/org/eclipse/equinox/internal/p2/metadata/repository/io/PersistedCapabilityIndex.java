@@ -0,0 +1,324 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.repository.io;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.BiFunction;
+import org.eclipse.equinox.internal.p2.metadata.index.CapabilityIndex;
+import org.eclipse.equinox.internal.p2.metadata.repository.Messages;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * A {@link CapabilityIndex} that is persisted next to the content of a
+ * repository so that it does not have to be rebuilt from all provided
+ * capabilities after every load.
+ * <p>
+ * The file records the {@link ContentFileStamp} of the content file it was
+ * computed for and is ignored once the content file changed. Capability
+ * names and namespaces are kept in sorted tables that point to lists of unit
+ * ordinals. A unit is only resolved, by id and version, when a query hits it.
+ * </p>
+ */
+public class PersistedCapabilityIndex extends CapabilityIndex {
+
+	public static final String INDEX_FILENAME = "content.p2idx"; //$NON-NLS-1$
+
+	// "P2CI"
+	private static final int MAGIC = 0x50324349;
+	private static final int FORMAT_VERSION = 2;
+	private static final int HEADER_SIZE = 64;
+	private static final int CONTENT_STAMP_POSITION = 8;
+	private static final int UNIT_ENTRY_SIZE = 8;
+	private static final int TABLE_ENTRY_SIZE = 12;
+
+	private final ByteBuffer buffer;
+	private final MappedStringTable strings;
+	private final int stringCount;
+	private final int unitTablePosition;
+	private final int nameCount;
+	private final int nameTablePosition;
+	private final int namespaceCount;
+	private final int namespaceTablePosition;
+	private final BiFunction<String, Version, IInstallableUnit> resolver;
+	private final IInstallableUnit[] resolved;
+
+	/**
+	 * Opens the index file if it was computed for the current state of the
+	 * content file.
+	 *
+	 * @param indexFile the persisted index
+	 * @param contentFile the content file the index must belong to
+	 * @param resolver looks up the unit for an id and version
+	 * @return the index or <code>null</code> if there is no index for the current content
+	 * @throws IOException if the index file exists but can not be read or is
+	 * not a valid index
+	 */
+	public static PersistedCapabilityIndex open(File indexFile, File contentFile, BiFunction<String, Version, IInstallableUnit> resolver) throws IOException {
+		if (!indexFile.isFile()) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+				throw new IOException(NLS.bind(Messages.io_invalidBinaryFormat, indexFile));
+			}
+			ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, size);
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+				throw new IOException(NLS.bind(Messages.io_invalidBinaryFormat, indexFile));
+			}
+			if (!ContentFileStamp.read(buffer, CONTENT_STAMP_POSITION).equals(ContentFileStamp.of(contentFile))) {
+				// computed for different content
+				return null;
+			}
+			int unitCount = buffer.getInt(24);
+			int stringCount = buffer.getInt(28);
+			if (unitCount < 0 || stringCount < 0 || (long) unitCount * UNIT_ENTRY_SIZE > size || 4L * stringCount > size) {
+				throw new IOException(NLS.bind(Messages.io_invalidBinaryFormat, indexFile));
+			}
+			PersistedCapabilityIndex index = new PersistedCapabilityIndex(buffer, resolver);
+			if (!index.isValid()) {
+				throw new IOException(NLS.bind(Messages.io_invalidBinaryFormat, indexFile));
+			}
+			return index;
+		}
+	}
+
+	private PersistedCapabilityIndex(ByteBuffer buffer, BiFunction<String, Version, IInstallableUnit> resolver) {
+		this.buffer = buffer;
+		this.resolver = resolver;
+		int unitCount = buffer.getInt(24);
+		stringCount = buffer.getInt(28);
+		strings = new MappedStringTable(buffer, buffer.getInt(32), stringCount);
+		unitTablePosition = buffer.getInt(36);
+		nameCount = buffer.getInt(40);
+		nameTablePosition = buffer.getInt(44);
+		namespaceCount = buffer.getInt(48);
+		namespaceTablePosition = buffer.getInt(52);
+		resolved = new IInstallableUnit[unitCount];
+	}
+
+	/**
+	 * Checks every offset, count, string reference and unit ordinal against the
+	 * size of the file, so that queries never read outside of it.
+	 */
+	private boolean isValid() {
+		if (!strings.isValid() || !isSection(unitTablePosition, resolved.length, UNIT_ENTRY_SIZE)) {
+			return false;
+		}
+		for (int i = 0; i < resolved.length; i++) {
+			int entryPosition = unitTablePosition + i * UNIT_ENTRY_SIZE;
+			if (!isString(buffer.getInt(entryPosition)) || !isString(buffer.getInt(entryPosition + 4))) {
+				return false;
+			}
+		}
+		return isValidTable(nameTablePosition, nameCount) && isValidTable(namespaceTablePosition, namespaceCount);
+	}
+
+	private boolean isValidTable(int tablePosition, int count) {
+		if (!isSection(tablePosition, count, TABLE_ENTRY_SIZE)) {
+			return false;
+		}
+		for (int entry = 0; entry < count; entry++) {
+			int entryPosition = tablePosition + entry * TABLE_ENTRY_SIZE;
+			int postingsPosition = buffer.getInt(entryPosition + 4);
+			int postingsCount = buffer.getInt(entryPosition + 8);
+			if (!isString(buffer.getInt(entryPosition)) || !isSection(postingsPosition, postingsCount, 4)) {
+				return false;
+			}
+			for (int i = 0; i < postingsCount; i++) {
+				int ordinal = buffer.getInt(postingsPosition + i * 4);
+				if (ordinal < 0 || ordinal >= resolved.length) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private boolean isSection(int position, int count, int entrySize) {
+		return position >= HEADER_SIZE && count >= 0 && (long) position + (long) count * entrySize <= buffer.limit();
+	}
+
+	private boolean isString(int index) {
+		return index >= 0 && index < stringCount;
+	}
+
+	@Override
+	protected Collection<IInstallableUnit> getMatchingIUs(boolean namespace, String key) {
+		Collection<IInstallableUnit> result = new ArrayList<>();
+		collectMatchingIUs(namespace, key, result);
+		return result;
+	}
+
+	@Override
+	protected synchronized void collectMatchingIUs(boolean namespace, String key, Collection<IInstallableUnit> collector) {
+		int tablePosition = namespace ? namespaceTablePosition : nameTablePosition;
+		int entry = find(tablePosition, namespace ? namespaceCount : nameCount, key);
+		if (entry < 0) {
+			return;
+		}
+		int entryPosition = tablePosition + entry * TABLE_ENTRY_SIZE;
+		int postingsPosition = buffer.getInt(entryPosition + 4);
+		int postingsCount = buffer.getInt(entryPosition + 8);
+		for (int i = 0; i < postingsCount; i++) {
+			IInstallableUnit unit = getUnit(buffer.getInt(postingsPosition + i * 4));
+			if (unit != null) {
+				collector.add(unit);
+			}
+		}
+	}
+
+	private int find(int tablePosition, int count, String key) {
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = strings.get(buffer.getInt(tablePosition + mid * TABLE_ENTRY_SIZE)).compareTo(key);
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	private IInstallableUnit getUnit(int ordinal) {
+		IInstallableUnit unit = resolved[ordinal];
+		if (unit == null) {
+			String id = strings.get(buffer.getInt(unitTablePosition + ordinal * 8));
+			Version version = Version.create(strings.get(buffer.getInt(unitTablePosition + ordinal * 8 + 4)));
+			unit = resolver.apply(id, version);
+			resolved[ordinal] = unit;
+		}
+		return unit;
+	}
+
+	/**
+	 * Computes the capability index of the given units and writes it for the
+	 * current state of the content file.
+	 */
+	public static void write(Iterator<IInstallableUnit> units, File contentFile, File target) throws IOException {
+		ContentFileStamp contentStamp = ContentFileStamp.of(contentFile);
+		MappedStringTable.Builder strings = new MappedStringTable.Builder();
+		List<int[]> unitTable = new ArrayList<>();
+		Map<String, List<Integer>> names = new TreeMap<>();
+		Map<String, List<Integer>> namespaces = new TreeMap<>();
+		while (units.hasNext()) {
+			IInstallableUnit unit = units.next();
+			Integer ordinal = unitTable.size();
+			unitTable.add(new int[] {strings.intern(unit.getId()), strings.intern(unit.getVersion().toString())});
+			for (IProvidedCapability capability : unit.getProvidedCapabilities()) {
+				addPosting(names, capability.getName(), ordinal);
+				addPosting(namespaces, capability.getNamespace(), ordinal);
+			}
+		}
+		int[] nameStrings = internAll(strings, names.keySet());
+		int[] namespaceStrings = internAll(strings, namespaces.keySet());
+
+		File tempFile = File.createTempFile(target.getName(), ".tmp", target.getAbsoluteFile().getParentFile()); //$NON-NLS-1$
+		try {
+			try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 65536));
+				output.write(new byte[HEADER_SIZE]);
+				int stringOffsetsPosition = strings.write(output);
+				int unitTablePosition = output.size();
+				for (int[] unit : unitTable) {
+					output.writeInt(unit[0]);
+					output.writeInt(unit[1]);
+				}
+				int[] namePostings = writePostings(output, names.values());
+				int[] namespacePostings = writePostings(output, namespaces.values());
+				int nameTablePosition = writeTable(output, names.values(), nameStrings, namePostings);
+				int namespaceTablePosition = writeTable(output, namespaces.values(), namespaceStrings, namespacePostings);
+				output.flush();
+				if (output.size() == Integer.MAX_VALUE) {
+					// DataOutputStream saturates its counter, offsets are no longer valid
+					throw new IOException("Capability index exceeds the maximum supported size: " + target); //$NON-NLS-1$
+				}
+
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(MAGIC);
+				header.putInt(FORMAT_VERSION);
+				contentStamp.write(header);
+				header.putInt(unitTable.size());
+				header.putInt(strings.size());
+				header.putInt(stringOffsetsPosition);
+				header.putInt(unitTablePosition);
+				header.putInt(names.size());
+				header.putInt(nameTablePosition);
+				header.putInt(namespaces.size());
+				header.putInt(namespaceTablePosition);
+				header.rewind();
+				channel.position(0);
+				while (header.hasRemaining()) {
+					channel.write(header);
+				}
+			}
+			Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			tempFile.delete();
+		}
+	}
+
+	private static void addPosting(Map<String, List<Integer>> postings, String key, Integer ordinal) {
+		List<Integer> ordinals = postings.computeIfAbsent(key, k -> new ArrayList<>(1));
+		// a unit may provide several capabilities with the same name
+		if (ordinals.isEmpty() || !ordinals.get(ordinals.size() - 1).equals(ordinal)) {
+			ordinals.add(ordinal);
+		}
+	}
+
+	private static int[] internAll(MappedStringTable.Builder strings, Collection<String> keys) {
+		int[] result = new int[keys.size()];
+		int i = 0;
+		for (String key : keys) {
+			result[i++] = strings.intern(key);
+		}
+		return result;
+	}
+
+	private static int[] writePostings(DataOutputStream output, Collection<List<Integer>> postings) throws IOException {
+		int[] positions = new int[postings.size()];
+		int i = 0;
+		for (List<Integer> ordinals : postings) {
+			positions[i++] = output.size();
+			for (Integer ordinal : ordinals) {
+				output.writeInt(ordinal);
+			}
+		}
+		return positions;
+	}
+
+	private static int writeTable(DataOutputStream output, Collection<List<Integer>> postings, int[] keyStrings, int[] postingPositions) throws IOException {
+		int tablePosition = output.size();
+		int i = 0;
+		for (List<Integer> ordinals : postings) {
+			output.writeInt(keyStrings[i]);
+			output.writeInt(postingPositions[i]);
+			output.writeInt(ordinals.size());
+			i++;
+		}
+		return tablePosition;
+	}
+}
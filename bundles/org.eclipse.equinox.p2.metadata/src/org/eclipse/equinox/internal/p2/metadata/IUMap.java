@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2018 IBM Corporation and others.
+ * Copyright (c) 2009, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -33,6 +33,9 @@ import org.eclipse.equinox.p2.query.QueryUtil;
 
 /**
  * A map that stores {@link IInstallableUnit} instances in a way that is efficient to query
+ * <p>
+ * The units with the same id are kept in the order in which they were added.
+ * </p>
  */
 public class IUMap implements Cloneable {
 	/**
@@ -106,18 +109,26 @@ public class IUMap implements Cloneable {
 	 */
 	final Map<String, Object> units = new HashMap<>();
 
+	/**
+	 * Replaced every time the units in the map change, shared with clones until
+	 * either of them changes.
+	 */
+	private Object contentStamp = new Object();
+
 	public IUMap() {
 		//
 	}
 
 	private IUMap(IUMap cloneSource) {
 		units.putAll(cloneSource.units);
+		contentStamp = cloneSource.contentStamp;
 	}
 
 	public void add(IInstallableUnit unit) {
 		String key = unit.getId();
 		Object matching = units.get(key);
 		if (matching == null) {
+			contentStamp = new Object();
 			units.put(key, unit);
 			return;
 		}
@@ -138,10 +149,12 @@ public class IUMap implements Cloneable {
 			IInstallableUnit[] iuArrPlus = new IInstallableUnit[iuArr.length + 1];
 			System.arraycopy(iuArr, 0, iuArrPlus, 0, iuArr.length);
 			iuArrPlus[iuArr.length] = unit;
+			contentStamp = new Object();
 			units.put(unit.getId(), iuArrPlus);
 		} else {
 			IInstallableUnit old = (IInstallableUnit) matching;
 			if (!old.equals(unit)) {
+				contentStamp = new Object();
 				units.put(key, new IInstallableUnit[] {old, unit});
 			}
 		}
@@ -160,9 +173,19 @@ public class IUMap implements Cloneable {
 	}
 
 	public void clear() {
+		contentStamp = new Object();
 		units.clear();
 	}
 
+	/**
+	 * Returns a stamp of the units in this map, see
+	 * {@link org.eclipse.equinox.internal.p2.metadata.index.IContentStampProvider}.
+	 * A clone has the same stamp until either map changes.
+	 */
+	public Object getContentStamp() {
+		return contentStamp;
+	}
+
 	@Override
 	public IUMap clone() {
 		return new IUMap(this);
@@ -220,6 +243,7 @@ public class IUMap implements Cloneable {
 
 		if (matching instanceof IInstallableUnit) {
 			if (matching.equals(unit)) {
+				contentStamp = new Object();
 				units.remove(key);
 			}
 			return;
@@ -229,6 +253,7 @@ public class IUMap implements Cloneable {
 		int idx = array.length;
 		while (--idx >= 0) {
 			if (unit.equals(array[idx])) {
+				contentStamp = new Object();
 				if (array.length == 2) {
 					// We no longer need this array. Replace it with the
 					// entry that we keep.
@@ -268,6 +293,7 @@ public class IUMap implements Cloneable {
 			return;
 		}
 
+		contentStamp = new Object();
 		Iterator<Entry<String, Object>> entries = units.entrySet().iterator();
 		while (entries.hasNext()) {
 			Entry<String, Object> entry = entries.next();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2007, 2023 IBM Corporation and others.
+ *  Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -17,12 +17,12 @@ package org.eclipse.equinox.internal.p2.metadata;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import org.eclipse.equinox.internal.p2.core.helpers.CollectionUtils;
 import org.eclipse.equinox.internal.p2.core.helpers.OrderedProperties;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionFactory;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
 import org.eclipse.equinox.p2.metadata.ICopyright;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
@@ -42,13 +42,6 @@ import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
 import org.eclipse.equinox.p2.metadata.expression.IMemberProvider;
 
 public class InstallableUnit implements IInstallableUnit, IMemberProvider {
-	private static final Map<IFilterExpression, IMatchExpression<IInstallableUnit>> filterCache = new LinkedHashMap<>() {
-		@Override
-		public boolean removeEldestEntry(Map.Entry<IFilterExpression, IMatchExpression<IInstallableUnit>> expr) {
-			return size() > 64;
-		}
-	};
-
 	private static final OrderedProperties NO_PROPERTIES = new OrderedProperties();
 	private static final IProvidedCapability[] NO_PROVIDES = new IProvidedCapability[0];
 	private static final IRequirement[] NO_REQUIRES = new IRequirement[0];
@@ -256,15 +249,8 @@ public class InstallableUnit implements IInstallableUnit, IMemberProvider {
 		if (filter == null) {
 			return null;
 		}
-		synchronized (filterCache) {
-			IMatchExpression<IInstallableUnit> matchExpr = filterCache.get(filter);
-			if (matchExpr != null) {
-				return matchExpr;
-			}
-			matchExpr = ExpressionUtil.getFactory().matchExpression(filterWrap, filter);
-			filterCache.put(filter, matchExpr);
-			return matchExpr;
-		}
+		// all units with an equal filter share one match expression
+		return ExpressionFactory.intern(ExpressionUtil.getFactory().matchExpression(filterWrap, filter));
 	}
 
 	/*
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2007, 2023 IBM Corporation and others.
+ *  Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -15,6 +15,7 @@
 package org.eclipse.equinox.internal.p2.metadata;
 
 import java.util.Objects;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionFactory;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.IProvidedCapability;
 import org.eclipse.equinox.p2.metadata.IRequirement;
@@ -57,8 +58,8 @@ public class Requirement implements IRequirement, IMemberProvider {
 
 	public Requirement(IMatchExpression<IInstallableUnit> requirement, IMatchExpression<IInstallableUnit> filter,
 			int min, int max, boolean greedy, String description) {
-		this.matchExpression = requirement;
-		this.filter = filter;
+		this.matchExpression = ExpressionFactory.intern(requirement);
+		this.filter = ExpressionFactory.intern(filter);
 		this.min = min;
 		this.max = max;
 		this.greedy = greedy;
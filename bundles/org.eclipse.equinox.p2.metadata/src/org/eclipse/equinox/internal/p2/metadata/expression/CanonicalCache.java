@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.expression;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread safe cache that hands out one canonical value per key.
+ * <p>
+ * Repositories repeat the same filters and requirements for many units.
+ * Parsing them once and sharing the resulting expressions saves both the time
+ * to create them and the memory to retain them. Lookups do not lock, so
+ * threads reading metadata in parallel do not contend on the cache. Once the
+ * cache holds more than its maximum number of entries, arbitrary entries are
+ * evicted. An evicted value stays valid, it is just no longer shared with
+ * values created afterwards.
+ * </p>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the canonical values
+ */
+public final class CanonicalCache<K, V> {
+	private final int maxSize;
+	private final ConcurrentHashMap<K, V> entries = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Creates a cache holding at most <code>maxSize</code> entries. A cache with a
+	 * maximum size of zero or less never retains anything.
+	 */
+	public CanonicalCache(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the canonical value for the given key or <code>null</code> if
+	 * there is none.
+	 */
+	public V get(K key) {
+		V value = entries.get(key);
+		if (value == null) {
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return value;
+	}
+
+	/**
+	 * Makes the given value the canonical value of the key unless the key
+	 * already has one.
+	 *
+	 * @return the canonical value of the key
+	 */
+	public V putIfAbsent(K key, V value) {
+		if (maxSize <= 0) {
+			return value;
+		}
+		V canonical = entries.putIfAbsent(key, value);
+		if (canonical != null) {
+			return canonical;
+		}
+		if (entries.size() > maxSize) {
+			evict();
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the canonical instance of a value that is its own key. The value
+	 * itself becomes the canonical instance if there is no equal value in the
+	 * cache yet.
+	 */
+	@SuppressWarnings("unchecked")
+	public V intern(V value) {
+		V canonical = entries.get(value);
+		if (canonical != null) {
+			hits.increment();
+			return canonical;
+		}
+		misses.increment();
+		return putIfAbsent((K) value, value);
+	}
+
+	private void evict() {
+		Iterator<K> keys = entries.keySet().iterator();
+		while (entries.size() > maxSize && keys.hasNext()) {
+			keys.next();
+			keys.remove();
+			evictions.increment();
+		}
+	}
+
+	/**
+	 * Returns the number of lookups that found a canonical value.
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of lookups that did not find a canonical value.
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the number of entries that were evicted to stay within the size limit.
+	 */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Returns the number of entries in the cache.
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the maximum number of entries in the cache.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Removes all entries and resets the statistics.
+	 */
+	public void clear() {
+		entries.clear();
+		hits.reset();
+		misses.reset();
+		evictions.reset();
+	}
+}
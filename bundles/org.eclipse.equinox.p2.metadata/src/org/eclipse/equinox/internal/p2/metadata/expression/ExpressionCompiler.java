@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.expression;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Compiles boolean expressions into trees of small evaluators that do not
+ * need an {@link org.eclipse.equinox.p2.metadata.expression.IEvaluationContext
+ * evaluation context}.
+ * <p>
+ * The tree walking {@link Expression#evaluate} passes every intermediate
+ * result as an object, so each comparison boxes its outcome and each variable
+ * is looked up in the context. The compiled form binds the parameters as
+ * constants, passes the candidate and the current lambda item as arguments
+ * and returns primitive booleans. The comparisons themselves are delegated to
+ * the same code that the expressions use, so both forms agree. The only
+ * exception are filters compiled for maps, which do not report keys that
+ * differ in case only as an error.
+ * </p>
+ * <p>
+ * Only the expressions found in filters and requirement matches are
+ * supported: the boolean operators, the comparison operators, matches,
+ * member access on <code>this</code> or on the item of a lambda, literals,
+ * parameters and <code>exists</code> or <code>all</code> with a simple
+ * lambda. {@link #compile(Expression, Object[])} returns <code>null</code>
+ * for anything else and the expression must then be evaluated as usual.
+ * </p>
+ */
+public final class ExpressionCompiler {
+
+	/**
+	 * A compiled boolean expression.
+	 */
+	@FunctionalInterface
+	public interface CompiledPredicate {
+		/**
+		 * Evaluates the expression.
+		 *
+		 * @param self the value of the <code>this</code> variable
+		 * @param item the value of the item variable of the enclosing lambda, if any
+		 * @return the outcome of the expression
+		 */
+		boolean test(Object self, Object item);
+	}
+
+	@FunctionalInterface
+	interface CompiledValue {
+		Object get(Object self, Object item);
+	}
+
+	/**
+	 * Marks an expression that could not be compiled, so that the attempt is
+	 * not repeated.
+	 */
+	static final CompiledPredicate NOT_COMPILABLE = (self, item) -> {
+		throw new IllegalStateException();
+	};
+
+	private final Object[] parameters;
+	private final Variable itemVariable;
+	private final boolean mapAttributes;
+
+	private ExpressionCompiler(Object[] parameters, Variable itemVariable, boolean mapAttributes) {
+		this.parameters = parameters;
+		this.itemVariable = itemVariable;
+		this.mapAttributes = mapAttributes;
+	}
+
+	/**
+	 * Compiles the given boolean expression.
+	 *
+	 * @param expression the expression to compile
+	 * @param parameters the parameters that the expression is evaluated with, may be <code>null</code>
+	 * @return the compiled expression or <code>null</code> if the expression
+	 *         contains constructs that can not be compiled
+	 */
+	public static CompiledPredicate compile(Expression expression, Object[] parameters) {
+		return new ExpressionCompiler(parameters == null ? new Object[0] : parameters, null, false).predicate(expression);
+	}
+
+	/**
+	 * Compiles the operand of an LDAP filter so that it can be evaluated
+	 * directly against a {@link Map}. The attributes are looked up ignoring
+	 * their case, like the {@link MemberProvider} created for a map does, but
+	 * without copying the map for every match.
+	 *
+	 * @param expression the operand of the filter
+	 * @return the compiled filter that expects a map as <code>this</code>, or
+	 *         <code>null</code> if the filter can not be compiled
+	 */
+	static CompiledPredicate compileMapFilter(Expression expression) {
+		return new ExpressionCompiler(new Object[0], null, true).predicate(expression);
+	}
+
+	static Object getIgnoreCase(Map<?, ?> map, String lowerCaseKey) {
+		Object value = map.get(lowerCaseKey);
+		if (value != null) {
+			return value;
+		}
+		for (Map.Entry<?, ?> entry : map.entrySet()) {
+			if (entry.getKey() instanceof String key && key.toLowerCase().equals(lowerCaseKey)) {
+				return entry.getValue();
+			}
+		}
+		return null;
+	}
+
+	private CompiledPredicate predicate(Expression expression) {
+		if (expression instanceof And and) {
+			CompiledPredicate[] operands = predicates(and.operands);
+			if (operands == null) {
+				return null;
+			}
+			if (operands.length == 2) {
+				CompiledPredicate first = operands[0];
+				CompiledPredicate second = operands[1];
+				return (self, item) -> first.test(self, item) && second.test(self, item);
+			}
+			return (self, item) -> {
+				for (CompiledPredicate operand : operands) {
+					if (!operand.test(self, item)) {
+						return false;
+					}
+				}
+				return true;
+			};
+		}
+		if (expression instanceof Or or) {
+			CompiledPredicate[] operands = predicates(or.operands);
+			if (operands == null) {
+				return null;
+			}
+			if (operands.length == 2) {
+				CompiledPredicate first = operands[0];
+				CompiledPredicate second = operands[1];
+				return (self, item) -> first.test(self, item) || second.test(self, item);
+			}
+			return (self, item) -> {
+				for (CompiledPredicate operand : operands) {
+					if (operand.test(self, item)) {
+						return true;
+					}
+				}
+				return false;
+			};
+		}
+		if (expression instanceof Not not) {
+			CompiledPredicate operand = predicate(not.operand);
+			return operand == null ? null : (self, item) -> !operand.test(self, item);
+		}
+		if (expression instanceof Equals equals) {
+			CompiledValue lhs = value(equals.lhs);
+			CompiledValue rhs = value(equals.rhs);
+			if (lhs == null || rhs == null) {
+				return null;
+			}
+			return (self, item) -> equals.test(lhs.get(self, item), rhs.get(self, item));
+		}
+		if (expression instanceof Compare compare) {
+			CompiledValue lhs = value(compare.lhs);
+			CompiledValue rhs = value(compare.rhs);
+			if (lhs == null || rhs == null) {
+				return null;
+			}
+			return (self, item) -> compare.test(lhs.get(self, item), rhs.get(self, item));
+		}
+		if (expression.getClass() == Matches.class) {
+			Matches matches = (Matches) expression;
+			CompiledValue lhs = value(matches.lhs);
+			CompiledValue rhs = value(matches.rhs);
+			if (lhs == null || rhs == null) {
+				return null;
+			}
+			return (self, item) -> matches.match(lhs.get(self, item), rhs.get(self, item));
+		}
+		if (expression instanceof Exists || expression instanceof All) {
+			return collectionFilter((CollectionFilter) expression, expression instanceof Exists);
+		}
+		if (expression instanceof Literal literal) {
+			boolean value = literal.value == Boolean.TRUE;
+			return (self, item) -> value;
+		}
+		CompiledValue value = value(expression);
+		return value == null ? null : (self, item) -> value.get(self, item) == Boolean.TRUE;
+	}
+
+	private CompiledPredicate[] predicates(Expression[] expressions) {
+		CompiledPredicate[] result = new CompiledPredicate[expressions.length];
+		for (int i = 0; i < expressions.length; i++) {
+			result[i] = predicate(expressions[i]);
+			if (result[i] == null) {
+				return null;
+			}
+		}
+		return result;
+	}
+
+	private CompiledPredicate collectionFilter(CollectionFilter filter, boolean exists) {
+		if (filter.lambda.getClass() != LambdaExpression.class) {
+			return null;
+		}
+		CompiledValue collection = value(filter.operand);
+		if (collection == null) {
+			return null;
+		}
+		CompiledPredicate body = new ExpressionCompiler(parameters, filter.lambda.getItemVariable(), mapAttributes).predicate(filter.lambda.operand);
+		if (body == null) {
+			return null;
+		}
+		// exists stops at the first match, all at the first mismatch
+		return (self, item) -> {
+			Object elements = collection.get(self, item);
+			if (elements instanceof Object[] array) {
+				for (Object element : array) {
+					if (body.test(self, element) == exists) {
+						return exists;
+					}
+				}
+			} else if (elements instanceof Collection<?> elementCollection) {
+				for (Object element : elementCollection) {
+					if (body.test(self, element) == exists) {
+						return exists;
+					}
+				}
+			} else {
+				for (Iterator<?> iterator = RepeatableIterator.create(elements); iterator.hasNext();) {
+					if (body.test(self, iterator.next()) == exists) {
+						return exists;
+					}
+				}
+			}
+			return !exists;
+		};
+	}
+
+	private CompiledValue value(Expression expression) {
+		if (expression instanceof Literal literal) {
+			Object value = literal.value;
+			return (self, item) -> value;
+		}
+		if (expression instanceof Parameter parameter) {
+			if (parameter.position < 0 || parameter.position >= parameters.length) {
+				return null;
+			}
+			Object value = parameters[parameter.position];
+			return (self, item) -> value;
+		}
+		if (expression instanceof Member.DynamicMember member && mapAttributes && member.operand == ExpressionFactory.THIS) {
+			String key = member.name.toLowerCase();
+			return (self, item) -> getIgnoreCase((Map<?, ?>) self, key);
+		}
+		if (expression == ExpressionFactory.THIS && !mapAttributes) {
+			return (self, item) -> self;
+		}
+		if (itemVariable != null && expression == itemVariable) {
+			return (self, item) -> item;
+		}
+		if (expression instanceof Member.DynamicMember member) {
+			CompiledValue target = value(member.operand);
+			return target == null ? null : (self, item) -> member.invoke(target.get(self, item));
+		}
+		if (expression instanceof And || expression instanceof Or || expression instanceof Not || expression instanceof Equals || expression instanceof Compare || expression.getClass() == Matches.class || expression instanceof Exists || expression instanceof All) {
+			CompiledPredicate predicate = predicate(expression);
+			return predicate == null ? null : (self, item) -> Boolean.valueOf(predicate.test(self, item));
+		}
+		return null;
+	}
+}
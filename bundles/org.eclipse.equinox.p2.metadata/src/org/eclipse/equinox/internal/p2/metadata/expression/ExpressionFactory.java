@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Cloudsmith Inc. and others.
+ * Copyright (c) 2011, 2026 Cloudsmith Inc. and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -19,6 +19,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.VersionRange;
 import org.eclipse.equinox.p2.metadata.expression.IContextExpression;
 import org.eclipse.equinox.p2.metadata.expression.IEvaluationContext;
 import org.eclipse.equinox.p2.metadata.expression.IExpression;
@@ -34,6 +36,14 @@ public class ExpressionFactory implements IExpressionFactory, IExpressionConstan
 
 	public static final Variable THIS = new Variable(VARIABLE_THIS);
 
+	/**
+	 * The name of a system property specifying the maximum number of match
+	 * expressions that are shared between equal requirements and filters.
+	 */
+	public static final String PROP_MATCH_CACHE_SIZE = "eclipse.p2.expression.matchCacheSize"; //$NON-NLS-1$
+
+	private static final CanonicalCache<MatchExpression<?>, MatchExpression<?>> matchCache = new CanonicalCache<>(Integer.getInteger(PROP_MATCH_CACHE_SIZE, 8192).intValue());
+
 	static {
 		Class<?>[] args = new Class[] {Expression[].class};
 		Map<String, Constructor<?>> f = new HashMap<>();
@@ -260,6 +270,43 @@ public class ExpressionFactory implements IExpressionFactory, IExpressionConstan
 		return new MatchExpression<>((Expression) expression, parameters);
 	}
 
+	/**
+	 * Returns the shared instance of a match expression that is equal to the given
+	 * one. This only pays off for expressions that many units retain, such as the
+	 * matches of requirements and the filters of units, so queries are not
+	 * shared.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> IMatchExpression<T> intern(IMatchExpression<T> expression) {
+		if (!(expression instanceof MatchExpression<?>) || !isImmutable(expression.getParameters())) {
+			return expression;
+		}
+		return (IMatchExpression<T>) matchCache.intern((MatchExpression<?>) expression);
+	}
+
+	/**
+	 * Returns the cache that makes equal match expressions share one instance.
+	 */
+	public static CanonicalCache<MatchExpression<?>, MatchExpression<?>> getMatchExpressionCache() {
+		return matchCache;
+	}
+
+	/**
+	 * Only match expressions whose parameters can not change are shared, anything
+	 * else could be modified by the caller after the expression was handed out.
+	 */
+	private static boolean isImmutable(Object[] parameters) {
+		if (parameters == null) {
+			return true;
+		}
+		for (Object parameter : parameters) {
+			if (!(parameter == null || parameter instanceof String || parameter instanceof Version || parameter instanceof VersionRange || parameter instanceof Expression || parameter instanceof Boolean || parameter instanceof Integer || parameter instanceof Long)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public IExpression member(IExpression target, String name) {
 		if ("empty".equals(name)) { //$NON-NLS-1$
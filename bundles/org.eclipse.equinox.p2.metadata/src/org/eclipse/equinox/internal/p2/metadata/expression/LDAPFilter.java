@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2017 Cloudsmith Inc. and others.
+ * Copyright (c) 2010, 2026 Cloudsmith Inc. and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,12 +16,16 @@ package org.eclipse.equinox.internal.p2.metadata.expression;
 
 import java.util.Dictionary;
 import java.util.Map;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionCompiler.CompiledPredicate;
 import org.eclipse.equinox.p2.metadata.expression.*;
 import org.osgi.framework.Filter;
 import org.osgi.framework.ServiceReference;
 
 public class LDAPFilter extends Unary implements IFilterExpression {
 
+	private CompiledPredicate compiled;
+	private CompiledPredicate compiledMapFilter;
+
 	LDAPFilter(Expression expression) {
 		super(expression);
 	}
@@ -53,7 +57,7 @@ public class LDAPFilter extends Unary implements IFilterExpression {
 
 	@Override
 	public boolean match(Map<String, ? extends Object> map) {
-		return isMatch(MemberProvider.create(map, true));
+		return isMatchIgnoreCase(map);
 	}
 
 	@Override
@@ -63,12 +67,49 @@ public class LDAPFilter extends Unary implements IFilterExpression {
 	}
 
 	public boolean isMatch(Object candidate) {
+		CompiledPredicate predicate = getCompiledPredicate();
+		if (predicate != null) {
+			return predicate.test(candidate, null);
+		}
 		Variable self = ExpressionFactory.THIS;
 		IEvaluationContext ctx = EvaluationContext.create(self);
 		self.setValue(ctx, candidate);
 		return Boolean.TRUE == operand.evaluate(ctx);
 	}
 
+	/**
+	 * Matches the given map, dictionary or service reference ignoring the case
+	 * of the attribute names. Maps are matched without creating a lower case
+	 * copy of their keys.
+	 */
+	boolean isMatchIgnoreCase(Object value) {
+		if (value instanceof Map<?, ?>) {
+			CompiledPredicate predicate = getCompiledMapFilter();
+			if (predicate != null) {
+				return predicate.test(value, null);
+			}
+		}
+		return isMatch(MemberProvider.create(value, true));
+	}
+
+	private CompiledPredicate getCompiledMapFilter() {
+		CompiledPredicate predicate = compiledMapFilter;
+		if (predicate == null) {
+			predicate = ExpressionCompiler.compileMapFilter(operand);
+			compiledMapFilter = predicate == null ? ExpressionCompiler.NOT_COMPILABLE : predicate;
+		}
+		return predicate == ExpressionCompiler.NOT_COMPILABLE ? null : predicate;
+	}
+
+	private CompiledPredicate getCompiledPredicate() {
+		CompiledPredicate predicate = compiled;
+		if (predicate == null) {
+			predicate = ExpressionCompiler.compile(operand, null);
+			compiled = predicate == null ? ExpressionCompiler.NOT_COMPILABLE : predicate;
+		}
+		return predicate == ExpressionCompiler.NOT_COMPILABLE ? null : predicate;
+	}
+
 	@Override
 	public boolean match(ServiceReference<?> reference) {
 		return isMatch(reference == null ? MemberProvider.emptyProvider() : MemberProvider.create(reference, true));
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2017 Cloudsmith Inc. and others.
+ * Copyright (c) 2009, 2026 Cloudsmith Inc. and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -104,7 +104,7 @@ public final class Literal extends Expression {
 
 	@Override
 	public int hashCode() {
-		return 31 + value.hashCode();
+		return 31 + (value == null ? 0 : value.hashCode());
 	}
 
 	@Override
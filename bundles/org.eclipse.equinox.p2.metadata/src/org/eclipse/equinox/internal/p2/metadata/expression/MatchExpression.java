@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2017 Cloudsmith Inc. and others.
+ * Copyright (c) 2009, 2026 Cloudsmith Inc. and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,6 +15,7 @@ package org.eclipse.equinox.internal.p2.metadata.expression;
 
 import java.util.Arrays;
 import org.eclipse.equinox.internal.p2.core.helpers.CollectionUtils;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionCompiler.CompiledPredicate;
 import org.eclipse.equinox.p2.metadata.expression.*;
 
 /**
@@ -25,6 +26,7 @@ import org.eclipse.equinox.p2.metadata.expression.*;
 public class MatchExpression<T> extends Unary implements IMatchExpression<T> {
 	private static final Object[] noParams = new Object[0];
 	private final Object[] parameters;
+	private CompiledPredicate compiled;
 
 	MatchExpression(Expression expression, Object[] parameters) {
 		super(expression);
@@ -92,7 +94,22 @@ public class MatchExpression<T> extends Unary implements IMatchExpression<T> {
 
 	@Override
 	public boolean isMatch(T value) {
-		return isMatch(createContext(), value);
+		CompiledPredicate predicate = getCompiledPredicate();
+		return predicate != null ? predicate.test(value, null) : isMatch(createContext(), value);
+	}
+
+	/**
+	 * Returns the compiled form of the predicate, compiling it on first use.
+	 * Since no context is passed in, it can be used whenever the match is
+	 * evaluated against the parameters of this expression.
+	 */
+	private CompiledPredicate getCompiledPredicate() {
+		CompiledPredicate predicate = compiled;
+		if (predicate == null) {
+			predicate = ExpressionCompiler.compile(operand, parameters);
+			compiled = predicate == null ? ExpressionCompiler.NOT_COMPILABLE : predicate;
+		}
+		return predicate == ExpressionCompiler.NOT_COMPILABLE ? null : predicate;
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2017 Cloudsmith Inc. and others.
+ * Copyright (c) 2010, 2026 Cloudsmith Inc. and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -98,7 +98,7 @@ public class Matches extends Binary {
 				return ((SimplePattern) rval).isMatch(lval.toString());
 			}
 		} else if (rval instanceof LDAPFilter) {
-			return ((LDAPFilter) rval).isMatch(MemberProvider.create(lval, true));
+			return ((LDAPFilter) rval).isMatchIgnoreCase(lval);
 		} else if (rval instanceof Filter) {
 			if (lval instanceof IInstallableUnit) {
 				return Boolean
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2018 Cloudsmith Inc. and others.
+ * Copyright (c) 2010, 2026 Cloudsmith Inc. and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,10 +14,8 @@
 package org.eclipse.equinox.internal.p2.metadata.expression.parser;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
 import org.eclipse.equinox.internal.p2.metadata.Messages;
+import org.eclipse.equinox.internal.p2.metadata.expression.CanonicalCache;
 import org.eclipse.equinox.internal.p2.metadata.expression.IExpressionConstants;
 import org.eclipse.equinox.internal.p2.metadata.expression.LDAPApproximation;
 import org.eclipse.equinox.p2.metadata.expression.ExpressionParseException;
@@ -32,12 +30,13 @@ import org.eclipse.osgi.util.NLS;
  * objects rooted at the parent.
  */
 public class LDAPFilterParser {
-	private static final Map<String, IFilterExpression> filterCache = Collections.synchronizedMap(new LinkedHashMap<String, IFilterExpression>() {
-		@Override
-		public boolean removeEldestEntry(Map.Entry<String, IFilterExpression> expr) {
-			return size() > 64;
-		}
-	});
+	/**
+	 * The name of a system property specifying the maximum number of parsed
+	 * filters that are kept for reuse.
+	 */
+	public static final String PROP_FILTER_CACHE_SIZE = "eclipse.p2.expression.filterCacheSize"; //$NON-NLS-1$
+
+	private static final CanonicalCache<String, IFilterExpression> filterCache = new CanonicalCache<>(Integer.getInteger(PROP_FILTER_CACHE_SIZE, 4096).intValue());
 
 	private final IExpressionFactory factory;
 
@@ -55,6 +54,13 @@ public class LDAPFilterParser {
 		position = 0;
 	}
 
+	/**
+	 * Returns the cache that makes equal filter strings share one parsed filter.
+	 */
+	public static CanonicalCache<String, IFilterExpression> getFilterCache() {
+		return filterCache;
+	}
+
 	public IFilterExpression parse(String filterStr) {
 		IFilterExpression filter = filterCache.get(filterStr);
 		if (filter != null) {
@@ -69,9 +75,7 @@ public class LDAPFilterParser {
 				if (position != filterString.length()) {
 					throw syntaxException(Messages.filter_trailing_characters);
 				}
-				filter = factory.filterExpression(expr);
-				filterCache.put(filterStr, filter);
-				return filter;
+				return filterCache.putIfAbsent(filterStr, factory.filterExpression(expr));
 			} catch (StringIndexOutOfBoundsException e) {
 				throw syntaxException(Messages.filter_premature_end);
 			}
@@ -42,7 +42,9 @@ import org.eclipse.equinox.p2.metadata.expression.IExpression;
 import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
 
 /**
- * An in-memory implementation of a CapabilityIndex based on a Map.
+ * An in-memory implementation of a CapabilityIndex based on a Map. Subclasses
+ * that keep the index elsewhere use {@link #CapabilityIndex()} and override
+ * {@link #collectMatchingIUs(boolean, String, Collection)}.
  */
 @SuppressWarnings("unchecked")
 public class CapabilityIndex extends Index<IInstallableUnit> {
@@ -50,6 +52,14 @@ public class CapabilityIndex extends Index<IInstallableUnit> {
 	private final Map<String, Set<IInstallableUnit>> namespaceMap;
 	private final Map<String, Object> nameMap;
 
+	/**
+	 * Constructor for subclasses that provide their own storage of the index.
+	 */
+	protected CapabilityIndex() {
+		nameMap = Collections.emptyMap();
+		namespaceMap = Collections.emptyMap();
+	}
+
 	public CapabilityIndex(Iterator<IInstallableUnit> itor) {
 		nameMap = new HashMap<>(300);
 		namespaceMap = new HashMap<>(10);
@@ -149,7 +159,7 @@ public class CapabilityIndex extends Index<IInstallableUnit> {
 	@Override
 	public Iterator<IInstallableUnit> getCandidates(IEvaluationContext ctx, IExpression variable, IExpression booleanExpr) {
 		Object queriedKeys = null;
-		Map<String, ?> indexMapToUse = nameMap;
+		boolean useNamespace = false;
 
 		// booleanExpression must be a collection filter on providedCapabilities
 		// or an IInstallableUnit used in a match expression.
@@ -182,7 +192,7 @@ public class CapabilityIndex extends Index<IInstallableUnit> {
 						// in a performant way as this reduces the result set significantly
 						queriedKeys = getQueriedIDs(ctx, lambda.getItemVariable(), ProvidedCapability.MEMBER_NAMESPACE, lambda.getOperand(), queriedKeys);
 						if (queriedKeys != null) {
-							indexMapToUse = namespaceMap;
+							useNamespace = true;
 							break;
 						}
 					}
@@ -255,23 +265,36 @@ public class CapabilityIndex extends Index<IInstallableUnit> {
 		} else if (queriedKeys instanceof Collection<?>) {
 			matchingIUs = new HashSet<>();
 			for (Object key : (Collection<Object>) queriedKeys) {
-				collectMatchingIUs(indexMapToUse, (String) key, matchingIUs);
+				collectMatchingIUs(useNamespace, (String) key, matchingIUs);
 			}
+		} else if (queriedKeys instanceof String key) {
+			matchingIUs = getMatchingIUs(useNamespace, key);
 		} else {
-			Object v = indexMapToUse.get(queriedKeys);
-			if (v == null) {
-				matchingIUs = Collections.emptySet();
-			} else if (v instanceof IInstallableUnit) {
-				matchingIUs = Collections.singleton((IInstallableUnit) v);
-			} else {
-				matchingIUs = (Collection<IInstallableUnit>) v;
-			}
+			matchingIUs = Collections.emptySet();
 		}
 		return matchingIUs.iterator();
 	}
 
-	private static void collectMatchingIUs(Map<String, ?> indexToUse, String name, Collection<IInstallableUnit> collector) {
-		Object v = indexToUse.get(name);
+	/**
+	 * Returns the units that provide a capability with the given name, or with the
+	 * given namespace if <code>namespace</code> is <code>true</code>.
+	 */
+	protected Collection<IInstallableUnit> getMatchingIUs(boolean namespace, String key) {
+		Object v = namespace ? namespaceMap.get(key) : nameMap.get(key);
+		if (v == null) {
+			return Collections.emptySet();
+		} else if (v instanceof IInstallableUnit) {
+			return Collections.singleton((IInstallableUnit) v);
+		}
+		return (Collection<IInstallableUnit>) v;
+	}
+
+	/**
+	 * Adds the units that provide a capability with the given name, or with the
+	 * given namespace if <code>namespace</code> is <code>true</code>, to the collector.
+	 */
+	protected void collectMatchingIUs(boolean namespace, String key, Collection<IInstallableUnit> collector) {
+		Object v = namespace ? namespaceMap.get(key) : nameMap.get(key);
 		if (v == null) {
 			return;
 		}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.index;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A stamp of the content of an object that counts its changes, see
+ * {@link IContentStampProvider}. The object is compared by identity and only
+ * weakly referenced, so a stamp kept in a cache does not keep it alive.
+ */
+public final class ContentStamp {
+	private final WeakReference<Object> owner;
+	private final int ownerHash;
+	private final long modificationCount;
+
+	private ContentStamp(Object owner, long modificationCount) {
+		this.owner = new WeakReference<>(owner);
+		this.ownerHash = System.identityHashCode(owner);
+		this.modificationCount = modificationCount;
+	}
+
+	/**
+	 * Returns the stamp of the given object after the given number of changes.
+	 */
+	public static Object of(Object owner, long modificationCount) {
+		return new ContentStamp(owner, modificationCount);
+	}
+
+	/**
+	 * Returns a stamp that combines the stamps of the given queryables in their
+	 * order, or <code>null</code> if one of them does not provide a stamp. The
+	 * order matters, the same queryables in another order may answer a query
+	 * differently.
+	 */
+	public static Object of(Collection<?> queryables) {
+		List<Object> stamps = new ArrayList<>(queryables.size());
+		for (Object queryable : queryables) {
+			Object stamp = queryable instanceof IContentStampProvider provider ? provider.getContentStamp() : null;
+			if (stamp == null) {
+				return null;
+			}
+			stamps.add(stamp);
+		}
+		return stamps;
+	}
+
+	@Override
+	public int hashCode() {
+		return ownerHash * 31 + Long.hashCode(modificationCount);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ContentStamp other) || modificationCount != other.modificationCount) {
+			return false;
+		}
+		Object referent = owner.get();
+		return referent != null && referent == other.owner.get();
+	}
+}
@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.index;
+
+/**
+ * Implemented by queryables that can tell cheaply whether their content
+ * changed, so that results computed from them can be reused.
+ */
+public interface IContentStampProvider {
+	/**
+	 * Returns a stamp of the current content. Equal stamps stand for the same
+	 * content: two stamps of a queryable are equal if the content did not change
+	 * in between, and stamps of queryables that were not copied from one another
+	 * are never equal.
+	 *
+	 * @return the stamp, or <code>null</code> if changes of the content cannot be
+	 *         tracked
+	 */
+	Object getContentStamp();
+}
@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.index;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import org.eclipse.equinox.p2.metadata.index.IIndex;
+import org.eclipse.equinox.p2.query.CompoundQueryable;
+import org.eclipse.equinox.p2.query.IQueryable;
+
+/**
+ * A {@link CompoundQueryable} that also provides the content stamp of the
+ * queryables it combines, see {@link ContentStamp#of(Collection)}. It keeps the
+ * stamp out of the API of the compound.
+ */
+public final class StampedCompoundQueryable<T> extends IndexProvider<T> implements IContentStampProvider {
+	private final List<IQueryable<T>> queryables;
+	private final CompoundQueryable<T> compound;
+
+	public StampedCompoundQueryable(Collection<? extends IQueryable<T>> queryables) {
+		this.queryables = List.copyOf(queryables);
+		this.compound = new CompoundQueryable<>(this.queryables);
+	}
+
+	@Override
+	public IIndex<T> getIndex(String memberName) {
+		return compound.getIndex(memberName);
+	}
+
+	@Override
+	public Iterator<T> everything() {
+		return compound.everything();
+	}
+
+	@Override
+	public Object getManagedProperty(Object client, String memberName, Object key) {
+		return compound.getManagedProperty(client, memberName, key);
+	}
+
+	@Override
+	public boolean contains(T element) {
+		return compound.contains(element);
+	}
+
+	@Override
+	public Object getContentStamp() {
+		return ContentStamp.of(queryables);
+	}
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.internal.repository.mirroring;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.Map.Entry;
+import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
+import org.eclipse.equinox.p2.metadata.IArtifactKey;
+import org.eclipse.equinox.p2.repository.artifact.IArtifactDescriptor;
+
+/**
+ * Remembers the artifact descriptors that were mirrored into a destination
+ * repository, so that mirroring again only transfers the artifacts that were
+ * added or changed in the source, and removes the artifacts that were removed
+ * from it.
+ * <p>
+ * An entry is keyed by the artifact key and the format of the descriptor. It
+ * records the source repository it was mirrored from, the download size and
+ * checksums of the artifact, and the timestamp of the source repository at the
+ * time it was mirrored. The manifest is stored next to the index of the
+ * destination repository.
+ * </p>
+ */
+class MirrorManifest {
+	static final String FILE_NAME = "mirror.manifest"; //$NON-NLS-1$
+
+	private static final String HEADER = "# p2 mirror manifest 1"; //$NON-NLS-1$
+	private static final String SEPARATOR = "\t"; //$NON-NLS-1$
+	private static final String CHECKSUM_SEPARATOR = ","; //$NON-NLS-1$
+
+	record Mirrored(String source, String size, String checksums, String sourceTimestamp) {
+		boolean isSameArtifact(String otherSize, String otherChecksums) {
+			return size.equals(otherSize) && checksums.equals(otherChecksums);
+		}
+	}
+
+	private final File file;
+	private final Map<String, Mirrored> entries = new TreeMap<>();
+
+	private MirrorManifest(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Reads the manifest from the given file. A manifest that is missing or cannot
+	 * be read is empty. A manifest without a file is not stored.
+	 */
+	static MirrorManifest read(File file) {
+		MirrorManifest manifest = new MirrorManifest(file);
+		if (file == null || !file.isFile()) {
+			return manifest;
+		}
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			if (!HEADER.equals(reader.readLine())) {
+				return manifest;
+			}
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				String[] fields = line.split(SEPARATOR, -1);
+				if (fields.length == 5) {
+					manifest.entries.put(fields[0], new Mirrored(fields[1], fields[2], fields[3], fields[4]));
+				}
+			}
+		} catch (IOException e) {
+			// everything is mirrored again
+			manifest.entries.clear();
+		}
+		return manifest;
+	}
+
+	/**
+	 * Returns the key of the given descriptor in the manifest.
+	 */
+	static String getIdentity(IArtifactDescriptor descriptor) {
+		String format = descriptor.getProperty(IArtifactDescriptor.FORMAT);
+		return descriptor.getArtifactKey().toExternalForm() + '/' + (format == null ? "" : format); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns whether the given descriptor has the identity.
+	 */
+	static boolean hasIdentity(IArtifactDescriptor descriptor, String identity) {
+		return getIdentity(descriptor).equals(identity);
+	}
+
+	/**
+	 * Returns the artifact key of the given identity.
+	 */
+	static IArtifactKey getKey(String identity) {
+		return ArtifactKey.parse(identity.substring(0, identity.lastIndexOf('/')));
+	}
+
+	/**
+	 * Returns the download size of the given descriptor, or an empty string if it
+	 * is not known.
+	 */
+	static String getSize(IArtifactDescriptor descriptor) {
+		String size = descriptor.getProperty(IArtifactDescriptor.DOWNLOAD_SIZE);
+		return size == null ? "" : size; //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the download and artifact checksums of the given descriptor in a
+	 * stable order, or an empty string if it has none.
+	 */
+	@SuppressWarnings("deprecation")
+	static String getChecksums(IArtifactDescriptor descriptor) {
+		SortedMap<String, String> checksums = new TreeMap<>();
+		for (Entry<String, String> property : descriptor.getProperties().entrySet()) {
+			String name = property.getKey();
+			if (name.startsWith(IArtifactDescriptor.DOWNLOAD_CHECKSUM + '.')
+					|| name.startsWith(IArtifactDescriptor.ARTIFACT_CHECKSUM + '.')
+					|| name.equals(IArtifactDescriptor.DOWNLOAD_MD5) || name.equals(IArtifactDescriptor.ARTIFACT_MD5)) {
+				checksums.put(name, property.getValue());
+			}
+		}
+		StringBuilder result = new StringBuilder();
+		for (Entry<String, String> checksum : checksums.entrySet()) {
+			if (result.length() > 0) {
+				result.append(CHECKSUM_SEPARATOR);
+			}
+			result.append(checksum.getKey()).append('=').append(checksum.getValue());
+		}
+		return result.toString();
+	}
+
+	Mirrored get(String identity) {
+		return entries.get(identity);
+	}
+
+	void put(IArtifactDescriptor descriptor, String source, String sourceTimestamp) {
+		entries.put(getIdentity(descriptor), new Mirrored(source, getSize(descriptor), getChecksums(descriptor),
+				sourceTimestamp == null ? "" : sourceTimestamp)); //$NON-NLS-1$
+	}
+
+	void remove(String identity) {
+		entries.remove(identity);
+	}
+
+	/**
+	 * Returns the identities of the descriptors that were mirrored from the given
+	 * source.
+	 */
+	List<String> getMirroredFrom(String source) {
+		List<String> result = new ArrayList<>();
+		for (Entry<String, Mirrored> entry : entries.entrySet()) {
+			if (entry.getValue().source().equals(source)) {
+				result.add(entry.getKey());
+			}
+		}
+		return result;
+	}
+
+	void write() throws IOException {
+		if (file == null) {
+			return;
+		}
+		File temp = new File(file.getParentFile(), file.getName() + ".tmp"); //$NON-NLS-1$
+		try {
+			try (Writer writer = new BufferedWriter(
+					new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8))) {
+				writer.write(HEADER);
+				writer.write('\n');
+				for (Entry<String, Mirrored> entry : entries.entrySet()) {
+					Mirrored mirrored = entry.getValue();
+					writer.write(String.join(SEPARATOR, entry.getKey(), mirrored.source(), mirrored.size(),
+							mirrored.checksums(), mirrored.sourceTimestamp()));
+					writer.write('\n');
+				}
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			temp.delete();
+			throw e;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2007, 2018 IBM Corporation and others.
+ *  Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -15,7 +15,12 @@
  *******************************************************************************/
 package org.eclipse.equinox.p2.internal.repository.mirroring;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.artifact.repository.CompositeArtifactRepository;
 import org.eclipse.equinox.internal.p2.artifact.repository.RawMirrorRequest;
@@ -26,6 +31,8 @@ import org.eclipse.equinox.p2.internal.repository.tools.Messages;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
 import org.eclipse.equinox.p2.query.IQuery;
 import org.eclipse.equinox.p2.query.IQueryResult;
+import org.eclipse.equinox.p2.repository.ICompositeRepository;
+import org.eclipse.equinox.p2.repository.IRepository;
 import org.eclipse.equinox.p2.repository.artifact.*;
 import org.eclipse.equinox.p2.repository.artifact.spi.ArtifactDescriptor;
 import org.eclipse.equinox.p2.repository.tools.comparator.ArtifactComparatorFactory;
@@ -50,6 +57,22 @@ public class Mirroring {
 	private IArtifactMirrorLog comparatorLog;
 	private Transport transport;
 	private boolean mirrorProperties = false;
+	private int parallelism = 1;
+	private int maxInFlight = 0;
+	private boolean incremental = false;
+
+	// the state of an incremental run
+	private MirrorManifest manifest;
+	private String sourceLocation;
+	private String sourceTimestamp;
+	private final Set<String> seen = new HashSet<>();
+	private final Set<IArtifactDescriptor> existing = new HashSet<>();
+	private int skipped;
+	private int added;
+	private int removed;
+
+	private record Pending(IArtifactDescriptor descriptor, Future<IStatus> result) {
+	}
 
 	private IArtifactComparator getComparator() {
 		if (comparator == null) {
@@ -88,6 +111,32 @@ public class Mirroring {
 		this.mirrorProperties = properties;
 	}
 
+	/**
+	 * Sets the number of artifacts that are mirrored at the same time. With one,
+	 * the default, the artifacts are mirrored one after another by the caller.
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Sets the number of artifacts that may be waiting or being mirrored at the
+	 * same time when mirroring in parallel. Zero, the default, allows twice the
+	 * parallelism.
+	 */
+	public void setMaxInFlight(int maxInFlight) {
+		this.maxInFlight = Math.max(0, maxInFlight);
+	}
+
+	/**
+	 * Sets whether only the artifacts that were added, changed or removed in the
+	 * source since the last incremental mirror are transferred. The artifacts that
+	 * were mirrored are recorded in a manifest in the destination.
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
+
 	public MultiStatus run(boolean failOnError, boolean verbose) {
 		if (!destination.isModifiable()) {
 			throw new IllegalStateException(
@@ -110,34 +159,23 @@ public class Mirroring {
 					null);
 			compareExclusions = exclusions.toUnmodifiableSet();
 		}
+		if (incremental) {
+			startIncremental();
+		}
 		MultiStatus multiStatus = new MultiStatus(Activator.ID, IStatus.OK, Messages.message_mirroringStatus, null);
 		IStatus batchStatus = destination.executeBatch(monitor -> {
-			while (keys.hasNext()) {
-				IArtifactKey key = keys.next();
-				IArtifactDescriptor[] descriptors = source.getArtifactDescriptors(key);
-				for (IArtifactDescriptor descriptor : descriptors) {
-					IStatus result = mirror(descriptor, verbose);
-					// Only log INFO and WARNING if we want verbose logging. Always log ERRORs
-					if (!result.isOK() && (verbose || result.getSeverity() == IStatus.ERROR)) {
-						multiStatus.add(result);
-					}
-					// stop mirroring as soon as we have an error
-					if (failOnError && multiStatus.getSeverity() == IStatus.ERROR) {
-						return;
-					}
-				}
+			boolean completed = parallelism > 1 ? mirrorConcurrently(keys, failOnError, verbose, multiStatus)
+					: mirrorSequentially(keys, failOnError, verbose, multiStatus);
+			if (!completed) {
+				return;
+			}
+			if (manifest != null) {
+				removeUnmirrored();
 			}
 			// mirror the source repository's properties unless they are already set up
 			// in the destination repository
 			if (mirrorProperties) {
-				IArtifactRepository toCopyFrom = source;
-				if (toCopyFrom instanceof CompositeArtifactRepository) {
-					List<IArtifactRepository> children = ((CompositeArtifactRepository) toCopyFrom).getLoadedChildren();
-					if (children.size() > 0) {
-						toCopyFrom = children.get(0);
-					}
-				}
-				Map<String, String> sourceProperties = toCopyFrom.getProperties();
+				Map<String, String> sourceProperties = getPropertySource().getProperties();
 				for (String key : sourceProperties.keySet()) {
 					if (!destination.getProperties().containsKey(key)) {
 						destination.setProperty(key, sourceProperties.get(key));
@@ -146,6 +184,9 @@ public class Mirroring {
 			}
 		}, new NullProgressMonitor());
 		multiStatus.add(batchStatus);
+		if (manifest != null) {
+			multiStatus.add(finishIncremental());
+		}
 
 		if (validate) {
 			// Simple validation of the mirror
@@ -157,6 +198,234 @@ public class Mirroring {
 		return multiStatus;
 	}
 
+	private boolean mirrorSequentially(Iterator<IArtifactKey> keys, boolean failOnError, boolean verbose,
+			MultiStatus multiStatus) {
+		while (keys.hasNext()) {
+			IArtifactKey key = keys.next();
+			IArtifactDescriptor[] descriptors = source.getArtifactDescriptors(key);
+			for (IArtifactDescriptor descriptor : descriptors) {
+				if (isUnchanged(descriptor)) {
+					continue;
+				}
+				if (!collect(descriptor, mirror(descriptor, verbose), failOnError, verbose, multiStatus)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Mirrors the descriptors on a pool of worker threads. The results are
+	 * collected in the order of the descriptors, so the status is the same as when
+	 * mirroring sequentially, and at most maxInFlight descriptors are waiting or
+	 * being mirrored at any time. The destination is changed from the worker
+	 * threads while the batch of the caller is running, it is saved once when the
+	 * batch ends.
+	 */
+	private boolean mirrorConcurrently(Iterator<IArtifactKey> keys, boolean failOnError, boolean verbose,
+			MultiStatus multiStatus) {
+		int limit = maxInFlight > 0 ? maxInFlight : 2 * parallelism;
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism, new MirrorThreadFactory());
+		Deque<Pending> pending = new ArrayDeque<>();
+		boolean proceed = true;
+		try {
+			while (proceed && keys.hasNext()) {
+				IArtifactDescriptor[] descriptors = source.getArtifactDescriptors(keys.next());
+				for (int i = 0; proceed && i < descriptors.length; i++) {
+					while (proceed && pending.size() >= limit) {
+						proceed = collect(pending.removeFirst(), failOnError, verbose, multiStatus);
+					}
+					IArtifactDescriptor descriptor = descriptors[i];
+					if (proceed && !isUnchanged(descriptor)) {
+						pending.addLast(new Pending(descriptor, executor.submit(() -> mirror(descriptor, verbose))));
+					}
+				}
+			}
+			while (proceed && !pending.isEmpty()) {
+				proceed = collect(pending.removeFirst(), failOnError, verbose, multiStatus);
+			}
+		} finally {
+			for (Pending remaining : pending) {
+				remaining.result().cancel(false);
+			}
+			executor.shutdown();
+			// mirrors that are running must end before the batch, so that they are saved
+			boolean interrupted = false;
+			while (!executor.isTerminated()) {
+				try {
+					executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return proceed;
+	}
+
+	private boolean collect(Pending pending, boolean failOnError, boolean verbose, MultiStatus multiStatus) {
+		return collect(pending.descriptor(), await(pending.result()), failOnError, verbose, multiStatus);
+	}
+
+	private static IStatus await(Future<IStatus> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			return new Status(IStatus.ERROR, Activator.ID, cause.getMessage(), cause);
+		}
+	}
+
+	/*
+	 * Adds the result of mirroring a descriptor to the status and answers whether
+	 * mirroring should go on.
+	 */
+	private boolean collect(IArtifactDescriptor descriptor, IStatus result, boolean failOnError, boolean verbose,
+			MultiStatus multiStatus) {
+		if (manifest != null && result.getSeverity() != IStatus.ERROR) {
+			manifest.put(descriptor, sourceLocation, sourceTimestamp);
+			if (existing.remove(descriptor)) {
+				skipped++;
+			} else {
+				added++;
+			}
+		}
+		// Only log INFO and WARNING if we want verbose logging. Always log ERRORs
+		if (!result.isOK() && (verbose || result.getSeverity() == IStatus.ERROR)) {
+			multiStatus.add(result);
+		}
+		// stop mirroring as soon as we have an error
+		return !(failOnError && multiStatus.getSeverity() == IStatus.ERROR);
+	}
+
+	private IArtifactRepository getPropertySource() {
+		IArtifactRepository toCopyFrom = source;
+		if (toCopyFrom instanceof CompositeArtifactRepository) {
+			List<IArtifactRepository> children = ((CompositeArtifactRepository) toCopyFrom).getLoadedChildren();
+			if (children.size() > 0) {
+				toCopyFrom = children.get(0);
+			}
+		}
+		return toCopyFrom;
+	}
+
+	/*
+	 * The location of a composite is not stable when it is created in memory, so
+	 * the source of a composite is identified by its children.
+	 */
+	private String getSourceLocation() {
+		if (source instanceof ICompositeRepository<?> composite) {
+			List<String> children = new ArrayList<>();
+			for (URI child : composite.getChildren()) {
+				children.add(child.toString());
+			}
+			Collections.sort(children);
+			return String.join(" ", children); //$NON-NLS-1$
+		}
+		return source.getLocation().toString();
+	}
+
+	private void startIncremental() {
+		File manifestFile = null;
+		if (URIUtil.isFileURI(destination.getLocation())) {
+			manifestFile = new File(URIUtil.toFile(destination.getLocation()), MirrorManifest.FILE_NAME);
+		}
+		manifest = MirrorManifest.read(manifestFile);
+		sourceLocation = getSourceLocation();
+		sourceTimestamp = getPropertySource().getProperty(IRepository.PROP_TIMESTAMP);
+		seen.clear();
+		existing.clear();
+		skipped = 0;
+		added = 0;
+		removed = 0;
+	}
+
+	/*
+	 * Answers whether the descriptor was mirrored before and has not changed in
+	 * the source since. A descriptor that has changed is removed from the
+	 * destination, so that it is mirrored again.
+	 */
+	private boolean isUnchanged(IArtifactDescriptor descriptor) {
+		if (manifest == null) {
+			return false;
+		}
+		String identity = MirrorManifest.getIdentity(descriptor);
+		seen.add(identity);
+		boolean inDestination = destination.contains(descriptor);
+		MirrorManifest.Mirrored mirrored = manifest.get(identity);
+		if (mirrored != null && inDestination) {
+			String size = MirrorManifest.getSize(descriptor);
+			String checksums = MirrorManifest.getChecksums(descriptor);
+			if (mirrored.isSameArtifact(size, checksums)) {
+				// without a checksum the artifact is only known to exist
+				if (!checksums.isEmpty()) {
+					skipped++;
+					return true;
+				}
+			} else {
+				destination.removeDescriptor(descriptor, new NullProgressMonitor());
+				inDestination = false;
+			}
+		}
+		if (inDestination) {
+			existing.add(descriptor);
+		}
+		return false;
+	}
+
+	/*
+	 * Removes the descriptors that were mirrored from the source before and are
+	 * no longer in it. A run that mirrors only some keys does not walk the others,
+	 * so the source is asked about the descriptors that were not seen.
+	 */
+	private void removeUnmirrored() {
+		for (String identity : manifest.getMirroredFrom(sourceLocation)) {
+			if (seen.contains(identity) || isInSource(identity)) {
+				continue;
+			}
+			manifest.remove(identity);
+			for (IArtifactDescriptor descriptor : destination
+					.getArtifactDescriptors(MirrorManifest.getKey(identity))) {
+				if (MirrorManifest.hasIdentity(descriptor, identity)) {
+					destination.removeDescriptor(descriptor, new NullProgressMonitor());
+					removed++;
+				}
+			}
+		}
+	}
+
+	private boolean isInSource(String identity) {
+		for (IArtifactDescriptor descriptor : source.getArtifactDescriptors(MirrorManifest.getKey(identity))) {
+			if (MirrorManifest.hasIdentity(descriptor, identity)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private IStatus finishIncremental() {
+		String summary = NLS.bind(Messages.Mirroring_incrementalSummary,
+				new Object[] { skipped, added, removed });
+		System.out.println(summary);
+		IStatus result = new Status(IStatus.INFO, Activator.ID, summary);
+		try {
+			manifest.write();
+		} catch (IOException e) {
+			result = new Status(IStatus.WARNING, Activator.ID,
+					NLS.bind(Messages.Mirroring_manifestNotWritten, destination.getLocation()), e);
+		}
+		manifest = null;
+		seen.clear();
+		existing.clear();
+		return result;
+	}
+
 	private IStatus mirror(IArtifactDescriptor sourceDescriptor, boolean verbose) {
 		IArtifactDescriptor targetDescriptor = raw ? sourceDescriptor : new ArtifactDescriptor(sourceDescriptor);
 		IArtifactDescriptor baselineDescriptor = getBaselineDescriptor(sourceDescriptor);
@@ -233,11 +502,15 @@ public class Mirroring {
 		IStatus comparison = getComparator().compare(sourceRepository, sourceDescriptor, destRepository,
 				destDescriptor);
 		if (comparatorLog != null && !comparison.isOK()) {
-			comparatorLog.log(sourceDescriptor, comparison);
+			logComparison(sourceDescriptor, comparison);
 		}
 		return comparison;
 	}
 
+	private synchronized void logComparison(IArtifactDescriptor descriptor, IStatus comparison) {
+		comparatorLog.log(descriptor, comparison);
+	}
+
 	/*
 	 * Create, and execute a MirrorRequest for a given descriptor.
 	 */
@@ -378,4 +651,15 @@ public class Mirroring {
 		this.transport = transport;
 	}
 
+	private static class MirrorThreadFactory implements ThreadFactory {
+		private static final AtomicInteger COUNT = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "p2 artifact mirror " + COUNT.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
 }
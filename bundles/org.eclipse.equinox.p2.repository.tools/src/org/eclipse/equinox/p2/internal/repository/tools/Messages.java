@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2018 IBM Corporation and others.
+ * Copyright (c) 2009, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -45,6 +45,7 @@ public class Messages extends NLS {
 	public static String MirrorApplication_artifactDestinationNoSource;
 	public static String MirrorApplication_metadataDestinationNoSource;
 	public static String MirrorApplication_no_IUs;
+	public static String MirrorApplication_not_a_number;
 	public static String MirrorApplication_set_source_repositories;
 
 	public static String ProcessRepo_location_not_url;
@@ -64,6 +65,8 @@ public class Messages extends NLS {
 	public static String Mirroring_ValidationError;
 	public static String Mirroring_missingDescriptor;
 	public static String Mirroring_differentDescriptorProperty;
+	public static String Mirroring_incrementalSummary;
+	public static String Mirroring_manifestNotWritten;
 
 	public static String invalidComparatorId;
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2021 IBM Corporation and others.
+ * Copyright (c) 2009, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -58,6 +58,9 @@ public class MirrorApplication extends AbstractApplication implements IApplicati
 	private String metadataOrArtifacts = null;
 	private String[] rootIUs = null;
 	private boolean mirrorProperties = false;
+	private int parallelism = 1;
+	private int maxInFlight = 0;
+	private boolean incremental = false;
 
 	private File mirrorLogFile; // file to log mirror output to (optional)
 	private File comparatorLogFile; // file to comparator output to (optional)
@@ -153,6 +156,8 @@ public class MirrorApplication extends AbstractApplication implements IApplicati
 				mirrorReferences = true;
 			} else if (args[i].equalsIgnoreCase("-properties")) { //$NON-NLS-1$
 				mirrorProperties = true;
+			} else if (args[i].equalsIgnoreCase("-incremental")) { //$NON-NLS-1$
+				incremental = true;
 			}
 
 			// check for args with parameters. If we are at the last argument or
@@ -180,6 +185,10 @@ public class MirrorApplication extends AbstractApplication implements IApplicati
 				rootIUs = getArrayArgsFromString(arg, ","); //$NON-NLS-1$
 			} else if (args[i - 1].equalsIgnoreCase("-references")) {//$NON-NLS-1$
 				mirrorReferences = Boolean.parseBoolean(args[i]);
+			} else if (args[i - 1].equalsIgnoreCase("-parallelism")) { //$NON-NLS-1$
+				parallelism = parseNumber(args[i - 1], arg);
+			} else if (args[i - 1].equalsIgnoreCase("-maxInFlight")) { //$NON-NLS-1$
+				maxInFlight = parseNumber(args[i - 1], arg);
 			} else {
 				try {
 					if (args[i - 1].equalsIgnoreCase("-source")) { //$NON-NLS-1$
@@ -207,6 +216,14 @@ public class MirrorApplication extends AbstractApplication implements IApplicati
 		}
 	}
 
+	private static int parseNumber(String option, String value) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(NLS.bind(Messages.MirrorApplication_not_a_number, option, value), e);
+		}
+	}
+
 	@Override
 	public IStatus run(IProgressMonitor monitor) throws ProvisionException {
 		IStatus mirrorStatus = Status.OK_STATUS;
@@ -265,6 +282,9 @@ public class MirrorApplication extends AbstractApplication implements IApplicati
 		mirror.setCompareExclusions(compareExclusions);
 		mirror.setTransport((Transport) agent.getService(Transport.SERVICE_NAME));
 		mirror.setMirrorProperties(mirrorProperties);
+		mirror.setParallelism(parallelism);
+		mirror.setMaxInFlight(maxInFlight);
+		mirror.setIncremental(incremental);
 
 		// If IUs have been specified then only they should be mirrored, otherwise
 		// mirror everything.
@@ -526,4 +546,25 @@ public class MirrorApplication extends AbstractApplication implements IApplicati
 	public void setMirrorProperties(boolean mirrorProperties) {
 		this.mirrorProperties = mirrorProperties;
 	}
+
+	/*
+	 * Set the number of artifacts that are mirrored at the same time
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	/*
+	 * Set the number of artifacts that may be waiting or being mirrored at the same time
+	 */
+	public void setMaxInFlight(int maxInFlight) {
+		this.maxInFlight = maxInFlight;
+	}
+
+	/*
+	 * Set if only the artifacts that changed since the last incremental mirror should be transferred
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2022 Cloudsmith Inc and others.
+ * Copyright (c) 2009, 2026 Cloudsmith Inc and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -17,12 +17,14 @@
  ******************************************************************************/
 package org.eclipse.equinox.internal.p2.repository;
 
+import java.util.Dictionary;
+import java.util.Hashtable;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParserFactory;
 import org.eclipse.core.runtime.IExtensionRegistry;
 import org.eclipse.equinox.internal.p2.core.helpers.SecureXMLUtil;
-import org.osgi.framework.BundleActivator;
-import org.osgi.framework.BundleContext;
+import org.eclipse.equinox.p2.core.spi.IAgentServiceFactory;
+import org.osgi.framework.*;
 import org.xml.sax.SAXException;
 
 /**
@@ -36,6 +38,8 @@ public class Activator implements BundleActivator {
 
 	private static BundleContext context;
 
+	private ServiceRegistration<IAgentServiceFactory> httpClientTransport;
+
 	@Override
 	public void start(BundleContext aContext) throws Exception {
 		synchronized (Activator.class) {
@@ -44,10 +48,28 @@ public class Activator implements BundleActivator {
 		// Force the startup of the registry bundle to make sure that the preference
 		// scope is registered
 		IExtensionRegistry.class.getName();
+		registerHttpClientTransport(aContext);
+	}
+
+	/**
+	 * Registers the {@link HttpClientTransport}. It is ranked above the default
+	 * transport when it is selected, and below it otherwise, so that it is only
+	 * used when no other transport is installed.
+	 */
+	private void registerHttpClientTransport(BundleContext aContext) {
+		boolean selected = HttpClientTransport.TRANSPORT_ID.equals(aContext.getProperty(HttpClientTransport.PROP_TRANSPORT));
+		Dictionary<String, Object> properties = new Hashtable<>();
+		properties.put(IAgentServiceFactory.PROP_CREATED_SERVICE_NAME, Transport.SERVICE_NAME);
+		properties.put(Constants.SERVICE_RANKING, selected ? 100 : -1);
+		httpClientTransport = aContext.registerService(IAgentServiceFactory.class, new HttpClientTransportComponent(), properties);
 	}
 
 	@Override
 	public void stop(BundleContext aContext) throws Exception {
+		if (httpClientTransport != null) {
+			httpClientTransport.unregister();
+			httpClientTransport = null;
+		}
 		synchronized (Activator.class) {
 			Activator.context = null;
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2012 IBM Corporation and others.
+ * Copyright (c) 2008, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,7 +17,8 @@ package org.eclipse.equinox.internal.p2.repository;
 
 import java.io.*;
 import java.net.*;
-import java.util.HashSet;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
@@ -44,6 +45,28 @@ public class CacheManager {
 	 */
 	public static final String SERVICE_NAME = CacheManager.class.getName();
 
+	/**
+	 * The key of a boolean agent property that enables conditional requests. The
+	 * entity tag and last modified date of every cache file are then stored next to
+	 * it, and a cache is validated and updated with a single request that the server
+	 * answers without content if the cache is current.
+	 */
+	public static final String PROP_CONDITIONAL_REQUESTS = "eclipse.p2.cache.conditionalRequests"; //$NON-NLS-1$
+
+	/**
+	 * The key of an agent property with the number of seconds for which a cache is
+	 * used without contacting the server after it has been validated. The default
+	 * is 0, every load validates the cache.
+	 */
+	public static final String PROP_FRESHNESS_WINDOW = "eclipse.p2.cache.ttl"; //$NON-NLS-1$
+
+	/**
+	 * The key of a boolean agent property that makes repository managers load a
+	 * repository whose cache is no longer fresh from the cache, and refresh it in
+	 * the background.
+	 */
+	public static final String PROP_STALE_WHILE_REVALIDATE = "eclipse.p2.cache.staleWhileRevalidate"; //$NON-NLS-1$
+
 	private final IAgentLocation agentLocation;
 
 	private final Transport transport;
@@ -82,8 +105,195 @@ public class CacheManager {
 	private static final String JAR_EXTENSION = ".jar"; //$NON-NLS-1$
 	private static final String XML_EXTENSION = ".xml"; //$NON-NLS-1$
 
+	private static final String VALIDATORS_EXTENSION = ".validators"; //$NON-NLS-1$
+	private static final String VALIDATOR_ENTITY_TAG = "ETag"; //$NON-NLS-1$
+	private static final String VALIDATOR_LAST_MODIFIED = "Last-Modified"; //$NON-NLS-1$
+	private static final String VALIDATOR_VALIDATED = "Validated"; //$NON-NLS-1$
+
 	private final HashSet<String> knownPrefixes = new HashSet<>(5);
 
+	private boolean conditionalRequests;
+
+	private long freshnessWindow;
+	private boolean staleWhileRevalidate;
+	private final ThreadLocal<LoadPolicy> loadPolicy = new ThreadLocal<>();
+	private final Map<String, Long> expired = new ConcurrentHashMap<>();
+
+	/**
+	 * How the caches of a repository are used while the current thread loads it.
+	 */
+	private record LoadPolicy(String location, long freshnessWindow, boolean staleAllowed) {
+	}
+
+	/**
+	 * The scope of a policy set with
+	 * {@link CacheManager#openLoadScope(URI, long, boolean)}.
+	 */
+	public interface LoadScope extends AutoCloseable {
+		@Override
+		void close();
+	}
+
+	/**
+	 * Sets whether caches are validated and updated with conditional requests, if
+	 * the transport supports them.
+	 *
+	 * @see #PROP_CONDITIONAL_REQUESTS
+	 */
+	public void setConditionalRequests(boolean conditionalRequests) {
+		this.conditionalRequests = conditionalRequests;
+	}
+
+	/**
+	 * Sets the time for which a cache is used without contacting the server after
+	 * it has been validated.
+	 *
+	 * @param millis the freshness window in milliseconds, 0 to validate on every
+	 * load
+	 * @see #PROP_FRESHNESS_WINDOW
+	 */
+	public void setFreshnessWindow(long millis) {
+		this.freshnessWindow = Math.max(0, millis);
+	}
+
+	/**
+	 * Returns the default freshness window in milliseconds.
+	 */
+	public long getFreshnessWindow() {
+		return freshnessWindow;
+	}
+
+	/**
+	 * Uses the caches of a repository with the given freshness window while the
+	 * current thread loads it, and without validating them at all if stale caches
+	 * are allowed. Other threads and other repositories keep the default policy.
+	 * A repository manager opens the scope around the load of a repository and
+	 * closes it when the repository is loaded.
+	 *
+	 * @param repositoryLocation the location of the repository
+	 * @param millis the freshness window in milliseconds
+	 * @param staleAllowed whether the caches are used however old they are
+	 * @return the scope of the policy
+	 */
+	public LoadScope openLoadScope(URI repositoryLocation, long millis, boolean staleAllowed) {
+		LoadPolicy previous = loadPolicy.get();
+		loadPolicy.set(new LoadPolicy(locationKey(repositoryLocation), millis, staleAllowed));
+		return () -> {
+			if (previous == null) {
+				loadPolicy.remove();
+			} else {
+				loadPolicy.set(previous);
+			}
+		};
+	}
+
+	private LoadPolicy getLoadPolicy(URI repositoryLocation) {
+		LoadPolicy policy = loadPolicy.get();
+		return policy != null && policy.location().equals(locationKey(repositoryLocation)) ? policy : null;
+	}
+
+	private long getFreshnessWindow(URI repositoryLocation) {
+		LoadPolicy policy = getLoadPolicy(repositoryLocation);
+		return policy != null ? policy.freshnessWindow() : freshnessWindow;
+	}
+
+	/**
+	 * @see #PROP_STALE_WHILE_REVALIDATE
+	 */
+	public void setStaleWhileRevalidate(boolean staleWhileRevalidate) {
+		this.staleWhileRevalidate = staleWhileRevalidate;
+	}
+
+	/**
+	 * @see #PROP_STALE_WHILE_REVALIDATE
+	 */
+	public boolean isStaleWhileRevalidate() {
+		return staleWhileRevalidate;
+	}
+
+	/**
+	 * Returns whether the cache of a repository that is loaded through the given
+	 * suffix has been validated within the freshness window, so that it is used
+	 * without contacting the server.
+	 *
+	 * @param repositoryLocation the location of the repository
+	 * @param suffix the suffix that the repository was loaded from, such as
+	 * <code>content.xml</code>
+	 */
+	public boolean isFresh(URI repositoryLocation, String suffix) {
+		return isFresh(repositoryLocation, suffix, getFreshnessWindow(repositoryLocation));
+	}
+
+	/**
+	 * Returns whether the cache of a repository that is loaded through the given
+	 * suffix has been validated within the given freshness window.
+	 *
+	 * @param repositoryLocation the location of the repository
+	 * @param suffix the suffix that the repository was loaded from
+	 * @param millis the freshness window in milliseconds
+	 */
+	public boolean isFresh(URI repositoryLocation, String suffix, long millis) {
+		File cacheFile = findCache(repositoryLocation, suffix);
+		return cacheFile != null && isFresh(repositoryLocation, cacheFile, millis);
+	}
+
+	/**
+	 * Makes the next load of any cache of a repository validate it against the
+	 * server, however fresh it is. Repository managers expire the caches of a
+	 * repository that is refreshed.
+	 */
+	public void expire(URI repositoryLocation) {
+		expired.put(locationKey(repositoryLocation), Long.valueOf(System.currentTimeMillis()));
+	}
+
+	/**
+	 * Returns whether there is a cache for a repository that is loaded through
+	 * the given suffix.
+	 */
+	public boolean hasCache(URI repositoryLocation, String suffix) {
+		return findCache(repositoryLocation, suffix) != null;
+	}
+
+	/**
+	 * Returns the cache of a repository for a suffix. The factories either cache
+	 * the file itself or, for the jar and xml variants, a file for the prefix of the
+	 * suffix.
+	 */
+	private File findCache(URI repositoryLocation, String suffix) {
+		File cacheFile = getCacheFile(URIUtil.append(repositoryLocation, suffix));
+		if (cacheFile.exists()) {
+			return cacheFile;
+		}
+		int dot = suffix.indexOf('.');
+		return getCache(repositoryLocation, dot < 0 ? suffix : suffix.substring(0, dot));
+	}
+
+	/**
+	 * Returns whether a cache file of a repository can be used without
+	 * contacting the server.
+	 */
+	private boolean isUsableWithoutValidation(URI repositoryLocation, File cacheFile) {
+		LoadPolicy policy = getLoadPolicy(repositoryLocation);
+		if (policy != null && policy.staleAllowed()) {
+			return true;
+		}
+		return isFresh(repositoryLocation, cacheFile, policy != null ? policy.freshnessWindow() : freshnessWindow);
+	}
+
+	private boolean isFresh(URI repositoryLocation, File cacheFile, long window) {
+		if (window <= 0) {
+			return false;
+		}
+		long validated = getValidated(cacheFile);
+		Long expiry = expired.get(locationKey(repositoryLocation));
+		return (expiry == null || validated > expiry.longValue()) && System.currentTimeMillis() - validated < window;
+	}
+
+	private static String locationKey(URI location) {
+		String key = location.toString();
+		return key.endsWith("/") ? key.substring(0, key.length() - 1) : key; //$NON-NLS-1$
+	}
+
 	/**
 	 * Returns a hash of the repository location.
 	 */
@@ -91,7 +301,25 @@ public class CacheManager {
 		return repositoryLocation.hashCode();
 	}
 
+	/**
+	 * Returns a local cache file with the contents of the given remote file. The
+	 * cache is validated against the remote file unless it is still fresh.
+	 *
+	 * @see #createCache(URI, String, IProgressMonitor)
+	 */
 	public File createCacheFromFile(URI remoteFile, IProgressMonitor monitor) throws ProvisionException, IOException {
+		File cacheFile = getCacheFile(remoteFile);
+		if (cacheFile.exists() && isUsableWithoutValidation(remoteFile.resolve("."), cacheFile)) { //$NON-NLS-1$
+			return cacheFile;
+		}
+		cacheFile = validateCacheFromFile(remoteFile, monitor);
+		if (cacheFile != null) {
+			markValidated(cacheFile, getFreshnessWindow(remoteFile.resolve("."))); //$NON-NLS-1$
+		}
+		return cacheFile;
+	}
+
+	private File validateCacheFromFile(URI remoteFile, IProgressMonitor monitor) throws ProvisionException, IOException {
 		if (!isURL(remoteFile)) {
 			throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_NOT_FOUND, NLS.bind(Messages.CacheManager_CannotLoadNonUrlLocation, remoteFile), null));
 		}
@@ -100,6 +328,19 @@ public class CacheManager {
 		try {
 			File cacheFile = getCacheFile(remoteFile);
 
+			if (conditionalRequests) {
+				IStatus status = updateCacheConditionally(cacheFile, remoteFile, submonitor);
+				if (status != null) {
+					if (status.isOK()) {
+						return cacheFile;
+					}
+					if (isNotFound(status)) {
+						throw new FileNotFoundException(NLS.bind(Messages.CacheManager_Repository_not_found, remoteFile));
+					}
+					throw failure(status, remoteFile);
+				}
+			}
+
 			boolean stale = true;
 			long lastModified = cacheFile.lastModified();
 			long lastModifiedRemote = 0L;
@@ -164,6 +405,19 @@ public class CacheManager {
 	 * @throws OperationCanceledException - if user canceled
 	 */
 	public File createCache(URI repositoryLocation, String prefix, IProgressMonitor monitor) throws IOException, ProvisionException {
+		File cacheFile = getCache(repositoryLocation, prefix);
+		if (cacheFile != null && isUsableWithoutValidation(repositoryLocation, cacheFile)) {
+			knownPrefixes.add(prefix);
+			return cacheFile;
+		}
+		cacheFile = validateCache(repositoryLocation, prefix, monitor);
+		if (cacheFile != null) {
+			markValidated(cacheFile, getFreshnessWindow(repositoryLocation));
+		}
+		return cacheFile;
+	}
+
+	private File validateCache(URI repositoryLocation, String prefix, IProgressMonitor monitor) throws IOException, ProvisionException {
 		if (!isURL(repositoryLocation)) {
 			throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_NOT_FOUND, NLS.bind(Messages.CacheManager_CannotLoadNonUrlLocation, repositoryLocation), null));
 		}
@@ -175,6 +429,13 @@ public class CacheManager {
 			URI xmlLocation = URIUtil.append(repositoryLocation, prefix + XML_EXTENSION);
 			int hashCode = computeHash(repositoryLocation);
 
+			if (conditionalRequests) {
+				File conditionalCache = createCacheConditionally(repositoryLocation, prefix, jarLocation, xmlLocation, submonitor);
+				if (conditionalCache != null) {
+					return conditionalCache;
+				}
+			}
+
 			// Knowing if cache is stale is complicated by the fact that a jar could have been
 			// produced after an xml index (and vice versa), and by the need to capture any
 			// errors, as these needs to be reported to the user as something meaningful - instead of
@@ -279,6 +540,200 @@ public class CacheManager {
 		}
 	}
 
+	/**
+	 * Creates the cache of a repository with one conditional request per index
+	 * file, instead of asking for the last modified date of the jar and the xml
+	 * before downloading one of them.
+	 *
+	 * @return the cache file, or <code>null</code> if the transport cannot make
+	 * conditional requests
+	 */
+	private File createCacheConditionally(URI repositoryLocation, String prefix, URI jarLocation, URI xmlLocation, SubMonitor submonitor) throws IOException, ProvisionException {
+		File[] cacheFiles = getCacheFiles(repositoryLocation, prefix);
+		IStatus status = updateCacheConditionally(cacheFiles[0], jarLocation, submonitor.newChild(500));
+		if (status == null) {
+			return null;
+		}
+		if (status.isOK()) {
+			deleteCacheFile(cacheFiles[1]);
+			return cacheFiles[0];
+		}
+		if (status.getCode() == ProvisionException.REPOSITORY_FAILED_AUTHENTICATION || isTimeout(status)) {
+			throw failure(status, repositoryLocation);
+		}
+		// the jar is missing or cannot be read, so use the xml instead - report errors for the xml
+		status = updateCacheConditionally(cacheFiles[1], xmlLocation, submonitor.newChild(500));
+		if (status.isOK()) {
+			deleteCacheFile(cacheFiles[0]);
+			return cacheFiles[1];
+		}
+		if (isNotFound(status)) {
+			throw new FileNotFoundException(NLS.bind(Messages.CacheManager_Neither_0_nor_1_found, jarLocation, xmlLocation));
+		}
+		throw failure(status, repositoryLocation);
+	}
+
+	/**
+	 * Updates a cache file with a conditional request, using the validators that
+	 * were stored with the cache file.
+	 *
+	 * @return an OK status if the cache file is current, or <code>null</code> if
+	 * the transport cannot make conditional requests
+	 * @throws OperationCanceledException if the download was canceled
+	 */
+	private IStatus updateCacheConditionally(File cacheFile, URI remoteFile, SubMonitor submonitor) throws IOException, ProvisionException {
+		String entityTag = null;
+		long lastModified = 0L;
+		if (cacheFile.exists()) {
+			Properties validators = loadValidators(cacheFile);
+			entityTag = validators.getProperty(VALIDATOR_ENTITY_TAG);
+			try {
+				// without validators, the cache file has the last modified date of the server's file, bug 324200
+				lastModified = Long.parseLong(validators.getProperty(VALIDATOR_LAST_MODIFIED, Long.toString(cacheFile.lastModified())));
+			} catch (NumberFormatException e) {
+				lastModified = cacheFile.lastModified();
+			}
+		}
+
+		cacheFile.getParentFile().mkdirs();
+		File downloadDir = new File(cacheFile.getParentFile(), DOWNLOADING);
+		if (!downloadDir.exists()) {
+			downloadDir.mkdir();
+		}
+		File tempFile = new File(downloadDir, cacheFile.getName());
+		if (tempFile.exists()) {
+			safeDelete(tempFile);
+		}
+		StatefulStream stream;
+		try {
+			stream = new StatefulStream(new FileOutputStream(tempFile));
+		} catch (Exception e) {
+			throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, e.getMessage(), e));
+		}
+		IStatus result = null;
+		try {
+			submonitor.setWorkRemaining(1000);
+			result = transport.downloadIfModified(remoteFile, stream, entityTag, lastModified, submonitor.newChild(1000));
+			while (result != null && result.getCode() == IArtifactRepository.CODE_RETRY) {
+				result = transport.downloadIfModified(remoteFile, stream, entityTag, lastModified, submonitor.newChild(1000));
+			}
+		} catch (OperationCanceledException e) {
+			result = stream.getStatus();
+		} finally {
+			stream.close();
+			if (result == null || !result.isOK() || result.getCode() == DownloadStatus.CODE_NOT_MODIFIED) {
+				safeDelete(tempFile);
+			}
+		}
+		if (result == null) {
+			return null;
+		}
+		if (result.getSeverity() == IStatus.CANCEL || submonitor.isCanceled()) {
+			throw new OperationCanceledException();
+		}
+		if (!result.isOK() || result.getCode() == DownloadStatus.CODE_NOT_MODIFIED) {
+			return result;
+		}
+
+		if (cacheFile.exists()) {
+			safeDelete(cacheFile);
+		}
+		safeDelete(getValidatorsFile(cacheFile));
+		if (!tempFile.renameTo(cacheFile)) {
+			return new Status(IStatus.ERROR, Activator.ID, NLS.bind(Messages.CacheManage_ErrorRenamingCache, remoteFile.toString(), tempFile.getAbsolutePath(), cacheFile.getAbsolutePath()));
+		}
+		if (result instanceof DownloadStatus downloadStatus) {
+			if (downloadStatus.getLastModified() > 0) {
+				cacheFile.setLastModified(downloadStatus.getLastModified());
+			}
+			Properties validators = new Properties();
+			if (downloadStatus.getEntityTag() != null) {
+				validators.setProperty(VALIDATOR_ENTITY_TAG, downloadStatus.getEntityTag());
+			}
+			if (downloadStatus.getLastModified() > 0) {
+				validators.setProperty(VALIDATOR_LAST_MODIFIED, Long.toString(downloadStatus.getLastModified()));
+			}
+			try (OutputStream output = new FileOutputStream(getValidatorsFile(cacheFile))) {
+				validators.store(output, null);
+			} catch (IOException e) {
+				// the next request is made with the last modified date of the cache file
+				safeDelete(getValidatorsFile(cacheFile));
+			}
+		}
+		return result;
+	}
+
+	private static Properties loadValidators(File cacheFile) {
+		Properties validators = new Properties();
+		File validatorsFile = getValidatorsFile(cacheFile);
+		if (validatorsFile.exists()) {
+			try (InputStream input = new FileInputStream(validatorsFile)) {
+				validators.load(input);
+			} catch (IOException | IllegalArgumentException e) {
+				validators.clear();
+			}
+		}
+		return validators;
+	}
+
+	/**
+	 * Records that a cache file has just been validated against the remote file.
+	 * The time is only read to find out whether a cache is fresh, so the validators
+	 * are not written again when there is no freshness window.
+	 */
+	private static void markValidated(File cacheFile, long window) {
+		if (window <= 0) {
+			return;
+		}
+		Properties validators = loadValidators(cacheFile);
+		validators.setProperty(VALIDATOR_VALIDATED, Long.toString(System.currentTimeMillis()));
+		try (OutputStream output = new FileOutputStream(getValidatorsFile(cacheFile))) {
+			validators.store(output, null);
+		} catch (IOException e) {
+			// the cache is validated again the next time
+		}
+	}
+
+	private static long getValidated(File cacheFile) {
+		try {
+			return Long.parseLong(loadValidators(cacheFile).getProperty(VALIDATOR_VALIDATED, "0")); //$NON-NLS-1$
+		} catch (NumberFormatException e) {
+			return 0L;
+		}
+	}
+
+	private static File getValidatorsFile(File cacheFile) {
+		return new File(cacheFile.getParentFile(), cacheFile.getName() + VALIDATORS_EXTENSION);
+	}
+
+	private void deleteCacheFile(File cacheFile) {
+		safeDelete(cacheFile);
+		safeDelete(getValidatorsFile(cacheFile));
+	}
+
+	private static boolean isNotFound(IStatus status) {
+		return status.getCode() == ProvisionException.ARTIFACT_NOT_FOUND || status.getCode() == ProvisionException.REPOSITORY_NOT_FOUND || status.getException() instanceof FileNotFoundException;
+	}
+
+	private static boolean isTimeout(IStatus status) {
+		return status.getException() != null && status.getException().getClass() == java.net.SocketTimeoutException.class;
+	}
+
+	/**
+	 * Translates the status of a failed conditional download into the exception
+	 * that the unconditional path throws for the same problem.
+	 */
+	private static ProvisionException failure(IStatus status, URI location) {
+		if (status.getCode() == ProvisionException.REPOSITORY_FAILED_AUTHENTICATION) {
+			// do not pass the exception, it provides no additional meaningful user information
+			return new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_AUTHENTICATION, NLS.bind(Messages.CacheManager_AuthenticationFaileFor_0, location), null));
+		}
+		if (isTimeout(status)) {
+			return new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_READ, NLS.bind(Messages.CacheManager_FailedCommunicationWithRepo_0, location), status.getException()));
+		}
+		return new ProvisionException(status);
+	}
+
 	private long getLastModified(URI location, IProgressMonitor monitor) throws AuthenticationFailedException, FileNotFoundException, CoreException {
 		CoreException exception = null;
 		long lastModifiedRemote = -1L;
@@ -305,8 +760,8 @@ public class CacheManager {
 		for (String prefix : knownPrefixes) {
 			File[] cacheFiles = getCacheFiles(repositoryLocation, prefix);
 			for (File cacheFile : cacheFiles) {
-				// delete the cache file if it exists
-				safeDelete(cacheFile);
+				// delete the cache file and its validators if they exist
+				deleteCacheFile(cacheFile);
 				// delete a resumable download if it exists
 				safeDelete(new File(new File(cacheFile.getParentFile(), DOWNLOADING), cacheFile.getName()));
 			}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2010 Sonatype, Inc and others.
+ *  Copyright (c) 2010, 2026 Sonatype, Inc and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.p2.repository;
 
+import java.util.concurrent.TimeUnit;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
 import org.eclipse.equinox.p2.core.IAgentLocation;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
@@ -25,6 +26,9 @@ public class CacheManagerComponent implements IAgentServiceFactory {
 		final IProvisioningEventBus eventBus = agent.getService(IProvisioningEventBus.class);
 		CacheManager cache = new CacheManager(agent.getService(IAgentLocation.class),
 				agent.getService(Transport.class));
+		cache.setConditionalRequests(agent.getBooleanProperty(CacheManager.PROP_CONDITIONAL_REQUESTS));
+		cache.setFreshnessWindow(TimeUnit.SECONDS.toMillis(agent.getIntProperty(CacheManager.PROP_FRESHNESS_WINDOW)));
+		cache.setStaleWhileRevalidate(agent.getBooleanProperty(CacheManager.PROP_STALE_WHILE_REVALIDATE));
 		cache.setEventBus(eventBus);
 		return cache;
 	}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.repository;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the <code>Content-Range</code> header of a response to a range request.
+ */
+public final class ContentRange {
+	private static final Pattern CONTENT_RANGE = Pattern.compile("bytes\\s+(\\d+)-(\\d+)/(\\d+|\\*)"); //$NON-NLS-1$
+
+	private ContentRange() {
+	}
+
+	/**
+	 * Answers whether the given <code>Content-Range</code> is the range from
+	 * <code>first</code> to <code>last</code> of a file of the given size. A
+	 * range of a file of unknown size does not match a known size.
+	 *
+	 * @param contentRange the header, or <code>null</code> if there is none
+	 * @param size         the size of the whole file, or -1 to accept any size
+	 */
+	public static boolean matches(String contentRange, long first, long last, long size) {
+		if (contentRange == null) {
+			return false;
+		}
+		Matcher matcher = CONTENT_RANGE.matcher(contentRange.trim());
+		try {
+			return matcher.matches() && Long.parseLong(matcher.group(1)) == first
+					&& Long.parseLong(matcher.group(2)) == last
+					&& (size < 0 || (!"*".equals(matcher.group(3)) && Long.parseLong(matcher.group(3)) == size)); //$NON-NLS-1$
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2012 IBM Corporation and others.
+ * Copyright (c) 2008, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -23,9 +23,29 @@ public class DownloadStatus extends Status {
 	public static final long UNKNOWN_RATE = -1;
 	public static final long UNKNOWN_SIZE = -1;
 
+	/**
+	 * The code of an OK status of a conditional download that found the remote
+	 * file unchanged, nothing has been written to the target.
+	 *
+	 * @see Transport#downloadIfModified(java.net.URI, java.io.OutputStream, String,
+	 *      long, org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	public static final int CODE_NOT_MODIFIED = 304;
+
+	/**
+	 * The code of an ERROR status of a range download that the server answered
+	 * with the whole file, or with the range of a file of another size. What has
+	 * been written to the target is not the range and has to be discarded.
+	 *
+	 * @see Transport#downloadRange(java.net.URI, java.io.OutputStream, long, long, long,
+	 *      org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	public static final int CODE_RANGE_NOT_SUPPORTED = 416;
+
 	private long speed = UNKNOWN_RATE;
 	private long fileSize = UNKNOWN_SIZE;
 	private long lastModified = 0;
+	private String entityTag;
 
 	/**
 	 * Constructs a new DownloadStatus with the given attributes.
@@ -79,6 +99,22 @@ public class DownloadStatus extends Status {
 		return lastModified;
 	}
 
+	/**
+	 * Sets the entity tag that the server reported for the downloaded file.
+	 * @param tag the entity tag, or <code>null</code> if there is none
+	 */
+	public void setEntityTag(String tag) {
+		entityTag = tag;
+	}
+
+	/**
+	 * Returns the entity tag that the server reported for the downloaded file, or
+	 * <code>null</code> if it is unknown.
+	 */
+	public String getEntityTag() {
+		return entityTag;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder(super.toString());
@@ -0,0 +1,907 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.repository;
+
+import java.io.*;
+import java.net.*;
+import java.net.http.*;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.Path;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.Flow.Subscription;
+import java.util.function.Consumer;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.p2.repository.Credentials.LoginCanceledException;
+import org.eclipse.equinox.internal.provisional.p2.repository.IStateful;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.core.ProvisionException;
+import org.eclipse.equinox.p2.core.UIServices.AuthenticationInfo;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * A transport that uses the HTTP client of the JRE. Requests are sent
+ * asynchronously and HTTP/2 is preferred, so concurrent downloads from one host
+ * are multiplexed over a shared connection instead of each waiting for a
+ * connection of its own. The number of downloads from one host that are in
+ * flight at the same time is bounded by {@link #PROP_MAX_STREAMS}.
+ * <p>
+ * The body of a response is written into the target stream as it arrives, so
+ * the processing steps of an artifact run while the artifact is still being
+ * transferred and no intermediate copy is made.
+ * </p>
+ * <p>
+ * Proxies are selected with the proxy service of the platform when it is
+ * installed. A download fails when the server does not answer or stops sending
+ * for longer than {@link #PROP_READ_TIMEOUT}.
+ * </p>
+ * <p>
+ * The transport is used when the property {@link #PROP_TRANSPORT} is set to
+ * {@value #TRANSPORT_ID}, and when no other transport is installed.
+ * </p>
+ */
+public class HttpClientTransport extends Transport {
+
+	/**
+	 * Selects the transport of the agent, set it to {@value #TRANSPORT_ID} to use
+	 * this transport.
+	 */
+	public static final String PROP_TRANSPORT = "eclipse.p2.transport"; //$NON-NLS-1$
+
+	public static final String TRANSPORT_ID = "jdk"; //$NON-NLS-1$
+
+	/**
+	 * The maximum number of downloads from one host that are in flight at the same
+	 * time.
+	 */
+	public static final String PROP_MAX_STREAMS = "eclipse.p2.http.maxStreams"; //$NON-NLS-1$
+
+	private static final int DEFAULT_MAX_STREAMS = 32;
+
+	/**
+	 * The time in milliseconds that a request waits for the response, and for
+	 * each part of its body.
+	 */
+	public static final String PROP_READ_TIMEOUT = "eclipse.p2.http.readTimeout"; //$NON-NLS-1$
+
+	private static final int DEFAULT_READ_TIMEOUT = 120000;
+
+	private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+
+	/** How often a waiting caller checks its monitor for cancellation. */
+	private static final long CANCEL_POLL_MILLIS = 100;
+
+	private static final int BUFFER_SIZE = 16 * 1024;
+
+	/** The number of redirects that are followed, as many as the client follows. */
+	private static final int MAX_REDIRECTS = 5;
+
+	private static final int HTTP_TEMPORARY_REDIRECT = 307;
+
+	private static final int HTTP_PERMANENT_REDIRECT = 308;
+
+	private final int maxStreams;
+	private final Duration readTimeout;
+	private final Map<String, Semaphore> windows = new ConcurrentHashMap<>();
+	private HttpClient client;
+
+	/**
+	 * @param agent the agent that the window size and the read timeout are read
+	 *              from, might be <code>null</code>
+	 */
+	public HttpClientTransport(IProvisioningAgent agent) {
+		this(agent == null ? Integer.getInteger(PROP_MAX_STREAMS, DEFAULT_MAX_STREAMS)
+				: agent.getIntProperty(PROP_MAX_STREAMS, DEFAULT_MAX_STREAMS),
+				Duration.ofMillis(agent == null ? Integer.getInteger(PROP_READ_TIMEOUT, DEFAULT_READ_TIMEOUT)
+						: agent.getIntProperty(PROP_READ_TIMEOUT, DEFAULT_READ_TIMEOUT)));
+	}
+
+	/**
+	 * @param maxStreams the maximum number of downloads from one host that are in
+	 *                   flight at the same time
+	 */
+	public HttpClientTransport(int maxStreams) {
+		this(maxStreams, Duration.ofMillis(DEFAULT_READ_TIMEOUT));
+	}
+
+	/**
+	 * @param maxStreams  the maximum number of downloads from one host that are
+	 *                    in flight at the same time
+	 * @param readTimeout the time that a request waits for the response, and for
+	 *                    each part of its body
+	 */
+	public HttpClientTransport(int maxStreams, Duration readTimeout) {
+		this.maxStreams = Math.max(1, maxStreams);
+		this.readTimeout = readTimeout.isNegative() || readTimeout.isZero() ? Duration.ofMillis(DEFAULT_READ_TIMEOUT)
+				: readTimeout;
+	}
+
+	private synchronized HttpClient getClient() {
+		if (client == null) {
+			HttpClient.Builder builder = HttpClient.newBuilder() //
+					.version(HttpClient.Version.HTTP_2) //
+					// redirects are followed by sendAsync to keep credentials on their origin
+					.followRedirects(HttpClient.Redirect.NEVER) //
+					.connectTimeout(CONNECT_TIMEOUT);
+			ProxyServiceSelector proxies = getProxySelector();
+			if (proxies != null) {
+				builder.proxy(proxies).authenticator(new Authenticator() {
+					@Override
+					protected PasswordAuthentication getPasswordAuthentication() {
+						// servers are answered with the credentials of p2, see newRequest
+						if (getRequestorType() != RequestorType.PROXY) {
+							return null;
+						}
+						try {
+							return proxies.getCredentials(getRequestingURL().toURI(), getRequestingHost(),
+									getRequestingPort());
+						} catch (URISyntaxException e) {
+							return null;
+						}
+					}
+				});
+			}
+			client = builder.build();
+		}
+		return client;
+	}
+
+	private static ProxyServiceSelector getProxySelector() {
+		try {
+			return ProxyServiceSelector.create();
+		} catch (NoClassDefFoundError e) {
+			// org.eclipse.core.net is not installed, requests go direct
+			return null;
+		}
+	}
+
+	@Override
+	public int getMaxConcurrentDownloads(URI location) {
+		return isHttp(location) ? maxStreams : 0;
+	}
+
+	@Override
+	public IStatus download(URI toDownload, OutputStream target, IProgressMonitor monitor) {
+		return download(toDownload, target, null, null, monitor);
+	}
+
+	/**
+	 * Sends <code>If-None-Match</code> and <code>If-Modified-Since</code> with the
+	 * request, a response with status code 304 is reported with the code
+	 * {@link DownloadStatus#CODE_NOT_MODIFIED}. For local files the last modified
+	 * date is compared instead.
+	 */
+	@Override
+	public IStatus downloadIfModified(URI toDownload, OutputStream target, String entityTag, long lastModified,
+			IProgressMonitor monitor) {
+		if (URIUtil.isFileURI(toDownload) && lastModified > 0) {
+			try {
+				if (Files.getLastModifiedTime(Paths.get(toDownload)).toMillis() == lastModified) {
+					return statusOn(target, notModified(entityTag, lastModified));
+				}
+			} catch (IOException e) {
+				// the download reports it
+			}
+		}
+		return download(toDownload, target, builder -> {
+			if (entityTag != null) {
+				builder.header("If-None-Match", entityTag); //$NON-NLS-1$
+			}
+			if (lastModified > 0) {
+				builder.header("If-Modified-Since", DateTimeFormatter.RFC_1123_DATE_TIME //$NON-NLS-1$
+						.format(Instant.ofEpochMilli(lastModified).atZone(ZoneOffset.UTC)));
+			}
+		}, null, monitor);
+	}
+
+	/**
+	 * Sends a <code>Range</code> header with the request. A server that answers
+	 * with the whole file instead of the range, or with the range of a file of
+	 * another size, is reported with the code
+	 * {@link DownloadStatus#CODE_RANGE_NOT_SUPPORTED}, and a response with a
+	 * <code>Content-Range</code> that is not the requested range is an error.
+	 * Nothing is written to the target in these cases. Ranges of local files are
+	 * not supported.
+	 */
+	@Override
+	public IStatus downloadRange(URI toDownload, OutputStream target, long offset, long length, long size,
+			IProgressMonitor monitor) {
+		if (offset < 0 || length <= 0 || !isHttp(toDownload)) {
+			return null;
+		}
+		Range range = new Range(offset, offset + length - 1, size);
+		return download(toDownload, target, builder -> builder.header("Range", range.toHeader()), range, monitor); //$NON-NLS-1$
+	}
+
+	/**
+	 * The first and the last position of the bytes of a range request, and the
+	 * size of the whole file.
+	 */
+	private record Range(long first, long last, long size) {
+		String toHeader() {
+			return "bytes=" + first + '-' + last; //$NON-NLS-1$
+		}
+
+		/**
+		 * Answers whether the <code>Content-Range</code> of a response is this range
+		 * of a file of the expected size.
+		 */
+		boolean matches(Optional<String> contentRange) {
+			return ContentRange.matches(contentRange.orElse(null), first, last, size);
+		}
+
+		/**
+		 * Answers whether the <code>Content-Range</code> of a response is this range
+		 * of a file of another size.
+		 */
+		boolean matchesOtherFile(Optional<String> contentRange) {
+			return !matches(contentRange) && ContentRange.matches(contentRange.orElse(null), first, last, -1);
+		}
+	}
+
+	/**
+	 * @param range the range that is requested, or <code>null</code> for the
+	 *              whole file
+	 */
+	private IStatus download(URI toDownload, OutputStream target, Consumer<HttpRequest.Builder> conditions,
+			Range range, IProgressMonitor monitor) {
+		monitor = IProgressMonitor.nullSafe(monitor);
+		URI location;
+		try {
+			location = getSecureLocation(toDownload);
+		} catch (CoreException e) {
+			return statusOn(target, new DownloadStatus(IStatus.ERROR, Activator.ID, e.getStatus().getCode(),
+					e.getStatus().getMessage(), e.getStatus().getException()));
+		}
+		if (URIUtil.isFileURI(location)) {
+			// local files need no credentials
+			DownloadStatus status = statusOn(target, send(location, target, null, conditions, range, monitor).join());
+			if (status.getSeverity() == IStatus.CANCEL) {
+				throw new OperationCanceledException();
+			}
+			return status;
+		}
+		boolean promptUser = false;
+		AuthenticationInfo loginDetails = null;
+		for (int i = RepositoryPreferences.getLoginRetryCount(); i > 0; i--) {
+			try {
+				loginDetails = Credentials.forLocation(location, promptUser, loginDetails);
+			} catch (LoginCanceledException e) {
+				return statusOn(target, new DownloadStatus(IStatus.ERROR, Activator.ID,
+						ProvisionException.REPOSITORY_FAILED_AUTHENTICATION,
+						NLS.bind(Messages.UnableToRead_0_UserCanceled, location), null));
+			} catch (CoreException e) {
+				return statusOn(target, new DownloadStatus(IStatus.ERROR, Activator.ID,
+						ProvisionException.REPOSITORY_FAILED_AUTHENTICATION, e.getStatus().getMessage(), e));
+			}
+			CompletableFuture<DownloadStatus> download = send(location, target, loginDetails, conditions, range, monitor);
+			DownloadStatus status = await(download, monitor);
+			if (status.getSeverity() == IStatus.CANCEL) {
+				statusOn(target, status);
+				throw new OperationCanceledException();
+			}
+			if (status.getCode() != ProvisionException.REPOSITORY_FAILED_AUTHENTICATION) {
+				return statusOn(target, status);
+			}
+			promptUser = true;
+		}
+		return statusOn(target, new DownloadStatus(IStatus.ERROR, Activator.ID,
+				ProvisionException.REPOSITORY_FAILED_AUTHENTICATION,
+				NLS.bind(Messages.UnableToRead_0_TooManyAttempts, location), null));
+	}
+
+	/**
+	 * Starts a download and returns without waiting for it. The caller is only
+	 * blocked while the window of the host is full. Credentials that are already
+	 * known for the host are used, the user is never prompted. If the
+	 * <code>target</code> is an instance of {@link IStateful} the resulting status
+	 * is also set on the target.
+	 *
+	 * @param toDownload the location to download
+	 * @param target     where the content is written to, the stream is written to
+	 *                   from a thread of the HTTP client
+	 * @param monitor    where progress is reported, it is also checked for
+	 *                   cancellation
+	 * @return the status of the download, that is a {@link DownloadStatus}
+	 */
+	public CompletableFuture<IStatus> downloadAsync(URI toDownload, OutputStream target, IProgressMonitor monitor) {
+		IProgressMonitor safeMonitor = IProgressMonitor.nullSafe(monitor);
+		try {
+			URI location = getSecureLocation(toDownload);
+			AuthenticationInfo loginDetails = Credentials.forLocation(location, false);
+			return send(location, target, loginDetails, null, null, safeMonitor).thenApply(status -> statusOn(target, status));
+		} catch (CoreException e) {
+			return CompletableFuture.completedFuture(statusOn(target, new DownloadStatus(IStatus.ERROR, Activator.ID,
+					e.getStatus().getCode(), e.getStatus().getMessage(), e.getStatus().getException())));
+		} catch (LoginCanceledException e) {
+			return CompletableFuture.completedFuture(statusOn(target,
+					new DownloadStatus(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_AUTHENTICATION,
+							NLS.bind(Messages.UnableToRead_0_UserCanceled, toDownload), null)));
+		}
+	}
+
+	/**
+	 * Sends a request once the window of the host has room for it. The permit is
+	 * released when the response has been consumed. Redirects are followed like
+	 * {@link #sendAsync(URI, AuthenticationInfo, Consumer, HttpResponse.BodyHandler)}
+	 * does, each request waits for the window of its own host.
+	 *
+	 * @param conditions adds the headers of a conditional or range request, might
+	 *                   be <code>null</code>, they are added to the request of each
+	 *                   redirect again
+	 * @param range      the range that is requested, or <code>null</code> for the
+	 *                   whole file
+	 */
+	private CompletableFuture<DownloadStatus> send(URI location, OutputStream target, AuthenticationInfo loginDetails,
+			Consumer<HttpRequest.Builder> conditions, Range range, IProgressMonitor monitor) {
+		if (monitor.isCanceled()) {
+			return CompletableFuture.completedFuture(canceled());
+		}
+		if (URIUtil.isFileURI(location)) {
+			return CompletableFuture.completedFuture(copyFile(location, target, monitor));
+		}
+		if (!isHttp(location)) {
+			return CompletableFuture.completedFuture(new DownloadStatus(IStatus.ERROR, Activator.ID,
+					ProvisionException.REPOSITORY_INVALID_LOCATION,
+					NLS.bind(Messages.HttpClientTransport_UnsupportedScheme, location), null));
+		}
+		return send(location, location, target, loginDetails, conditions, range, monitor, 0);
+	}
+
+	private CompletableFuture<DownloadStatus> send(URI location, URI current, OutputStream target,
+			AuthenticationInfo loginDetails, Consumer<HttpRequest.Builder> conditions, Range range,
+			IProgressMonitor monitor, int redirects) {
+		if (monitor.isCanceled()) {
+			return CompletableFuture.completedFuture(canceled());
+		}
+		// the request of a redirect waits on a thread of the client, like the first one waits on the caller
+		Semaphore window = windows.computeIfAbsent(getHost(current), host -> new Semaphore(maxStreams));
+		try {
+			while (!window.tryAcquire(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				if (monitor.isCanceled()) {
+					return CompletableFuture.completedFuture(canceled());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return CompletableFuture.completedFuture(canceled());
+		}
+		long start = System.currentTimeMillis();
+		int expectedCode = range != null ? HttpURLConnection.HTTP_PARTIAL : HttpURLConnection.HTTP_OK;
+		CompletableFuture<HttpResponse<Long>> response;
+		try {
+			// the credentials of the location are only sent to its origin
+			HttpRequest.Builder request = newRequest(current, isSameOrigin(location, current) ? loginDetails : null)
+					.GET();
+			if (conditions != null) {
+				conditions.accept(request);
+			}
+			response = getClient().sendAsync(request.build(), info -> {
+				if (info.statusCode() != expectedCode
+						|| (range != null && !range.matches(info.headers().firstValue("Content-Range")))) { //$NON-NLS-1$
+					return BodySubscribers.replacing(Long.valueOf(-1));
+				}
+				long length = info.headers().firstValueAsLong("Content-Length").orElse(-1); //$NON-NLS-1$
+				return new StreamingSubscriber(target, monitor, current, length, readTimeout);
+			});
+		} catch (RuntimeException e) {
+			window.release();
+			return CompletableFuture.completedFuture(forException(e, current));
+		}
+		return response.handle((r, t) -> {
+			window.release();
+			if (t != null) {
+				return CompletableFuture.completedFuture(forException(t, current));
+			}
+			URI next = redirects < MAX_REDIRECTS ? getRedirect(current, r) : null;
+			if (next != null) {
+				return send(location, next, target, loginDetails, conditions, range, monitor, redirects + 1);
+			}
+			return CompletableFuture.completedFuture(toStatus(r, current, conditions, range, expectedCode, start));
+		}).thenCompose(status -> status);
+	}
+
+	private static DownloadStatus toStatus(HttpResponse<Long> r, URI location, Consumer<HttpRequest.Builder> conditions,
+			Range range, int expectedCode, long start) {
+		String entityTag = r.headers().firstValue("ETag").orElse(null); //$NON-NLS-1$
+		if (r.statusCode() == HttpURLConnection.HTTP_NOT_MODIFIED && conditions != null) {
+			return notModified(entityTag, getLastModified(r.headers()));
+		}
+		if (range != null && r.statusCode() == HttpURLConnection.HTTP_OK) {
+			return new DownloadStatus(IStatus.ERROR, Activator.ID, DownloadStatus.CODE_RANGE_NOT_SUPPORTED,
+					NLS.bind(Messages.Transport_RangeNotSupported, location), null);
+		}
+		if (range != null && r.statusCode() == HttpURLConnection.HTTP_PARTIAL
+				&& range.matchesOtherFile(r.headers().firstValue("Content-Range"))) { //$NON-NLS-1$
+			return new DownloadStatus(IStatus.ERROR, Activator.ID, DownloadStatus.CODE_RANGE_NOT_SUPPORTED,
+					NLS.bind(Messages.Transport_RangeOfOtherFile, new Object[] {location,
+							r.headers().firstValue("Content-Range").orElse(""), Long.valueOf(range.size())}), //$NON-NLS-1$ //$NON-NLS-2$
+					null);
+		}
+		if (range != null && r.statusCode() == HttpURLConnection.HTTP_PARTIAL
+				&& !range.matches(r.headers().firstValue("Content-Range"))) { //$NON-NLS-1$
+			return readFailure(NLS.bind(Messages.HttpClientTransport_UnexpectedRange,
+					new Object[] {location, r.headers().firstValue("Content-Range").orElse(""), range.toHeader()})); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		if (r.statusCode() != expectedCode) {
+			return forResponseCode(r.statusCode(), location);
+		}
+		DownloadStatus status = new DownloadStatus(IStatus.OK, Activator.ID, Status.OK_STATUS.getMessage());
+		long size = r.body().longValue();
+		status.setFileSize(size);
+		status.setLastModified(getLastModified(r.headers()));
+		status.setEntityTag(entityTag);
+		status.setTransferRate(size * 1000 / Math.max(1, System.currentTimeMillis() - start));
+		return status;
+	}
+
+	/**
+	 * Waits for a download while checking the monitor for cancellation.
+	 */
+	private static DownloadStatus await(CompletableFuture<DownloadStatus> download, IProgressMonitor monitor) {
+		while (true) {
+			if (monitor.isCanceled()) {
+				download.cancel(true);
+				return canceled();
+			}
+			try {
+				return download.get(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check the monitor again
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				download.cancel(true);
+				return canceled();
+			} catch (ExecutionException e) {
+				// the future is always completed with a status
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+	}
+
+	@Override
+	public InputStream stream(URI toDownload, IProgressMonitor monitor)
+			throws FileNotFoundException, CoreException, AuthenticationFailedException {
+		URI location = getSecureLocation(toDownload);
+		if (URIUtil.isFileURI(location)) {
+			try {
+				return Files.newInputStream(Paths.get(location));
+			} catch (NoSuchFileException e) {
+				throw new FileNotFoundException(location.toString());
+			} catch (IOException e) {
+				throw new CoreException(forException(e, location));
+			}
+		}
+		HttpResponse<InputStream> response = sendWithCredentials(location, HttpRequest.Builder::GET,
+				BodyHandlers.ofInputStream(), monitor);
+		return response.body();
+	}
+
+	@Override
+	public long getLastModified(URI toDownload, IProgressMonitor monitor)
+			throws CoreException, FileNotFoundException, AuthenticationFailedException {
+		URI location = getSecureLocation(toDownload);
+		if (URIUtil.isFileURI(location)) {
+			try {
+				return Files.getLastModifiedTime(Paths.get(location)).toMillis();
+			} catch (NoSuchFileException e) {
+				throw new FileNotFoundException(location.toString());
+			} catch (IOException e) {
+				throw new CoreException(forException(e, location));
+			}
+		}
+		HttpResponse<Void> response = sendWithCredentials(location,
+				builder -> builder.method("HEAD", HttpRequest.BodyPublishers.noBody()), //$NON-NLS-1$
+				BodyHandlers.discarding(), monitor);
+		return getLastModified(response.headers());
+	}
+
+	/**
+	 * Sends a request and waits for the response, prompting for credentials when
+	 * the host asks for them.
+	 *
+	 * @return a response with status code 200
+	 */
+	private <T> HttpResponse<T> sendWithCredentials(URI location,
+			Consumer<HttpRequest.Builder> method, HttpResponse.BodyHandler<T> handler,
+			IProgressMonitor monitor) throws FileNotFoundException, CoreException, AuthenticationFailedException {
+		if (!isHttp(location)) {
+			throw new CoreException(new DownloadStatus(IStatus.ERROR, Activator.ID,
+					ProvisionException.REPOSITORY_INVALID_LOCATION,
+					NLS.bind(Messages.HttpClientTransport_UnsupportedScheme, location), null));
+		}
+		monitor = IProgressMonitor.nullSafe(monitor);
+		boolean promptUser = false;
+		AuthenticationInfo loginDetails = null;
+		for (int i = RepositoryPreferences.getLoginRetryCount(); i > 0; i--) {
+			try {
+				loginDetails = Credentials.forLocation(location, promptUser, loginDetails);
+			} catch (LoginCanceledException e) {
+				throw new AuthenticationFailedException();
+			}
+			CompletableFuture<HttpResponse<T>> request = sendAsync(location, loginDetails, method, handler);
+			HttpResponse<T> response;
+			try {
+				response = awaitResponse(request, monitor);
+			} catch (ExecutionException e) {
+				throw new CoreException(forException(e.getCause(), location));
+			}
+			int code = response.statusCode();
+			if (code == HttpURLConnection.HTTP_OK) {
+				return response;
+			}
+			if (response.body() instanceof Closeable body) {
+				try {
+					body.close();
+				} catch (IOException e) {
+					// the response is not used
+				}
+			}
+			if (code == HttpURLConnection.HTTP_NOT_FOUND || code == HttpURLConnection.HTTP_GONE) {
+				throw new FileNotFoundException(location.toString());
+			}
+			if (code != HttpURLConnection.HTTP_UNAUTHORIZED) {
+				throw new CoreException(forResponseCode(code, location));
+			}
+			promptUser = true;
+		}
+		throw new AuthenticationFailedException();
+	}
+
+	private static <T> HttpResponse<T> awaitResponse(CompletableFuture<HttpResponse<T>> request,
+			IProgressMonitor monitor) throws ExecutionException {
+		while (true) {
+			if (monitor.isCanceled()) {
+				request.cancel(true);
+				throw new OperationCanceledException();
+			}
+			try {
+				return request.get(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check the monitor again
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				request.cancel(true);
+				throw new OperationCanceledException();
+			}
+		}
+	}
+
+	/**
+	 * Sends a request and follows the redirects of its responses. The client does
+	 * not follow redirects itself, it would copy the <code>Authorization</code>
+	 * header to every host on the way. The credentials of the location are only
+	 * sent to the scheme, host and port of the location.
+	 *
+	 * @param method sets the method and the headers of the request, it is applied
+	 *               again to the request of each redirect
+	 * @return the first response that is not followed
+	 */
+	private <T> CompletableFuture<HttpResponse<T>> sendAsync(URI location, AuthenticationInfo loginDetails,
+			Consumer<HttpRequest.Builder> method, HttpResponse.BodyHandler<T> handler) {
+		return sendAsync(location, location, loginDetails, method, handler, 0);
+	}
+
+	private <T> CompletableFuture<HttpResponse<T>> sendAsync(URI location, URI current,
+			AuthenticationInfo loginDetails, Consumer<HttpRequest.Builder> method, HttpResponse.BodyHandler<T> handler,
+			int redirects) {
+		HttpRequest.Builder builder = newRequest(current, isSameOrigin(location, current) ? loginDetails : null);
+		method.accept(builder);
+		return getClient().sendAsync(builder.build(), handler).thenCompose(response -> {
+			URI next = redirects < MAX_REDIRECTS ? getRedirect(current, response) : null;
+			if (next == null) {
+				return CompletableFuture.completedFuture(response);
+			}
+			if (response.body() instanceof Closeable body) {
+				try {
+					body.close();
+				} catch (IOException e) {
+					// the response is not used
+				}
+			}
+			return sendAsync(location, next, loginDetails, method, handler, redirects + 1);
+		});
+	}
+
+	/**
+	 * Returns the location that a response redirects to, or <code>null</code> if
+	 * it is not followed. Like the client does, redirects from https to http are
+	 * not followed.
+	 */
+	private static URI getRedirect(URI current, HttpResponse<?> response) {
+		switch (response.statusCode()) {
+			case HttpURLConnection.HTTP_MOVED_PERM :
+			case HttpURLConnection.HTTP_MOVED_TEMP :
+			case HttpURLConnection.HTTP_SEE_OTHER :
+			case HTTP_TEMPORARY_REDIRECT :
+			case HTTP_PERMANENT_REDIRECT :
+				break;
+			default :
+				return null;
+		}
+		Optional<String> target = response.headers().firstValue("Location"); //$NON-NLS-1$
+		if (target.isEmpty()) {
+			return null;
+		}
+		URI next;
+		try {
+			next = current.resolve(new URI(target.get().trim()));
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return null;
+		}
+		if (!isHttp(next) || ("https".equalsIgnoreCase(current.getScheme()) //$NON-NLS-1$
+				&& !"https".equalsIgnoreCase(next.getScheme()))) { //$NON-NLS-1$
+			return null;
+		}
+		return next;
+	}
+
+	/**
+	 * Answers whether two locations have the same scheme, host and port.
+	 */
+	private static boolean isSameOrigin(URI location, URI other) {
+		return location.getScheme().equalsIgnoreCase(other.getScheme()) && location.getHost() != null
+				&& location.getHost().equalsIgnoreCase(other.getHost()) && getPort(location) == getPort(other);
+	}
+
+	private static int getPort(URI location) {
+		if (location.getPort() != -1) {
+			return location.getPort();
+		}
+		return "https".equalsIgnoreCase(location.getScheme()) ? 443 : 80; //$NON-NLS-1$
+	}
+
+	private HttpRequest.Builder newRequest(URI location, AuthenticationInfo loginDetails) {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(location).timeout(readTimeout);
+		if (loginDetails != null) {
+			String credentials = loginDetails.getUserName() + ':' + loginDetails.getPassword();
+			builder.header("Authorization", "Basic " //$NON-NLS-1$ //$NON-NLS-2$
+					+ Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+		}
+		return builder;
+	}
+
+	private DownloadStatus copyFile(URI location, OutputStream target, IProgressMonitor monitor) {
+		long start = System.currentTimeMillis();
+		try {
+			Path file = Paths.get(location);
+			long size = Files.copy(file, target);
+			DownloadStatus status = new DownloadStatus(IStatus.OK, Activator.ID, Status.OK_STATUS.getMessage());
+			status.setFileSize(size);
+			status.setLastModified(Files.getLastModifiedTime(file).toMillis());
+			status.setTransferRate(size * 1000 / Math.max(1, System.currentTimeMillis() - start));
+			return status;
+		} catch (IOException e) {
+			return forException(e, location);
+		}
+	}
+
+	private static DownloadStatus statusOn(OutputStream target, DownloadStatus status) {
+		if (target instanceof IStateful stateful) {
+			stateful.setStatus(status);
+		}
+		return status;
+	}
+
+	private static DownloadStatus notModified(String entityTag, long lastModified) {
+		DownloadStatus status = new DownloadStatus(IStatus.OK, Activator.ID, DownloadStatus.CODE_NOT_MODIFIED,
+				Status.OK_STATUS.getMessage(), null);
+		status.setEntityTag(entityTag);
+		status.setLastModified(lastModified);
+		return status;
+	}
+
+	private static DownloadStatus canceled() {
+		return new DownloadStatus(IStatus.CANCEL, Activator.ID, 1, "", null); //$NON-NLS-1$
+	}
+
+	private static boolean isHttp(URI location) {
+		String scheme = location.getScheme();
+		return "http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme); //$NON-NLS-1$//$NON-NLS-2$
+	}
+
+	private static String getHost(URI location) {
+		return location.getScheme().toLowerCase() + "://" + location.getAuthority(); //$NON-NLS-1$
+	}
+
+	private static long getLastModified(HttpHeaders headers) {
+		Optional<String> lastModified = headers.firstValue("Last-Modified"); //$NON-NLS-1$
+		if (lastModified.isEmpty()) {
+			return 0;
+		}
+		try {
+			return ZonedDateTime.parse(lastModified.get(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()
+					.toEpochMilli();
+		} catch (DateTimeParseException e) {
+			return 0;
+		}
+	}
+
+	private static DownloadStatus forResponseCode(int code, URI location) {
+		switch (code) {
+			case HttpURLConnection.HTTP_NOT_FOUND :
+			case HttpURLConnection.HTTP_GONE :
+				return new DownloadStatus(IStatus.ERROR, Activator.ID, ProvisionException.ARTIFACT_NOT_FOUND,
+						NLS.bind(Messages.artifact_not_found, location), null);
+			case HttpURLConnection.HTTP_UNAUTHORIZED :
+				return new DownloadStatus(IStatus.ERROR, Activator.ID,
+						ProvisionException.REPOSITORY_FAILED_AUTHENTICATION,
+						NLS.bind(Messages.TransportErrorTranslator_401, location), null);
+			case HttpURLConnection.HTTP_FORBIDDEN :
+				return readFailure(NLS.bind(Messages.TransportErrorTranslator_403, location));
+			case HttpURLConnection.HTTP_PROXY_AUTH :
+				return readFailure(NLS.bind(Messages.TransportErrorTranslator_407, location));
+			case HttpURLConnection.HTTP_CLIENT_TIMEOUT :
+				return readFailure(NLS.bind(Messages.TransportErrorTranslator_408, location));
+			case HttpURLConnection.HTTP_INTERNAL_ERROR :
+				return readFailure(NLS.bind(Messages.TransportErrorTranslator_500, location));
+			case HttpURLConnection.HTTP_BAD_GATEWAY :
+				return readFailure(NLS.bind(Messages.TransportErrorTranslator_502, location));
+			case HttpURLConnection.HTTP_UNAVAILABLE :
+				return readFailure(NLS.bind(Messages.TransportErrorTranslator_503, location));
+			case HttpURLConnection.HTTP_GATEWAY_TIMEOUT :
+				return readFailure(NLS.bind(Messages.TransportErrorTranslator_504, location));
+			default :
+				return readFailure(NLS.bind(Messages.TransportErrorTranslator_UnknownErrorCode, Integer.toString(code),
+						location));
+		}
+	}
+
+	private static DownloadStatus readFailure(String message) {
+		return new DownloadStatus(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_READ, message,
+				null);
+	}
+
+	private static DownloadStatus forException(Throwable t, URI location) {
+		while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+			t = t.getCause();
+		}
+		if (t instanceof OperationCanceledException || t instanceof CancellationException) {
+			return canceled();
+		}
+		if (t instanceof FileNotFoundException || t instanceof NoSuchFileException) {
+			return new DownloadStatus(IStatus.ERROR, Activator.ID, ProvisionException.ARTIFACT_NOT_FOUND,
+					NLS.bind(Messages.artifact_not_found, location), t);
+		}
+		if (t instanceof ConnectException) {
+			return new DownloadStatus(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_READ,
+					NLS.bind(Messages.TransportErrorTranslator_UnableToConnectToRepository_0, location), t);
+		}
+		if (t instanceof UnknownHostException) {
+			return new DownloadStatus(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_INVALID_LOCATION,
+					NLS.bind(Messages.TransportErrorTranslator_UnknownHost, location), t);
+		}
+		if (!(t instanceof IOException)) {
+			LogHelper.log(new Status(IStatus.ERROR, Activator.ID, NLS.bind(Messages.io_failedRead, location), t));
+		}
+		return new DownloadStatus(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_READ,
+				NLS.bind(Messages.io_failedRead, location), t);
+	}
+
+	/**
+	 * Writes the body of a response into the target as it arrives. The HTTP
+	 * client calls a subscriber from one thread at a time, so the target needs no
+	 * synchronization. The body fails when no part of it arrives within the read
+	 * timeout.
+	 */
+	private static final class StreamingSubscriber implements BodySubscriber<Long> {
+		private final CompletableFuture<Long> result = new CompletableFuture<>();
+		private final OutputStream target;
+		private final IProgressMonitor monitor;
+		private final SubMonitor progress;
+		private final URI location;
+		private final long readTimeoutNanos;
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		private volatile Subscription subscription;
+		private volatile long lastRead;
+		private long written;
+
+		StreamingSubscriber(OutputStream target, IProgressMonitor monitor, URI location, long length,
+				Duration readTimeout) {
+			this.target = target;
+			this.monitor = monitor;
+			this.location = location;
+			this.readTimeoutNanos = readTimeout.toNanos();
+			String name = URIUtil.lastSegment(location);
+			// progress is reported in kilobytes to stay in the range of an int
+			this.progress = SubMonitor.convert(monitor, NLS.bind(Messages.fetching_0_from_1, name, location.getHost()),
+					length < 0 ? 1 : (int) Math.min(Integer.MAX_VALUE, length / 1024 + 1));
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			subscription = s;
+			lastRead = System.nanoTime();
+			checkReadTimeout(readTimeoutNanos);
+			s.request(1);
+		}
+
+		/**
+		 * Checks after the given delay whether the body is still arriving.
+		 */
+		private void checkReadTimeout(long delayNanos) {
+			CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS).execute(() -> {
+				if (result.isDone()) {
+					return;
+				}
+				long idle = System.nanoTime() - lastRead;
+				if (idle < readTimeoutNanos) {
+					checkReadTimeout(readTimeoutNanos - idle);
+					return;
+				}
+				subscription.cancel();
+				result.completeExceptionally(new HttpTimeoutException(location.toString()));
+			});
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> items) {
+			lastRead = System.nanoTime();
+			if (result.isDone()) {
+				// timed out
+				return;
+			}
+			if (monitor.isCanceled()) {
+				subscription.cancel();
+				result.completeExceptionally(new OperationCanceledException());
+				return;
+			}
+			try {
+				long before = written;
+				for (ByteBuffer item : items) {
+					while (item.hasRemaining()) {
+						int length = Math.min(buffer.length, item.remaining());
+						item.get(buffer, 0, length);
+						target.write(buffer, 0, length);
+						written += length;
+					}
+				}
+				int work = (int) (written / 1024 - before / 1024);
+				if (work > 0) {
+					progress.worked(work);
+				}
+			} catch (IOException e) {
+				subscription.cancel();
+				result.completeExceptionally(e);
+				return;
+			}
+			subscription.request(1);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			result.completeExceptionally(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			progress.done();
+			result.complete(Long.valueOf(written));
+		}
+
+		@Override
+		public CompletionStage<Long> getBody() {
+			return result;
+		}
+	}
+}
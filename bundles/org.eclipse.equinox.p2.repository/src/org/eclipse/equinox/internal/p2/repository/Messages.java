@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2007, 2012 IBM Corporation and others.
+ *  Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -94,6 +94,11 @@ public class Messages extends NLS {
 	public static String RepositoryTransport_unsafeProtocolBlocked;
 	public static String RepositoryTransport_unsafeProtocol;
 
+	public static String HttpClientTransport_UnsupportedScheme;
+	public static String Transport_RangeNotSupported;
+	public static String HttpClientTransport_UnexpectedRange;
+	public static String Transport_RangeOfOtherFile;
+
 	static {
 		// initialize resource bundles
 		NLS.initializeMessages(BUNDLE_NAME, Messages.class);
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.repository;
+
+import java.io.IOException;
+import java.net.*;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.core.net.proxy.IProxyData;
+import org.eclipse.core.net.proxy.IProxyService;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+
+/**
+ * Selects the proxies of the {@link HttpClientTransport} with the
+ * {@link IProxyService} of the platform, so that it uses the same proxy
+ * settings as the other transports. The service is looked up for every
+ * request, requests go direct while it is not available.
+ * <p>
+ * The proxy service is an optional dependency, this class must only be loaded
+ * through {@link #create()}.
+ * </p>
+ */
+final class ProxyServiceSelector extends ProxySelector {
+	private final BundleContext context;
+
+	private ProxyServiceSelector(BundleContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Returns a selector backed by the proxy service, or <code>null</code> if the
+	 * bundle is not started. Callers catch the {@link NoClassDefFoundError} that
+	 * is thrown when <code>org.eclipse.core.net</code> is not installed.
+	 */
+	static ProxyServiceSelector create() {
+		try {
+			return new ProxyServiceSelector(Activator.getContext());
+		} catch (IllegalStateException e) {
+			// not running in OSGi
+			return null;
+		}
+	}
+
+	@Override
+	public List<Proxy> select(URI uri) {
+		List<Proxy> proxies = new ArrayList<>();
+		for (IProxyData data : getProxyData(uri)) {
+			// the HTTP client of the JRE only supports HTTP proxies
+			if (!IProxyData.SOCKS_PROXY_TYPE.equals(data.getType()) && data.getHost() != null && data.getPort() > 0) {
+				proxies.add(new Proxy(Proxy.Type.HTTP, InetSocketAddress.createUnresolved(data.getHost(), data.getPort())));
+			}
+		}
+		if (proxies.isEmpty()) {
+			proxies.add(Proxy.NO_PROXY);
+		}
+		return proxies;
+	}
+
+	@Override
+	public void connectFailed(URI uri, SocketAddress address, IOException e) {
+		// the proxy service keeps no state about failed proxies
+	}
+
+	/**
+	 * Returns the credentials that are configured for the given proxy, or
+	 * <code>null</code> if there are none.
+	 */
+	PasswordAuthentication getCredentials(URI uri, String host, int port) {
+		for (IProxyData data : getProxyData(uri)) {
+			if (data.isRequiresAuthentication() && host.equalsIgnoreCase(data.getHost()) && port == data.getPort()
+					&& data.getUserId() != null) {
+				String password = data.getPassword();
+				return new PasswordAuthentication(data.getUserId(),
+						password == null ? new char[0] : password.toCharArray());
+			}
+		}
+		return null;
+	}
+
+	private IProxyData[] getProxyData(URI uri) {
+		ServiceReference<IProxyService> reference = context.getServiceReference(IProxyService.class);
+		if (reference == null) {
+			return new IProxyData[0];
+		}
+		IProxyService service = context.getService(reference);
+		try {
+			if (service == null || !service.isProxiesEnabled()) {
+				return new IProxyData[0];
+			}
+			return service.select(uri);
+		} finally {
+			if (service != null) {
+				context.ungetService(reference);
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2007, 2022 IBM Corporation and others.
+ *  Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -151,6 +151,64 @@ public abstract class Transport {
 		return download(source, target, monitor);
 	}
 
+	/**
+	 * Downloads a file unless it is unchanged since an earlier download, using a
+	 * single conditional request. The validators of the earlier download are sent
+	 * with the request, and a server that finds them current answers without the
+	 * content. If the <code>target</code> is an instance of {@link IStateful} the
+	 * resulting status is also set on the target.
+	 * <p>
+	 * The default implementation returns <code>null</code>, callers then fall back
+	 * to {@link #getLastModified(URI, IProgressMonitor)} and
+	 * {@link #download(URI, OutputStream, IProgressMonitor)}.
+	 * </p>
+	 *
+	 * @param toDownload   URI of file to download
+	 * @param target       OutputStream where result is written
+	 * @param entityTag    the entity tag of the earlier download, or
+	 *                     <code>null</code>
+	 * @param lastModified the last modified date of the earlier download, or 0
+	 * @param monitor      where progress should be reported
+	 * @return a {@link DownloadStatus} with the code
+	 *         {@link DownloadStatus#CODE_NOT_MODIFIED} if the file is unchanged,
+	 *         the status of the download otherwise, or <code>null</code> if this
+	 *         transport cannot make conditional requests
+	 * @throws OperationCanceledException if the operation was canceled.
+	 */
+	public IStatus downloadIfModified(URI toDownload, OutputStream target, String entityTag, long lastModified,
+			IProgressMonitor monitor) {
+		return null;
+	}
+
+	/**
+	 * Downloads a range of the bytes of a file, writing into the target output
+	 * stream. Large artifacts are downloaded in ranges that are fetched at the
+	 * same time. If the <code>target</code> is an instance of {@link IStateful}
+	 * the resulting status is also set on the target.
+	 * <p>
+	 * The default implementation returns <code>null</code>, callers then fall back
+	 * to {@link #download(URI, OutputStream, IProgressMonitor)}.
+	 * </p>
+	 *
+	 * @param toDownload URI of file to download
+	 * @param target     OutputStream where the range is written
+	 * @param offset     the position of the first byte of the range
+	 * @param length     the number of bytes in the range
+	 * @param size       the size of the whole file, the range of a file of
+	 *                   another size is not accepted
+	 * @param monitor    where progress should be reported
+	 * @return a {@link DownloadStatus}, that has the code
+	 *         {@link DownloadStatus#CODE_RANGE_NOT_SUPPORTED} if the server cannot
+	 *         send ranges or sends the range of a file of another size, in which
+	 *         case the target has to be discarded, or
+	 *         <code>null</code> if this transport cannot make range requests
+	 * @throws OperationCanceledException if the operation was canceled.
+	 */
+	public IStatus downloadRange(URI toDownload, OutputStream target, long offset, long length, long size,
+			IProgressMonitor monitor) {
+		return null;
+	}
+
 	/**
 	 * Perform a stream download, writing into an InputStream that is returned.
 	 * Performs authentication if needed.
@@ -180,6 +238,20 @@ public abstract class Transport {
 	public abstract long getLastModified(URI toDownload, IProgressMonitor monitor)
 			throws CoreException, FileNotFoundException, AuthenticationFailedException;
 
+	/**
+	 * Returns the number of downloads from the given location that this transport
+	 * can have in flight at the same time. Callers that download many artifacts
+	 * from one repository use this to decide how many downloads they run in
+	 * parallel. The default implementation has no preference.
+	 *
+	 * @param location the location that is downloaded from
+	 * @return the number of concurrent downloads, or <code>0</code> if the
+	 *         transport has no preference
+	 */
+	public int getMaxConcurrentDownloads(URI location) {
+		return 0;
+	}
+
 	/**
 	 * Returns the corresponding secure location given an arbitrary location.
 	 * Subclasses are encouraged to use this method, to ensure that only secure
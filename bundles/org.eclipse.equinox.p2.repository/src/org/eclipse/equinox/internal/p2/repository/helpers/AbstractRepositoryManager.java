@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2015 IBM Corporation and others.
+ * Copyright (c) 2008, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -21,11 +21,12 @@ import java.io.*;
 import java.lang.ref.SoftReference;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.preferences.IPreferencesService;
 import org.eclipse.equinox.internal.p2.core.helpers.*;
-import org.eclipse.equinox.internal.p2.repository.Activator;
-import org.eclipse.equinox.internal.p2.repository.Transport;
+import org.eclipse.equinox.internal.p2.repository.*;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.ProvisioningListener;
 import org.eclipse.equinox.internal.provisional.p2.repository.RepositoryEvent;
@@ -52,6 +53,7 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 		public String nickname;
 		public SoftReference<IRepository<R>> repository;
 		public String suffix;
+		public String cacheTTL;
 
 		public RepositoryInfo() {
 			super();
@@ -61,6 +63,7 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 	public static final String ATTR_SUFFIX = "suffix"; //$NON-NLS-1$
 	public static final String EL_FACTORY = "factory"; //$NON-NLS-1$
 	public static final String EL_FILTER = "filter"; //$NON-NLS-1$
+	public static final String KEY_CACHE_TTL = "cacheTTL"; //$NON-NLS-1$
 	public static final String KEY_DESCRIPTION = "description"; //$NON-NLS-1$
 	public static final String KEY_ENABLED = "enabled"; //$NON-NLS-1$
 	public static final String KEY_NAME = "name"; //$NON-NLS-1$
@@ -74,8 +77,36 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 	public static final String KEY_VERSION = "version"; //$NON-NLS-1$
 
 	public static final String NODE_REPOSITORIES = "repositories"; //$NON-NLS-1$
+
+	/**
+	 * The repository property with the number of seconds for which the cache of a
+	 * repository is used without contacting the server, overriding
+	 * {@link CacheManager#PROP_FRESHNESS_WINDOW}. It is stored with the other
+	 * preferences of the repository.
+	 *
+	 * @see #setRepositoryProperty(URI, String, String)
+	 */
+	public static final String PROP_CACHE_TTL = "p2.cache.ttl"; //$NON-NLS-1$
 	private static final String INDEX_FILE = "p2.index"; //$NON-NLS-1$
 
+	/**
+	 * The number of threads that refresh repositories loaded from stale caches,
+	 * shared by all repository managers.
+	 */
+	private static final int REVALIDATION_THREADS = 2;
+
+	private static final ExecutorService REVALIDATION_EXECUTOR;
+	static {
+		AtomicInteger count = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(REVALIDATION_THREADS, REVALIDATION_THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+			Thread thread = new Thread(runnable, "p2 repository refresh " + count.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.allowCoreThreadTimeOut(true);
+		REVALIDATION_EXECUTOR = executor;
+	}
+
 	/**
 	 * Map of String->RepositoryInfo, where String is the repository key
 	 * obtained via getKey(URI).
@@ -95,6 +126,12 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 	 * Set used to manage exclusive load locks on repository locations.
 	 */
 	private final Map<URI, Thread> loadLocks = new HashMap<>();
+
+	/**
+	 * Locations of the repositories that are waiting to be refreshed or are being
+	 * refreshed in the background.
+	 */
+	private final Set<URI> revalidating = ConcurrentHashMap.newKeySet();
 	private final IAgentLocation agentLocation;
 	protected final IProvisioningEventBus eventBus;
 	protected final IProvisioningAgent agent;
@@ -216,6 +253,10 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 		if (!removeRepository(location)) {
 			fail(location, ProvisionException.REPOSITORY_NOT_FOUND);
 		}
+		CacheManager cache = agent.getService(CacheManager.class);
+		if (cache != null) {
+			cache.expire(location);
+		}
 		boolean loaded = false;
 		try {
 			IRepository<T> result = loadRepository(location, monitor, null, 0);
@@ -631,6 +672,8 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 						return Boolean.toString(info.isSystem);
 					case IRepository.PROP_NICKNAME:
 						return info.nickname;
+					case PROP_CACHE_TTL:
+						return info.cacheTTL;
 					default:
 						break;
 				}
@@ -666,6 +709,9 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 			    //only true if value.equals("true") which is OK because a repository is only system if it's explicitly set to system.
 				info.isSystem = Boolean.parseBoolean(value);
 			    break;
+		    	case PROP_CACHE_TTL:
+			    info.cacheTTL = value;
+			    break;
 		    	default:
 			    break;
 		    }
@@ -714,7 +760,9 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 		checkValidLocation(location);
 		SubMonitor sub = SubMonitor.convert(monitor, 100);
 		boolean added = false;
+		boolean stale = false;
 		IRepository<T> result = null;
+		CacheManager cache = agent.getService(CacheManager.class);
 
 		try {
 			enterLoad(location, sub.newChild(5));
@@ -728,13 +776,17 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 			//add the repository first so that it will be enabled, but don't send add event until after the load
 			added = addRepository(location, true, false);
 
-			LocationProperties indexFile = loadIndexFile(location, sub.newChild(15));
+			// a repository with a fresh cache is loaded from the cache without contacting the server
+			long freshnessWindow = getFreshnessWindow(location, cache);
+			String cachedSuffix = getCachedSuffix(location, cache, freshnessWindow);
+			stale = cachedSuffix != null && !cache.isFresh(location, cachedSuffix, freshnessWindow);
+			LocationProperties indexFile = cachedSuffix != null ? LocationProperties.createEmptyIndexFile() : loadIndexFile(location, sub.newChild(15));
 			String[] preferredOrder = getPreferredRepositorySearchOrder(indexFile);
 			String[] suffixes = sortSuffixes(getAllSuffixes(), location, preferredOrder);
 
 			sub = SubMonitor.convert(sub, NLS.bind(Messages.repoMan_adding, location), suffixes.length * 100);
 			ProvisionException failure = null;
-			try {
+			try (CacheManager.LoadScope scope = cache != null ? cache.openLoadScope(location, freshnessWindow, stale) : null) {
 				for (String suffixe : suffixes) {
 					if (sub.isCanceled()) {
 						throw new OperationCanceledException();
@@ -747,6 +799,9 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 					}
 					if (result != null) {
 						addRepository(result, false, suffixe);
+						if (stale) {
+							revalidate(location, suffixe, type, flags, freshnessWindow);
+						}
 						break;
 					}
 				}
@@ -779,6 +834,97 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 		return result;
 	}
 
+	/**
+	 * Returns the freshness window of the caches of a repository in milliseconds,
+	 * either set through {@link #PROP_CACHE_TTL} or the default of the cache
+	 * manager.
+	 */
+	private long getFreshnessWindow(URI location, CacheManager cache) {
+		if (cache == null) {
+			return 0;
+		}
+		String cacheTTL;
+		synchronized (repositoryLock) {
+			RepositoryInfo<T> info = repositories.get(getKey(location));
+			cacheTTL = info == null ? null : info.cacheTTL;
+		}
+		if (cacheTTL != null) {
+			try {
+				return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(cacheTTL.trim())));
+			} catch (NumberFormatException e) {
+				log("Invalid cache TTL of repository " + location + ": " + cacheTTL, e); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		return cache.getFreshnessWindow();
+	}
+
+	/**
+	 * Returns the suffix that a repository was last loaded from if its cache can
+	 * be used without contacting the server, either because it is fresh or
+	 * because stale caches are refreshed in the background. Returns
+	 * <code>null</code> if the repository must be loaded from the server.
+	 */
+	private String getCachedSuffix(URI location, CacheManager cache, long freshnessWindow) {
+		if (cache == null) {
+			return null;
+		}
+		String suffix;
+		synchronized (repositoryLock) {
+			RepositoryInfo<T> info = repositories.get(getKey(location));
+			if (info == null || info.suffix == null) {
+				return null;
+			}
+			suffix = info.suffix;
+		}
+		if (cache.isFresh(location, suffix, freshnessWindow) || (cache.isStaleWhileRevalidate() && cache.hasCache(location, suffix))) {
+			return suffix;
+		}
+		return null;
+	}
+
+	/**
+	 * Loads a repository that was loaded from a stale cache again in the
+	 * background, validating the cache against the server. The new repository
+	 * replaces the stale one when it is loaded, and a
+	 * {@link RepositoryEvent#CHANGED} event is broadcast. If it cannot be
+	 * loaded, the stale repository is kept.
+	 * <p>
+	 * This bundle does not depend on the jobs API, so the repository is loaded
+	 * by a small executor shared by all repository managers. A repository that
+	 * is already waiting to be refreshed is not refreshed twice.
+	 * </p>
+	 */
+	private void revalidate(URI location, String suffix, String type, int flags, long freshnessWindow) {
+		if (!revalidating.add(location)) {
+			return;
+		}
+		try {
+			REVALIDATION_EXECUTOR.execute(() -> {
+				IRepository<T> repository = null;
+				try {
+					enterLoad(location, new NullProgressMonitor());
+					try (CacheManager.LoadScope scope = agent.getService(CacheManager.class).openLoadScope(location, freshnessWindow, false)) {
+						repository = loadRepository(location, suffix, type, flags, SubMonitor.convert(null));
+						if (repository != null) {
+							addRepository(repository, false, suffix);
+						}
+					} finally {
+						exitLoad(location);
+					}
+				} catch (ProvisionException | RuntimeException e) {
+					log("Error while refreshing repository: " + location, e); //$NON-NLS-1$
+				} finally {
+					revalidating.remove(location);
+				}
+				if (repository != null) {
+					broadcastChangeEvent(location, getRepositoryType(), RepositoryEvent.CHANGED, isEnabled(location));
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			revalidating.remove(location);
+		}
+	}
+
 	/**
 	 * Fetches the p2.index file from the server. If the file could not be fetched
 	 * a NullSafe version is returned.
@@ -995,6 +1141,7 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 			changed |= putValue(node, KEY_NICKNAME, info.nickname);
 			changed |= putValue(node, KEY_SUFFIX, info.suffix);
 			changed |= putValue(node, KEY_ENABLED, Boolean.toString(info.isEnabled));
+			changed |= putValue(node, KEY_CACHE_TTL, info.cacheTTL);
 			if (changed && flush) {
 				saveToPreferences();
 			}
@@ -1095,6 +1242,7 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 			info.isSystem = child.getBoolean(KEY_SYSTEM, false);
 			info.isEnabled = child.getBoolean(KEY_ENABLED, true);
 			info.suffix = child.get(KEY_SUFFIX, null);
+			info.cacheTTL = child.get(KEY_CACHE_TTL, null);
 			repositories.put(getKey(info.location), info);
 		}
 		// now that we have loaded everything, remember them
@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.repository.helpers;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.repository.Activator;
+import org.eclipse.equinox.p2.core.ProvisionException;
+import org.osgi.framework.BundleContext;
+
+/**
+ * Loads the children of a composite repository concurrently.
+ * <p>
+ * The number of children that are loaded at the same time is taken from the
+ * {@link #PROP_LOADING_PARALLELISM} property of the composite. The default is
+ * one, which means that the children are loaded one after another by the
+ * caller. Composites whose children refer back to the composite must not be
+ * loaded in parallel.
+ * </p>
+ */
+public class CompositeChildLoader {
+
+	/**
+	 * Repository property that limits the number of children that are loaded
+	 * at the same time.
+	 */
+	public static final String PROP_LOADING_PARALLELISM = "p2.composite.loading.parallelism"; //$NON-NLS-1$
+
+	public static final int LOADING_PARALLELISM_DEFAULT = parseParallelism(getFrameworkProperty("eclipse.p2.composite.loading.parallelism.default"), 1); //$NON-NLS-1$
+
+	private static final long CANCEL_POLL_MILLIS = 500;
+
+	/**
+	 * Loads a single child of a composite repository.
+	 */
+	@FunctionalInterface
+	public interface ChildLoad<R> {
+		R load(URI location, IProgressMonitor monitor) throws ProvisionException;
+	}
+
+	/**
+	 * The outcome of loading a single child. Exactly one of the repository and
+	 * the failure is non-<code>null</code>.
+	 */
+	public static final class Result<R> {
+		private final URI location;
+		private final R repository;
+		private final ProvisionException failure;
+
+		Result(URI location, R repository, ProvisionException failure) {
+			this.location = location;
+			this.repository = repository;
+			this.failure = failure;
+		}
+
+		public URI getLocation() {
+			return location;
+		}
+
+		public R getRepository() {
+			return repository;
+		}
+
+		public ProvisionException getFailure() {
+			return failure;
+		}
+	}
+
+	private CompositeChildLoader() {
+		// static helper
+	}
+
+	/**
+	 * Returns the number of children that may be loaded at the same time for a
+	 * composite with the given properties.
+	 */
+	public static int getLoadingParallelism(Map<String, String> properties) {
+		String value = properties == null ? null : properties.get(PROP_LOADING_PARALLELISM);
+		return parseParallelism(value, LOADING_PARALLELISM_DEFAULT);
+	}
+
+	/**
+	 * Loads all given locations with at most <code>parallelism</code> loads
+	 * running at the same time. Failures to load a child do not stop the other
+	 * loads. The results are returned in the order of the given locations,
+	 * independent of the order in which the loads completed.
+	 *
+	 * @throws OperationCanceledException if the monitor is canceled while waiting for the loads
+	 */
+	public static <R> List<Result<R>> loadAll(List<URI> locations, int parallelism, ChildLoad<R> loader, IProgressMonitor monitor) {
+		SubMonitor sub = SubMonitor.convert(monitor, 100 * locations.size());
+		List<Result<R>> results = new ArrayList<>(locations.size());
+		if (parallelism <= 1 || locations.size() <= 1) {
+			for (URI location : locations) {
+				results.add(load(location, loader, sub.newChild(100)));
+			}
+			return results;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, locations.size()), new LoaderThreadFactory());
+		try {
+			// the workers only observe cancellation, progress is reported as the results are collected
+			IProgressMonitor workerMonitor = new NullProgressMonitor() {
+				@Override
+				public boolean isCanceled() {
+					return super.isCanceled() || sub.isCanceled();
+				}
+			};
+			List<Future<Result<R>>> futures = new ArrayList<>(locations.size());
+			for (URI location : locations) {
+				futures.add(executor.submit(() -> load(location, loader, workerMonitor)));
+			}
+			for (Future<Result<R>> future : futures) {
+				results.add(await(future, sub));
+				sub.worked(100);
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static <R> Result<R> load(URI location, ChildLoad<R> loader, IProgressMonitor monitor) {
+		try {
+			return new Result<>(location, loader.load(location, monitor), null);
+		} catch (ProvisionException e) {
+			return new Result<>(location, null, e);
+		}
+	}
+
+	private static <R> Result<R> await(Future<Result<R>> future, IProgressMonitor monitor) {
+		while (true) {
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			try {
+				return future.get(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check for cancellation again
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException runtimeException) {
+					throw runtimeException;
+				}
+				if (cause instanceof Error error) {
+					throw error;
+				}
+				throw new IllegalStateException(cause);
+			}
+		}
+	}
+
+	private static int parseParallelism(String value, int defaultValue) {
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Math.max(1, Integer.parseInt(value.trim()));
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	private static String getFrameworkProperty(String key) {
+		BundleContext context = Activator.getContext();
+		return context != null ? context.getProperty(key) : System.getProperty(key);
+	}
+
+	private static class LoaderThreadFactory implements ThreadFactory {
+		private static final AtomicInteger COUNT = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "p2 composite child loader " + COUNT.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
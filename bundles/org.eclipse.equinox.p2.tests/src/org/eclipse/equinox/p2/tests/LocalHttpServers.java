@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.eclipse.equinox.internal.p2.repository.HttpClientTransport;
+
+/**
+ * Embedded HTTP servers on the loopback address for tests of the transports,
+ * and a {@link HttpClientTransport} that talks to them over plain http. Create
+ * the servers in <code>setUp</code> and close them in <code>tearDown</code>.
+ */
+public final class LocalHttpServers implements AutoCloseable {
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final List<HttpServer> servers = new ArrayList<>();
+
+	/**
+	 * Starts a server that answers the requests below the given path, which
+	 * starts and ends with a slash, with the given handler.
+	 */
+	public HttpServer start(String path, HttpHandler handler) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext(path, handler);
+		server.setExecutor(executor);
+		server.start();
+		servers.add(server);
+		return server;
+	}
+
+	/**
+	 * Returns the location of the given absolute path on the given server.
+	 */
+	public static URI location(HttpServer server, String path) {
+		return URI.create("http://localhost:" + server.getAddress().getPort() + path);
+	}
+
+	/**
+	 * Returns a transport with the given number of concurrent downloads that
+	 * does not insist on https.
+	 */
+	public static HttpClientTransport createTransport(int maxConcurrentDownloads) {
+		return createTransport(maxConcurrentDownloads, Duration.ofMinutes(2));
+	}
+
+	/**
+	 * Returns a transport with the given number of concurrent downloads and read
+	 * timeout that does not insist on https.
+	 */
+	public static HttpClientTransport createTransport(int maxConcurrentDownloads, Duration readTimeout) {
+		return new HttpClientTransport(maxConcurrentDownloads, readTimeout) {
+			@Override
+			protected ProtocolRule getProtocolRule(String scheme) {
+				// the test servers do not speak https
+				return null;
+			}
+		};
+	}
+
+	/**
+	 * Stops all servers without waiting for running exchanges.
+	 */
+	@Override
+	public void close() {
+		for (HttpServer server : servers) {
+			server.stop(0);
+		}
+		servers.clear();
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.metadata.repository.SimpleMetadataRepositoryFactory;
+import org.eclipse.equinox.p2.core.ProvisionException;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
+import org.eclipse.equinox.p2.repository.metadata.spi.MetadataRepositoryFactory;
+
+/**
+ * A repository factory that loads simple local repositories which contain a
+ * {@link #MARKER} file after a delay. It records how many loads were running at
+ * the same time.
+ */
+public class SlowMetadataRepositoryFactory extends MetadataRepositoryFactory {
+	public static final String MARKER = "slowContent.xml";
+	public static long DELAY = 300;
+
+	private static final AtomicInteger active = new AtomicInteger();
+	private static final AtomicInteger maxActive = new AtomicInteger();
+
+	public static void reset() {
+		active.set(0);
+		maxActive.set(0);
+	}
+
+	public static int getMaxConcurrentLoads() {
+		return maxActive.get();
+	}
+
+	@Override
+	public IMetadataRepository create(URI location, String name, String type, Map<String, String> properties) {
+		return null;
+	}
+
+	@Override
+	public IMetadataRepository load(URI location, int flags, IProgressMonitor monitor) throws ProvisionException {
+		if (!"file".equals(location.getScheme()) || !new File(URIUtil.toFile(location), MARKER).exists()) {
+			throw new ProvisionException(new Status(IStatus.ERROR, TestActivator.PI_PROV_TESTS, ProvisionException.REPOSITORY_NOT_FOUND, "", null));
+		}
+		maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+		try {
+			Thread.sleep(DELAY);
+		} catch (InterruptedException e) {
+			throw new OperationCanceledException();
+		} finally {
+			active.decrementAndGet();
+		}
+		SimpleMetadataRepositoryFactory delegate = new SimpleMetadataRepositoryFactory();
+		delegate.setAgent(getAgent());
+		return delegate.load(location, flags, monitor);
+	}
+}
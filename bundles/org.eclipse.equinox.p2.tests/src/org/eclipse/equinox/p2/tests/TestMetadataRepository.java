@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2007, 2023 IBM Corporation and others.
+ *  Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -22,6 +22,8 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.equinox.internal.p2.metadata.index.ContentStamp;
+import org.eclipse.equinox.internal.p2.metadata.index.IContentStampProvider;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.Version;
@@ -38,7 +40,7 @@ import org.junit.Assert;
  * A simple metadata repository used for testing purposes.  All metadata
  * is kept in memory.
  */
-public class TestMetadataRepository extends AbstractMetadataRepository {
+public class TestMetadataRepository extends AbstractMetadataRepository implements IContentStampProvider {
 
 	private static final String DESCRIPTION = "A Test Metadata Repository"; //$NON-NLS-1$
 	private static final String NAME = "ATestMetadataRepository"; //$NON-NLS-1$
@@ -46,6 +48,7 @@ public class TestMetadataRepository extends AbstractMetadataRepository {
 	private static final String TYPE = "testmetadatarepo"; //$NON-NLS-1$
 	private static final String VERSION = "1"; //$NON-NLS-1$
 	private final List<IInstallableUnit> units = new ArrayList<>();
+	private long modificationCount;
 	protected HashSet<IRepositoryReference> repositories = new HashSet<>();
 
 	private static URI createLocation() {
@@ -65,6 +68,7 @@ public class TestMetadataRepository extends AbstractMetadataRepository {
 
 	@Override
 	public void addInstallableUnits(Collection<IInstallableUnit> installableUnits) {
+		modificationCount++;
 		units.addAll(installableUnits);
 	}
 
@@ -86,6 +90,11 @@ public class TestMetadataRepository extends AbstractMetadataRepository {
 		return query.perform(units.iterator());
 	}
 
+	@Override
+	public Object getContentStamp() {
+		return ContentStamp.of(this, modificationCount);
+	}
+
 	@Override
 	public boolean contains(IInstallableUnit element) {
 		return units.contains(element);
@@ -93,11 +102,13 @@ public class TestMetadataRepository extends AbstractMetadataRepository {
 
 	@Override
 	public void removeAll() {
+		modificationCount++;
 		units.clear();
 	}
 
 	@Override
 	public boolean removeInstallableUnits(Collection<IInstallableUnit> installableUnits) {
+		modificationCount++;
 		boolean modified = false;
 		for (IInstallableUnit iu : installableUnits) {
 			modified |= units.remove(iu);
@@ -114,6 +125,7 @@ public class TestMetadataRepository extends AbstractMetadataRepository {
 		setDescription(state.Description);
 		setLocation(state.Location);
 		setProperties(state.Properties);
+		modificationCount++;
 		this.units.addAll(Arrays.asList(state.Units));
 		this.repositories.addAll(Arrays.asList(state.Repositories));
 	}
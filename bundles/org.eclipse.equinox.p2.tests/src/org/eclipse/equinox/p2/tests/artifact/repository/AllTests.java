@@ -25,8 +25,8 @@ import org.junit.platform.suite.api.Suite;
 		ArtifactRepositoryMissingSizeData.class, ArtifactRepositoryWithReferenceDescriptors.class,
 		BatchExecuteArtifactRepositoryTest.class, Bug252308.class, Bug265577.class, Bug351944.class,
 		CompositeArtifactRepositoryTest.class, CorruptedJar.class, FoldersRepositoryTest.class,
-		JarURLArtifactRepositoryTest.class, MD5Tests.class, MirrorSelectorTest.class,
-		MirrorRequestTest.class, SimpleArtifactRepositoryTest.class, TransferTest.class, PGPVerifierTest.class
+		JarURLArtifactRepositoryTest.class, MD5Tests.class, MirrorRaceTest.class, MirrorSelectorTest.class,
+		MirrorRequestTest.class, SegmentedDownloadTest.class, SimpleArtifactRepositoryTest.class, TransferTest.class, PGPVerifierTest.class
 })
 public class AllTests {
 // test suite
@@ -1,5 +1,5 @@
 /*******************************************************************************
-* Copyright (c) 2009, 2017 EclipseSource and others.
+* Copyright (c) 2009, 2026 EclipseSource and others.
  *
  * This
 * program and the accompanying materials are made available under the terms of
@@ -17,7 +17,9 @@ package org.eclipse.equinox.p2.tests.artifact.repository;
 import java.io.*;
 import java.lang.reflect.Field;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.artifact.repository.CompositeArtifactRepository;
@@ -514,4 +516,123 @@ public class BatchExecuteArtifactRepositoryTest extends AbstractProvisioningTest
 		}
 	}
 
+	/*
+	 * This tests that other threads can add descriptors while a batch runs, and
+	 * that their descriptors are saved at the end of the batch
+	 */
+	public void testConcurrentAddDuringBatch() {
+		try {
+			repositoryFile = getTempFolder();
+			repositoryURI = repositoryFile.toURI();
+			final SimpleArtifactRepository repo = (SimpleArtifactRepository) getArtifactRepositoryManager().createRepository(repositoryURI, "My Repo", IArtifactRepositoryManager.TYPE_SIMPLE_REPOSITORY, new HashMap<>());
+			final URI artifactXML = new URI(repositoryFile.toURI().toString() + "/artifacts.xml");
+			IStatus status = repo.executeBatch(monitor -> {
+				List<Thread> threads = new ArrayList<>();
+				for (int i = 0; i < 4; i++) {
+					String prefix = "worker" + i + "_";
+					threads.add(new Thread(() -> {
+						for (int j = 0; j < 10; j++) {
+							repo.addDescriptor(createDescriptor("osgi.bundle", prefix + j, Version.emptyVersion), new NullProgressMonitor());
+						}
+					}));
+				}
+				threads.forEach(Thread::start);
+				for (Thread thread : threads) {
+					try {
+						thread.join(30000);
+					} catch (InterruptedException e) {
+						fail("1.0", e);
+					}
+					// the batch must not keep the workers from adding their descriptors
+					assertFalse("1.1", thread.isAlive());
+				}
+				try {
+					assertFalse("1.2", fileContainsString(artifactXML, "worker0_0"));
+				} catch (IOException e) {
+					fail("1.3", e);
+				}
+			}, new NullProgressMonitor());
+			assertTrue(status.isOK());
+			assertEquals("2.0", 40, repo.query(new ArtifactKeyQuery(null, null, null), new NullProgressMonitor()).toSet().size());
+			assertTrue("2.1", fileContainsString(artifactXML, "worker0_0"));
+			assertTrue("2.2", fileContainsString(artifactXML, "worker3_9"));
+		} catch (Exception e) {
+			fail("Test failed", e);
+		}
+	}
+
+	class CountingSimpleArtifactRepository extends SimpleArtifactRepository {
+		// the writes of the constructor are not counted
+		int writes = 0;
+
+		public CountingSimpleArtifactRepository(URI location) {
+			super(getAgent(), "Counting Repo", location, null);
+		}
+
+		@Override
+		public void save() {
+			try {
+				Field field = SimpleArtifactRepository.class.getDeclaredField("disableSave");
+				field.setAccessible(true);
+				if (!field.getBoolean(this)) {
+					writes++;
+				}
+			} catch (ReflectiveOperationException e) {
+				fail("0.99", e);
+			}
+			super.save();
+		}
+	}
+
+	/*
+	 * This tests that the index is written once at the end of a batch, not for
+	 * every added descriptor
+	 */
+	public void testSingleSaveAtEndOfBatch() {
+		try {
+			repositoryFile = getTempFolder();
+			CountingSimpleArtifactRepository repo = new CountingSimpleArtifactRepository(repositoryFile.toURI());
+			IStatus status = repo.executeBatch(monitor -> {
+				repo.addDescriptor(createDescriptor("foo", "foo", Version.emptyVersion), monitor);
+				repo.addDescriptor(createDescriptor("bar", "bar", Version.emptyVersion), monitor);
+				repo.addDescriptors(new IArtifactDescriptor[] {createDescriptor("baz", "baz", Version.emptyVersion)}, monitor);
+				assertEquals("1.0", 0, repo.writes);
+			}, new NullProgressMonitor());
+			assertTrue(status.isOK());
+			assertEquals("2.0", 1, repo.writes);
+			assertEquals("2.1", 3, repo.query(new ArtifactKeyQuery(null, null, null), new NullProgressMonitor()).toSet().size());
+		} catch (Exception e) {
+			fail("Test failed", e);
+		}
+	}
+
+	/*
+	 * This tests that a nested batch does not save, and that the outer batch
+	 * saves the descriptors of both
+	 */
+	public void testNestedBatch() {
+		try {
+			repositoryFile = getTempFolder();
+			CountingSimpleArtifactRepository repo = new CountingSimpleArtifactRepository(repositoryFile.toURI());
+			final URI artifactXML = new URI(repositoryFile.toURI().toString() + "/artifacts.xml");
+			IStatus status = repo.executeBatch(monitor -> {
+				repo.addDescriptor(createDescriptor("foo", "foo", Version.emptyVersion), monitor);
+				IStatus inner = repo.executeBatch(innerMonitor -> repo.addDescriptor(createDescriptor("bar", "bar", Version.emptyVersion), innerMonitor), monitor);
+				assertTrue("1.0", inner.isOK());
+				assertEquals("1.1", 0, repo.writes);
+				try {
+					assertFalse("1.2", fileContainsString(artifactXML, "bar"));
+				} catch (IOException e) {
+					fail("1.3", e);
+				}
+			}, new NullProgressMonitor());
+			assertTrue(status.isOK());
+			assertEquals("2.0", 1, repo.writes);
+			assertTrue("2.1", fileContainsString(artifactXML, "foo"));
+			assertTrue("2.2", fileContainsString(artifactXML, "bar"));
+		} catch (Exception e) {
+			fail("Test failed", e);
+		}
+	}
+
 }
@@ -607,6 +607,34 @@ public class CompositeArtifactRepositoryTest extends AbstractProvisioningTest {
 		assertTrue(repo2File.length() == destFile2.length());
 	}
 
+	public void testGetArtifactsConcurrentlyFromRequests() throws Exception {
+		CompositeArtifactRepository compRepo = createRepo(false);
+		compRepo.setProperty(CompositeArtifactRepository.PROP_DOWNLOAD_PARALLELISM, "2");
+		// the first child has an entry for helloworld, but not its file
+		compRepo.addChild(getTestData("1", "/testData/mirror/mirrorErrorSourceRepo").toURI());
+		File child2 = getTestData("2", "/testData/mirror/mirrorSourceRepo2");
+		compRepo.addChild(child2.toURI());
+		compRepo.addChild(getTestData("3", "/testData/mirror/mirrorSourceRepo1 with space").toURI());
+
+		File destRepoLocation = new File(getTempFolder(), "CompositeArtifactRepositoryTest");
+		delete(destRepoLocation);
+		IArtifactRepository destinationRepo = getArtifactRepositoryManager().createRepository(destRepoLocation.toURI(),
+				"Test Repo", IArtifactRepositoryManager.TYPE_SIMPLE_REPOSITORY, null);
+
+		IArtifactKey helloworld = new ArtifactKey("osgi.bundle", "helloworld", Version.parseVersion("1.0.0"));
+		IArtifactKey key2 = getArtifactRepositoryManager().loadRepository(child2.toURI(), null)
+				.query(ArtifactKeyQuery.ALL_KEYS, null).iterator().next();
+		ArtifactRepositoryManager manager = (ArtifactRepositoryManager) getArtifactRepositoryManager();
+		IArtifactRequest[] requests = new IArtifactRequest[] {manager.createMirrorRequest(helloworld, destinationRepo, null, null), manager.createMirrorRequest(key2, destinationRepo, null, null)};
+
+		compRepo.getArtifacts(requests, new NullProgressMonitor());
+
+		// helloworld fails in the first child and is fetched from the third
+		assertTrue("Failed over to the next child", requests[0].getResult().isOK());
+		assertTrue("Expected Key is not in destination", destinationRepo.contains(helloworld));
+		assertTrue("Expected Key is not in destination", destinationRepo.contains(key2));
+	}
+
 	public void testGetArtifactsWithErrorInChild() throws Exception {
 		File testData = getTestData("1", "/testData/artifactRepo/composite/errorInChild");
 		repositoryURI = testData.toURI();
@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.artifact.repository;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.TimeoutException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.equinox.internal.p2.artifact.repository.MirrorRace;
+import org.eclipse.equinox.internal.p2.artifact.repository.MirrorRace.Lap;
+import org.eclipse.equinox.internal.p2.repository.HttpClientTransport;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+import org.eclipse.equinox.p2.tests.LocalHttpServers;
+
+/**
+ * Races mirrors that are stood in for by embedded HTTP servers, one of which is
+ * throttled.
+ */
+public class MirrorRaceTest extends AbstractProvisioningTest {
+
+	private static final int SIZE = 256 * 1024;
+	private static final int RACE_BYTES = 64 * 1024;
+
+	private LocalHttpServers servers;
+	private HttpServer fast;
+	private HttpServer slow;
+	private HttpClientTransport transport;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		servers = new LocalHttpServers();
+		fast = startServer(0, 0);
+		// answers late and sends 8 KB every 50 ms
+		slow = startServer(200, 50);
+		transport = LocalHttpServers.createTransport(4);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		servers.close();
+		super.tearDown();
+	}
+
+	private HttpServer startServer(long latencyMillis, long chunkDelayMillis) throws IOException {
+		return servers.start("/mirror/", exchange -> serve(exchange, latencyMillis, chunkDelayMillis));
+	}
+
+	private static void serve(HttpExchange exchange, long latencyMillis, long chunkDelayMillis) throws IOException {
+		try (exchange) {
+			if (!exchange.getRequestURI().getPath().endsWith("/artifact.jar")) {
+				exchange.sendResponseHeaders(404, -1);
+				return;
+			}
+			Thread.sleep(latencyMillis);
+			exchange.sendResponseHeaders(200, SIZE);
+			byte[] chunk = new byte[8 * 1024];
+			try (OutputStream body = exchange.getResponseBody()) {
+				for (int written = 0; written < SIZE; written += chunk.length) {
+					body.write(chunk);
+					body.flush();
+					Thread.sleep(chunkDelayMillis);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			// the race is over and the client closed the connection
+		}
+	}
+
+	private static URI location(HttpServer server, String name) {
+		return LocalHttpServers.location(server, "/mirror/" + name);
+	}
+
+	public void testFasterMirrorWins() {
+		URI[] locations = {location(slow, "artifact.jar"), location(fast, "artifact.jar")};
+		Lap[] laps = MirrorRace.run(transport, locations, RACE_BYTES, new NullProgressMonitor());
+
+		assertEquals(2, laps.length);
+		assertFalse(laps[0].isFailed());
+		assertFalse(laps[1].isFailed());
+		assertEquals(RACE_BYTES, laps[1].bytes());
+		assertTrue(laps[1].complete());
+		// the race is over when the fast mirror is done, the slow one is stopped
+		assertFalse(laps[0].complete());
+		assertTrue(laps[0].bytes() < RACE_BYTES);
+		assertEquals(1, MirrorRace.getWinner(laps));
+	}
+
+	public void testStalledMirrorIsStopped() throws IOException {
+		// sends the first 8 KB and then nothing for a minute
+		HttpServer stalled = startServer(0, 60000);
+		URI[] locations = {location(stalled, "artifact.jar"), location(fast, "artifact.jar")};
+		long start = System.currentTimeMillis();
+		Lap[] laps = MirrorRace.run(transport, locations, RACE_BYTES, 30000, new NullProgressMonitor());
+
+		assertTrue(System.currentTimeMillis() - start < 10000);
+		assertFalse(laps[0].isFailed());
+		assertFalse(laps[0].complete());
+		assertTrue(laps[1].complete());
+		assertEquals(1, MirrorRace.getWinner(laps));
+	}
+
+	public void testStalledMirrorTimesOut() throws IOException {
+		HttpServer stalled = startServer(0, 60000);
+		URI[] locations = {location(stalled, "artifact.jar")};
+		long start = System.currentTimeMillis();
+		Lap[] laps = MirrorRace.run(transport, locations, RACE_BYTES, 500, new NullProgressMonitor());
+
+		assertTrue(System.currentTimeMillis() - start < 10000);
+		assertTrue(laps[0].isFailed());
+		assertTrue(laps[0].failure() instanceof TimeoutException);
+		assertEquals(-1, MirrorRace.getWinner(laps));
+	}
+
+	public void testIncompleteLapDoesNotWin() {
+		Lap[] laps = {new Lap(1024, 1, 1, false, null), new Lap(RACE_BYTES, 100, 100, true, null)};
+
+		assertEquals(1, MirrorRace.getWinner(laps));
+		assertEquals(-1, MirrorRace.getWinner(new Lap[] {laps[0]}));
+	}
+
+	public void testHighestThroughputWins() {
+		// the first mirror transfers faster once it answered, but it answered late
+		Lap[] laps = {new Lap(RACE_BYTES, 50, 10, true, null), new Lap(RACE_BYTES, 5, 20, true, null),
+				new Lap(RACE_BYTES, 10, 30, true, null)};
+
+		assertEquals(1, MirrorRace.getWinner(laps));
+	}
+
+	public void testFailedMirrorLoses() {
+		URI[] locations = {location(fast, "missing.jar"), location(slow, "artifact.jar")};
+		Lap[] laps = MirrorRace.run(transport, locations, RACE_BYTES, new NullProgressMonitor());
+
+		assertTrue(laps[0].isFailed());
+		assertTrue(laps[0].failure() instanceof FileNotFoundException);
+		assertFalse(laps[1].isFailed());
+		assertEquals(1, MirrorRace.getWinner(laps));
+	}
+
+	public void testAllMirrorsFail() {
+		URI[] locations = {location(fast, "missing.jar"), location(slow, "missing.jar")};
+		Lap[] laps = MirrorRace.run(transport, locations, RACE_BYTES, new NullProgressMonitor());
+
+		assertEquals(-1, MirrorRace.getWinner(laps));
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2017 IBM Corporation and others.
+ * Copyright (c) 2008, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,18 +15,31 @@
 package org.eclipse.equinox.p2.tests.artifact.repository;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Properties;
 import org.eclipse.equinox.internal.p2.artifact.repository.MirrorSelector;
 import org.eclipse.equinox.internal.p2.artifact.repository.MirrorSelector.MirrorInfo;
+import org.eclipse.equinox.internal.p2.artifact.repository.MirrorStatistics;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class MirrorSelectorTest {
 
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
 	private List<MirrorInfo> originals;
 
 	@Before
@@ -310,6 +323,94 @@ public class MirrorSelectorTest {
 
 	}
 
+	@Test
+	public void testTransferEstimates() {
+		MirrorInfo mirror = new MirrorInfo("https://mirror.example.org/eclipse/", 0);
+		assertEquals("unmeasured", -1, mirror.getExpectedMillis(1000), 0);
+
+		// 100 KB/s after 50 ms
+		mirror.recordTransfer(100000, 50, 1000);
+		assertEquals(50 + 1000, mirror.getExpectedMillis(100000), 0.001);
+
+		// the next transfer only moves the estimates part of the way
+		mirror.recordTransfer(100000, 150, 500);
+		double latency = 50 + 0.3 * (150 - 50);
+		double throughput = 100000 + 0.3 * (200000 - 100000);
+		assertEquals(latency + 100000 * 1000 / throughput, mirror.getExpectedMillis(100000), 0.001);
+	}
+
+	@Test
+	public void testAdaptiveOrder() {
+		// answers fast but transfers slowly
+		MirrorInfo nearby = new MirrorInfo("https://nearby.example.org/eclipse/", 0);
+		nearby.recordTransfer(100000, 10, 1000);
+		// answers slowly but transfers fast
+		MirrorInfo faraway = new MirrorInfo("https://faraway.example.org/eclipse/", 1);
+		faraway.recordTransfer(100000, 500, 50);
+		MirrorInfo unmeasured = new MirrorInfo("https://unmeasured.example.org/eclipse/", 2);
+		MirrorInfo failing = new MirrorInfo("https://failing.example.org/eclipse/", 3);
+		failing.recordTransfer(100000, 1, 1);
+		failing.incrementFailureCount();
+
+		MirrorInfo[] mirrors = {unmeasured, failing, faraway, nearby};
+		Arrays.sort(mirrors, MirrorSelector.getAdaptiveComparator(1000));
+		assertSame("small artifact", nearby, mirrors[0]);
+		assertSame(faraway, mirrors[1]);
+		assertSame(unmeasured, mirrors[2]);
+		assertSame(failing, mirrors[3]);
+
+		Arrays.sort(mirrors, MirrorSelector.getAdaptiveComparator(10000000));
+		assertSame("large artifact", faraway, mirrors[0]);
+		assertSame(nearby, mirrors[1]);
+	}
+
+	@Test
+	public void testStatistics() throws Exception {
+		File file = new File(tempFolder.getRoot(), "mirrorStatistics.properties");
+		MirrorStatistics statistics = MirrorStatistics.get(file);
+		MirrorInfo mirror = new MirrorInfo("https://mirror.example.org/eclipse/", 0);
+		mirror.recordTransfer(100000, 50, 1000);
+		statistics.update(mirror);
+		statistics.save();
+		assertTrue(file.isFile());
+
+		MirrorInfo restored = new MirrorInfo("https://mirror.example.org/eclipse/", 4);
+		statistics.restore(restored);
+		assertEquals(mirror.getExpectedMillis(100000), restored.getExpectedMillis(100000), 0.001);
+
+		MirrorInfo other = new MirrorInfo("https://other.example.org/eclipse/", 5);
+		statistics.restore(other);
+		assertEquals(-1, other.getExpectedMillis(100000), 0);
+	}
+
+	@Test
+	public void testStatisticsAreReadFromFile() throws Exception {
+		File file = new File(tempFolder.getRoot(), "saved/mirrorStatistics.properties");
+		MirrorStatistics statistics = MirrorStatistics.get(file);
+		MirrorInfo mirror = new MirrorInfo("https://mirror.example.org/eclipse/", 0);
+		mirror.recordTransfer(100000, 50, 1000);
+		statistics.update(mirror);
+		statistics.save();
+
+		Properties saved = new Properties();
+		try (InputStream input = new FileInputStream(file)) {
+			saved.load(input);
+		}
+		assertEquals("1", saved.getProperty("https://mirror.example.org/eclipse/.samples"));
+
+		// the statistics of a file that was not used yet are read from disk
+		File copy = new File(tempFolder.getRoot(), "copy/mirrorStatistics.properties");
+		copy.getParentFile().mkdirs();
+		Files.copy(file.toPath(), copy.toPath());
+		MirrorInfo restored = new MirrorInfo("https://mirror.example.org/eclipse/", 4);
+		MirrorStatistics.get(copy).restore(restored);
+		assertEquals(mirror.getExpectedMillis(100000), restored.getExpectedMillis(100000), 0.001);
+
+		MirrorInfo other = new MirrorInfo("https://other.example.org/eclipse/", 5);
+		MirrorStatistics.get(copy).restore(other);
+		assertEquals(-1, other.getExpectedMillis(100000), 0);
+	}
+
 	private void assertList(List<MirrorInfo> originallist, MirrorInfo[] mirrors) {
 		assertEquals("length", originallist.size(), mirrors.length);
 		for (int i = 0; i < originallist.size(); i++) {
@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.artifact.repository;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.equinox.internal.p2.artifact.repository.SegmentedDownload;
+import org.eclipse.equinox.internal.p2.repository.DownloadStatus;
+import org.eclipse.equinox.internal.p2.repository.HttpClientTransport;
+import org.eclipse.equinox.internal.p2.repository.Transport;
+import org.eclipse.equinox.internal.p2.transport.ecf.RepositoryTransport;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+import org.eclipse.equinox.p2.tests.LocalHttpServers;
+
+/**
+ * Downloads an artifact in segments from embedded HTTP servers that stand in
+ * for mirrors.
+ */
+public class SegmentedDownloadTest extends AbstractProvisioningTest {
+
+	private static final int SIZE = 1024 * 1024 + 17;
+	private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+	private final byte[] content = new byte[SIZE];
+	private LocalHttpServers servers;
+	private HttpServer ranges;
+	private HttpServer noRanges;
+	private HttpServer broken;
+	private HttpServer wrongRanges;
+	private HttpServer otherFile;
+	private HttpClientTransport transport;
+	private final AtomicInteger rangeRequests = new AtomicInteger();
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		for (int i = 0; i < SIZE; i++) {
+			content[i] = (byte) (i * 31 + (i >> 8));
+		}
+		servers = new LocalHttpServers();
+		ranges = servers.start("/mirror/", exchange -> serveRange(exchange, SIZE));
+		// serves ranges of a file that is larger than the artifact
+		otherFile = servers.start("/mirror/", exchange -> serveRange(exchange, SIZE + 1));
+		noRanges = servers.start("/mirror/", this::serveWhole);
+		broken = servers.start("/mirror/", exchange -> {
+			try (exchange) {
+				exchange.sendResponseHeaders(503, -1);
+			}
+		});
+		// answers every range request with the beginning of the file
+		wrongRanges = servers.start("/mirror/", exchange -> {
+			try (exchange) {
+				exchange.getResponseHeaders().add("Content-Range", "bytes 0-99/" + SIZE);
+				exchange.sendResponseHeaders(206, 100);
+				try (OutputStream body = exchange.getResponseBody()) {
+					body.write(content, 0, 100);
+				}
+			}
+		});
+		transport = LocalHttpServers.createTransport(8);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		servers.close();
+		super.tearDown();
+	}
+
+	private void serveRange(HttpExchange exchange, int total) throws IOException {
+		try (exchange) {
+			Matcher range = RANGE.matcher(String.valueOf(exchange.getRequestHeaders().getFirst("Range")));
+			if (!range.matches()) {
+				serveWhole(exchange);
+				return;
+			}
+			rangeRequests.incrementAndGet();
+			int first = Integer.parseInt(range.group(1));
+			int last = Math.min(SIZE - 1, Integer.parseInt(range.group(2)));
+			exchange.getResponseHeaders().add("Content-Range", "bytes " + first + '-' + last + '/' + total);
+			exchange.sendResponseHeaders(206, last - first + 1);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(content, first, last - first + 1);
+			}
+		}
+	}
+
+	private void serveWhole(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			exchange.sendResponseHeaders(200, SIZE);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(content);
+			}
+		}
+	}
+
+	private static URI location(HttpServer server) {
+		return LocalHttpServers.location(server, "/mirror/artifact.jar");
+	}
+
+	public void testSegments() {
+		SegmentedDownload download = new SegmentedDownload(transport, new URI[] {location(ranges)}, SIZE, 4);
+		ByteArrayOutputStream destination = new ByteArrayOutputStream();
+		IStatus status = download.run(destination, new NullProgressMonitor());
+
+		assertOK(status);
+		assertEquals(SIZE, ((DownloadStatus) status).getFileSize());
+		assertEquals(4, rangeRequests.get());
+		assertTrue(Arrays.equals(content, destination.toByteArray()));
+	}
+
+	public void testPartFileNextToDestination() {
+		File directory = getTempFolder();
+		directory.mkdirs();
+		AtomicBoolean partFileFound = new AtomicBoolean();
+		ByteArrayOutputStream destination = new ByteArrayOutputStream() {
+			@Override
+			public synchronized void write(byte[] b, int off, int len) {
+				partFileFound.compareAndSet(false, directory.list((dir, name) -> name.endsWith(".part")).length == 1);
+				super.write(b, off, len);
+			}
+		};
+		SegmentedDownload download = new SegmentedDownload(transport, new URI[] {location(ranges)}, SIZE, 4);
+
+		assertOK(download.run(destination, directory, new NullProgressMonitor()));
+		assertTrue(partFileFound.get());
+		assertEquals(0, directory.list((dir, name) -> name.endsWith(".part")).length);
+		assertTrue(Arrays.equals(content, destination.toByteArray()));
+	}
+
+	public void testProgressIsReported() {
+		SegmentedDownload download = new SegmentedDownload(transport, new URI[] {location(ranges)}, SIZE, 4);
+		AtomicInteger reports = new AtomicInteger();
+		NullProgressMonitor monitor = new NullProgressMonitor() {
+			@Override
+			public void worked(int work) {
+				reports.incrementAndGet();
+			}
+		};
+		assertOK(download.run(new ByteArrayOutputStream(), monitor));
+
+		// the bytes are reported as they arrive, not only filled up at the end
+		assertTrue(reports.get() > 1);
+	}
+
+	public void testFailedMirrorFallsBackToFirstLocation() {
+		URI[] locations = {location(ranges), location(broken)};
+		SegmentedDownload download = new SegmentedDownload(transport, locations, SIZE, 4);
+		ByteArrayOutputStream destination = new ByteArrayOutputStream();
+		IStatus status = download.run(destination, new NullProgressMonitor());
+
+		assertOK(status);
+		assertEquals(4, rangeRequests.get());
+		assertTrue(Arrays.equals(content, destination.toByteArray()));
+	}
+
+	public void testServerWithoutRanges() {
+		SegmentedDownload download = new SegmentedDownload(transport, new URI[] {location(noRanges)}, SIZE, 4);
+		ByteArrayOutputStream destination = new ByteArrayOutputStream();
+
+		assertNull(download.run(destination, new NullProgressMonitor()));
+		assertEquals(0, destination.size());
+	}
+
+	public void testRangeNotSupported() {
+		ByteArrayOutputStream destination = new ByteArrayOutputStream();
+		IStatus status = transport.downloadRange(location(noRanges), destination, 10, 100, SIZE,
+				new NullProgressMonitor());
+
+		assertEquals(DownloadStatus.CODE_RANGE_NOT_SUPPORTED, status.getCode());
+		assertEquals(0, destination.size());
+	}
+
+	public void testServerWithRangesOfAnotherFile() {
+		SegmentedDownload download = new SegmentedDownload(transport, new URI[] {location(otherFile)}, SIZE, 4);
+		ByteArrayOutputStream destination = new ByteArrayOutputStream();
+
+		assertNull(download.run(destination, new NullProgressMonitor()));
+		assertEquals(0, destination.size());
+	}
+
+	public void testRangeOfAnotherFile() {
+		ByteArrayOutputStream destination = new ByteArrayOutputStream();
+		IStatus status = transport.downloadRange(location(otherFile), destination, 10, 100, SIZE,
+				new NullProgressMonitor());
+
+		assertEquals(DownloadStatus.CODE_RANGE_NOT_SUPPORTED, status.getCode());
+		assertEquals(0, destination.size());
+	}
+
+	public void testUnexpectedContentRange() {
+		ByteArrayOutputStream destination = new ByteArrayOutputStream();
+		IStatus status = transport.downloadRange(location(wrongRanges), destination, 1000, 100, SIZE,
+				new NullProgressMonitor());
+
+		assertEquals(IStatus.ERROR, status.getSeverity());
+		assertEquals(0, destination.size());
+	}
+
+	public void testSegmentsWithEcfTransport() {
+		SegmentedDownload download = new SegmentedDownload(createEcfTransport(), new URI[] {location(ranges)}, SIZE, 4);
+		ByteArrayOutputStream destination = new ByteArrayOutputStream();
+		IStatus status = download.run(destination, new NullProgressMonitor());
+
+		assertOK(status);
+		assertEquals(4, rangeRequests.get());
+		assertTrue(Arrays.equals(content, destination.toByteArray()));
+	}
+
+	public void testEcfRangeNotSupported() {
+		IStatus status = createEcfTransport().downloadRange(location(noRanges), new ByteArrayOutputStream(), 10, 100,
+				SIZE, new NullProgressMonitor());
+
+		assertEquals(DownloadStatus.CODE_RANGE_NOT_SUPPORTED, status.getCode());
+	}
+
+	public void testEcfRangeOfAnotherFile() {
+		IStatus status = createEcfTransport().downloadRange(location(otherFile), new ByteArrayOutputStream(), 10, 100,
+				SIZE, new NullProgressMonitor());
+
+		assertEquals(DownloadStatus.CODE_RANGE_NOT_SUPPORTED, status.getCode());
+	}
+
+	public void testEcfServerWithRangesOfAnotherFile() {
+		SegmentedDownload download = new SegmentedDownload(createEcfTransport(), new URI[] {location(otherFile)},
+				SIZE, 4);
+
+		assertNull(download.run(new ByteArrayOutputStream(), new NullProgressMonitor()));
+	}
+
+	private static Transport createEcfTransport() {
+		return new RepositoryTransport() {
+			@Override
+			protected ProtocolRule getProtocolRule(String scheme) {
+				// the test servers do not speak https
+				return null;
+			}
+		};
+	}
+
+	public void testSmallArtifactIsNotSegmented() {
+		SegmentedDownload download = new SegmentedDownload(transport, new URI[] {location(ranges)}, 1000, 4);
+
+		assertFalse(download.isSegmented());
+		assertNull(download.run(new ByteArrayOutputStream(), new NullProgressMonitor()));
+		assertEquals(0, rangeRequests.get());
+	}
+}
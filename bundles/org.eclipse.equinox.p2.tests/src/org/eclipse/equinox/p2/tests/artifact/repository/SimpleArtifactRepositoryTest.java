@@ -28,6 +28,10 @@ import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -49,6 +53,7 @@ import org.eclipse.equinox.p2.repository.artifact.ArtifactDescriptorQuery;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactDescriptor;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactRepository;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactRepositoryManager;
+import org.eclipse.equinox.p2.repository.artifact.IArtifactRequest;
 import org.eclipse.equinox.p2.repository.artifact.IProcessingStepDescriptor;
 import org.eclipse.equinox.p2.repository.artifact.spi.ArtifactDescriptor;
 import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
@@ -478,6 +483,127 @@ public class SimpleArtifactRepositoryTest extends AbstractProvisioningTest {
 		assertEquals("User setting should take precedence", 8, getIntVal(getMaximumThreads, repo));
 	}
 
+	public void testGetArtifactsOnVirtualThreads() throws Exception {
+		IArtifactRepository repo = createThreadedRepository("testGetArtifactsOnVirtualThreads");
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		AtomicInteger platformThreads = new AtomicInteger();
+		TrackingRequest[] requests = new TrackingRequest[30];
+		for (int i = 0; i < requests.length; i++) {
+			requests[i] = new TrackingRequest(i, monitor -> {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				if (!Thread.currentThread().isVirtual()) {
+					platformThreads.incrementAndGet();
+				}
+				try {
+					Thread.sleep(20);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				inFlight.decrementAndGet();
+			});
+		}
+		AtomicInteger worked = new AtomicInteger();
+		IStatus status = repo.getArtifacts(requests, new NullProgressMonitor() {
+			@Override
+			public void worked(int work) {
+				worked.addAndGet(work);
+			}
+		});
+		assertOK(status);
+		for (TrackingRequest request : requests) {
+			assertOK(request.getResult());
+		}
+		assertEquals(requests.length, worked.get());
+		assertEquals(0, platformThreads.get());
+		assertTrue("Downloads did not overlap", maxInFlight.get() > 1);
+		assertTrue("Limit exceeded: " + maxInFlight.get(), maxInFlight.get() <= 3);
+	}
+
+	public void testSmallBatchDoesNotLimitLaterBatches() throws Exception {
+		IArtifactRepository repo = createThreadedRepository("testSmallBatchDoesNotLimitLaterBatches");
+		TrackingRequest[] small = new TrackingRequest[2];
+		for (int i = 0; i < small.length; i++) {
+			small[i] = new TrackingRequest(i, monitor -> {
+				// nothing to download
+			});
+		}
+		assertOK(repo.getArtifacts(small, new NullProgressMonitor()));
+
+		// the downloads of the large batch wait until the limit of 3 is in flight
+		CountDownLatch allInFlight = new CountDownLatch(3);
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		TrackingRequest[] large = new TrackingRequest[12];
+		for (int i = 0; i < large.length; i++) {
+			large[i] = new TrackingRequest(i, monitor -> {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				allInFlight.countDown();
+				try {
+					allInFlight.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				inFlight.decrementAndGet();
+			});
+		}
+		assertOK(repo.getArtifacts(large, new NullProgressMonitor()));
+		assertEquals(0, allInFlight.getCount());
+		assertEquals(3, maxInFlight.get());
+	}
+
+	public void testGetArtifactsOnVirtualThreadsCanceled() throws Exception {
+		IArtifactRepository repo = createThreadedRepository("testGetArtifactsOnVirtualThreadsCanceled");
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		TrackingRequest[] requests = new TrackingRequest[30];
+		for (int i = 0; i < requests.length; i++) {
+			requests[i] = new TrackingRequest(i, requestMonitor -> monitor.setCanceled(true));
+		}
+		IStatus status = repo.getArtifacts(requests, monitor);
+		assertEquals(IStatus.CANCEL, status.getSeverity());
+		assertTrue(Arrays.stream(requests).filter(request -> request.getResult() == null).count() > 0);
+	}
+
+	private IArtifactRepository createThreadedRepository(String name) throws ProvisionException {
+		File folder = getTestFolder(name);
+		repositoryURI = folder.toURI();
+		IArtifactRepository repo = getArtifactRepositoryManager().createRepository(repositoryURI, name, IArtifactRepositoryManager.TYPE_SIMPLE_REPOSITORY, new HashMap<>());
+		repo.setProperty(SimpleArtifactRepository.PROP_FORCE_THREADING, "true");
+		repo.setProperty(SimpleArtifactRepository.PROP_VIRTUAL_THREADS, "true");
+		repo.setProperty(SimpleArtifactRepository.PROP_MAX_THREADS, "3");
+		return repo;
+	}
+
+	/**
+	 * A request that runs an action with the monitor it is performed with.
+	 */
+	private static final class TrackingRequest implements IArtifactRequest {
+		private final IArtifactKey key;
+		private final Consumer<IProgressMonitor> action;
+		private volatile IStatus result;
+
+		TrackingRequest(int index, Consumer<IProgressMonitor> action) {
+			this.key = new ArtifactKey("osgi.bundle", "a" + index, Version.create("1.0.0"));
+			this.action = action;
+		}
+
+		@Override
+		public IArtifactKey getArtifactKey() {
+			return key;
+		}
+
+		@Override
+		public void perform(IArtifactRepository sourceRepository, IProgressMonitor monitor) {
+			action.accept(monitor);
+			result = Status.OK_STATUS;
+		}
+
+		@Override
+		public IStatus getResult() {
+			return result;
+		}
+	}
+
 	private int getIntVal(Method m, Object repo) throws IllegalArgumentException, IllegalAccessException, InvocationTargetException {
 		return ((Integer) m.invoke(repo)).intValue();
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2019 IBM Corporation and others.
+ * Copyright (c) 2009, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -18,8 +18,13 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -34,8 +39,10 @@ import org.eclipse.equinox.internal.provisional.p2.repository.DefaultPGPPublicKe
 import org.eclipse.equinox.p2.core.IAgentLocation;
 import org.eclipse.equinox.p2.core.ProvisionException;
 import org.eclipse.equinox.p2.core.UIServices;
+import org.eclipse.equinox.p2.engine.IProfile;
 import org.eclipse.equinox.p2.engine.IProfileRegistry;
 import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.repository.artifact.IArtifactDescriptor;
 import org.eclipse.equinox.p2.repository.artifact.spi.ArtifactDescriptor;
 import org.eclipse.equinox.p2.repository.spi.PGPPublicKeyService;
 import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
@@ -141,6 +148,8 @@ public class CertificateCheckerTest extends AbstractProvisioningTest {
 	class CertificateTestService extends UIServices {
 		public boolean unsignedReturnValue = true;
 		public boolean wasPrompted = false;
+		public Certificate[][] untrustedChains;
+		public String[] unsignedDetail;
 
 		@Override
 		public AuthenticationInfo getUsernamePassword(String location) {
@@ -155,6 +164,8 @@ public class CertificateCheckerTest extends AbstractProvisioningTest {
 		@Override
 		public TrustInfo getTrustInfo(Certificate[][] untrustedChain, String[] unsignedDetail) {
 			wasPrompted = true;
+			this.untrustedChains = untrustedChain;
+			this.unsignedDetail = unsignedDetail;
 			return new TrustInfo(Collections.emptyList(), Collections.emptyList(), false, unsignedReturnValue);
 		}
 
@@ -301,6 +312,118 @@ public class CertificateCheckerTest extends AbstractProvisioningTest {
 		}
 	}
 
+	/**
+	 * Tests that verifying unsigned, certificate signed and PGP signed artifacts
+	 * concurrently reports each of them the same way as verifying them one after
+	 * another.
+	 */
+	public void testConcurrentVerification() throws IOException {
+		File selfSigned = TestData.getFile("CertificateChecker/selfsigned/plugins", "blah_1.0.0.123456.jar");
+		File pgpSigned = TestData.getFile("pgp/repoPGPOK/plugins", "blah_1.0.0.123456.jar");
+		Map<IArtifactDescriptor, File> artifacts = new LinkedHashMap<>();
+		List<String> unsignedFiles = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			File unsignedCopy = copy(unsigned, "unsigned" + i);
+			artifacts.put(createDescriptor("unsigned" + i, Map.of()), unsignedCopy);
+			unsignedFiles.add(unsignedCopy.toString());
+			artifacts.put(createDescriptor("selfsigned" + i, Map.of()), copy(selfSigned, "selfsigned" + i));
+			artifacts.put(createDescriptor("untrustedKey" + i,
+					Map.of(PGPSignatureVerifier.PGP_SIGNATURES_PROPERTY_NAME, PGP_SIGNER1_SIGNATURE,
+							PGPSignatureVerifier.PGP_SIGNER_KEYS_PROPERTY_NAME, PGP_SIGNER1_PUBLIC_KEY)),
+					copy(pgpSigned, "untrustedKey" + i));
+			artifacts.put(createDescriptor("trustedKey" + i,
+					Map.of(PGPSignatureVerifier.PGP_SIGNATURES_PROPERTY_NAME, PGP_SIGNER2_SIGNATURE,
+							PGPSignatureVerifier.PGP_SIGNER_KEYS_PROPERTY_NAME, PGP_SIGNER2_PUBLIC_KEY)),
+					copy(pgpSigned, "trustedKey" + i));
+		}
+		try {
+			System.getProperties().setProperty(EngineActivator.PROP_UNSIGNED_POLICY, EngineActivator.UNSIGNED_PROMPT);
+			// the unsigned content is accepted, the untrusted certificate and key are not
+			serviceUI.unsignedReturnValue = true;
+			System.getProperties().setProperty(CertificateChecker.PROP_VERIFICATION_THREADS, "1");
+			checker.add(artifacts);
+			IStatus sequential = checker.start();
+			assertEquals(IStatus.CANCEL, sequential.getSeverity());
+			Certificate[][] sequentialChains = serviceUI.untrustedChains;
+			assertEquals(unsignedFiles, List.of(serviceUI.unsignedDetail));
+
+			serviceUI.untrustedChains = null;
+			serviceUI.unsignedDetail = null;
+			System.getProperties().setProperty(CertificateChecker.PROP_VERIFICATION_THREADS, "4");
+			CertificateChecker concurrentChecker = new CertificateChecker(testAgent);
+			concurrentChecker.add(artifacts);
+			IStatus concurrent = concurrentChecker.start();
+			assertEquals(sequential.getSeverity(), concurrent.getSeverity());
+			// the untrusted key is rejected together with the untrusted certificate
+			assertEquals(sequential.getMessage(), concurrent.getMessage());
+			// only the unsigned copies are unsigned, in the order of the artifacts
+			assertEquals(unsignedFiles, List.of(serviceUI.unsignedDetail));
+			// all self signed copies report the same untrusted chain
+			assertEquals(1, serviceUI.untrustedChains.length);
+			assertTrue(Arrays.deepEquals(sequentialChains, serviceUI.untrustedChains));
+			X509Certificate certificate = (X509Certificate) serviceUI.untrustedChains[0][0];
+			assertEquals(certificate.getIssuerX500Principal(), certificate.getSubjectX500Principal());
+		} finally {
+			System.getProperties().remove(EngineActivator.PROP_UNSIGNED_POLICY);
+			System.getProperties().remove(CertificateChecker.PROP_VERIFICATION_THREADS);
+		}
+	}
+
+	/**
+	 * Tests that an artifact that was verified under the same trusted certificates
+	 * is not scanned again until the file changes.
+	 */
+	public void testVerifiedArtifactIsNotScannedAgain() throws IOException {
+		File signed = copy(TestData.getFile("CertificateChecker/selfsigned/plugins", "blah_1.0.0.123456.jar"), "signed");
+		Map<IArtifactDescriptor, File> artifacts = Map.of(createDescriptor("signed",
+				Map.of(IArtifactDescriptor.ARTIFACT_CHECKSUM + ".sha-256", "0123456789abcdef")), signed);
+		IProfile profile = createProfile(getName());
+		try {
+			System.getProperties().setProperty(EngineActivator.PROP_UNSIGNED_POLICY, EngineActivator.UNSIGNED_PROMPT);
+			// trust the self signed certificate for the profile
+			checker.setProfile(profile);
+			checker.add(artifacts);
+			assertEquals(IStatus.CANCEL, checker.start().getSeverity());
+			assertTrue(checker.persistTrustedCertificates(List.of(serviceUI.untrustedChains[0][0])).isOK());
+
+			assertEquals(IStatus.OK, check(profile, artifacts).getSeverity());
+
+			// replace the content but keep size and modification time, the artifact is
+			// trusted without reading it
+			long lastModified = signed.lastModified();
+			Files.write(signed.toPath(), new byte[(int) signed.length()]);
+			assertTrue(signed.setLastModified(lastModified));
+			serviceUI.wasPrompted = false;
+			assertEquals(IStatus.OK, check(profile, artifacts).getSeverity());
+			assertFalse(serviceUI.wasPrompted);
+
+			// a changed file is scanned again and is no longer a signed jar
+			assertTrue(signed.setLastModified(lastModified + 2000));
+			assertEquals(IStatus.ERROR, check(profile, artifacts).getSeverity());
+		} finally {
+			System.getProperties().remove(EngineActivator.PROP_UNSIGNED_POLICY);
+		}
+	}
+
+	private IStatus check(IProfile profile, Map<IArtifactDescriptor, File> artifacts) {
+		CertificateChecker newChecker = new CertificateChecker(testAgent);
+		newChecker.setProfile(profile);
+		newChecker.add(artifacts);
+		return newChecker.start();
+	}
+
+	private File copy(File file, String name) throws IOException {
+		Path copy = agentLocation.resolve(name + ".jar");
+		Files.copy(file.toPath(), copy);
+		return copy.toFile();
+	}
+
+	private static ArtifactDescriptor createDescriptor(String id, Map<String, String> properties) {
+		ArtifactDescriptor descriptor = new ArtifactDescriptor(new ArtifactKey("what", id, Version.create("1")));
+		descriptor.addProperties(properties);
+		return descriptor;
+	}
+
 	public void testPGPSignedArtifactUntrustedKey() throws IOException, ProvisionException {
 		try {
 			// create a test profile
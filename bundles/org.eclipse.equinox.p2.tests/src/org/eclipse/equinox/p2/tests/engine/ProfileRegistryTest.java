@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2007, 2017 IBM Corporation and others.
+ *  Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -22,6 +22,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.equinox.internal.p2.engine.EngineActivator;
 import org.eclipse.equinox.internal.p2.engine.Profile;
@@ -32,6 +33,7 @@ import org.eclipse.equinox.p2.engine.IProfile;
 import org.eclipse.equinox.p2.engine.IProfileRegistry;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.VersionedId;
 import org.eclipse.equinox.p2.query.QueryUtil;
 import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
 import org.eclipse.equinox.p2.tests.TestActivator;
@@ -640,6 +642,142 @@ public class ProfileRegistryTest extends AbstractProvisioningTest {
 		assertEquals(1, filesFound.length);
 	}
 
+	public void testPersistenceFormatDelta() throws ProvisionException {
+		System.getProperties().put(EngineActivator.PROP_PROFILE_FORMAT, EngineActivator.PROFILE_FORMAT_DELTA);
+		try {
+			File folder = getTempFolder();
+			folder.mkdirs();
+			SimpleProfileRegistry profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+			IInstallableUnit a = createIU("a");
+			IInstallableUnit b = createIU("b");
+			Profile profile = (Profile) profileRegistry.addProfile(getName());
+			profile.addInstallableUnit(a);
+			profile.setInstallableUnitProperty(a, "key", "a");
+			saveProfile(profileRegistry, profile);
+			long withA = profile.getTimestamp();
+			profile.addInstallableUnit(b);
+			profile.removeInstallableUnitProperty(a, "key");
+			profile.setProperty("test", "test");
+			saveProfile(profileRegistry, profile);
+			long withB = profile.getTimestamp();
+			profile.removeInstallableUnit(a);
+			saveProfile(profileRegistry, profile);
+
+			File profileFolder = new File(folder, getName() + ".profile");
+			assertEquals(1, profileFolder.listFiles((FileFilter) pathname -> pathname.getName().endsWith(".profile.gz")).length);
+			assertEquals(3, profileFolder.listFiles((FileFilter) pathname -> pathname.getName().endsWith(".profile.delta.gz")).length);
+			assertEquals(4, profileRegistry.listProfileTimestamps(getName()).length);
+
+			profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+			IProfile latest = profileRegistry.getProfile(getName());
+			assertEquals(profile.getTimestamp(), latest.getTimestamp());
+			assertEquals("test", latest.getProperty("test"));
+			assertEquals(Set.of(b), latest.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet());
+			IProfile stateWithA = profileRegistry.getProfile(getName(), withA);
+			assertEquals(Set.of(a), stateWithA.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet());
+			assertEquals("a", stateWithA.getInstallableUnitProperty(a, "key"));
+			assertNull(stateWithA.getProperty("test"));
+
+			// removing a state keeps the states based on it readable
+			profileRegistry.removeProfile(getName(), withA);
+			IProfile stateWithB = profileRegistry.getProfile(getName(), withB);
+			assertEquals(Set.of(a, b), stateWithB.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet());
+			assertNull(stateWithB.getInstallableUnitProperty(a, "key"));
+			assertEquals(3, profileRegistry.listProfileTimestamps(getName()).length);
+		} finally {
+			System.getProperties().remove(EngineActivator.PROP_PROFILE_FORMAT);
+		}
+	}
+
+	public void testRemoveStateWithoutDeltaIndex() throws ProvisionException {
+		System.getProperties().put(EngineActivator.PROP_PROFILE_FORMAT, EngineActivator.PROFILE_FORMAT_DELTA);
+		try {
+			File folder = getTempFolder();
+			folder.mkdirs();
+			SimpleProfileRegistry profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+			IInstallableUnit a = createIU("a");
+			Profile profile = (Profile) profileRegistry.addProfile(getName());
+			profile.addInstallableUnit(a);
+			saveProfile(profileRegistry, profile);
+			long withA = profile.getTimestamp();
+			profile.setProperty("test", "test");
+			saveProfile(profileRegistry, profile);
+			long withProperty = profile.getTimestamp();
+
+			// the deltas are read when the index is missing
+			File deltaIndex = new File(new File(folder, getName() + ".profile"), "deltas.properties");
+			assertTrue(deltaIndex.exists());
+			deltaIndex.delete();
+			profileRegistry.removeProfile(getName(), withA);
+
+			profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+			IProfile state = profileRegistry.getProfile(getName(), withProperty);
+			assertEquals(Set.of(a), state.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet());
+			assertEquals("test", state.getProperty("test"));
+		} finally {
+			System.getProperties().remove(EngineActivator.PROP_PROFILE_FORMAT);
+		}
+	}
+
+	public void testProfileStateIndex() throws Exception {
+		File folder = getTempFolder();
+		folder.mkdirs();
+		SimpleProfileRegistry profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+		IInstallableUnit a = createIU("a");
+		IInstallableUnit b = createIU("b");
+		Profile profile = (Profile) profileRegistry.addProfile(getName());
+		long empty = profile.getTimestamp();
+		profile.addInstallableUnit(a);
+		profile.addInstallableUnit(b);
+		profile.setInstallableUnitProperty(a, IProfile.PROP_PROFILE_ROOT_IU, Boolean.TRUE.toString());
+		saveProfile(profileRegistry, profile);
+		long withRoot = profile.getTimestamp();
+
+		File profileFolder = new File(folder, getName() + ".profile");
+		File index = new File(profileFolder, "states.index");
+		assertTrue(index.exists());
+		assertTrue(Arrays.equals(new long[] {empty, withRoot}, profileRegistry.listProfileTimestamps(getName())));
+		assertEquals(0, profileRegistry.getProfileStateSize(getName(), empty));
+		assertEquals(0, profileRegistry.getProfileStateRoots(getName(), empty).length);
+		assertEquals(2, profileRegistry.getProfileStateSize(getName(), withRoot));
+		assertEquals(Arrays.asList(new VersionedId(a.getId(), a.getVersion())), Arrays.asList(profileRegistry.getProfileStateRoots(getName(), withRoot)));
+		assertEquals(-1, profileRegistry.getProfileStateSize(getName(), withRoot + 1));
+		assertNull(profileRegistry.getProfileStateRoots(getName(), withRoot + 1));
+
+		// states added behind the back of the registry are listed again
+		long copied = empty - 1;
+		copy(new File(profileFolder, empty + ".profile.gz"), new File(profileFolder, copied + ".profile.gz"));
+		profileFolder.setLastModified(index.lastModified());
+		assertTrue(Arrays.equals(new long[] {copied, empty, withRoot}, profileRegistry.listProfileTimestamps(getName())));
+		assertTrue(profileRegistry.setProfileStateProperty(getName(), copied, "test", "test").isOK());
+
+		// a missing index is rebuilt, and states missing from it are read again
+		assertTrue(index.delete());
+		profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+		assertEquals(withRoot, profileRegistry.getProfile(getName()).getTimestamp());
+		assertTrue(index.exists());
+		assertEquals(2, profileRegistry.getProfileStateSize(getName(), withRoot));
+
+		profileRegistry.removeProfile(getName(), empty);
+		assertEquals(-1, profileRegistry.getProfileStateSize(getName(), empty));
+		assertTrue(Arrays.equals(new long[] {copied, withRoot}, profileRegistry.listProfileTimestamps(getName())));
+	}
+
+	public void testHistoricalStatesAreIndependent() throws ProvisionException {
+		Profile profile = (Profile) registry.addProfile(PROFILE_NAME);
+		long timestamp = profile.getTimestamp();
+		profile.setProperty("test", "test");
+		saveProfile(registry, profile);
+
+		Profile state = (Profile) registry.getProfile(PROFILE_NAME, timestamp);
+		assertNull(state.getProperty("test"));
+		state.setProperty("test", "changed");
+		state.addInstallableUnit(createIU("a"));
+		Profile again = (Profile) registry.getProfile(PROFILE_NAME, timestamp);
+		assertNull(again.getProperty("test"));
+		assertTrue(again.query(QueryUtil.createIUAnyQuery(), null).isEmpty());
+	}
+
 	public void testRemoveProfileTimestamps() throws ProvisionException {
 		assertNull(registry.getProfile(PROFILE_NAME));
 		Map<String, String> properties = new HashMap<>();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2007, 2022 IBM Corporation and others.
+ *  Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -30,9 +30,11 @@ import org.eclipse.equinox.internal.p2.engine.ISurrogateProfileHandler;
 import org.eclipse.equinox.internal.p2.engine.Profile;
 import org.eclipse.equinox.internal.p2.engine.ProfileParser;
 import org.eclipse.equinox.internal.p2.engine.ProfileWriter;
+import org.eclipse.equinox.internal.p2.engine.SimpleProfileRegistry;
 import org.eclipse.equinox.p2.core.ProvisionException;
 import org.eclipse.equinox.p2.engine.IProfile;
 import org.eclipse.equinox.p2.engine.IProfileRegistry;
+import org.eclipse.equinox.p2.engine.query.IUProfilePropertyQuery;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.Version;
 import org.eclipse.equinox.p2.query.Collector;
@@ -131,6 +133,86 @@ public class ProfileTest extends AbstractProvisioningTest {
 		assertNull(registry.getProfile(PROFILE_NAME));
 	}
 
+	public void testSnapshotIsIndependent() throws ProvisionException {
+		IProfileRegistry registry = getProfileRegistry();
+		Profile profile = (Profile) registry.addProfile(PROFILE_NAME);
+		IInstallableUnit a = createIU("a");
+		IInstallableUnit b = createIU("b");
+		profile.addInstallableUnit(a);
+		profile.addInstallableUnit(b);
+		profile.setInstallableUnitProperty(a, "key", "a");
+		profile.setInstallableUnitProperty(b, "key", "b");
+
+		Profile snapshot = profile.snapshot();
+		assertFalse(snapshot.isChanged());
+		profile.setInstallableUnitProperty(a, "key", "changed");
+		profile.removeInstallableUnitProperty(b, "key");
+		profile.addInstallableUnit(createIU("c"));
+		assertEquals("a", snapshot.getInstallableUnitProperty(a, "key"));
+		assertEquals("b", snapshot.getInstallableUnitProperty(b, "key"));
+		assertEquals(2, queryResultSize(snapshot.query(QueryUtil.createIUAnyQuery(), null)));
+
+		snapshot.setInstallableUnitProperty(b, "other", "b");
+		snapshot.removeInstallableUnit(a);
+		assertEquals("changed", profile.getInstallableUnitProperty(a, "key"));
+		assertNull(profile.getInstallableUnitProperty(b, "other"));
+		assertEquals(3, queryResultSize(profile.query(QueryUtil.createIUAnyQuery(), null)));
+		assertEquals(1, queryResultSize(snapshot.query(QueryUtil.createIUAnyQuery(), null)));
+
+		// the properties of a removed unit do not make it match
+		assertEquals(1, queryResultSize(snapshot.query(new IUProfilePropertyQuery("key", IUProfilePropertyQuery.ANY), null)));
+		registry.removeProfile(PROFILE_NAME);
+	}
+
+	public void testSnapshotSharesUnitsUntilChanged() throws ProvisionException {
+		IProfileRegistry registry = getProfileRegistry();
+		Profile profile = (Profile) registry.addProfile(PROFILE_NAME);
+		IInstallableUnit a = createIU("a");
+		profile.addInstallableUnit(a);
+		assertEquals(1, queryResultSize(profile.query(QueryUtil.createIUQuery("a"), null)));
+
+		Profile snapshot = profile.snapshot();
+		assertSame(profile.getContentStamp(), snapshot.getContentStamp());
+		profile.addInstallableUnit(createIU("c"));
+		assertNotSame(profile.getContentStamp(), snapshot.getContentStamp());
+		// the id index of the changed profile is built on its own units
+		assertEquals(1, queryResultSize(profile.query(QueryUtil.createIUQuery("c"), null)));
+		assertTrue(snapshot.query(QueryUtil.createIUQuery("c"), null).isEmpty());
+
+		Profile other = profile.snapshot();
+		profile.clearInstallableUnits();
+		assertTrue(profile.query(QueryUtil.createIUAnyQuery(), null).isEmpty());
+		assertEquals(2, queryResultSize(other.query(QueryUtil.createIUAnyQuery(), null)));
+		assertEquals(1, queryResultSize(snapshot.query(QueryUtil.createIUAnyQuery(), null)));
+		registry.removeProfile(PROFILE_NAME);
+	}
+
+	public void testUpdateProfileSharesUnits() throws ProvisionException {
+		SimpleProfileRegistry registry = (SimpleProfileRegistry) getProfileRegistry();
+		Profile profile = (Profile) registry.addProfile(PROFILE_NAME);
+		IInstallableUnit a = createIU("a");
+		IInstallableUnit b = createIU("b");
+		profile.addInstallableUnit(a);
+		profile.addInstallableUnit(b);
+		profile.setInstallableUnitProperty(a, "key", "a");
+		profile.setInstallableUnitProperty(b, "key", "b");
+		profile.removeInstallableUnit(b);
+		profile.setChanged(false);
+		registry.lockProfile(profile);
+		try {
+			registry.updateProfile(profile);
+		} finally {
+			registry.unlockProfile(profile);
+		}
+		profile.setInstallableUnitProperty(a, "key", "changed");
+
+		IProfile current = registry.getProfile(PROFILE_NAME);
+		assertEquals(1, queryResultSize(current.query(QueryUtil.createIUAnyQuery(), null)));
+		assertEquals("a", current.getInstallableUnitProperty(a, "key"));
+		assertNull(current.getInstallableUnitProperty(b, "key"));
+		registry.removeProfile(PROFILE_NAME);
+	}
+
 	public void testAvailable() throws ProvisionException {
 		IProfileRegistry registry = getProfileRegistry();
 		assertNull(registry.getProfile(PROFILE_NAME));
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import org.eclipse.equinox.internal.p2.engine.phases.VerifiedSignatureCache;
+import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.repository.artifact.IArtifactDescriptor;
+import org.eclipse.equinox.p2.repository.artifact.spi.ArtifactDescriptor;
+import org.eclipse.equinox.p2.repository.artifact.spi.ProcessingStepDescriptor;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+/**
+ * Tests for {@link VerifiedSignatureCache}.
+ */
+public class VerifiedSignatureCacheTest extends AbstractProvisioningTest {
+	private static final long NEVER = Long.MAX_VALUE;
+
+	private File folder;
+	private File cacheFile;
+	private File artifact;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		folder = getTempFolder();
+		cacheFile = new File(folder, "verified.txt");
+		artifact = new File(folder, "artifact.jar");
+		Files.writeString(artifact.toPath(), "content");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		delete(folder);
+		super.tearDown();
+	}
+
+	public void testVerified() throws IOException {
+		VerifiedSignatureCache cache = new VerifiedSignatureCache(cacheFile, 10);
+		assertFalse(cache.isVerified("abc", "trust", artifact));
+		cache.putVerified("ABC", "trust", artifact, NEVER);
+		assertTrue(cache.isVerified("abc", "trust", artifact));
+		assertFalse(cache.isVerified("abc", "otherTrust", artifact));
+		assertFalse(cache.isVerified("def", "trust", artifact));
+
+		// a changed file is verified again
+		Files.writeString(artifact.toPath(), "changed content");
+		assertFalse(cache.isVerified("abc", "trust", artifact));
+	}
+
+	public void testExpired() {
+		VerifiedSignatureCache cache = new VerifiedSignatureCache(cacheFile, 10);
+		cache.putVerified("abc", "trust", artifact, System.currentTimeMillis() - 1);
+		assertFalse(cache.isVerified("abc", "trust", artifact));
+	}
+
+	public void testDirectoriesAreNotRemembered() {
+		VerifiedSignatureCache cache = new VerifiedSignatureCache(cacheFile, 10);
+		cache.putVerified("abc", "trust", folder, NEVER);
+		assertFalse(cache.isVerified("abc", "trust", folder));
+	}
+
+	public void testPersistence() {
+		VerifiedSignatureCache cache = new VerifiedSignatureCache(cacheFile, 10);
+		cache.putVerified("abc", "trust", artifact, NEVER);
+		cache.save();
+		assertTrue(cacheFile.exists());
+		assertTrue(new VerifiedSignatureCache(cacheFile, 10).isVerified("abc", "trust", artifact));
+		assertFalse(new VerifiedSignatureCache(cacheFile, 10).isVerified("abc", "otherTrust", artifact));
+	}
+
+	public void testLeastRecentlyUsedEviction() {
+		VerifiedSignatureCache cache = new VerifiedSignatureCache(cacheFile, 2);
+		cache.putVerified("a", "trust", artifact, NEVER);
+		cache.putVerified("b", "trust", artifact, NEVER);
+		assertTrue(cache.isVerified("a", "trust", artifact));
+		cache.putVerified("c", "trust", artifact, NEVER);
+		assertTrue(cache.isVerified("a", "trust", artifact));
+		assertFalse(cache.isVerified("b", "trust", artifact));
+		assertTrue(cache.isVerified("c", "trust", artifact));
+
+		cache.save();
+		VerifiedSignatureCache reloaded = new VerifiedSignatureCache(cacheFile, 2);
+		assertTrue(reloaded.isVerified("c", "trust", artifact));
+		reloaded.putVerified("d", "trust", artifact, NEVER);
+		// "a" was used before "c" was checked, so it is evicted first
+		assertFalse(reloaded.isVerified("a", "trust", artifact));
+		assertTrue(reloaded.isVerified("c", "trust", artifact));
+	}
+
+	public void testChecksum() {
+		ArtifactDescriptor descriptor = new ArtifactDescriptor(new ArtifactKey("osgi.bundle", "a", Version.create("1")));
+		assertNull(VerifiedSignatureCache.getChecksum(descriptor));
+		descriptor.addProperties(Map.of(IArtifactDescriptor.DOWNLOAD_CHECKSUM + ".sha-256", "download"));
+		assertEquals("download", VerifiedSignatureCache.getChecksum(descriptor));
+		descriptor.addProperties(Map.of(IArtifactDescriptor.ARTIFACT_CHECKSUM + ".sha-256", "artifact"));
+		assertEquals("artifact", VerifiedSignatureCache.getChecksum(descriptor));
+
+		// the downloaded bytes of a processed artifact are not the artifact
+		ArtifactDescriptor processed = new ArtifactDescriptor(new ArtifactKey("osgi.bundle", "a", Version.create("1")));
+		processed.addProperties(Map.of(IArtifactDescriptor.DOWNLOAD_CHECKSUM + ".sha-256", "download"));
+		processed.setProcessingSteps(new ProcessingStepDescriptor[] {
+				new ProcessingStepDescriptor("org.eclipse.equinox.p2.processing.Pack200Unpacker", null, true) });
+		assertNull(VerifiedSignatureCache.getChecksum(processed));
+	}
+}
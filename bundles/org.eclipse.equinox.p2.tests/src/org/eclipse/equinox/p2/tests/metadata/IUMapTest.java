@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.metadata;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import org.eclipse.equinox.internal.p2.metadata.IUMap;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+/**
+ * Tests for {@link IUMap}.
+ */
+public class IUMapTest extends AbstractProvisioningTest {
+
+	protected IUMap createMap() {
+		return new IUMap();
+	}
+
+	public void testAddAndGet() {
+		IUMap map = createMap();
+		IInstallableUnit a2 = createIU("a", Version.create("2.0.0"));
+		IInstallableUnit a1 = createIU("a", Version.create("1.0.0"));
+		IInstallableUnit a3 = createIU("a", Version.create("3.0.0"));
+		IInstallableUnit b = createIU("b", Version.create("1.0.0"));
+		map.add(a2);
+		map.add(a1);
+		map.add(a3);
+		map.add(b);
+		map.add(createIU("a", Version.create("2.0.0")));
+
+		assertEquals(Set.of(a1, a2, a3), new HashSet<>(map.getUnits("a")));
+		assertEquals(List.of(b), new ArrayList<>(map.getUnits("b")));
+		assertTrue(map.getUnits("c").isEmpty());
+		assertSame(a2, map.get("a", Version.create("2.0.0")));
+		assertNull(map.get("a", Version.create("4.0.0")));
+		assertNull(map.get("b", Version.create("2.0.0")));
+		assertNotNull(map.get("a", Version.emptyVersion));
+		assertTrue(map.contains(a3));
+		assertFalse(map.contains(createIU("b", Version.create("2.0.0"))));
+		assertEquals(3, queryResultSize(map.get("a")));
+		assertEquals(4, queryResultSize(map.get(null)));
+		assertSame(b, map.get("b", null));
+	}
+
+	public void testOrderOfUnitsWithSameId() {
+		IUMap map = createMap();
+		IInstallableUnit a2 = createIU("a", Version.create("2.0.0"));
+		IInstallableUnit a1 = createIU("a", Version.create("1.0.0"));
+		IInstallableUnit a3 = createIU("a", Version.create("3.0.0"));
+		map.add(a2);
+		map.add(a1);
+		map.add(a3);
+
+		// the units are kept in the order in which they were added
+		assertEquals(List.of(a2, a1, a3), new ArrayList<>(map.getUnits("a")));
+		assertSame(a2, map.get("a", null));
+		assertSame(a2, map.get("a", Version.emptyVersion));
+
+		map.remove(a2);
+		assertEquals(List.of(a1, a3), new ArrayList<>(map.getUnits("a")));
+	}
+
+	public void testContentStamp() {
+		IUMap map = createMap();
+		IInstallableUnit a = createIU("a", Version.create("1.0.0"));
+		Object stamp = map.getContentStamp();
+		map.add(a);
+		assertNotSame(stamp, map.getContentStamp());
+
+		stamp = map.getContentStamp();
+		map.add(createIU("a", Version.create("1.0.0")));
+		assertSame(stamp, map.getContentStamp());
+
+		IUMap clone = map.clone();
+		assertSame(stamp, clone.getContentStamp());
+		clone.remove(a);
+		assertNotSame(stamp, clone.getContentStamp());
+		assertSame(stamp, map.getContentStamp());
+	}
+
+	public void testRemove() {
+		IUMap map = createMap();
+		List<IInstallableUnit> units = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			units.add(createIU("id" + i % 100, Version.createOSGi(1, i / 100, 0)));
+		}
+		map.addAll(units);
+		assertEquals(new HashSet<>(units), toSet(map));
+
+		List<IInstallableUnit> removed = units.subList(0, 550);
+		map.removeAll(new ArrayList<>(removed));
+		Set<IInstallableUnit> expected = new HashSet<>(units.subList(550, 1000));
+		assertEquals(expected, toSet(map));
+		for (IInstallableUnit unit : units) {
+			assertEquals(unit.toString(), expected.contains(unit), map.contains(unit));
+		}
+
+		map.clear();
+		assertFalse(map.iterator().hasNext());
+	}
+
+	public void testClone() {
+		IUMap map = createMap();
+		IInstallableUnit a1 = createIU("a", Version.create("1.0.0"));
+		IInstallableUnit a2 = createIU("a", Version.create("2.0.0"));
+		IInstallableUnit b = createIU("b", Version.create("1.0.0"));
+		map.add(a1);
+		map.add(b);
+
+		IUMap clone = map.clone();
+		clone.add(a2);
+		clone.remove(b);
+		assertEquals(Set.of(a1, b), toSet(map));
+		assertEquals(Set.of(a1, a2), toSet(clone));
+
+		map.remove(a1);
+		assertEquals(Set.of(b), toSet(map));
+		assertEquals(Set.of(a1, a2), toSet(clone));
+	}
+
+	static Set<IInstallableUnit> toSet(IUMap map) {
+		Set<IInstallableUnit> result = new HashSet<>();
+		for (Iterator<IInstallableUnit> iterator = map.iterator(); iterator.hasNext();) {
+			assertTrue(result.add(iterator.next()));
+		}
+		return result;
+	}
+}
@@ -25,12 +25,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.URIUtil;
 import org.eclipse.equinox.internal.p2.metadata.repository.CompositeMetadataRepository;
 import org.eclipse.equinox.internal.p2.metadata.repository.CompositeMetadataRepositoryFactory;
 import org.eclipse.equinox.internal.p2.persistence.CompositeRepositoryState;
+import org.eclipse.equinox.internal.p2.repository.helpers.CompositeChildLoader;
 import org.eclipse.equinox.p2.core.ProvisionException;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.MetadataFactory;
@@ -44,6 +46,7 @@ import org.eclipse.equinox.p2.repository.IRepository;
 import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
 import org.eclipse.equinox.p2.repository.metadata.IMetadataRepositoryManager;
 import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+import org.eclipse.equinox.p2.tests.SlowMetadataRepositoryFactory;
 import org.eclipse.equinox.p2.tests.StringBufferStream;
 import org.eclipse.equinox.p2.tests.TestData;
 import org.eclipse.equinox.p2.tests.core.CompoundQueryableTest.CompoundQueryTestProgressMonitor;
@@ -720,4 +723,83 @@ public class CompositeMetadataRepositoryTest extends AbstractProvisioningTest {
 		assertTrue("Successfully loaded child should be available in repo manager", manager.contains(URIUtil.append(repo.getLocation(), "one")));
 
 	}
+
+	public void testParallelChildLoading() throws Exception {
+		String[] children = {"one", "two", "three", "four"};
+		createSlowComposite(children, children, false);
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		SlowMetadataRepositoryFactory.reset();
+		try {
+			CompositeMetadataRepository repository = (CompositeMetadataRepository) manager.loadRepository(repoLocation.toURI(), null);
+
+			List<URI> loaded = repository.getChildren();
+			assertEquals(children.length, loaded.size());
+			for (int i = 0; i < children.length; i++) {
+				assertEquals(URIUtil.append(repository.getLocation(), children[i]), loaded.get(i));
+				assertTrue("Child should be loaded " + children[i], manager.contains(loaded.get(i)));
+			}
+			assertFalse(repository.query(QueryUtil.createIUAnyQuery(), getMonitor()).isEmpty());
+			assertTrue("Children should have been loaded concurrently", SlowMetadataRepositoryFactory.getMaxConcurrentLoads() > 1);
+		} finally {
+			removeChildren(children);
+		}
+	}
+
+	public void testParallelAtomicLoadingReportsAllFailures() throws Exception {
+		String[] children = {"one", "missing1", "two", "missing2"};
+		createSlowComposite(children, new String[] {"one", "two"}, true);
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		try {
+			manager.loadRepository(repoLocation.toURI(), null);
+			fail("Loading an atomic composite with missing children should fail");
+		} catch (ProvisionException e) {
+			IStatus status = e.getStatus();
+			assertTrue(status.getMessage(), status.getMessage().contains(repoLocation.toURI().toString()));
+			IStatus[] failures = status.getChildren();
+			assertEquals(2, failures.length);
+			// failures are reported in the order of the children
+			assertTrue(failures[0].getMessage(), failures[0].getMessage().contains("missing1"));
+			assertTrue(failures[1].getMessage(), failures[1].getMessage().contains("missing2"));
+		} finally {
+			assertFalse("Successfully loaded child should be removed when composite loading mode is set to atomic", manager.contains(new File(repoLocation, "one").toURI()));
+			assertFalse("Successfully loaded child should be removed when composite loading mode is set to atomic", manager.contains(new File(repoLocation, "two").toURI()));
+			removeChildren(children);
+		}
+	}
+
+	/*
+	 * Writes a composite to the repository location that loads the given children four at a time.
+	 * Only the existing children are created, they are served by the slow repository factory.
+	 */
+	private void createSlowComposite(String[] children, String[] existing, boolean atomic) throws IOException {
+		File simple = getTestData("Simple repository", "testData/testRepos/simple.1");
+		for (String child : existing) {
+			File childLocation = new File(repoLocation, child);
+			copy(simple, childLocation);
+			writeBuffer(new File(childLocation, SlowMetadataRepositoryFactory.MARKER), "");
+			writeBuffer(new File(childLocation, "p2.index"), "version=1\nmetadata.repository.factory.order=" + SlowMetadataRepositoryFactory.MARKER + ",!\n");
+		}
+		StringBuilder buffer = new StringBuilder();
+		buffer.append("<?xml version='1.0' encoding='UTF-8'?>\n");
+		buffer.append("<?compositeMetadataRepository version='1.0.0'?>\n");
+		buffer.append("<repository name='parallel' type='" + CompositeMetadataRepository.REPOSITORY_TYPE + "' version='1.0.0'>\n");
+		buffer.append("  <properties size='3'>\n");
+		buffer.append("    <property name='p2.compressed' value='false'/>\n");
+		buffer.append("    <property name='" + CompositeMetadataRepository.PROP_ATOMIC_LOADING + "' value='" + atomic + "'/>\n");
+		buffer.append("    <property name='" + CompositeChildLoader.PROP_LOADING_PARALLELISM + "' value='4'/>\n");
+		buffer.append("  </properties>\n");
+		buffer.append("  <children size='" + children.length + "'>\n");
+		for (String child : children) {
+			buffer.append("    <child location='" + child + "'/>\n");
+		}
+		buffer.append("  </children>\n");
+		buffer.append("</repository>\n");
+		writeBuffer(new File(repoLocation, "compositeContent.xml"), buffer);
+	}
+
+	private void removeChildren(String[] children) {
+		for (String child : children) {
+			getMetadataRepositoryManager().removeRepository(new File(repoLocation, child).toURI());
+		}
+	}
 }
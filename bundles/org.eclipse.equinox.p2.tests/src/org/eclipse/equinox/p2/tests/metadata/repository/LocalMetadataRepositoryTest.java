@@ -19,21 +19,31 @@ import static org.junit.Assert.assertThrows;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.internal.p2.metadata.repository.LocalMetadataRepository;
+import org.eclipse.equinox.internal.p2.metadata.repository.io.BinaryMetadataContent;
+import org.eclipse.equinox.internal.p2.metadata.repository.io.PersistedCapabilityIndex;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.SynchronousProvisioningListener;
 import org.eclipse.equinox.internal.provisional.p2.repository.RepositoryEvent;
 import org.eclipse.equinox.p2.core.ProvisionException;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.ILicense;
+import org.eclipse.equinox.p2.metadata.IProvidedCapability;
+import org.eclipse.equinox.p2.metadata.IRequirement;
 import org.eclipse.equinox.p2.metadata.MetadataFactory;
 import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitDescription;
 import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.VersionRange;
+import org.eclipse.equinox.p2.query.IQuery;
 import org.eclipse.equinox.p2.query.IQueryResult;
 import org.eclipse.equinox.p2.query.QueryUtil;
 import org.eclipse.equinox.p2.repository.IRepository;
@@ -296,4 +306,154 @@ public class LocalMetadataRepositoryTest extends AbstractProvisioningTest {
 			}
 		}
 	}
+
+	public void testBinaryRepository() throws ProvisionException {
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		IMetadataRepository repo = createTestRepository(manager, Map.of(LocalMetadataRepository.PROP_BINARY, "true"));
+		IInstallableUnit foo1 = createIU("foo", Version.create("1.0.0"));
+		IInstallableUnit foo2 = createIU("foo", Version.create("2.0.0"));
+		IInstallableUnit bar = createIU("bar", Version.create("1.0.0"), new IProvidedCapability[] {MetadataFactory.createProvidedCapability("test.namespace", "bar.capability", Version.create("3.0.0"))});
+		repo.addInstallableUnits(Arrays.asList(foo1, foo2, bar));
+		repo.addReferences(List.of(new RepositoryReference(URI.create("https://foo.bar.org"), "aName", IRepository.TYPE_METADATA, IRepository.NONE)));
+		assertTrue("Repository did not create content.p2bin", new File(repoLocation, BinaryMetadataContent.CONTENT_FILENAME).exists());
+
+		manager.removeRepository(repoLocation.toURI());
+		repo = manager.loadRepository(repoLocation.toURI(), null);
+		assertTrue(repo instanceof LocalMetadataRepository);
+		assertEquals("TestRepo", repo.getName());
+		assertEquals("true", repo.getProperty(LocalMetadataRepository.PROP_BINARY));
+		assertEquals(1, repo.getReferences().size());
+		Object stamp = ((LocalMetadataRepository) repo).getContentStamp();
+		assertEquals(stamp, ((LocalMetadataRepository) repo).getContentStamp());
+		assertEquals(Set.of(foo1, foo2), repo.query(QueryUtil.createIUQuery("foo"), getMonitor()).toUnmodifiableSet());
+		assertEquals(Set.of(bar), repo.query(QueryUtil.createIUQuery("bar"), getMonitor()).toUnmodifiableSet());
+		assertTrue(repo.contains(foo2));
+		assertEquals(Set.of(bar), repo.query(QueryUtil.createMatchQuery("providedCapabilities.exists(x | x.name == $0)", "bar.capability"), getMonitor()).toUnmodifiableSet());
+		assertEquals(3, queryResultSize(repo.query(QueryUtil.createIUAnyQuery(), getMonitor())));
+
+		// modifications are persisted to both forms
+		repo.removeInstallableUnits(Arrays.asList(foo1));
+		assertFalse(stamp.equals(((LocalMetadataRepository) repo).getContentStamp()));
+		manager.removeRepository(repoLocation.toURI());
+		repo = manager.loadRepository(repoLocation.toURI(), null);
+		assertEquals(Set.of(foo2), repo.query(QueryUtil.createIUQuery("foo"), getMonitor()).toUnmodifiableSet());
+	}
+
+	public void testStaleBinaryRepositoryIgnored() throws ProvisionException, IOException {
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		IMetadataRepository repo = createTestRepository(manager, Map.of(LocalMetadataRepository.PROP_BINARY, "true", IRepository.PROP_COMPRESSED, "false"));
+		repo.addInstallableUnits(Arrays.asList(createIU("foo")));
+		File binaryFile = new File(repoLocation, BinaryMetadataContent.CONTENT_FILENAME);
+		byte[] oldBinary = Files.readAllBytes(binaryFile.toPath());
+		repo.addInstallableUnits(Arrays.asList(createIU("bar")));
+
+		// put back a binary file that was written for other content, even newer than the XML content
+		Files.write(binaryFile.toPath(), oldBinary);
+		File contentFile = new File(repoLocation, "content.xml");
+		assertTrue(binaryFile.setLastModified(contentFile.lastModified() + 10000));
+		manager.removeRepository(repoLocation.toURI());
+		repo = manager.loadRepository(repoLocation.toURI(), null);
+		assertEquals(1, queryResultSize(repo.query(QueryUtil.createIUQuery("bar"), getMonitor())));
+	}
+
+	public void testBinaryRepositoryKeepsUnitDetails() throws ProvisionException {
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		IMetadataRepository repo = createTestRepository(manager, Map.of(LocalMetadataRepository.PROP_BINARY, "true"));
+		InstallableUnitDescription description = new InstallableUnitDescription();
+		description.setId("foo");
+		description.setVersion(Version.create("1.0.0"));
+		description.setProperty("foo.property", "foo.value");
+		description.setCapabilities(new IProvidedCapability[] {MetadataFactory.createProvidedCapability("test.namespace", "foo.capability", Version.create("1.0.0"))});
+		description.setRequirements(new IRequirement[] {MetadataFactory.createRequirement("test.namespace", "bar.capability", new VersionRange("[1.0.0,2.0.0)"), "(osgi.os=linux)", true, false, false)});
+		description.setFilter("(osgi.arch=x86_64)");
+		description.setTouchpointType(MetadataFactory.createTouchpointType("org.eclipse.equinox.p2.osgi", Version.create("1.0.0")));
+		description.addTouchpointData(MetadataFactory.createTouchpointData(Map.of("install", "installBundle(bundle:${artifact})")));
+		IInstallableUnit foo = MetadataFactory.createInstallableUnit(description);
+		repo.addInstallableUnits(Arrays.asList(foo));
+
+		manager.removeRepository(repoLocation.toURI());
+		repo = manager.loadRepository(repoLocation.toURI(), null);
+		IInstallableUnit loaded = repo.query(QueryUtil.createIUQuery("foo"), getMonitor()).iterator().next();
+		assertEquals("foo.value", loaded.getProperty("foo.property"));
+		assertEquals(foo.getProvidedCapabilities(), loaded.getProvidedCapabilities());
+		assertEquals(foo.getRequirements(), loaded.getRequirements());
+		assertEquals(foo.getFilter(), loaded.getFilter());
+		assertEquals(foo.getTouchpointType(), loaded.getTouchpointType());
+		assertEquals(foo.getTouchpointData(), loaded.getTouchpointData());
+	}
+
+	public void testBrokenBinaryRepositoryFallsBackToXML() throws ProvisionException, IOException {
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		IMetadataRepository repo = createTestRepository(manager, Map.of(LocalMetadataRepository.PROP_BINARY, "true"));
+		repo.addInstallableUnits(Arrays.asList(createIU("foo"), createIU("bar")));
+
+		// point the records of all units past the end of the file, the header stays valid
+		File binaryFile = new File(repoLocation, BinaryMetadataContent.CONTENT_FILENAME);
+		ByteBuffer binary = ByteBuffer.wrap(Files.readAllBytes(binaryFile.toPath()));
+		int unitCount = binary.getInt(20);
+		int indexPosition = binary.getInt(24);
+		for (int i = 0; i < unitCount; i++) {
+			binary.putInt(indexPosition + i * 16 + 8, binary.limit());
+		}
+		Files.write(binaryFile.toPath(), binary.array());
+
+		manager.removeRepository(repoLocation.toURI());
+		repo = manager.loadRepository(repoLocation.toURI(), null);
+		assertEquals(1, queryResultSize(repo.query(QueryUtil.createIUQuery("foo"), getMonitor())));
+		assertEquals(2, queryResultSize(repo.query(QueryUtil.createIUAnyQuery(), getMonitor())));
+		assertFalse("The broken content.p2bin must be removed", binaryFile.exists());
+	}
+
+	public void testBinaryRepositoryRemovedWhenDisabled() throws ProvisionException {
+		IMetadataRepository repo = createTestRepository(Map.of(LocalMetadataRepository.PROP_BINARY, "true"));
+		repo.addInstallableUnits(Arrays.asList(createIU("foo")));
+		File binaryFile = new File(repoLocation, BinaryMetadataContent.CONTENT_FILENAME);
+		assertTrue(binaryFile.exists());
+		repo.setProperty(LocalMetadataRepository.PROP_BINARY, null);
+		assertFalse("A stale content.p2bin must not be left behind", binaryFile.exists());
+	}
+
+	public void testPersistedCapabilityIndex() throws ProvisionException {
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		IMetadataRepository repo = createTestRepository(manager, Map.of(LocalMetadataRepository.PROP_PERSISTED_INDEX, "true"));
+		IInstallableUnit foo = createIU("foo", Version.create("1.0.0"), new IProvidedCapability[] {MetadataFactory.createProvidedCapability("test.namespace", "shared.capability", Version.create("1.0.0"))});
+		IInstallableUnit bar = createIU("bar", Version.create("1.0.0"), new IProvidedCapability[] {MetadataFactory.createProvidedCapability("test.namespace", "shared.capability", Version.create("2.0.0"))});
+		repo.addInstallableUnits(Arrays.asList(foo, bar));
+		assertTrue("Repository did not persist the capability index", new File(repoLocation, PersistedCapabilityIndex.INDEX_FILENAME).exists());
+
+		manager.removeRepository(repoLocation.toURI());
+		IMetadataRepository reloaded = manager.loadRepository(repoLocation.toURI(), null);
+		IQuery<IInstallableUnit> capabilityQuery = QueryUtil.createMatchQuery("providedCapabilities.exists(x | x.name == $0)", "shared.capability");
+		assertEquals(Set.of(foo, bar), reloaded.query(capabilityQuery, getMonitor()).toUnmodifiableSet());
+		assertTrue(((LocalMetadataRepository) reloaded).getIndex(InstallableUnit.MEMBER_PROVIDED_CAPABILITIES) instanceof PersistedCapabilityIndex);
+
+		// units added in a batch must be visible before the index is written again
+		IInstallableUnit baz = createIU("baz", Version.create("1.0.0"), new IProvidedCapability[] {MetadataFactory.createProvidedCapability("test.namespace", "shared.capability", Version.create("3.0.0"))});
+		reloaded.executeBatch(monitor -> {
+			reloaded.addInstallableUnits(Arrays.asList(baz));
+			assertEquals(Set.of(foo, bar, baz), reloaded.query(capabilityQuery, getMonitor()).toUnmodifiableSet());
+		}, getMonitor());
+		manager.removeRepository(repoLocation.toURI());
+		repo = manager.loadRepository(repoLocation.toURI(), null);
+		assertEquals(3, queryResultSize(repo.query(capabilityQuery, getMonitor())));
+	}
+
+	public void testBrokenCapabilityIndexIgnored() throws ProvisionException, IOException {
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		IMetadataRepository repo = createTestRepository(manager, Map.of(LocalMetadataRepository.PROP_PERSISTED_INDEX, "true"));
+		IInstallableUnit foo = createIU("foo", Version.create("1.0.0"), new IProvidedCapability[] {MetadataFactory.createProvidedCapability("test.namespace", "shared.capability", Version.create("1.0.0"))});
+		repo.addInstallableUnits(Arrays.asList(foo));
+
+		// point the table of capability names past the end of the file
+		File indexFile = new File(repoLocation, PersistedCapabilityIndex.INDEX_FILENAME);
+		ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexFile.toPath()));
+		index.putInt(44, index.limit());
+		Files.write(indexFile.toPath(), index.array());
+
+		manager.removeRepository(repoLocation.toURI());
+		IMetadataRepository reloaded = manager.loadRepository(repoLocation.toURI(), null);
+		IQuery<IInstallableUnit> capabilityQuery = QueryUtil.createMatchQuery("providedCapabilities.exists(x | x.name == $0)", "shared.capability");
+		assertEquals(Set.of(foo), reloaded.query(capabilityQuery, getMonitor()).toUnmodifiableSet());
+		assertFalse(((LocalMetadataRepository) reloaded).getIndex(InstallableUnit.MEMBER_PROVIDED_CAPABILITIES) instanceof PersistedCapabilityIndex);
+	}
 }
@@ -47,6 +47,7 @@ import org.eclipse.equinox.p2.query.IQuery;
 import org.eclipse.equinox.p2.query.IQueryResult;
 import org.eclipse.equinox.p2.repository.IRepository;
 import org.eclipse.equinox.p2.repository.artifact.ArtifactDescriptorQuery;
+import org.eclipse.equinox.p2.repository.artifact.ArtifactKeyQuery;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactDescriptor;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactRepository;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactRepositoryManager;
@@ -1192,4 +1193,69 @@ public class ArtifactMirrorApplicationTest extends AbstractProvisioningTest {
 			fail("Error mirroring", e);
 		}
 	}
+
+	/**
+	 * Tests mirroring with several artifacts in flight on a pool of workers
+	 * Source contains A, B, C
+	 * Target contains
+	 * Expected is A, B, C
+	 */
+	public void testArtifactMirrorInParallel() throws Exception {
+		String[] args = { "-source", sourceRepo3Location.toURL().toExternalForm(), "-destination",
+				destRepoLocation.toURL().toExternalForm(), "-parallelism", "4", "-maxInFlight", "2" };
+		runMirrorApplication("Mirroring in parallel", args);
+
+		assertContentEquals("1.0", getArtifactRepositoryManager().loadRepository(sourceRepo3Location.toURI(), null),
+				getArtifactRepositoryManager().loadRepository(destRepoLocation.toURI(), null));
+	}
+
+	/**
+	 * Tests that a parallelism that is not a number is reported as a usage error
+	 */
+	public void testInvalidParallelism() throws Exception {
+		String[] args = { "-source", sourceRepo3Location.toURL().toExternalForm(), "-destination",
+				destRepoLocation.toURL().toExternalForm(), "-parallelism", "four" };
+
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> runMirrorApplication("Invalid parallelism", args));
+		assertTrue(e.getMessage(), e.getMessage().contains("-parallelism"));
+	}
+
+	/**
+	 * Tests that errors of workers are reported and do not stop mirroring with "-ignoreErrors"
+	 */
+	public void testIgnoreErrorsInParallel() throws Exception {
+		File errorSourceLocation = getTestData("loading error data", "testData/mirror/mirrorErrorSourceRepo");
+		String[] args = { "-source", errorSourceLocation.toURL().toExternalForm(), "-destination",
+				destRepoLocation.toURL().toExternalForm(), "-ignoreErrors", "-parallelism", "2" };
+		runMirrorApplication("Running with errored source in parallel", args);
+
+		assertEquals("Verifying correct number of Keys", 1, getArtifactKeyCount(destRepoLocation.toURI()));
+	}
+
+	/**
+	 * Tests that mirroring again with "-incremental" only transfers what changed in the source
+	 */
+	public void testIncrementalMirror() throws Exception {
+		File source = getTestFolder(getUniqueString());
+		copy(sourceRepo3Location, source);
+		String[] args = { "-source", source.toURL().toExternalForm(), "-destination",
+				destRepoLocation.toURL().toExternalForm(), "-incremental" };
+		runMirrorApplication("Initial incremental mirror", args);
+		assertTrue("Manifest written", new File(destRepoLocation, "mirror.manifest").isFile());
+
+		IArtifactRepository sourceRepository = getArtifactRepositoryManager().loadRepository(source.toURI(), null);
+		int descriptorCount = sourceRepository.descriptorQueryable()
+				.query(ArtifactDescriptorQuery.ALL_DESCRIPTORS, null).toUnmodifiableSet().size();
+		IArtifactKey removedKey = sourceRepository.query(ArtifactKeyQuery.ALL_KEYS, null).iterator().next();
+		int removedCount = sourceRepository.getArtifactDescriptors(removedKey).length;
+		sourceRepository.removeDescriptor(removedKey, null);
+
+		StringBuilder output = runMirrorApplication("Second incremental mirror", args);
+		String summary = NLS.bind(Messages.Mirroring_incrementalSummary,
+				new Object[] { descriptorCount - removedCount, 0, removedCount });
+		assertTrue(output.toString(), output.toString().contains(summary));
+		assertContentEquals("1.0", sourceRepository,
+				getArtifactRepositoryManager().loadRepository(destRepoLocation.toURI(), null));
+	}
 }
\ No newline at end of file
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2017 SAP AG and others.
+ * Copyright (c) 2013, 2026 SAP AG and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -90,6 +90,23 @@ public class MirrorApplicationTest {
 		assertThat(artifactsIn(destRepoLocation), not(hasItem(any(String.class)))); // TODO use is(empty()) once Hamcrest 1.3 is available
 	}
 
+	@Test
+	public void testIncrementalMirrorOfUnitKeepsOtherArtifacts() throws Exception {
+		subject = createApplication(sourceRepoLocation, destRepoLocation, true);
+		subject.setIncremental(true);
+		runApplication(subject);
+		Set<String> mirrored = artifactsIn(destRepoLocation);
+		assertThat(mirrored.size() > 1, is(true)); // self-test
+
+		// a run for one unit only walks the artifacts of that unit
+		subject = createApplication(sourceRepoLocation, destRepoLocation, true);
+		subject.setIncremental(true);
+		subject.setSourceIUs(Arrays.asList(getUnitFromSourceRepo("helloworld")));
+		runApplication(subject);
+
+		assertThat(artifactsIn(destRepoLocation), is(mirrored));
+	}
+
 	private IInstallableUnit getUnitFromSourceRepo(String id) throws Exception {
 		IMetadataRepository repository = agentProvider.getService(IMetadataRepositoryManager.class).loadRepository(sourceRepoLocation.toURI(), null);
 		IQueryResult<IInstallableUnit> queryResult = repository.query(QueryUtil.createIUQuery(id), null);
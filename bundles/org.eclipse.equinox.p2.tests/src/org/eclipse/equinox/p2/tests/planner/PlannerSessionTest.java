@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.planner;
+
+import java.util.List;
+import java.util.Set;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.equinox.internal.p2.director.PlannerSession;
+import org.eclipse.equinox.internal.p2.director.ProfileChangeRequest;
+import org.eclipse.equinox.internal.p2.director.SimplePlanner;
+import org.eclipse.equinox.p2.engine.IProfile;
+import org.eclipse.equinox.p2.engine.IProvisioningPlan;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.query.QueryUtil;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+public class PlannerSessionTest extends AbstractProvisioningTest {
+	IInstallableUnit a1, b1, b2, c1;
+	IProfile profile;
+	SimplePlanner planner;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		a1 = createIU("A", Version.create("1.0.0"), createRequiredCapabilities(IInstallableUnit.NAMESPACE_IU_ID, "B", new VersionRange("[1.0.0, 2.0.0)")));
+		b1 = createIU("B", Version.create("1.0.0"), true);
+		b2 = createIU("B", Version.create("1.1.0"), true);
+		c1 = createIU("C", Version.create("1.0.0"));
+		createTestMetdataRepository(new IInstallableUnit[] {a1, b1, b2, c1});
+		profile = createProfile("TestProfile." + getName());
+		planner = (SimplePlanner) createPlanner();
+	}
+
+	public void testRepeatedRequestReusesEncoding() {
+		IProvisioningPlan expected = planner.getProvisioningPlan(install(a1), null, null);
+		assertOK("Plan without session", expected.getStatus());
+
+		PlannerSession session = planner.createSession();
+		IProvisioningPlan first = session.getProvisioningPlan(install(a1), null, null);
+		IProvisioningPlan second = session.getProvisioningPlan(install(a1), null, null);
+		assertEquals(1, session.getMissCount());
+		assertEquals(1, session.getHitCount());
+
+		assertOK("First plan", first.getStatus());
+		assertOK("Second plan", second.getStatus());
+		Set<IInstallableUnit> expectedAdditions = additions(expected);
+		assertEquals(expectedAdditions, additions(first));
+		assertEquals(expectedAdditions, additions(second));
+		assertTrue(expectedAdditions.contains(b2));
+		assertFalse(expectedAdditions.contains(b1));
+	}
+
+	public void testDifferentSliceIsEncodedAgain() {
+		PlannerSession session = planner.createSession();
+		assertOK("Install A", session.getProvisioningPlan(install(a1), null, null).getStatus());
+		IProvisioningPlan plan = session.getProvisioningPlan(install(c1), null, null);
+		assertOK("Install C", plan.getStatus());
+		assertEquals(2, session.getMissCount());
+		assertEquals(0, session.getHitCount());
+		assertEquals(Set.of(c1), additions(plan));
+	}
+
+	public void testDifferentRootsOnSameSlice() {
+		PlannerSession session = planner.createSession();
+		assertOK("Install A", session.getProvisioningPlan(install(a1), null, null).getStatus());
+
+		// an additional root that is satisfied from the same slice only changes the entry point
+		ProfileChangeRequest request = install(a1);
+		request.addExtraRequirements(List.of(MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "B", new VersionRange("[1.0.0, 1.0.0]"), null, false, false)));
+		IProvisioningPlan plan = session.getProvisioningPlan(request, null, null);
+		assertEquals(1, session.getHitCount());
+		assertOK("Install A with B 1.0.0", plan.getStatus());
+		assertEquals(Set.of(a1, b1), additions(plan));
+
+		// the root and the bound on the optimization function of the previous request are retired
+		plan = session.getProvisioningPlan(install(a1), null, null);
+		assertEquals(2, session.getHitCount());
+		assertOK("Install A again", plan.getStatus());
+		assertEquals(Set.of(a1, b2), additions(plan));
+	}
+
+	public void testSolverIsRenewedAfterManyRequests() {
+		PlannerSession session = planner.createSession();
+		for (int i = 0; i <= PlannerSession.MAX_REQUESTS_PER_SOLVER; i++) {
+			IProvisioningPlan plan = session.getProvisioningPlan(install(a1), null, null);
+			assertOK("Install A " + i, plan.getStatus());
+			assertEquals(Set.of(a1, b2), additions(plan));
+		}
+		assertEquals(2, session.getMissCount());
+		assertEquals(PlannerSession.MAX_REQUESTS_PER_SOLVER - 1, session.getHitCount());
+	}
+
+	public void testUnsatisfiableRootsOnSameSlice() {
+		PlannerSession session = planner.createSession();
+		assertOK("Install A", session.getProvisioningPlan(install(a1), null, null).getStatus());
+
+		ProfileChangeRequest request = install(a1);
+		request.addExtraRequirements(List.of(MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "B", new VersionRange("[1.0.0, 1.0.0]"), null, false, false), MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "B", new VersionRange("[1.1.0, 1.1.0]"), null, false, false)));
+		IProvisioningPlan plan = session.getProvisioningPlan(request, null, null);
+		assertEquals(1, session.getHitCount());
+		assertEquals(IStatus.ERROR, plan.getStatus().getSeverity());
+
+		// the session can still be used after a failure
+		assertOK("Install A again", session.getProvisioningPlan(install(a1), null, null).getStatus());
+		assertEquals(2, session.getHitCount());
+	}
+
+	private ProfileChangeRequest install(IInstallableUnit iu) {
+		ProfileChangeRequest request = new ProfileChangeRequest(profile);
+		request.addInstallableUnits(iu);
+		return request;
+	}
+
+	private static Set<IInstallableUnit> additions(IProvisioningPlan plan) {
+		return plan.getAdditions().query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet();
+	}
+}
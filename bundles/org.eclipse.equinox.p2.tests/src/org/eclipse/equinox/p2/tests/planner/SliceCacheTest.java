@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.planner;
+
+import java.util.List;
+import java.util.Set;
+import org.eclipse.equinox.internal.p2.director.ProfileChangeRequest;
+import org.eclipse.equinox.internal.p2.director.SimplePlanner;
+import org.eclipse.equinox.internal.p2.director.SliceCache;
+import org.eclipse.equinox.internal.p2.metadata.index.ContentStamp;
+import org.eclipse.equinox.internal.p2.metadata.index.StampedCompoundQueryable;
+import org.eclipse.equinox.p2.engine.IProfile;
+import org.eclipse.equinox.p2.engine.IProvisioningPlan;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.query.QueryUtil;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+public class SliceCacheTest extends AbstractProvisioningTest {
+	IInstallableUnit a1, b1, b2, c1;
+	IMetadataRepository repository;
+	IProfile profile;
+	SimplePlanner planner;
+	SliceCache previousCache;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		a1 = createIU("A", Version.create("1.0.0"), createRequiredCapabilities(IInstallableUnit.NAMESPACE_IU_ID, "B", new VersionRange("[1.0.0, 2.0.0)")));
+		b1 = createIU("B", Version.create("1.0.0"), true);
+		b2 = createIU("B", Version.create("1.1.0"), true);
+		c1 = createIU("C", Version.create("1.0.0"));
+		repository = createTestMetdataRepository(new IInstallableUnit[] {a1, b1, b2, c1});
+		profile = createProfile("TestProfile." + getName());
+		planner = (SimplePlanner) createPlanner();
+		previousCache = planner.getSliceCache();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		planner.setSliceCache(previousCache);
+		super.tearDown();
+	}
+
+	public void testRepeatedRequestUsesCachedSlice() {
+		planner.setSliceCache(null);
+		IProvisioningPlan expected = planner.getProvisioningPlan(install(a1), null, null);
+		assertOK("Plan without cache", expected.getStatus());
+
+		SliceCache cache = new SliceCache(1024 * 1024);
+		planner.setSliceCache(cache);
+		IProvisioningPlan first = planner.getProvisioningPlan(install(a1), null, null);
+		IProvisioningPlan second = planner.getProvisioningPlan(install(a1), null, null);
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+
+		assertOK("First plan", first.getStatus());
+		assertOK("Second plan", second.getStatus());
+		assertEquals(additions(expected), additions(first));
+		assertEquals(additions(expected), additions(second));
+	}
+
+	public void testDifferentRootsAreSlicedSeparately() {
+		SliceCache cache = new SliceCache(1024 * 1024);
+		planner.setSliceCache(cache);
+		assertOK("Install A", planner.getProvisioningPlan(install(a1), null, null).getStatus());
+		IProvisioningPlan plan = planner.getProvisioningPlan(install(c1), null, null);
+		assertOK("Install C", plan.getStatus());
+		assertEquals(2, cache.getMissCount());
+		assertEquals(0, cache.getHitCount());
+		assertEquals(Set.of(c1), additions(plan));
+	}
+
+	public void testChangedMetadataIsSlicedAgain() {
+		SliceCache cache = new SliceCache(1024 * 1024);
+		planner.setSliceCache(cache);
+		assertOK("Install A", planner.getProvisioningPlan(install(a1), null, null).getStatus());
+
+		IInstallableUnit b3 = createIU("B", Version.create("1.2.0"), true);
+		createTestMetdataRepository(new IInstallableUnit[] {b3});
+		IProvisioningPlan plan = planner.getProvisioningPlan(install(a1), null, null);
+		assertEquals(2, cache.getMissCount());
+		assertOK("Install A", plan.getStatus());
+		assertEquals(Set.of(a1, b3), additions(plan));
+	}
+
+	public void testModifiedRepositoryIsSlicedAgain() {
+		SliceCache cache = new SliceCache(1024 * 1024);
+		planner.setSliceCache(cache);
+		assertOK("Install A", planner.getProvisioningPlan(install(a1), null, null).getStatus());
+
+		IInstallableUnit b3 = createIU("B", Version.create("1.2.0"), true);
+		repository.addInstallableUnits(List.of(b3));
+		IProvisioningPlan plan = planner.getProvisioningPlan(install(a1), null, null);
+		assertEquals(2, cache.getMissCount());
+		assertEquals(0, cache.getHitCount());
+		assertOK("Install A", plan.getStatus());
+		assertEquals(Set.of(a1, b3), additions(plan));
+	}
+
+	public void testStampDependsOnRepositoryOrder() {
+		IMetadataRepository other = createTestMetdataRepository(new IInstallableUnit[] {c1});
+		Object stamp = ContentStamp.of(List.of(repository, other));
+		assertEquals(stamp, ContentStamp.of(List.of(repository, other)));
+		assertFalse(stamp.equals(ContentStamp.of(List.of(other, repository))));
+
+		// the metadata of a provisioning context combines the repositories with their stamp
+		StampedCompoundQueryable<IInstallableUnit> metadata = new StampedCompoundQueryable<>(List.of(repository, other));
+		assertEquals(stamp, metadata.getContentStamp());
+		assertEquals(Set.of(c1), metadata.query(QueryUtil.createIUQuery("C"), null).toUnmodifiableSet());
+	}
+
+	public void testProfileSnapshotUsesCachedSlice() {
+		SliceCache cache = new SliceCache(1024 * 1024);
+		planner.setSliceCache(cache);
+		assertOK("Install A", planner.getProvisioningPlan(install(a1), null, null).getStatus());
+
+		// a new snapshot of the unchanged profile has the same units
+		profile = getProfile(profile.getProfileId());
+		assertOK("Install A", planner.getProvisioningPlan(install(a1), null, null).getStatus());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+	}
+
+	public void testChangedProfileIsSlicedAgain() {
+		SliceCache cache = new SliceCache(1024 * 1024);
+		planner.setSliceCache(cache);
+		assertOK("Install A", planner.getProvisioningPlan(install(a1), null, null).getStatus());
+
+		assertOK("Install C", installAsRoots(profile, new IInstallableUnit[] {c1}, true, planner, createEngine()));
+		profile = getProfile(profile.getProfileId());
+		assertOK("Install A", planner.getProvisioningPlan(install(a1), null, null).getStatus());
+		assertEquals(0, cache.getHitCount());
+	}
+
+	public void testLeastRecentlyUsedSliceIsEvicted() {
+		SliceCache sizing = new SliceCache(1024 * 1024);
+		planner.setSliceCache(sizing);
+		planner.getProvisioningPlan(install(a1), null, null);
+		long sizeOfA = sizing.getSize();
+		assertTrue(sizeOfA > 0);
+
+		SliceCache cache = new SliceCache(sizeOfA);
+		planner.setSliceCache(cache);
+		planner.getProvisioningPlan(install(a1), null, null);
+		planner.getProvisioningPlan(install(c1), null, null);
+		assertEquals(1, cache.getEvictionCount());
+		assertTrue(cache.getSize() <= sizeOfA);
+
+		// the slice of A was evicted and is computed again
+		assertOK("Install A", planner.getProvisioningPlan(install(a1), null, null).getStatus());
+		assertEquals(3, cache.getMissCount());
+		assertEquals(0, cache.getHitCount());
+	}
+
+	private ProfileChangeRequest install(IInstallableUnit iu) {
+		ProfileChangeRequest request = new ProfileChangeRequest(profile);
+		request.addInstallableUnits(iu);
+		return request;
+	}
+
+	private static Set<IInstallableUnit> additions(IProvisioningPlan plan) {
+		return plan.getAdditions().query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet();
+	}
+}
@@ -20,7 +20,7 @@ import org.junit.platform.suite.api.Suite;
  * Performs all automated director tests.
  */
 @Suite
-@SelectClasses({ EvaluatorTest.class, PerformanceTest.class, TestQueryReimplementation.class })
+@SelectClasses({ EvaluatorTest.class, ExpressionCacheTest.class, ExpressionCompilerTest.class, PerformanceTest.class, TestQueryReimplementation.class })
 public class AllTests {
 // test suite
 }
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.ql;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.internal.p2.metadata.expression.CanonicalCache;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionFactory;
+import org.eclipse.equinox.internal.p2.metadata.expression.parser.LDAPFilterParser;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.IRequirement;
+import org.eclipse.equinox.p2.metadata.MetadataFactory;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.VersionRange;
+import org.eclipse.equinox.p2.metadata.expression.ExpressionUtil;
+import org.eclipse.equinox.p2.metadata.expression.IExpression;
+import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
+import org.eclipse.equinox.p2.query.IQuery;
+import org.eclipse.equinox.p2.query.QueryUtil;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+public class ExpressionCacheTest extends AbstractProvisioningTest {
+
+	public void testEqualFiltersAreShared() {
+		String filter = "(&(osgi.os=linux)(osgi.ws=gtk)(cache.test=" + getName() + "))";
+		long hits = LDAPFilterParser.getFilterCache().getHitCount();
+		assertSame(ExpressionUtil.parseLDAP(filter), ExpressionUtil.parseLDAP(" " + filter + " "));
+		assertTrue(LDAPFilterParser.getFilterCache().getHitCount() > hits);
+
+		IMatchExpression<IInstallableUnit> first = InstallableUnit.parseFilter(filter);
+		IMatchExpression<IInstallableUnit> second = InstallableUnit.parseFilter(new String(filter));
+		assertSame(first, second);
+	}
+
+	public void testEqualRequirementsShareMatches() {
+		VersionRange range = new VersionRange("[1.0.0,2.0.0)");
+		IRequirement first = MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "cache.test.iu", range, "(osgi.os=linux)", false, false, true);
+		IRequirement second = MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "cache.test.iu", new VersionRange("[1.0.0,2.0.0)"), "(osgi.os=linux)", true, false, true);
+		assertSame(first.getMatches(), second.getMatches());
+		assertSame(first.getFilter(), second.getFilter());
+
+		IRequirement other = MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "cache.test.iu", new VersionRange("[2.0.0,3.0.0)"), null, false, false);
+		assertNotSame(first.getMatches(), other.getMatches());
+	}
+
+	public void testMutableParametersAreNotShared() {
+		IExpression expression = ExpressionUtil.parse("id == $0");
+		List<String> ids = new ArrayList<>();
+		IMatchExpression<IInstallableUnit> first = ExpressionFactory.intern(ExpressionUtil.getFactory().matchExpression(expression, ids));
+		IMatchExpression<IInstallableUnit> second = ExpressionFactory.intern(ExpressionUtil.getFactory().matchExpression(expression, ids));
+		assertNotSame(first, second);
+		assertEquals(first, second);
+	}
+
+	public void testQueriesAreNotShared() {
+		long misses = ExpressionFactory.getMatchExpressionCache().getMissCount();
+		IQuery<IInstallableUnit> first = QueryUtil.createIUQuery("cache.test.query", Version.create("1.0.0"));
+		IQuery<IInstallableUnit> second = QueryUtil.createIUQuery("cache.test.query", Version.create("1.0.0"));
+		assertNotSame(first.getExpression(), second.getExpression());
+		assertEquals(misses, ExpressionFactory.getMatchExpressionCache().getMissCount());
+	}
+
+	public void testCacheStatistics() {
+		long misses = ExpressionFactory.getMatchExpressionCache().getMissCount();
+		long hits = ExpressionFactory.getMatchExpressionCache().getHitCount();
+		IExpression expression = ExpressionUtil.parse("id == $0");
+		ExpressionFactory.intern(ExpressionUtil.getFactory().matchExpression(expression, "cache.test.statistics"));
+		ExpressionFactory.intern(ExpressionUtil.getFactory().matchExpression(expression, "cache.test.statistics"));
+		assertTrue(ExpressionFactory.getMatchExpressionCache().getMissCount() > misses);
+		assertTrue(ExpressionFactory.getMatchExpressionCache().getHitCount() > hits);
+	}
+
+	public void testCacheIsBounded() {
+		CanonicalCache<String, String> cache = new CanonicalCache<>(2);
+		assertEquals("a", cache.intern("a"));
+		cache.intern("b");
+		assertEquals("a", cache.intern("a"));
+		cache.intern("c");
+		assertEquals(2, cache.size());
+		assertEquals(1L, cache.getEvictionCount());
+		assertEquals(1L, cache.getHitCount());
+		assertEquals(3L, cache.getMissCount());
+
+		// values are not retained at all without room for them
+		CanonicalCache<String, String> empty = new CanonicalCache<>(0);
+		empty.intern("a");
+		assertEquals(0, empty.size());
+	}
+}
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.ql;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.internal.p2.metadata.expression.Expression;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionCompiler;
+import org.eclipse.equinox.internal.p2.metadata.expression.LDAPFilter;
+import org.eclipse.equinox.internal.p2.metadata.expression.MemberProvider;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.IRequirement;
+import org.eclipse.equinox.p2.metadata.MetadataFactory;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitDescription;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.VersionRange;
+import org.eclipse.equinox.p2.metadata.expression.ExpressionUtil;
+import org.eclipse.equinox.p2.metadata.expression.IExpressionFactory;
+import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+public class ExpressionCompilerTest extends AbstractProvisioningTest {
+	private static final IExpressionFactory factory = ExpressionUtil.getFactory();
+
+	private static final String[] FILTERS = {"(osgi.os=linux)", "(&(osgi.os=linux)(osgi.ws=gtk))",
+			"(|(osgi.os=win32)(osgi.os=macosx))", "(!(osgi.arch=x86))", "(osgi.nl=de*)",
+			"(&(osgi.os=linux)(|(osgi.arch=x86_64)(osgi.arch=aarch64)))", "(level>=5)", "(level<=3)",
+			"(osgi.os~=LINUX)", "(missing=*)", "(osgi.os=*)", "(&(a=1)(b=2)(c=3))", "(|(a=1)(b=2)(c=3))",
+			"(OSGI.OS=linux)"};
+
+	private List<Map<String, Object>> environments;
+	private List<IInstallableUnit> units;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		environments = new ArrayList<>();
+		for (String os : new String[] {"linux", "win32", "macosx"}) {
+			for (String arch : new String[] {"x86", "x86_64", "aarch64"}) {
+				Map<String, Object> environment = new HashMap<>();
+				environment.put("osgi.os", os);
+				environment.put("osgi.ws", os.equals("linux") ? "gtk" : "win32");
+				environment.put(arch.equals("aarch64") ? "OSGi.Arch" : "osgi.arch", arch);
+				environment.put("osgi.nl", arch.equals("x86") ? "de_DE" : "en_US");
+				environment.put("level", Integer.valueOf(arch.length()));
+				environment.put("a", "1");
+				environment.put("b", arch.equals("x86") ? "2" : "3");
+				environments.add(environment);
+			}
+		}
+		units = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			InstallableUnitDescription description = new InstallableUnitDescription();
+			description.setId("iu" + (i % 5));
+			description.setVersion(Version.createOSGi(1, i % 4, i));
+			description.addProvidedCapabilities(List.of(
+					MetadataFactory.createProvidedCapability(IInstallableUnit.NAMESPACE_IU_ID, description.getId(), description.getVersion()),
+					MetadataFactory.createProvidedCapability("java.package", "p" + (i % 3), Version.createOSGi(i % 3, 0, 0))));
+			units.add(MetadataFactory.createInstallableUnit(description));
+		}
+	}
+
+	public void testFiltersAreCompiled() {
+		for (String filter : FILTERS) {
+			LDAPFilter ldapFilter = (LDAPFilter) ExpressionUtil.parseLDAP(filter);
+			assertNotNull(filter, ExpressionCompiler.compile(ldapFilter.operand, null));
+		}
+	}
+
+	public void testFilterMatchesMap() {
+		for (String filter : FILTERS) {
+			LDAPFilter ldapFilter = (LDAPFilter) ExpressionUtil.parseLDAP(filter);
+			IMatchExpression<Object> interpreted = factory.matchExpression(ldapFilter.operand);
+			for (Map<String, Object> environment : environments) {
+				boolean expected = interpreted.isMatch(interpreted.createContext(), MemberProvider.create(environment, true));
+				assertEquals(filter + " " + environment, expected, ldapFilter.match(environment));
+				assertEquals(filter + " " + environment, expected, interpreted.isMatch(MemberProvider.create(environment, true)));
+			}
+		}
+	}
+
+	public void testUnitFilter() {
+		for (String filter : FILTERS) {
+			IMatchExpression<IInstallableUnit> unitFilter = InstallableUnit.parseFilter(filter);
+			for (Map<String, Object> environment : environments) {
+				Map<String, String> properties = new HashMap<>();
+				environment.forEach((key, value) -> properties.put(key, value.toString()));
+				IInstallableUnit selectionContext = InstallableUnit.contextIU(properties);
+				boolean expected = unitFilter.isMatch(unitFilter.createContext(), selectionContext);
+				assertEquals(filter + " " + environment, expected, unitFilter.isMatch(selectionContext));
+			}
+		}
+	}
+
+	public void testRequirementMatches() {
+		VersionRange[] ranges = {VersionRange.emptyRange, new VersionRange("[1.0.0,2.0.0)"), new VersionRange("[1.1.0,1.2.0]"),
+				new VersionRange("(1.1.0,1.3.0)"), new VersionRange("1.2.0"), new VersionRange("[1.2.3,1.2.3]")};
+		for (VersionRange range : ranges) {
+			for (int i = 0; i < 5; i++) {
+				IRequirement[] requirements = {
+						MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "iu" + i, range, null, false, false),
+						MetadataFactory.createRequirement("java.package", "p" + (i % 3), range, null, false, false)};
+				for (IRequirement requirement : requirements) {
+					IMatchExpression<IInstallableUnit> matches = requirement.getMatches();
+					assertNotNull(requirement.toString(), ExpressionCompiler.compile((Expression) ExpressionUtil.getOperand(matches), matches.getParameters()));
+					for (IInstallableUnit unit : units) {
+						assertEquals(requirement + " " + unit, matches.isMatch(matches.createContext(), unit), matches.isMatch(unit));
+					}
+				}
+			}
+		}
+	}
+
+	public void testCollectionFilters() {
+		String[] expressions = {"providedCapabilities.all(x | x.namespace == $0) || id == $1",
+				"providedCapabilities.exists(x | x.namespace == $0 && x.version > $2)",
+				"!providedCapabilities.exists(x | x.name == $1)"};
+		for (String expression : expressions) {
+			IMatchExpression<IInstallableUnit> matches = factory.matchExpression(ExpressionUtil.parse(expression), "java.package", "iu3", Version.createOSGi(1, 0, 0));
+			for (IInstallableUnit unit : units) {
+				assertEquals(expression + " " + unit, matches.isMatch(matches.createContext(), unit), matches.isMatch(unit));
+			}
+		}
+	}
+
+	public void testUncompilableExpression() {
+		// a lambda that refers to the variable of an enclosing lambda is evaluated as before
+		IMatchExpression<IInstallableUnit> matches = factory.matchExpression(ExpressionUtil.parse("providedCapabilities.exists(x | providedCapabilities.exists(y | y.name == x.name && y != x))"));
+		assertNull(ExpressionCompiler.compile((Expression) ExpressionUtil.getOperand(matches), matches.getParameters()));
+		for (IInstallableUnit unit : units) {
+			assertFalse(unit.toString(), matches.isMatch(unit));
+		}
+	}
+
+	public void testUncompilableMapFilter() {
+		// length and empty are not members of the map, the filter cannot be compiled for maps
+		for (String filter : new String[] {"(length=3)", "(&(osgi.os=linux)(empty=true))"}) {
+			LDAPFilter ldapFilter = (LDAPFilter) ExpressionUtil.parseLDAP(filter);
+			IMatchExpression<Object> interpreted = factory.matchExpression(ldapFilter.operand);
+			for (Map<String, Object> environment : environments) {
+				boolean expected = interpreted.isMatch(interpreted.createContext(), MemberProvider.create(environment, true));
+				// the first match compiles the filter, the second one uses the cached result
+				assertEquals(filter + " " + environment, expected, ldapFilter.match(environment));
+				assertEquals(filter + " " + environment, expected, ldapFilter.match(environment));
+			}
+		}
+	}
+}
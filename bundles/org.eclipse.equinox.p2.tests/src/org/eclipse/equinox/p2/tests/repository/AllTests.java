@@ -21,7 +21,8 @@ import org.junit.platform.suite.api.Suite;
  */
 @Suite
 @SelectClasses({ CacheManagerTest.class, RepositoryHelperTest.class, RepositoryExtensionPointTest.class,
-		FileReaderTest2.class, ChecksumHelperTest.class })
+		FileReaderTest2.class, ChecksumHelperTest.class, HttpClientTransportTest.class,
+		RepositoryTransportTest.class })
 public class AllTests {
 	// test suite
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 EclipseSource.
+ * Copyright (c) 2011, 2026 EclipseSource.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -12,6 +12,7 @@ package org.eclipse.equinox.p2.tests.repository;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -21,6 +22,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -28,6 +31,8 @@ import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.equinox.internal.p2.repository.AuthenticationFailedException;
 import org.eclipse.equinox.internal.p2.repository.CacheManager;
+import org.eclipse.equinox.internal.p2.repository.DownloadStatus;
+import org.eclipse.equinox.internal.p2.repository.HttpClientTransport;
 import org.eclipse.equinox.internal.p2.repository.Messages;
 import org.eclipse.equinox.internal.p2.repository.Transport;
 import org.eclipse.equinox.p2.core.IAgentLocation;
@@ -143,6 +148,144 @@ public class CacheManagerTest {
 		}
 	}
 
+	@Test
+	public void testConditionalRequests() throws ProvisionException, IOException {
+		AtomicInteger lastModifiedRequests = new AtomicInteger();
+		AtomicInteger downloads = new AtomicInteger();
+		CacheManager conditionalCacheManager = new CacheManager(new AgentLocationMock(), new HttpClientTransport(1) {
+			@Override
+			public long getLastModified(URI toDownload, IProgressMonitor monitor)
+					throws CoreException, FileNotFoundException, AuthenticationFailedException {
+				lastModifiedRequests.incrementAndGet();
+				return super.getLastModified(toDownload, monitor);
+			}
+
+			@Override
+			public IStatus downloadIfModified(URI toDownload, OutputStream target, String entityTag, long lastModified,
+					IProgressMonitor monitor) {
+				IStatus status = super.downloadIfModified(toDownload, target, entityTag, lastModified, monitor);
+				if (status.isOK() && status.getCode() != DownloadStatus.CODE_NOT_MODIFIED) {
+					downloads.incrementAndGet();
+				}
+				return status;
+			}
+		});
+		conditionalCacheManager.setConditionalRequests(true);
+		Files.writeString(contentXmlFile.toPath(), "<repository/>");
+
+		File cache = conditionalCacheManager.createCache(repositoryLocation, cachePrefix, new NullProgressMonitor());
+		assertEquals("<repository/>", Files.readString(cache.toPath()));
+		assertEquals(contentXmlFile.lastModified(), cache.lastModified());
+		assertEquals(1, downloads.get());
+
+		// an unchanged repository is a cache hit
+		File cache2 = conditionalCacheManager.createCache(repositoryLocation, cachePrefix, new NullProgressMonitor());
+		assertEquals(cache, cache2);
+		assertEquals(1, downloads.get());
+
+		// a changed repository is downloaded again
+		Files.writeString(contentXmlFile.toPath(), "<repository name='updated'/>");
+		contentXmlFile.setLastModified(contentXmlFile.lastModified() + ONE_HOUR);
+		File cache3 = conditionalCacheManager.createCache(repositoryLocation, cachePrefix, new NullProgressMonitor());
+		assertEquals("<repository name='updated'/>", Files.readString(cache3.toPath()));
+		assertEquals(2, downloads.get());
+		assertEquals(0, lastModifiedRequests.get());
+	}
+
+	@Test
+	public void testConditionalRequestsNotFound() {
+		CacheManager conditionalCacheManager = new CacheManager(new AgentLocationMock(), new HttpClientTransport(1));
+		conditionalCacheManager.setConditionalRequests(true);
+		assertTrue(contentXmlFile.delete());
+		assertThrows(FileNotFoundException.class, () -> conditionalCacheManager.createCache(repositoryLocation,
+				cachePrefix, new NullProgressMonitor()));
+	}
+
+	@Test
+	public void testFreshnessWindow() throws ProvisionException, IOException {
+		AtomicInteger requests = new AtomicInteger();
+		CacheManager freshCacheManager = createCountingCacheManager(requests);
+		freshCacheManager.setFreshnessWindow(ONE_HOUR);
+		Files.writeString(contentXmlFile.toPath(), "<repository/>");
+		assertFalse(freshCacheManager.hasCache(repositoryLocation, "content.xml"));
+
+		File cache = freshCacheManager.createCache(repositoryLocation, cachePrefix, new NullProgressMonitor());
+		assertTrue(freshCacheManager.hasCache(repositoryLocation, "content.xml"));
+		assertTrue(freshCacheManager.isFresh(repositoryLocation, "content.xml"));
+		int validationRequests = requests.get();
+		assertTrue(validationRequests > 0);
+
+		// a fresh cache is used without contacting the server, even if the repository changed
+		Files.writeString(contentXmlFile.toPath(), "<repository name='updated'/>");
+		contentXmlFile.setLastModified(contentXmlFile.lastModified() + ONE_HOUR);
+		File cache2 = freshCacheManager.createCache(repositoryLocation, cachePrefix, new NullProgressMonitor());
+		assertEquals(cache, cache2);
+		assertEquals("<repository/>", Files.readString(cache2.toPath()));
+		assertEquals(validationRequests, requests.get());
+
+		// an expired cache is validated
+		freshCacheManager.expire(repositoryLocation);
+		assertFalse(freshCacheManager.isFresh(repositoryLocation, "content.xml"));
+		File cache3 = freshCacheManager.createCache(repositoryLocation, cachePrefix, new NullProgressMonitor());
+		assertEquals("<repository name='updated'/>", Files.readString(cache3.toPath()));
+		assertTrue(freshCacheManager.isFresh(repositoryLocation, "content.xml"));
+
+		// the window of a load scope overrides the default for the current thread
+		assertFalse(freshCacheManager.isFresh(repositoryLocation, "content.xml", 0));
+		int requestsBefore = requests.get();
+		try (CacheManager.LoadScope scope = freshCacheManager.openLoadScope(repositoryLocation, 0, false)) {
+			assertFalse(freshCacheManager.isFresh(repositoryLocation, "content.xml"));
+			freshCacheManager.createCache(repositoryLocation, cachePrefix, new NullProgressMonitor());
+		}
+		assertTrue(requests.get() > requestsBefore);
+		assertTrue(freshCacheManager.isFresh(repositoryLocation, "content.xml"));
+	}
+
+	@Test
+	public void testStaleAllowed() throws ProvisionException, IOException {
+		AtomicInteger requests = new AtomicInteger();
+		CacheManager staleCacheManager = createCountingCacheManager(requests);
+		Files.writeString(contentXmlFile.toPath(), "<repository/>");
+		staleCacheManager.createCache(repositoryLocation, cachePrefix, new NullProgressMonitor());
+		assertFalse(staleCacheManager.isFresh(repositoryLocation, "content.xml"));
+
+		Files.writeString(contentXmlFile.toPath(), "<repository name='updated'/>");
+		contentXmlFile.setLastModified(contentXmlFile.lastModified() + ONE_HOUR);
+		int validationRequests = requests.get();
+		try (CacheManager.LoadScope scope = staleCacheManager.openLoadScope(repositoryLocation, 0, true)) {
+			File stale = staleCacheManager.createCache(repositoryLocation, cachePrefix, new NullProgressMonitor());
+			assertEquals("<repository/>", Files.readString(stale.toPath()));
+			assertEquals(validationRequests, requests.get());
+		}
+
+		File validated = staleCacheManager.createCache(repositoryLocation, cachePrefix, new NullProgressMonitor());
+		assertEquals("<repository name='updated'/>", Files.readString(validated.toPath()));
+	}
+
+	@Test
+	public void testNoValidationTimeWithoutFreshnessWindow() throws ProvisionException, IOException {
+		Files.writeString(contentXmlFile.toPath(), "<repository/>");
+		File cache = cacheManager.createCache(repositoryLocation, cachePrefix, new NullProgressMonitor());
+		assertFalse(new File(cache.getParentFile(), cache.getName() + ".validators").exists());
+	}
+
+	private CacheManager createCountingCacheManager(AtomicInteger requests) {
+		return new CacheManager(new AgentLocationMock(), new HttpClientTransport(1) {
+			@Override
+			public long getLastModified(URI toDownload, IProgressMonitor monitor)
+					throws CoreException, FileNotFoundException, AuthenticationFailedException {
+				requests.incrementAndGet();
+				return super.getLastModified(toDownload, monitor);
+			}
+
+			@Override
+			public IStatus download(URI toDownload, OutputStream target, IProgressMonitor monitor) {
+				requests.incrementAndGet();
+				return super.download(toDownload, target, monitor);
+			}
+		});
+	}
+
 	private URI createRepistory() throws IOException {
 		File repository = File.createTempFile("remoteFile", ""); //$NON-NLS-1$//$NON-NLS-2$
 		repository.deleteOnExit();
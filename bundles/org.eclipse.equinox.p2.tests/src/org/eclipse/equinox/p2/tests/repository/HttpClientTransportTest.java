@@ -0,0 +1,314 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.repository;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThrows;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.equinox.internal.p2.repository.DownloadStatus;
+import org.eclipse.equinox.internal.p2.repository.HttpClientTransport;
+import org.eclipse.equinox.p2.core.ProvisionException;
+import org.eclipse.equinox.p2.repository.IRepository;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+import org.eclipse.equinox.p2.tests.LocalHttpServers;
+import org.eclipse.equinox.security.storage.ISecurePreferences;
+import org.eclipse.equinox.security.storage.SecurePreferencesFactory;
+
+/**
+ * Tests the {@link HttpClientTransport} against an embedded HTTP server.
+ */
+public class HttpClientTransportTest extends AbstractProvisioningTest {
+
+	private static final int WINDOW = 4;
+
+	private LocalHttpServers servers;
+	private URI base;
+	private HttpClientTransport transport;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private final AtomicInteger requests = new AtomicInteger();
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		servers = new LocalHttpServers();
+		HttpServer server = servers.start("/artifacts/", this::handleArtifact);
+		base = LocalHttpServers.location(server, "/artifacts/");
+		transport = LocalHttpServers.createTransport(WINDOW);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		servers.close();
+		super.tearDown();
+	}
+
+	/**
+	 * Serves <code>/artifacts/&lt;size&gt;</code> with the given number of bytes,
+	 * after a short delay so that concurrent requests overlap.
+	 */
+	private void handleArtifact(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+		try (exchange) {
+			String name = exchange.getRequestURI().getPath().substring("/artifacts/".length());
+			if (!name.matches("\\d+")) {
+				exchange.sendResponseHeaders(404, -1);
+				return;
+			}
+			Thread.sleep(20);
+			byte[] content = content(Integer.parseInt(name));
+			String entityTag = "\"" + name + "\"";
+			exchange.getResponseHeaders().add("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT");
+			exchange.getResponseHeaders().add("ETag", entityTag);
+			if (entityTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				exchange.sendResponseHeaders(304, -1);
+				return;
+			}
+			if ("HEAD".equals(exchange.getRequestMethod())) {
+				exchange.sendResponseHeaders(200, -1);
+				return;
+			}
+			exchange.sendResponseHeaders(200, content.length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(content);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			inFlight.decrementAndGet();
+		}
+	}
+
+	private static byte[] content(int size) {
+		byte[] content = new byte[size];
+		for (int i = 0; i < size; i++) {
+			content[i] = (byte) (i * 31 + size);
+		}
+		return content;
+	}
+
+	public void testDownload() {
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+		IStatus status = transport.download(base.resolve("100000"), target, new NullProgressMonitor());
+		assertOK(status);
+		assertTrue(status instanceof DownloadStatus);
+		assertEquals(100000L, ((DownloadStatus) status).getFileSize());
+		assertEquals(1445412480000L, ((DownloadStatus) status).getLastModified());
+		assertArrayEquals(content(100000), target.toByteArray());
+	}
+
+	public void testNotFound() {
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+		IStatus status = transport.download(base.resolve("missing"), target, new NullProgressMonitor());
+		assertEquals(IStatus.ERROR, status.getSeverity());
+		assertEquals(ProvisionException.ARTIFACT_NOT_FOUND, status.getCode());
+		assertEquals(0, target.size());
+	}
+
+	public void testConcurrentDownloadsAreBoundedByWindow() throws Exception {
+		int count = 40;
+		List<ByteArrayOutputStream> targets = new ArrayList<>();
+		List<CompletableFuture<IStatus>> downloads = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			ByteArrayOutputStream target = new ByteArrayOutputStream();
+			targets.add(target);
+			downloads.add(transport.downloadAsync(base.resolve(Integer.toString(1000 + i)), target, new NullProgressMonitor()));
+		}
+		for (int i = 0; i < count; i++) {
+			assertOK(downloads.get(i).get());
+			assertArrayEquals(content(1000 + i), targets.get(i).toByteArray());
+		}
+		assertEquals(count, requests.get());
+		assertTrue("Downloads did not overlap", maxInFlight.get() > 1);
+		assertTrue("Window exceeded: " + maxInFlight.get(), maxInFlight.get() <= WINDOW);
+		assertEquals(WINDOW, transport.getMaxConcurrentDownloads(base));
+		assertEquals(0, transport.getMaxConcurrentDownloads(URI.create("file:/tmp/")));
+	}
+
+	public void testCancel() {
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+		assertThrows(OperationCanceledException.class,
+				() -> transport.download(base.resolve("1000"), new ByteArrayOutputStream(), monitor));
+		assertEquals(0, requests.get());
+	}
+
+	public void testDownloadIfModified() {
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+		IStatus status = transport.downloadIfModified(base.resolve("5000"), target, null, 0, new NullProgressMonitor());
+		assertOK(status);
+		assertEquals(IStatus.OK, status.getCode());
+		assertEquals("\"5000\"", ((DownloadStatus) status).getEntityTag());
+		assertArrayEquals(content(5000), target.toByteArray());
+
+		target.reset();
+		status = transport.downloadIfModified(base.resolve("5000"), target, "\"5000\"", 1445412480000L, new NullProgressMonitor());
+		assertOK(status);
+		assertEquals(DownloadStatus.CODE_NOT_MODIFIED, status.getCode());
+		assertEquals(1445412480000L, ((DownloadStatus) status).getLastModified());
+		assertEquals(0, target.size());
+
+		status = transport.downloadIfModified(base.resolve("5000"), target, "\"4999\"", 0, new NullProgressMonitor());
+		assertEquals(IStatus.OK, status.getCode());
+		assertArrayEquals(content(5000), target.toByteArray());
+		assertEquals(3, requests.get());
+	}
+
+	public void testStalledBodyTimesOut() throws Exception {
+		HttpServer server = servers.start("/stalled/", exchange -> {
+			try (exchange) {
+				exchange.sendResponseHeaders(200, 2000);
+				OutputStream body = exchange.getResponseBody();
+				body.write(content(1000));
+				body.flush();
+				Thread.sleep(10000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		HttpClientTransport impatient = LocalHttpServers.createTransport(WINDOW, Duration.ofMillis(500));
+		long start = System.currentTimeMillis();
+		IStatus status = impatient.download(LocalHttpServers.location(server, "/stalled/file"),
+				new ByteArrayOutputStream(), new NullProgressMonitor());
+		assertFalse(status.isOK());
+		assertTrue(System.currentTimeMillis() - start < 5000);
+	}
+
+	public void testStreamAndLastModified() throws Exception {
+		try (InputStream stream = transport.stream(base.resolve("5000"), new NullProgressMonitor())) {
+			assertArrayEquals(content(5000), stream.readAllBytes());
+		}
+		assertEquals(1445412480000L, transport.getLastModified(base.resolve("5000"), new NullProgressMonitor()));
+		assertThrows(FileNotFoundException.class,
+				() -> transport.getLastModified(base.resolve("missing"), new NullProgressMonitor()));
+	}
+
+	public void testCredentialsAreNotSentToRedirectedHost() throws Exception {
+		List<String> mirrorAuthorizations = new ArrayList<>();
+		ConcurrentHashMap<String, String> originAuthorizations = new ConcurrentHashMap<>();
+		HttpServer mirror = servers.start("/mirror/", exchange -> {
+			try (exchange) {
+				synchronized (mirrorAuthorizations) {
+					mirrorAuthorizations.add(String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
+				}
+				byte[] content = content(3000);
+				exchange.sendResponseHeaders(200, content.length);
+				try (OutputStream body = exchange.getResponseBody()) {
+					body.write(content);
+				}
+			}
+		});
+		HttpServer origin = servers.start("/protected/", exchange -> {
+			try (exchange) {
+				originAuthorizations.put(exchange.getRequestURI().getPath(),
+						String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
+				exchange.getResponseHeaders().add("Location", LocalHttpServers.location(mirror, "/mirror/file").toString());
+				exchange.sendResponseHeaders(302, -1);
+			}
+		});
+		// the servers differ only in their port, credentials are stored per host name
+		String nodeName = IRepository.PREFERENCE_NODE + '/' + URLEncoder.encode("localhost", StandardCharsets.UTF_8);
+		ISecurePreferences node = SecurePreferencesFactory.getDefault().node(nodeName);
+		try {
+			node.put(IRepository.PROP_USERNAME, "user", false);
+			node.put(IRepository.PROP_PASSWORD, "secret", false);
+
+			ByteArrayOutputStream target = new ByteArrayOutputStream();
+			IStatus status = transport.download(LocalHttpServers.location(origin, "/protected/file"), target,
+					new NullProgressMonitor());
+			assertOK(status);
+			assertArrayEquals(content(3000), target.toByteArray());
+			try (InputStream stream = transport.stream(LocalHttpServers.location(origin, "/protected/stream"),
+					new NullProgressMonitor())) {
+				assertArrayEquals(content(3000), stream.readAllBytes());
+			}
+		} finally {
+			node.removeNode();
+		}
+		assertTrue(originAuthorizations.get("/protected/file").startsWith("Basic "));
+		assertTrue(originAuthorizations.get("/protected/stream").startsWith("Basic "));
+		assertEquals(List.of("null", "null"), mirrorAuthorizations);
+	}
+
+	public void testRangeRequestFollowsRedirect() {
+		byte[] content = content(3000);
+		List<String> ranges = new ArrayList<>();
+		HttpServer mirror = servers.start("/mirror/", exchange -> {
+			try (exchange) {
+				synchronized (ranges) {
+					ranges.add(String.valueOf(exchange.getRequestHeaders().getFirst("Range")));
+				}
+				exchange.getResponseHeaders().add("Content-Range", "bytes 100-199/" + content.length);
+				exchange.sendResponseHeaders(206, 100);
+				try (OutputStream body = exchange.getResponseBody()) {
+					body.write(content, 100, 100);
+				}
+			}
+		});
+		HttpServer origin = servers.start("/redirect/", exchange -> {
+			try (exchange) {
+				exchange.getResponseHeaders().add("Location", LocalHttpServers.location(mirror, "/mirror/file").toString());
+				exchange.sendResponseHeaders(307, -1);
+			}
+		});
+
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+		IStatus status = transport.downloadRange(LocalHttpServers.location(origin, "/redirect/file"), target, 100, 100,
+				content.length, new NullProgressMonitor());
+		assertOK(status);
+		assertArrayEquals(Arrays.copyOfRange(content, 100, 200), target.toByteArray());
+		assertEquals(List.of("bytes=100-199"), ranges);
+
+		// downloads that do not wait for the result follow redirects too
+		ByteArrayOutputStream asyncTarget = new ByteArrayOutputStream();
+		HttpServer whole = servers.start("/whole/", exchange -> {
+			try (exchange) {
+				exchange.sendResponseHeaders(200, content.length);
+				try (OutputStream body = exchange.getResponseBody()) {
+					body.write(content);
+				}
+			}
+		});
+		HttpServer moved = servers.start("/moved/", exchange -> {
+			try (exchange) {
+				exchange.getResponseHeaders().add("Location", LocalHttpServers.location(whole, "/whole/file").toString());
+				exchange.sendResponseHeaders(301, -1);
+			}
+		});
+		assertOK(transport.downloadAsync(LocalHttpServers.location(moved, "/moved/file"), asyncTarget,
+				new NullProgressMonitor()).join());
+		assertArrayEquals(content, asyncTarget.toByteArray());
+	}
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.repository;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.equinox.internal.p2.repository.DownloadStatus;
+import org.eclipse.equinox.internal.p2.repository.Transport;
+import org.eclipse.equinox.internal.p2.transport.ecf.RepositoryTransport;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+import org.eclipse.equinox.p2.tests.LocalHttpServers;
+
+/**
+ * Tests the {@link RepositoryTransport} against an embedded HTTP server.
+ */
+public class RepositoryTransportTest extends AbstractProvisioningTest {
+
+	private static final String ENTITY_TAG = "\"5000\"";
+	private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+	private LocalHttpServers servers;
+	private URI location;
+	private Transport transport;
+	private final AtomicInteger requests = new AtomicInteger();
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		servers = new LocalHttpServers();
+		HttpServer server = servers.start("/content/", this::handleContent);
+		location = LocalHttpServers.location(server, "/content/file");
+		transport = new RepositoryTransport() {
+			@Override
+			protected ProtocolRule getProtocolRule(String scheme) {
+				// the test server does not speak https
+				return null;
+			}
+		};
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		servers.close();
+		super.tearDown();
+	}
+
+	/**
+	 * Serves 5000 bytes, or nothing when the entity tag of the request matches.
+	 */
+	private void handleContent(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		try (exchange) {
+			exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+			exchange.getResponseHeaders().add("ETag", ENTITY_TAG);
+			if (ENTITY_TAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				exchange.sendResponseHeaders(304, -1);
+				return;
+			}
+			byte[] content = content();
+			exchange.sendResponseHeaders(200, content.length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(content);
+			}
+		}
+	}
+
+	private static byte[] content() {
+		byte[] content = new byte[5000];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) (i * 31);
+		}
+		return content;
+	}
+
+	public void testDownloadIfModified() {
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+		IStatus status = transport.downloadIfModified(location, target, ENTITY_TAG, 1445412480000L,
+				new NullProgressMonitor());
+		assertOK(status);
+		assertEquals(DownloadStatus.CODE_NOT_MODIFIED, status.getCode());
+		assertEquals(1445412480000L, ((DownloadStatus) status).getLastModified());
+		assertEquals(0, target.size());
+
+		status = transport.downloadIfModified(location, target, "\"4999\"", 0, new NullProgressMonitor());
+		assertOK(status);
+		assertEquals(IStatus.OK, status.getCode());
+		assertArrayEquals(content(), target.toByteArray());
+		assertEquals(2, requests.get());
+	}
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.simpleconfigurator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import org.eclipse.equinox.p2.tests.TestData;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+
+/**
+ * Applies a configuration again to a running framework and checks that the
+ * full comparison with the installed bundles is only done when the
+ * configuration or the framework changed since it was last applied.
+ */
+public class FastPathTest extends AbstractSimpleConfiguratorTest {
+	private static final String CONFIGURATOR = "org.eclipse.equinox.internal.provisional.configurator.Configurator";
+	private static final String MARKER = "test.marker";
+
+	private File[] jars;
+	private File bundleInfo;
+	private BundleContext equinoxContext;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		jars = getBundleJars(TestData.getFile("simpleConfiguratorTest/bundlesTxt", ""));
+		bundleInfo = createBundlesTxt(jars);
+		equinoxContext = startFramework(bundleInfo, null);
+	}
+
+	private Bundle getSimpleConfigurator() {
+		for (Bundle bundle : equinoxContext.getBundles()) {
+			if ("org.eclipse.equinox.simpleconfigurator".equals(bundle.getSymbolicName())) {
+				return bundle;
+			}
+		}
+		fail("simpleconfigurator is not installed");
+		return null;
+	}
+
+	private File getLastApplied() {
+		return getSimpleConfigurator().getBundleContext().getDataFile("last.applied");
+	}
+
+	private Properties loadLastApplied() throws IOException {
+		Properties lastApplied = new Properties();
+		try (InputStream stream = Files.newInputStream(getLastApplied().toPath())) {
+			lastApplied.load(stream);
+		}
+		return lastApplied;
+	}
+
+	/**
+	 * Adds a property to the last applied state that is only kept if the state is
+	 * not written again by a full comparison.
+	 */
+	private void markLastApplied() throws IOException {
+		Properties lastApplied = loadLastApplied();
+		lastApplied.setProperty(MARKER, "true");
+		try (OutputStream stream = Files.newOutputStream(getLastApplied().toPath())) {
+			lastApplied.store(stream, null);
+		}
+	}
+
+	private void applyConfiguration() throws Exception {
+		// the configurator service comes from the class loader of the embedded framework
+		ServiceReference<?> reference = equinoxContext.getServiceReference(CONFIGURATOR);
+		assertNotNull(reference);
+		Object configurator = equinoxContext.getService(reference);
+		try {
+			configurator.getClass().getMethod("applyConfiguration", URL.class).invoke(configurator,
+					bundleInfo.toURI().toURL());
+		} finally {
+			equinoxContext.ungetService(reference);
+		}
+	}
+
+	public void testLastAppliedIsSaved() throws IOException {
+		Properties lastApplied = loadLastApplied();
+		assertNotNull(lastApplied.getProperty("configuration"));
+		assertNotNull(lastApplied.getProperty("framework"));
+		assertNotNull(lastApplied.getProperty("started"));
+	}
+
+	public void testUnchangedConfiguration() throws Exception {
+		Properties before = loadLastApplied();
+		markLastApplied();
+
+		applyConfiguration();
+
+		Properties after = loadLastApplied();
+		assertEquals("true", after.getProperty(MARKER));
+		assertEquals(before.getProperty("configuration"), after.getProperty("configuration"));
+		assertJarsInstalled(jars, equinoxContext.getBundles());
+	}
+
+	public void testChangedBundlesInfo() throws Exception {
+		File withoutJars = createBundlesTxt(new File[0]);
+		Files.copy(withoutJars.toPath(), bundleInfo.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		String configuration = loadLastApplied().getProperty("configuration");
+		markLastApplied();
+
+		applyConfiguration();
+
+		Properties after = loadLastApplied();
+		assertNull(after.getProperty(MARKER));
+		assertFalse(configuration.equals(after.getProperty("configuration")));
+		// the full comparison uninstalled the bundles that are no longer listed
+		assertEquals(2, equinoxContext.getBundles().length);
+	}
+
+	public void testFailedInstallIsRetried() throws Exception {
+		File missing = new File(bundleInfo.getParentFile(), "missing_1.0.0.jar");
+		Files.writeString(bundleInfo.toPath(), "missing,1.0.0," + missing.toURI() + ",4,true\n",
+				StandardOpenOption.APPEND);
+
+		applyConfiguration();
+
+		// without a last applied state the next start compares the bundles again
+		assertFalse(getLastApplied().exists());
+		assertJarsInstalled(jars, equinoxContext.getBundles());
+	}
+
+	public void testChangedFramework() throws Exception {
+		File otherBundle = getTestData("myBundle", "testData/simpleConfiguratorTest/myBundle_1.0.0.jar");
+		Bundle installed = equinoxContext.installBundle(otherBundle.toURI().toString());
+		markLastApplied();
+
+		applyConfiguration();
+
+		Properties after = loadLastApplied();
+		assertNull(after.getProperty(MARKER));
+		// the full comparison uninstalled the bundle that is not listed
+		assertEquals(Bundle.UNINSTALLED, installed.getState());
+		assertJarsInstalled(jars, equinoxContext.getBundles());
+	}
+}
@@ -21,7 +21,8 @@ import org.junit.platform.suite.api.Suite;
 		SimpleConfiguratorTestExtendedConfigured.class, SimpleConfiguratorUtilsTest.class,
 		SimpleConfiguratorUtilsExtendedTest.class, SimpleConfiguratorUtilsExtendedConfiguredTest.class,
 		BundlesTxtTest.class, BundlesTxtTestExtended.class, BundlesTxtTestExtendedConfigured.class,
-		NonExclusiveMode.class, NonExclusiveModeExtended.class, NonExclusiveModeExtendedConfigured.class })
+		NonExclusiveMode.class, NonExclusiveModeExtended.class, NonExclusiveModeExtendedConfigured.class,
+		FastPathTest.class })
 public class SimpleConfiguratorTests {
 
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2009 IBM Corporation and others.
+ * Copyright (c) 2008, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,8 +13,11 @@
  *******************************************************************************/
 package org.eclipse.equinox.p2.tests.simpleconfigurator.manipulator;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import org.eclipse.equinox.internal.simpleconfigurator.manipulator.SimpleConfiguratorManipulatorUtils;
 import org.eclipse.equinox.internal.simpleconfigurator.utils.BundleInfo;
 import org.eclipse.equinox.internal.simpleconfigurator.utils.SimpleConfiguratorUtils;
@@ -67,4 +70,25 @@ public class SimpleConfiguratorManipulatorUtilsTest extends AbstractProvisioning
 		}
 		fail("improper version error not caught");
 	}
+
+	public void testInterruptedWriteKeepsOldFile() throws IOException, URISyntaxException {
+		File folder = getTempFolder();
+		File bundlesInfo = new File(folder, "bundles.info");
+		BundleInfo servlet = new BundleInfo("javax.servlet", "2.4.0.v200806031604", new URI("plugins/javax.servlet_2.4.0.v200806031604.jar"), 4, false);
+		SimpleConfiguratorManipulatorUtils.writeConfiguration(new BundleInfo[] {servlet}, bundlesInfo);
+		String saved = Files.readString(bundlesInfo.toPath());
+		assertTrue(saved.contains("javax.servlet"));
+
+		// the bundle without a location is sorted last and fails the write after the first line
+		BundleInfo broken = new BundleInfo("zzz", "1.0.0", null, 4, false);
+		try {
+			SimpleConfiguratorManipulatorUtils.writeConfiguration(new BundleInfo[] {servlet, broken}, bundlesInfo);
+			fail("the bundle without a location should have failed the write");
+		} catch (NullPointerException e) {
+			// expected
+		}
+
+		assertEquals(saved, Files.readString(bundlesInfo.toPath()));
+		assertEquals(1, folder.list().length);
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2007, 2015 IBM Corporation and others.
+ *  Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -235,17 +235,9 @@ public class Util {
 		BundleInfo bundleInfo = Util.createBundleInfo(null, unit);
 
 		// Find the actual fully populated BundleInfo used by the runtime.
-		BundleInfo[] bundles = config.getBundles();
-		for (BundleInfo bundle : bundles) {
-			// Can't use BundleInfol.equals(), because bundleInfo is only partially
-			// populated.
-			if (bundleInfo.getSymbolicName().equals(bundle.getSymbolicName())
-					&& bundleInfo.getVersion().equals(bundle.getVersion())) {
-				return bundle;
-			}
-		}
-
-		return null;
+		// Can't use BundleInfo.equals(), because bundleInfo is only partially
+		// populated.
+		return config.getBundle(bundleInfo.getSymbolicName(), bundleInfo.getVersion());
 	}
 
 	private static String getFragmentHost(IInstallableUnit unit, String fragmentName) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2017 Cloudsmith Inc.
+ * Copyright (c) 2006, 2026 Cloudsmith Inc.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -119,6 +119,9 @@ public final class FileReader extends FileTransferJob implements IFileTransferLi
 	private boolean isPause = false;
 	private boolean hasPaused = false;
 	private IFileTransferPausable pasuable = null;
+	private Map<String, String> requestHeaders;
+	private boolean notModified;
+	private String contentRange;
 
 	/**
 	 * Create a new FileReader that will retry failed connection attempts and sleep
@@ -137,6 +140,47 @@ public final class FileReader extends FileTransferJob implements IFileTransferLi
 		this.agent = aAgent;
 	}
 
+	/**
+	 * Sets headers that are sent with the requests of this reader in addition to
+	 * the headers sent with every request, for example the validators of a
+	 * conditional request.
+	 */
+	public void setRequestHeaders(Map<String, String> headers) {
+		requestHeaders = headers;
+	}
+
+	/**
+	 * Answers whether the server answered the last request of a conditional
+	 * request with status code 304, nothing has been read then.
+	 */
+	public boolean isNotModified() {
+		return notModified;
+	}
+
+	/**
+	 * Returns the <code>Content-Range</code> header of the response to the last
+	 * request, or <code>null</code> if there was none.
+	 */
+	public String getContentRange() {
+		return contentRange;
+	}
+
+	private static String getHeader(Map<?, ?> headers, String name) {
+		if (headers == null) {
+			return null;
+		}
+		for (Map.Entry<?, ?> header : headers.entrySet()) {
+			if (header.getKey() instanceof String key && key.equalsIgnoreCase(name)) {
+				Object value = header.getValue();
+				if (value instanceof Collection<?> values) {
+					value = values.isEmpty() ? null : values.iterator().next();
+				}
+				return value == null ? null : value.toString();
+			}
+		}
+		return null;
+	}
+
 	public FileInfo getLastFileInfo() {
 		return fileInfo;
 	}
@@ -207,6 +251,8 @@ public final class FileReader extends FileTransferJob implements IFileTransferLi
 				fi.setName(source.getRemoteFileName());
 				fi.setSize(source.getFileLength());
 				fileInfo = fi;
+				contentRange = getHeader(((IIncomingFileTransferReceiveStartEvent) event).getResponseHeaders(),
+						"Content-Range"); //$NON-NLS-1$
 
 				((IIncomingFileTransferReceiveStartEvent) event).receive(theOutputStream, this);
 			} catch (IOException e) {
@@ -390,12 +436,28 @@ public final class FileReader extends FileTransferJob implements IFileTransferLi
 
 	public void readInto(URI uri, OutputStream anOutputStream, long startPos, IProgressMonitor monitor) //
 			throws CoreException, FileNotFoundException, AuthenticationFailedException, JREHttpClientRequiredException {
+		readInto(uri, anOutputStream, startPos != -1 ? new DownloadRange(startPos, -1) : null, monitor);
+	}
+
+	/**
+	 * Reads the given number of bytes from the given position of the file into
+	 * the output stream. A server that does not support ranges might send the
+	 * whole file instead, callers have to check the number of bytes they receive.
+	 */
+	public void readRangeInto(URI uri, OutputStream anOutputStream, long offset, long length,
+			IProgressMonitor monitor)
+			throws CoreException, FileNotFoundException, AuthenticationFailedException, JREHttpClientRequiredException {
+		readInto(uri, anOutputStream, new DownloadRange(offset, offset + length - 1), monitor);
+	}
+
+	private void readInto(URI uri, OutputStream anOutputStream, DownloadRange range, IProgressMonitor monitor) //
+			throws CoreException, FileNotFoundException, AuthenticationFailedException, JREHttpClientRequiredException {
 		if (monitor == null) {
 			monitor = new NullProgressMonitor();
 		}
+		long startPos = range != null ? range.getStartPosition() : -1;
 		try {
-			sendRetrieveRequest(uri, anOutputStream, (startPos != -1 ? new DownloadRange(startPos) : null), false,
-					monitor);
+			sendRetrieveRequest(uri, anOutputStream, range, false, monitor);
 			Job.getJobManager().join(this, new SuppressBlockedMonitor(monitor, 0));
 			waitPaused(uri, anOutputStream, startPos, monitor);
 			if (monitor.isCanceled() && connectEvent != null) {
@@ -459,6 +521,14 @@ public final class FileReader extends FileTransferJob implements IFileTransferLi
 		this.monitorStarted = false;
 		this.theOutputStream = outputStream;
 		this.requestUri = uri;
+		this.notModified = false;
+		this.contentRange = null;
+		Map<String, ?> requestOptions = options;
+		if (requestHeaders != null && !requestHeaders.isEmpty()) {
+			Map<String, String> headers = new HashMap<>(options.get(IRetrieveFileTransferOptions.REQUEST_HEADERS));
+			headers.putAll(requestHeaders);
+			requestOptions = Map.of(IRetrieveFileTransferOptions.REQUEST_HEADERS, headers);
+		}
 
 		for (int retryCount = 0;; retryCount++) {
 			if (monitor != null && monitor.isCanceled()) {
@@ -468,7 +538,7 @@ public final class FileReader extends FileTransferJob implements IFileTransferLi
 			try {
 				IFileID fileID = FileIDFactory.getDefault().createFileID(adapter.getRetrieveNamespace(),
 						uri.toString());
-				adapter.sendRetrieveRequest(fileID, range, this, options);
+				adapter.sendRetrieveRequest(fileID, range, this, requestOptions);
 			} catch (IncomingFileTransferException e) {
 				exception = e;
 			} catch (FileCreateException e) {
@@ -514,6 +584,11 @@ public final class FileReader extends FileTransferJob implements IFileTransferLi
 	private boolean checkException(URI uri, int attemptCounter)
 			throws CoreException, FileNotFoundException, AuthenticationFailedException, JREHttpClientRequiredException {
 		// note that 'exception' could have been captured in a callback
+		if (exception != null && RepositoryStatusHelper.isNotModified(exception)) {
+			// the answer to a conditional request, there is nothing to read
+			notModified = true;
+			exception = null;
+		}
 		if (exception != null) {
 			// check if HTTP client needs to be changed
 			RepositoryStatusHelper.checkJREHttpClientRequired(exception);
@@ -583,14 +658,20 @@ public final class FileReader extends FileTransferJob implements IFileTransferLi
 	private static class DownloadRange implements IFileRangeSpecification {
 
 		private final long startPosition;
+		private final long endPosition;
 
-		public DownloadRange(long startPos) {
+		/**
+		 * @param endPos the position of the last byte of the range, or -1 for the
+		 *               end of the file
+		 */
+		public DownloadRange(long startPos, long endPos) {
 			startPosition = startPos;
+			endPosition = endPos;
 		}
 
 		@Override
 		public long getEndPosition() {
-			return -1;
+			return endPosition;
 		}
 
 		@Override
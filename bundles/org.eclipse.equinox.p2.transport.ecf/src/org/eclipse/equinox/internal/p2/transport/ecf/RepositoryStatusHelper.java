@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2011 Cloudsmith Inc, and other.
+ * Copyright (c) 2009, 2026 Cloudsmith Inc, and other.
  * The code, documentation and other materials contained herein have been
  * licensed under the Eclipse Public License - v 1.0 by the individual
  * copyright holders listed above, as Initial Contributors under such license.
@@ -304,6 +304,14 @@ public abstract class RepositoryStatusHelper {
 		}
 	}
 
+	/**
+	 * Answers whether the given exception represents the answer to a conditional
+	 * request that the file is not modified (304 for HTTP).
+	 */
+	public static boolean isNotModified(Throwable t) {
+		return t instanceof IncomingFileTransferException e && e.getErrorCode() == 304;
+	}
+
 	/**
 	 * Translates exceptions representing "FileNotFound" into FileNotFoundException.
 	 * @param t the throwable to check
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2022 IBM Corporation and others.
+ * Copyright (c) 2006, 2026 IBM Corporation and others.
  * The code, documentation and other materials contained herein have been
  * licensed under the Eclipse Public License - v 1.0 by the copyright holder
  * listed above, as the Initial Contributor under such license. The text of
@@ -15,6 +15,10 @@ package org.eclipse.equinox.internal.p2.transport.ecf;
 
 import java.io.*;
 import java.net.*;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
@@ -94,6 +98,84 @@ public class RepositoryTransport extends Transport {
 
 	@Override
 	public IStatus download(URI toDownload, OutputStream target, IProgressMonitor monitor) {
+		return download(toDownload, target, -1, -1, null, monitor);
+	}
+
+	/**
+	 * Sends <code>If-None-Match</code> and <code>If-Modified-Since</code> with the
+	 * request, a response with status code 304 is reported with the code
+	 * {@link DownloadStatus#CODE_NOT_MODIFIED}. The entity tag of a download is
+	 * not known to ECF, so the responses of this transport only carry the last
+	 * modified date. Other than http locations are answered with <code>null</code>.
+	 */
+	@Override
+	public IStatus downloadIfModified(URI toDownload, OutputStream target, String entityTag, long lastModified,
+			IProgressMonitor monitor) {
+		if (!isHttp(toDownload)) {
+			return null;
+		}
+		Map<String, String> conditions = new HashMap<>(2);
+		if (entityTag != null) {
+			conditions.put("If-None-Match", entityTag); //$NON-NLS-1$
+		}
+		if (lastModified > 0) {
+			conditions.put("If-Modified-Since", DateTimeFormatter.RFC_1123_DATE_TIME //$NON-NLS-1$
+					.format(Instant.ofEpochMilli(lastModified).atZone(ZoneOffset.UTC)));
+		}
+		IStatus status = download(toDownload, target, -1, -1, conditions, monitor);
+		if (status instanceof DownloadStatus downloadStatus && status.getCode() == DownloadStatus.CODE_NOT_MODIFIED) {
+			// the earlier download is still current
+			downloadStatus.setEntityTag(entityTag);
+			downloadStatus.setLastModified(lastModified);
+		}
+		return status;
+	}
+
+	/**
+	 * Sends the range with the request. The target fails the download when more
+	 * bytes than the range arrive, which happens when the server does not support
+	 * ranges and sends the whole file. That, and a <code>Content-Range</code> that
+	 * is not the range of a file of the given size, is reported with the code
+	 * {@link DownloadStatus#CODE_RANGE_NOT_SUPPORTED}, the target then holds
+	 * bytes that are not of the range.
+	 */
+	@Override
+	public IStatus downloadRange(URI toDownload, OutputStream target, long offset, long length, long size,
+			IProgressMonitor monitor) {
+		if (offset < 0 || length <= 0 || !isHttp(toDownload)) {
+			return null;
+		}
+		RangeOutputStream range = new RangeOutputStream(target, length);
+		IStatus status = download(toDownload, range, offset, length, null, monitor);
+		if (range.exceeded) {
+			DownloadStatus notSupported = new DownloadStatus(IStatus.ERROR, Activator.ID,
+					DownloadStatus.CODE_RANGE_NOT_SUPPORTED, NLS.bind(Messages.Transport_RangeNotSupported, toDownload),
+					null);
+			return statusOn(target, notSupported, null);
+		}
+		if (status.isOK() && !ContentRange.matches(range.contentRange, offset, offset + length - 1, size)) {
+			DownloadStatus otherFile = new DownloadStatus(IStatus.ERROR, Activator.ID,
+					DownloadStatus.CODE_RANGE_NOT_SUPPORTED, NLS.bind(Messages.Transport_RangeOfOtherFile,
+							new Object[] {toDownload, range.contentRange, Long.valueOf(size)}),
+					null);
+			return statusOn(target, otherFile, null);
+		}
+		return status;
+	}
+
+	private static boolean isHttp(URI location) {
+		String scheme = location.getScheme();
+		return "http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * @param offset the position of the range to download, or -1 for the whole file
+	 * @param length the number of bytes in the range
+	 * @param conditions the validators of a conditional request, or
+	 *            <code>null</code>
+	 */
+	private IStatus download(URI toDownload, OutputStream target, long offset, long length,
+			Map<String, String> conditions, IProgressMonitor monitor) {
 		boolean promptUser = false;
 		boolean useJREHttp = false;
 		AuthenticationInfo loginDetails = null;
@@ -113,6 +195,7 @@ public class RepositoryTransport extends Transport {
 
 				// perform the download
 				reader = new FileReader(agent, context);
+				reader.setRequestHeaders(conditions);
 				ProvisioningListener listener = null;
 				IProvisioningEventBus eventBus = null;
 				try {
@@ -134,13 +217,23 @@ public class RepositoryTransport extends Transport {
 							eventBus.addListener(listener);
 						}
 					}
-					reader.readInto(secureToDownload, target, -1, monitor);
+					if (offset < 0) {
+						reader.readInto(secureToDownload, target, -1, monitor);
+					} else {
+						reader.readRangeInto(secureToDownload, target, offset, length, monitor);
+					}
 				} finally {
 					if (eventBus != null) {
 						eventBus.removeListener(listener);
 					}
 				}
 
+				if (reader.isNotModified()) {
+					DownloadStatus notModified = new DownloadStatus(IStatus.OK, Activator.ID,
+							DownloadStatus.CODE_NOT_MODIFIED, Status.OK_STATUS.getMessage(), null);
+					return statusOn(target, notModified, reader);
+				}
+
 				// check that job ended ok - throw exceptions otherwise
 				IStatus result = reader.getResult();
 				if (result == null) {
@@ -158,6 +251,9 @@ public class RepositoryTransport extends Transport {
 
 				// Download status is expected on success
 				DownloadStatus status = new DownloadStatus(IStatus.OK, Activator.ID, Status.OK_STATUS.getMessage());
+				if (target instanceof RangeOutputStream range) {
+					range.contentRange = reader.getContentRange();
+				}
 				return statusOn(target, status, reader);
 			} catch (UserCancelledException e) {
 				statusOn(target, new DownloadStatus(IStatus.CANCEL, Activator.ID, 1, "", null), reader); //$NON-NLS-1$
@@ -263,6 +359,55 @@ public class RepositoryTransport extends Transport {
 		return status;
 	}
 
+	/**
+	 * Passes at most the bytes of a range on to the target, more bytes fail the
+	 * download.
+	 */
+	private static class RangeOutputStream extends OutputStream implements IStateful {
+		private final OutputStream target;
+		private final long length;
+		private long written;
+		volatile boolean exceeded;
+		String contentRange;
+
+		RangeOutputStream(OutputStream target, long length) {
+			this.target = target;
+			this.length = length;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] {(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (written + len > length) {
+				exceeded = true;
+				throw new IOException("Received more than the " + length + " bytes of the range"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			target.write(b, off, len);
+			written += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			target.flush();
+		}
+
+		@Override
+		public void setStatus(IStatus status) {
+			if (target instanceof IStateful stateful) {
+				stateful.setStatus(status);
+			}
+		}
+
+		@Override
+		public IStatus getStatus() {
+			return target instanceof IStateful stateful ? stateful.getStatus() : Status.OK_STATUS;
+		}
+	}
+
 	@Override
 	public long getLastModified(URI toDownload, IProgressMonitor monitor)
 			throws CoreException, FileNotFoundException, AuthenticationFailedException {
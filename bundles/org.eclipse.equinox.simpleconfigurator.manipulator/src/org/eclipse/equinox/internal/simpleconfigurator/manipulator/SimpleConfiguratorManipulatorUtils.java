@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2017 IBM Corporation and others.
+ * Copyright (c) 2008, 2026 IBM Corporation and others.
  * All rights reserved.
  * This program and the accompanying materials are made available under the
  * terms of the Eclipse Public License 2.0 which accompanies this distribution,
@@ -37,27 +37,16 @@ public class SimpleConfiguratorManipulatorUtils {
 			throw new IllegalStateException(Messages.exception_failedToCreateDir);
 		}
 
-		IOException caughtException = null;
-		OutputStream stream = null;
+		// write next to the file and move it into place, so that a failure does not
+		// leave a truncated bundles.info behind
+		File tempFile = Utils.createTempSibling(outputFile);
 		try {
-			stream = new FileOutputStream(outputFile);
-			writeConfiguration(simpleInfos, stream);
-		} catch (IOException e) {
-			caughtException = e;
-		} finally {
-			try {
-				if (stream != null) {
-					stream.close();
-				}
-			} catch (IOException e) {
-				// we want to avoid over-writing the original exception
-				if (caughtException != null) {
-					caughtException = e;
-				}
+			try (OutputStream stream = new FileOutputStream(tempFile)) {
+				writeConfiguration(simpleInfos, stream);
 			}
-		}
-		if (caughtException != null) {
-			throw caughtException;
+			Utils.replaceFile(tempFile, outputFile);
+		} finally {
+			tempFile.delete();
 		}
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2017 IBM Corporation and others.
+ * Copyright (c) 2007, 2026 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -45,6 +45,12 @@ import org.osgi.framework.*;
 public class Activator implements BundleActivator {
 	public final static boolean DEBUG = Boolean.getBoolean("equinox.simpleconfigurator.debug");
 
+	/**
+	 * If this property is set to true, simpleconfigurator prints the time spent
+	 * in each step of applying a configuration.
+	 */
+	public final static boolean TIMING = Boolean.getBoolean("equinox.simpleconfigurator.timing"); //$NON-NLS-1$
+
 	/**
 	 * If this property is set to true, simpleconfigurator will attempt to read
 	 * multiple *.info files.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2020 IBM Corporation and others.
+ * Copyright (c) 2007, 2026 IBM Corporation and others.
  * All rights reserved.
  * This program and the accompanying materials are made available under the
  * terms of the Eclipse Public License 2.0 which accompanies this distribution,
@@ -17,6 +17,9 @@ package org.eclipse.equinox.internal.simpleconfigurator;
 
 import java.io.*;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.concurrent.CountDownLatch;
 import java.util.stream.Collectors;
@@ -36,7 +39,12 @@ import org.osgi.service.resolver.ResolutionException;
 class ConfigApplier {
 
 	private static final String LAST_BUNDLES_INFO = "last.bundles.info"; //$NON-NLS-1$
+	private static final String LAST_APPLIED = "last.applied"; //$NON-NLS-1$
+	private static final String KEY_CONFIGURATION_DIGEST = "configuration"; //$NON-NLS-1$
+	private static final String KEY_FRAMEWORK_DIGEST = "framework"; //$NON-NLS-1$
+	private static final String KEY_STARTED = "started"; //$NON-NLS-1$
 	private static final String PROP_DEVMODE = "osgi.dev"; //$NON-NLS-1$
+	private static final String PROP_FAST_PATH = "equinox.simpleconfigurator.fastpath"; //$NON-NLS-1$
 
 	private final BundleContext manipulatingContext;
 	private final FrameworkWiring frameworkWiring;
@@ -48,6 +56,11 @@ class ConfigApplier {
 	private final boolean deepRefresh;
 	private int maxRefreshTry;
 	private final Bundle systemBundle;
+	private final boolean fastPath;
+
+	// time spent in each step of the last install, in nanoseconds
+	private final Map<String, Long> stepTimes = new LinkedHashMap<>();
+	private long stepStart;
 
 	ConfigApplier(BundleContext context, Bundle callingBundle) {
 		deepRefresh = Boolean.parseBoolean(context.getProperty("equinox.simpleconfigurator.deeprefresh"));
@@ -57,6 +70,7 @@ class ConfigApplier {
 		} else {
 			maxRefreshTry = 10;
 		}
+		fastPath = !"false".equals(context.getProperty(PROP_FAST_PATH)); //$NON-NLS-1$
 		manipulatingContext = context;
 		this.callingBundle = callingBundle;
 		runningOnEquinox = "Eclipse".equals(context.getProperty(Constants.FRAMEWORK_VENDOR)); //$NON-NLS-1$
@@ -67,12 +81,60 @@ class ConfigApplier {
 	}
 
 	void install(URL url, boolean exclusiveMode) throws IOException {
+		stepTimes.clear();
+		stepStart = System.nanoTime();
+		try {
+			String configurationDigest = getConfigurationDigest(url, exclusiveMode);
+			endStep("digest"); //$NON-NLS-1$
+			if (configurationDigest != null && installUnchanged(configurationDigest)) {
+				return;
+			}
+			File lastApplied = getLastApplied();
+			if (lastApplied != null) {
+				lastApplied.delete();
+			}
+			AppliedConfiguration applied = applyConfiguration(url, exclusiveMode);
+			// bundles that failed to install or resolve are tried again on the next start
+			if (configurationDigest != null && applied != null && applied.complete()) {
+				saveLastApplied(configurationDigest, applied.started());
+			}
+		} finally {
+			if (Activator.TIMING) {
+				stepTimes.forEach((step, time) -> System.out.println(
+						"simpleconfigurator " + step + ": " + (time / 1000000) + "ms")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+		}
+	}
+
+	private void endStep(String step) {
+		long now = System.nanoTime();
+		stepTimes.merge(step, now - stepStart, Long::sum);
+		stepStart = now;
+	}
+
+	/**
+	 * The outcome of applying a configuration.
+	 *
+	 * @param started the bundles that were started
+	 * @param complete whether every bundle of the configuration was installed and
+	 *            resolved
+	 */
+	private record AppliedConfiguration(Collection<Bundle> started, boolean complete) {
+	}
+
+	/**
+	 * Applies a configuration by comparing it with the installed bundles.
+	 *
+	 * @return the outcome, or <code>null</code> if there was nothing to apply
+	 */
+	private AppliedConfiguration applyConfiguration(URL url, boolean exclusiveMode) throws IOException {
 		List<BundleInfo> bundleInfoList = SimpleConfiguratorUtils.readConfiguration(url, baseLocation);
+		endStep("read"); //$NON-NLS-1$
 		if (Activator.DEBUG) {
 			System.out.println("applyConfiguration() bundleInfoList.size()=" + bundleInfoList.size());
 		}
 		if (bundleInfoList.size() == 0) {
-			return;
+			return null;
 		}
 
 		BundleInfo[] expectedState = Utils.getBundleInfosFromList(bundleInfoList);
@@ -102,20 +164,21 @@ class ConfigApplier {
 				toUninstall.removeAll(Arrays.asList(expectedState));
 			}
 			saveStateAsLast(url);
+			endStep("lastState"); //$NON-NLS-1$
 		}
 
 		Set<Bundle> prevouslyResolved = getResolvedBundles();
 		Collection<Bundle> toRefresh = new LinkedHashSet<>();
 		Collection<Bundle> toStart = new ArrayList<>();
+		Collection<Bundle> configured = new ArrayList<>();
+		boolean installedAll = installBundles(expectedState, toStart, configured, toRefresh);
+		endStep("install"); //$NON-NLS-1$
 		if (exclusiveMode) {
-			toRefresh.addAll(installBundles(expectedState, toStart));
 			toRefresh.addAll(uninstallBundles(expectedState));
-		} else {
-			toRefresh.addAll(installBundles(expectedState, toStart));
-			if (toUninstall != null) {
-				toRefresh.addAll(uninstallBundles(toUninstall));
-			}
+		} else if (toUninstall != null) {
+			toRefresh.addAll(uninstallBundles(toUninstall));
 		}
+		endStep("uninstall"); //$NON-NLS-1$
 		if (!toRefresh.isEmpty()) {
 			if (manipulatingContext.getBundle().getState() == Bundle.STARTING) {
 				// This is the startup of simple configurator.
@@ -173,8 +236,164 @@ class ConfigApplier {
 					}
 				} while (maxtry-- > 0);
 			}
+			endStep("refresh"); //$NON-NLS-1$
+		}
+		startBundles(toStart.toArray(new Bundle[toStart.size()]));
+		endStep("start"); //$NON-NLS-1$
+		boolean resolvedAll = configured.stream()
+				.noneMatch(bundle -> bundle.getState() == Bundle.INSTALLED || bundle.getState() == Bundle.UNINSTALLED);
+		return new AppliedConfiguration(toStart, installedAll && resolvedAll);
+	}
+
+	/**
+	 * Starts the bundles of the last apply if neither the configuration nor the
+	 * installed bundles have changed since, which skips reading the configuration
+	 * and comparing it with the installed bundles.
+	 *
+	 * @return whether the configuration was applied
+	 */
+	private boolean installUnchanged(String configurationDigest) {
+		if (!fastPath) {
+			return false;
+		}
+		File lastAppliedFile = getLastApplied();
+		if (lastAppliedFile == null) {
+			return false;
+		}
+		Properties lastApplied = new Properties();
+		try (InputStream stream = new BufferedInputStream(new FileInputStream(lastAppliedFile))) {
+			lastApplied.load(stream);
+		} catch (IOException e) {
+			return false;
+		}
+		if (!configurationDigest.equals(lastApplied.getProperty(KEY_CONFIGURATION_DIGEST))
+				|| !getFrameworkDigest().equals(lastApplied.getProperty(KEY_FRAMEWORK_DIGEST))) {
+			return false;
+		}
+		List<Bundle> toStart = new ArrayList<>();
+		String started = lastApplied.getProperty(KEY_STARTED, ""); //$NON-NLS-1$
+		for (String id : started.split(",")) { //$NON-NLS-1$
+			if (id.isEmpty()) {
+				continue;
+			}
+			Bundle bundle;
+			try {
+				bundle = manipulatingContext.getBundle(Long.parseLong(id));
+			} catch (NumberFormatException e) {
+				return false;
+			}
+			if (bundle != null) {
+				toStart.add(bundle);
+			}
+		}
+		endStep("check"); //$NON-NLS-1$
+		if (Activator.DEBUG) {
+			System.out.println("applyConfiguration() configuration is unchanged, starting " + toStart.size() + " bundles"); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 		startBundles(toStart.toArray(new Bundle[toStart.size()]));
+		endStep("start"); //$NON-NLS-1$
+		// starting bundles can change their persistent state
+		if (!getFrameworkDigest().equals(lastApplied.getProperty(KEY_FRAMEWORK_DIGEST))) {
+			saveLastApplied(configurationDigest, toStart);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the file of the last applied configuration, or <code>null</code> if
+	 * the framework has no file system support.
+	 */
+	private File getLastApplied() {
+		return manipulatingContext.getDataFile(LAST_APPLIED);
+	}
+
+	private void saveLastApplied(String configurationDigest, Collection<Bundle> started) {
+		File lastAppliedFile = getLastApplied();
+		if (lastAppliedFile == null) {
+			return;
+		}
+		Properties lastApplied = new Properties();
+		lastApplied.setProperty(KEY_CONFIGURATION_DIGEST, configurationDigest);
+		lastApplied.setProperty(KEY_FRAMEWORK_DIGEST, getFrameworkDigest());
+		lastApplied.setProperty(KEY_STARTED, started.stream().map(bundle -> Long.toString(bundle.getBundleId()))
+				.distinct().collect(Collectors.joining(","))); //$NON-NLS-1$
+		try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(lastAppliedFile))) {
+			lastApplied.store(stream, null);
+		} catch (IOException e) {
+			lastAppliedFile.delete();
+		}
+	}
+
+	/**
+	 * Returns a digest of the configuration files and of the settings that affect
+	 * how they are applied, or <code>null</code> if it cannot be computed.
+	 */
+	private String getConfigurationDigest(URL url, boolean exclusiveMode) {
+		if (!fastPath) {
+			return null;
+		}
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+		digest.update((exclusiveMode + "\n" + baseLocation + "\n" + inDevMode + "\n" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ manipulatingContext.getProperty(SimpleConfiguratorConstants.PROP_KEY_USE_REFERENCE) + "\n") //$NON-NLS-1$
+						.getBytes(StandardCharsets.UTF_8));
+		try {
+			update(digest, url.openStream());
+			if (Activator.EXTENDED) {
+				for (File source : SimpleConfiguratorUtils.getInfoFiles()) {
+					digest.update(source.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+					update(digest, new FileInputStream(source));
+				}
+			}
+		} catch (IOException | URISyntaxException e) {
+			return null;
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static void update(MessageDigest digest, InputStream source) throws IOException {
+		try (InputStream stream = source) {
+			byte[] buffer = new byte[8192];
+			int bytesRead;
+			while ((bytesRead = stream.read(buffer)) != -1) {
+				digest.update(buffer, 0, bytesRead);
+			}
+		}
+	}
+
+	/**
+	 * Returns a digest of the installed bundles, which changes when a bundle is
+	 * installed, updated or uninstalled, or its start level or persistent
+	 * started state changes. The last modified time of a bundle only covers the
+	 * first, so the start level state is added as well.
+	 */
+	private String getFrameworkDigest() {
+		StringBuilder state = new StringBuilder();
+		for (Bundle bundle : manipulatingContext.getBundles()) {
+			state.append(bundle.getBundleId()).append(' ').append(bundle.getLastModified()).append(' ')
+					.append(bundle.getVersion());
+			BundleStartLevel startLevel = bundle.adapt(BundleStartLevel.class);
+			if (startLevel != null) {
+				try {
+					state.append(' ').append(startLevel.getStartLevel()).append(' ')
+							.append(startLevel.isPersistentlyStarted()).append(' ')
+							.append(startLevel.isActivationPolicyUsed());
+				} catch (IllegalStateException e) {
+					// uninstalled meanwhile, the digest differs anyway
+				}
+			}
+			state.append('\n');
+		}
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+			return HexFormat.of().formatHex(digest.digest(state.toString().getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			return state.toString();
+		}
 	}
 
 	/**
@@ -421,8 +640,17 @@ class ConfigApplier {
 		}
 	}
 
-	private ArrayList<Bundle> installBundles(BundleInfo[] finalList, Collection<Bundle> toStart) {
-		ArrayList<Bundle> toRefresh = new ArrayList<>();
+	/**
+	 * Installs the bundles of the configuration that are not installed yet.
+	 *
+	 * @param toStart receives the bundles that are marked as started
+	 * @param configured receives the bundles of the configuration
+	 * @param toRefresh receives the bundles that were installed or uninstalled
+	 * @return whether every bundle of the configuration could be installed
+	 */
+	private boolean installBundles(BundleInfo[] finalList, Collection<Bundle> toStart, Collection<Bundle> configured,
+			Collection<Bundle> toRefresh) {
+		boolean installedAll = true;
 
 		String useReferenceProperty = manipulatingContext.getProperty(SimpleConfiguratorConstants.PROP_KEY_USE_REFERENCE);
 		boolean useReference = useReferenceProperty == null ? runningOnEquinox : Boolean.parseBoolean(useReferenceProperty);
@@ -474,6 +702,7 @@ class ConfigApplier {
 						System.err.println("Can't install " + symbolicName + '/' + version + " from location " + element.getLocation()); //$NON-NLS-1$ //$NON-NLS-2$
 						e.printStackTrace();
 					}
+					installedAll = false;
 					continue;
 				}
 			} else if (inDevMode && current.getBundleId() != 0 && current != manipulatingContext.getBundle() && !bundleLocation.equals(current.getLocation()) && !current.getLocation().startsWith("initial@")) {
@@ -487,6 +716,7 @@ class ConfigApplier {
 						System.err.println("Can't uninstall " + symbolicName + '/' + version + " from location " + current.getLocation()); //$NON-NLS-1$ //$NON-NLS-2$
 						e.printStackTrace();
 					}
+					installedAll = false;
 					continue;
 				}
 				try {
@@ -500,10 +730,13 @@ class ConfigApplier {
 						System.err.println("Can't install " + symbolicName + '/' + version + " from location " + element.getLocation()); //$NON-NLS-1$ //$NON-NLS-2$
 						e.printStackTrace();
 					}
+					installedAll = false;
 					continue;
 				}
 			}
 
+			configured.add(current);
+
 			// Mark Started
 			if (element.isMarkedAsStarted()) {
 				toStart.add(current);
@@ -530,7 +763,7 @@ class ConfigApplier {
 				Utils.log(4, null, null, "Failed to set start level of Bundle:" + element, ex); //$NON-NLS-1$
 			}
 		}
-		return toRefresh;
+		return installedAll;
 	}
 
 	private boolean isFragment(Bundle current) {